@@ -7,6 +7,7 @@ package com.artipie.conda;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -15,23 +16,32 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 
 /**
- * Benchmark for {@link CondaRepodata.Append}.
+ * Benchmark for {@link CondaRepodata.Append}. Runs with GC profiler to report
+ * allocation rate per operation (`gc.alloc.rate.norm`) along with the average time.
+ * Parameter {@code entries} adds synthetic package entries to the provided repodata.json
+ * to measure the append against repodata of production size.
  * @since 0.2
  */
 @BenchmarkMode(Mode.AverageTime)
@@ -46,6 +56,13 @@ public class CondaRepodataAppendBench {
      */
     private static final String BENCH_DIR = System.getenv("BENCH_DIR");
 
+    /**
+     * Count of synthetic package entries to add to the provided repodata.json.
+     * @checkstyle VisibilityModifierCheck (5 lines)
+     */
+    @Param({"0", "150000"})
+    public int entries;
+
     /**
      * Benchmark repodata.json.
      */
@@ -77,6 +94,9 @@ public class CondaRepodataAppendBench {
                 }
             }
         }
+        if (this.entries > 0) {
+            this.repodata = CondaRepodataAppendBench.scaled(this.repodata, this.entries);
+        }
     }
 
     @Benchmark
@@ -102,11 +122,49 @@ public class CondaRepodataAppendBench {
         new Runner(
             new OptionsBuilder()
                 .include(CondaRepodataAppendBench.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
                 .forks(1)
                 .build()
         ).run();
     }
 
+    /**
+     * Adds synthetic entries to the packages of repodata.json.
+     * @param repodata Repodata.json bytes
+     * @param count Count of entries to add
+     * @return Repodata.json with added entries
+     */
+    private static byte[] scaled(final byte[] repodata, final int count) {
+        final JsonObject json;
+        try (JsonReader reader = Json.createReader(new ByteArrayInputStream(repodata))) {
+            json = reader.readObject();
+        }
+        final JsonObjectBuilder packages = Json.createObjectBuilder();
+        if (json.containsKey("packages")) {
+            packages.addAll(Json.createObjectBuilder(json.getJsonObject("packages")));
+        }
+        for (int idx = 0; idx < count; idx = idx + 1) {
+            final String name = String.format("bench-%d", idx);
+            packages.add(
+                String.format("%s-1.0.0-py_0.tar.bz2", name),
+                Json.createObjectBuilder()
+                    .add("build", "py_0")
+                    .add("build_number", 0)
+                    .add("depends", Json.createArrayBuilder().add("python"))
+                    .add("license", "MIT")
+                    .add("md5", DigestUtils.md5Hex(name))
+                    .add("name", name)
+                    .add("sha256", DigestUtils.sha256Hex(name))
+                    .add("size", 1024)
+                    .add("subdir", "noarch")
+                    .add("timestamp", 1_600_000_000_000L)
+                    .add("version", "1.0.0")
+            );
+        }
+        return Json.createObjectBuilder(json).add("packages", packages).build()
+            .toString().getBytes(StandardCharsets.UTF_8);
+    }
+
     /**
      * Package item: .conda or tar.bz2 package as bytes, file name and checksums.
      * @since 0.2
@@ -7,20 +7,21 @@ package com.artipie.conda;
 import com.artipie.asto.ArtipieIOException;
 import com.artipie.asto.misc.UncheckedIOFunc;
 import com.artipie.asto.misc.UncheckedIOScalar;
+import com.artipie.conda.meta.EntryPredicate;
 import com.artipie.conda.meta.InfoIndex;
 import com.artipie.conda.meta.JsonMaid;
 import com.artipie.conda.meta.MergedJson;
+import com.artipie.conda.meta.PackageRecord;
 import com.fasterxml.jackson.core.JsonFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import javax.json.Json;
-import javax.json.JsonObject;
 
 /**
  * Conda repository repodata.
@@ -71,6 +72,22 @@ public interface CondaRepodata {
                 throw new ArtipieIOException(err);
             }
         }
+
+        /**
+         * Removes items matched by predicate from repodata json, see {@link EntryPredicate}.
+         * @param removed Predicate of the packages to remove
+         * @throws ArtipieIOException On IO errors
+         */
+        public void perform(final EntryPredicate removed) {
+            final JsonFactory factory = new JsonFactory();
+            try {
+                new JsonMaid.Jackson(
+                    factory.createGenerator(this.out), factory.createParser(this.input)
+                ).clean(removed);
+            } catch (final IOException err) {
+                throw new ArtipieIOException(err);
+            }
+        }
     }
 
     /**
@@ -126,28 +143,67 @@ public interface CondaRepodata {
          * @throws ArtipieIOException On IO error
          */
         public void perform(final List<PackageItem> packages) {
-            final Map<String, JsonObject> items = new HashMap<>(packages.size());
+            new Update(this.input, this.out).perform(packages, Collections.emptySet());
+        }
+    }
+
+    /**
+     * Adds and removes records about conda packages in a single pass over repodata file,
+     * or creates new repodata with provided packages info. Use it to replace or promote
+     * packages instead of separate {@link Remove} and {@link Append} operations.
+     * Output/Input streams are not closed by this implementation, these operations should
+     * be done from outside.
+     * @since 0.4
+     */
+    final class Update {
+
+        /**
+         * Optional json repodata input stream: if repodata does not exist, pass empty optional,
+         * new repodata file will be generated.
+         */
+        private final Optional<InputStream> input;
+
+        /**
+         * Json repodata output, where write the result.
+         */
+        private final OutputStream out;
+
+        /**
+         * Ctor.
+         * @param input Optional json repodata input stream
+         * @param out Json repodata output
+         */
+        public Update(final Optional<InputStream> input, final OutputStream out) {
+            this.input = input;
+            this.out = out;
+        }
+
+        /**
+         * Ctor.
+         * @param input Json repodata input stream
+         * @param out Json repodata output
+         */
+        public Update(final InputStream input, final OutputStream out) {
+            this(Optional.of(input), out);
+        }
+
+        /**
+         * Appends provided packages metadata and removes packages from `packages.json`.
+         * @param packages Packages to add
+         * @param removed Filenames or sha256 checksums of the packages to remove
+         * @throws ArtipieIOException On IO error
+         */
+        public void perform(final List<PackageItem> packages, final Set<String> removed) {
+            final List<PackageRecord> items = new ArrayList<>(packages.size());
             for (final PackageItem pkg : packages) {
-                final InfoIndex mtd;
-                if (pkg.filename.endsWith(".conda")) {
-                    mtd = new InfoIndex.Conda(pkg.input);
-                } else {
-                    mtd = new InfoIndex.TarBz(pkg.input);
-                }
-                items.put(
-                    pkg.filename,
-                    Json.createObjectBuilder(new UncheckedIOScalar<>(mtd::json).value())
-                        .add("size", pkg.size)
-                        .add("md5", pkg.md5)
-                        .add("sha256", pkg.sha256)
-                        .build()
-                );
+                items.add(pkg.record());
             }
             final JsonFactory factory = new JsonFactory();
             try {
-                new MergedJson.Jackson(
+                new MergedJson.Sorted(
                     factory.createGenerator(this.out),
-                    this.input.map(new UncheckedIOFunc<>(factory::createParser))
+                    this.input.map(new UncheckedIOFunc<>(factory::createParser)),
+                    removed
                 ).merge(items);
             } catch (final IOException err) {
                 throw new ArtipieIOException(err);
@@ -207,6 +263,27 @@ public interface CondaRepodata {
             this.md5 = md5;
             this.size = size;
         }
+
+        /**
+         * Reads package metadata and creates repodata record of the package.
+         * @return Package record
+         */
+        PackageRecord record() {
+            final InfoIndex mtd;
+            if (this.filename.endsWith(".conda")) {
+                mtd = new InfoIndex.Conda(this.input);
+            } else {
+                mtd = new InfoIndex.TarBz(this.input);
+            }
+            return new PackageRecord(
+                this.filename,
+                Json.createObjectBuilder(new UncheckedIOScalar<>(mtd::json).value())
+                    .add("size", this.size)
+                    .add("md5", this.md5)
+                    .add("sha256", this.sha256)
+                    .build()
+            );
+        }
     }
 
 }
@@ -0,0 +1,305 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.ArtipieIOException;
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.KeyLastPart;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.conda.meta.ChannelData;
+import com.artipie.conda.meta.ChannelSummary;
+import com.artipie.conda.meta.RepodataEntries;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import javax.json.JsonObject;
+
+/**
+ * Asto channel data keeps `channeldata.json` in the channel root up to date: the summary of
+ * the changed subdir, see {@link ChannelSummary}, is rebuilt from its repodata and saved next
+ * to it, see {@link ChannelKey}, then channel data is merged from the summaries of all the
+ * channel subdirs, see {@link ChannelData}. Subdirs are taken from the stored channel data,
+ * so only the small summaries of the other subdirs are read, never their repodata. Package
+ * metadata which is not kept in repodata is added to the summary at upload time, see
+ * {@link #add(String, Map)}. Updates of the summary and of the channel data, which is shared
+ * by the subdirs, are serialized, see {@link RepodataQueue}.
+ * @since 0.4
+ */
+public final class AstoChannelData {
+
+    /**
+     * Channel data file name.
+     */
+    private static final String CHANNELDATA = "channeldata.json";
+
+    /**
+     * Repodata file name.
+     */
+    private static final String REPODATA = "repodata.json";
+
+    /**
+     * Abstract storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Repodata file key.
+     */
+    private final Key key;
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param key Repodata file key
+     */
+    public AstoChannelData(final Storage asto, final Key key) {
+        this.asto = asto;
+        this.key = key;
+    }
+
+    /**
+     * Adds upload time metadata of the package to the subdir summary, package gets to the
+     * channel data on the next repodata update.
+     * @param filename Package filename
+     * @param files Package info json files by name, see
+     *  {@link com.artipie.conda.meta.InfoIndex#files()}
+     * @return Completable operation
+     */
+    public CompletionStage<Void> add(final String filename, final Map<String, JsonObject> files) {
+        return this.add(Collections.singletonMap(filename, files));
+    }
+
+    /**
+     * Adds upload time metadata of the packages to the subdir summary in one summary update,
+     * see {@link #add(String, Map)}.
+     * @param packages Packages info json files by package filename
+     * @return Completable operation
+     */
+    public CompletionStage<Void> add(final Map<String, Map<String, JsonObject>> packages) {
+        final Key sidecar = new ChannelKey(this.key);
+        return new RepodataQueue(this.asto, sidecar).run(
+            () -> this.summary(sidecar).thenCompose(
+                summary -> {
+                    final ChannelSummary res;
+                    try {
+                        res = summary.orElseGet(ChannelSummary::new).with(packages);
+                    } catch (final IOException err) {
+                        throw new ArtipieIOException(err);
+                    }
+                    return this.save(sidecar, res);
+                }
+            )
+        );
+    }
+
+    /**
+     * Updates the subdir summary from the given repodata bytes, which should be the actual
+     * content of the repodata file, and regenerates channel data. Does nothing if repodata is
+     * not in a subdir.
+     * @param repodata Repodata bytes
+     * @return Completable operation
+     */
+    public CompletionStage<Void> update(final byte[] repodata) {
+        return this.update(new RepodataEntries(repodata));
+    }
+
+    /**
+     * Updates the subdir summary from the entries of the repodata, which should be the actual
+     * content of the repodata file, and regenerates channel data, see {@link #update(byte[])}.
+     * @param repodata Repodata entries
+     * @return Completable operation
+     */
+    public CompletionStage<Void> update(final RepodataEntries repodata) {
+        final Optional<String> subdir = this.key.parent()
+            .filter(parent -> !parent.string().isEmpty())
+            .map(parent -> new KeyLastPart(parent).get());
+        final CompletionStage<Void> res;
+        if (subdir.isPresent()) {
+            res = this.update(subdir.get(), repodata);
+        } else {
+            res = CompletableFuture.allOf();
+        }
+        return res;
+    }
+
+    /**
+     * Updates the subdir summary and regenerates channel data.
+     * @param subdir Subdir name
+     * @param repodata Repodata entries
+     * @return Completable operation
+     */
+    private CompletionStage<Void> update(final String subdir, final RepodataEntries repodata) {
+        final Key sidecar = new ChannelKey(this.key);
+        return new RepodataQueue(this.asto, sidecar).run(
+            () -> this.summary(sidecar).thenCompose(
+                stored -> {
+                    final ChannelSummary summary;
+                    try {
+                        summary = stored.orElseGet(ChannelSummary::new)
+                            .update(subdir, repodata);
+                    } catch (final IOException err) {
+                        throw new ArtipieIOException(err);
+                    }
+                    return this.save(sidecar, summary).thenApply(nothing -> summary);
+                }
+            )
+        ).thenCompose(
+            summary -> new RepodataQueue(
+                this.asto, new Key.From(this.root(), AstoChannelData.CHANNELDATA)
+            ).run(
+                () -> this.subdirs().thenCompose(
+                    subdirs -> this.summaries(subdirs, subdir, summary)
+                ).thenCompose(this::save)
+            )
+        );
+    }
+
+    /**
+     * Reads the summaries of the channel subdirs, subdirs without summary are skipped.
+     * @param subdirs Channel subdirs
+     * @param subdir Updated subdir
+     * @param summary Updated subdir summary
+     * @return Summaries by subdir
+     */
+    private CompletionStage<Map<String, ChannelSummary>> summaries(final Set<String> subdirs,
+        final String subdir, final ChannelSummary summary) {
+        final Map<String, ChannelSummary> res = new TreeMap<>();
+        res.put(subdir, summary);
+        CompletionStage<Void> all = CompletableFuture.allOf();
+        for (final String other : subdirs) {
+            if (!other.isEmpty() && !other.equals(subdir)) {
+                all = all.thenCompose(
+                    nothing -> this.summary(
+                        new ChannelKey(new Key.From(this.root(), other, AstoChannelData.REPODATA))
+                    ).thenAccept(item -> item.ifPresent(value -> res.put(other, value)))
+                );
+            }
+        }
+        return all.thenApply(nothing -> res);
+    }
+
+    /**
+     * Reads channel subdirs from the stored channel data.
+     * @return Subdirs, empty if channel data does not exist or is invalid
+     */
+    private CompletionStage<Set<String>> subdirs() {
+        final Key channel = new Key.From(this.root(), AstoChannelData.CHANNELDATA);
+        return this.asto.exists(channel).thenCompose(
+            exists -> {
+                final CompletionStage<Set<String>> res;
+                if (exists) {
+                    res = this.asto.value(channel)
+                        .thenCompose(content -> new PublisherAs(content).bytes())
+                        .thenApply(AstoChannelData::subdirs);
+                } else {
+                    res = CompletableFuture.completedFuture(Collections.emptySet());
+                }
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Reads stored summary if it exists and is valid.
+     * @param sidecar Summary key
+     * @return Summary if found
+     */
+    private CompletionStage<Optional<ChannelSummary>> summary(final Key sidecar) {
+        return this.asto.exists(sidecar).thenCompose(
+            exists -> {
+                final CompletionStage<Optional<ChannelSummary>> res;
+                if (exists) {
+                    res = this.asto.value(sidecar)
+                        .thenCompose(content -> new PublisherAs(content).bytes())
+                        .thenApply(AstoChannelData::summary);
+                } else {
+                    res = CompletableFuture.completedFuture(Optional.empty());
+                }
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Saves subdir summary.
+     * @param sidecar Summary key
+     * @param summary Summary
+     * @return Completable operation
+     */
+    private CompletionStage<Void> save(final Key sidecar, final ChannelSummary summary) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            summary.writeTo(out);
+        } catch (final IOException err) {
+            throw new ArtipieIOException(err);
+        }
+        return this.asto.save(sidecar, new Content.From(out.toByteArray()));
+    }
+
+    /**
+     * Saves channel data merged from the summaries.
+     * @param summaries Summaries by subdir
+     * @return Completable operation
+     */
+    private CompletionStage<Void> save(final Map<String, ChannelSummary> summaries) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            new ChannelData(summaries).writeTo(out);
+        } catch (final IOException err) {
+            throw new ArtipieIOException(err);
+        }
+        return this.asto.save(
+            new Key.From(this.root(), AstoChannelData.CHANNELDATA),
+            new Content.From(out.toByteArray())
+        );
+    }
+
+    /**
+     * Channel root key, the parent of the subdir.
+     * @return Root key
+     */
+    private Key root() {
+        return this.key.parent().flatMap(Key::parent).orElse(Key.ROOT);
+    }
+
+    /**
+     * Reads stored summary, invalid summary is treated as absent.
+     * @param bytes Summary bytes
+     * @return Summary if it is valid
+     */
+    private static Optional<ChannelSummary> summary(final byte[] bytes) {
+        Optional<ChannelSummary> res;
+        try {
+            res = Optional.of(new ChannelSummary.Stored(bytes).summary());
+        } catch (final IOException err) {
+            res = Optional.empty();
+        }
+        return res;
+    }
+
+    /**
+     * Reads subdirs of the stored channel data, invalid channel data is treated as absent.
+     * @param bytes Channel data bytes
+     * @return Subdirs
+     */
+    private static Set<String> subdirs(final byte[] bytes) {
+        Set<String> res;
+        try {
+            res = new ChannelData.Stored(bytes).subdirs();
+        } catch (final IOException err) {
+            res = new TreeSet<>();
+        }
+        return res;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.ArtipieIOException;
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.conda.meta.CurrentRepodata;
+import com.artipie.conda.meta.RepodataEntries;
+import com.artipie.conda.meta.RepodataStamp;
+import com.artipie.conda.meta.StampingStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Asto current repodata generates `current_repodata.json` from `repodata.json` of the same
+ * subdir, see {@link CurrentRepodata}, and saves it next to the repodata together with its
+ * revision stamp, see {@link RepodataStamp}.
+ * @since 0.4
+ */
+public final class AstoCurrentRepodata {
+
+    /**
+     * Current repodata file name.
+     */
+    private static final String CURRENT = "current_repodata.json";
+
+    /**
+     * Abstract storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Repodata file key.
+     */
+    private final Key key;
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param key Repodata file key
+     */
+    public AstoCurrentRepodata(final Storage asto, final Key key) {
+        this.asto = asto;
+        this.key = key;
+    }
+
+    /**
+     * Generates current repodata from the stored repodata, does nothing if repodata does
+     * not exist.
+     * @return Completable operation
+     */
+    public CompletionStage<Void> update() {
+        return this.asto.exists(this.key).thenCompose(
+            exists -> {
+                final CompletionStage<Void> res;
+                if (exists) {
+                    res = this.asto.value(this.key)
+                        .thenCompose(content -> new PublisherAs(content).bytes())
+                        .thenCompose(this::update);
+                } else {
+                    res = CompletableFuture.allOf();
+                }
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Generates current repodata from the given repodata bytes, which should be the actual
+     * content of the repodata file.
+     * @param repodata Repodata bytes
+     * @return Completable operation
+     */
+    public CompletionStage<Void> update(final byte[] repodata) {
+        return this.update(new RepodataEntries(repodata));
+    }
+
+    /**
+     * Generates current repodata from the entries of the repodata, which should be the actual
+     * content of the repodata file.
+     * @param repodata Repodata entries
+     * @return Completable operation
+     */
+    public CompletionStage<Void> update(final RepodataEntries repodata) {
+        final ByteArrayOutputStream res = new ByteArrayOutputStream();
+        final StampingStream out = new StampingStream(res);
+        final ByteArrayOutputStream stamp = new ByteArrayOutputStream();
+        try {
+            new CurrentRepodata(repodata, out).write();
+            out.stamp().writeTo(stamp);
+        } catch (final IOException err) {
+            throw new ArtipieIOException(err);
+        }
+        final Key current = this.key.parent()
+            .<Key>map(parent -> new Key.From(parent, AstoCurrentRepodata.CURRENT))
+            .orElse(new Key.From(AstoCurrentRepodata.CURRENT));
+        return this.asto.save(current, new Content.From(res.toByteArray())).thenCompose(
+            nothing -> this.asto.save(new StampKey(current), new Content.From(stamp.toByteArray()))
+        );
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.ArtipieException;
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.conda.meta.InfoIndex;
+import io.reactivex.Flowable;
+import io.reactivex.schedulers.Schedulers;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.reactivestreams.Publisher;
+
+/**
+ * Asto ingestion saves uploaded package to the storage and, in the same pass over the body,
+ * computes the package size, md5 and sha256 checksums and extracts the package info json
+ * files, see {@link InfoIndex#files()}. Body buffers are hashed and their copies are handed to
+ * the info extractor, running on the io scheduler, through a bounded pipe as they stream to the
+ * storage, so the package is never read back from the storage. Copies are pushed, because the
+ * body publisher and the storage may reuse the buffers before the extractor reads them.
+ * @since 0.4
+ */
+public final class AstoIngestion {
+
+    /**
+     * Maximum number of body buffers waiting for the info extractor.
+     */
+    private static final int PIPE = 16;
+
+    /**
+     * Abstract storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Package key.
+     */
+    private final Key key;
+
+    /**
+     * Info index of the package stream.
+     */
+    private final Function<InputStream, InfoIndex> index;
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param key Key to save package with
+     * @param index Info index of the package stream, {@link InfoIndex.TarBz} or
+     *  {@link InfoIndex.Conda}
+     */
+    public AstoIngestion(final Storage asto, final Key key,
+        final Function<InputStream, InfoIndex> index) {
+        this.asto = asto;
+        this.key = key;
+        this.index = index;
+    }
+
+    /**
+     * Saves the package body to the storage.
+     * @param body Package body
+     * @return Ingested package as completion action, fails if package is not valid
+     */
+    public CompletionStage<Ingested> save(final Publisher<ByteBuffer> body) {
+        final MessageDigest md5 = AstoIngestion.digest("MD5");
+        final MessageDigest sha = AstoIngestion.digest("SHA-256");
+        final AtomicLong size = new AtomicLong();
+        final BytesPipe pipe = new BytesPipe(AstoIngestion.PIPE);
+        final CompletableFuture<Map<String, JsonObject>> files = CompletableFuture.supplyAsync(
+            () -> {
+                try (InputStream input = pipe) {
+                    return this.index.apply(input).files();
+                } catch (final IOException err) {
+                    throw new ArtipieException(err);
+                }
+            },
+            task -> Schedulers.io().scheduleDirect(task)
+        );
+        return this.asto.save(
+            this.key,
+            new Content.From(
+                Flowable.fromPublisher(body)
+                    .observeOn(Schedulers.io())
+                    .doOnNext(
+                        buffer -> {
+                            md5.update(buffer.duplicate());
+                            sha.update(buffer.duplicate());
+                            size.addAndGet(buffer.remaining());
+                            pipe.push(AstoIngestion.copy(buffer));
+                        }
+                    ).doFinally(pipe::finish)
+            )
+        ).thenCombine(
+            files,
+            (nothing, info) -> new Ingested(
+                info, size.get(), AstoIngestion.hex(md5.digest()),
+                AstoIngestion.hex(sha.digest())
+            )
+        );
+    }
+
+    /**
+     * Copy of the remaining bytes of the buffer.
+     * @param buffer Buffer
+     * @return Copy
+     */
+    private static ByteBuffer copy(final ByteBuffer buffer) {
+        final ByteBuffer res = ByteBuffer.allocate(buffer.remaining());
+        res.put(buffer.duplicate());
+        res.flip();
+        return res;
+    }
+
+    /**
+     * Message digest by algorithm name.
+     * @param alg Algorithm
+     * @return Message digest
+     */
+    private static MessageDigest digest(final String alg) {
+        try {
+            return MessageDigest.getInstance(alg);
+        } catch (final NoSuchAlgorithmException err) {
+            throw new IllegalStateException(err);
+        }
+    }
+
+    /**
+     * Hex representation of the bytes.
+     * @param bytes Bytes
+     * @return Lowercase hex string
+     */
+    private static String hex(final byte[] bytes) {
+        final StringBuilder res = new StringBuilder(bytes.length * 2);
+        for (final byte item : bytes) {
+            res.append(String.format("%02x", item));
+        }
+        return res.toString();
+    }
+
+    /**
+     * Ingested package.
+     * @since 0.4
+     */
+    public static final class Ingested {
+
+        /**
+         * Info json files by name.
+         */
+        private final Map<String, JsonObject> files;
+
+        /**
+         * Package size.
+         */
+        private final long size;
+
+        /**
+         * Package md5 checksum hex.
+         */
+        private final String md5;
+
+        /**
+         * Package sha256 checksum hex.
+         */
+        private final String sha;
+
+        /**
+         * Ctor.
+         * @param files Info json files by name
+         * @param size Package size
+         * @param md5 Package md5 checksum hex
+         * @param sha Package sha256 checksum hex
+         * @checkstyle ParameterNumberCheck (5 lines)
+         */
+        Ingested(final Map<String, JsonObject> files, final long size, final String md5,
+            final String sha) {
+            this.files = Collections.unmodifiableMap(new HashMap<>(files));
+            this.size = size;
+            this.md5 = md5;
+            this.sha = sha;
+        }
+
+        /**
+         * Package info json files by name, see {@link InfoIndex#files()}.
+         * @return Info json files
+         */
+        public Map<String, JsonObject> files() {
+            return this.files;
+        }
+
+        /**
+         * Package size in bytes.
+         * @return Size
+         */
+        public long size() {
+            return this.size;
+        }
+
+        /**
+         * Repodata entry of the package: info index json with size, md5 and sha256 added.
+         * @return Repodata entry json
+         */
+        public JsonObject entry() {
+            return Json.createObjectBuilder(this.files.get(InfoIndex.FILE_NAME))
+                .add("size", this.size)
+                .add("md5", this.md5)
+                .add("sha256", this.sha)
+                .build();
+        }
+    }
+}
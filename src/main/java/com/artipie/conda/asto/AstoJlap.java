@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.ArtipieIOException;
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.conda.meta.Jlap;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Asto JLAP updates `repodata.jlap` file of the repodata, see {@link Jlap}, after the repodata
+ * is rewritten. Patch is appended only if the log ends with the revision patch starts from,
+ * otherwise the log is started again from the new revision and clients download the whole
+ * repodata once. Log is trimmed to the size limit, the oldest patches are dropped.
+ * @since 0.4
+ */
+final class AstoJlap {
+
+    /**
+     * Default log size limit, 3 MiB.
+     */
+    private static final long LIMIT = 3L * 1024 * 1024;
+
+    /**
+     * Abstract storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Repodata file key.
+     */
+    private final Key key;
+
+    /**
+     * Log size limit in bytes.
+     */
+    private final long limit;
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param key Repodata file key
+     */
+    AstoJlap(final Storage asto, final Key key) {
+        this(asto, key, AstoJlap.LIMIT);
+    }
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param key Repodata file key
+     * @param limit Log size limit in bytes
+     */
+    AstoJlap(final Storage asto, final Key key, final long limit) {
+        this.asto = asto;
+        this.key = key;
+        this.limit = limit;
+    }
+
+    /**
+     * Appends patch between repodata revisions to the log.
+     * @param from BLAKE2b-256 checksum of the previous revision, if any
+     * @param patch JSON Patch from the previous revision, if it could be built
+     * @param latest BLAKE2b-256 checksum of the new revision
+     * @return Completable operation
+     */
+    CompletionStage<Void> append(final Optional<String> from, final Optional<String> patch,
+        final String latest) {
+        final Key jlap = new JlapKey(this.key);
+        return this.stored(jlap).thenCompose(
+            stored -> {
+                final Jlap res;
+                if (stored.isPresent() && from.isPresent() && patch.isPresent()
+                    && stored.get().latest().equals(from.get())) {
+                    if (from.get().equals(latest)) {
+                        res = stored.get();
+                    } else {
+                        res = stored.get().append(patch.get(), latest);
+                    }
+                } else {
+                    res = new Jlap(latest);
+                }
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try {
+                    res.trimmed(this.limit).writeTo(out);
+                } catch (final IOException err) {
+                    throw new ArtipieIOException(err);
+                }
+                return this.asto.save(jlap, new Content.From(out.toByteArray()));
+            }
+        );
+    }
+
+    /**
+     * Reads stored log if it exists and is valid.
+     * @param jlap Log key
+     * @return Log if found
+     */
+    private CompletionStage<Optional<Jlap>> stored(final Key jlap) {
+        return this.asto.exists(jlap).thenCompose(
+            exists -> {
+                final CompletionStage<Optional<Jlap>> res;
+                if (exists) {
+                    res = this.asto.value(jlap)
+                        .thenCompose(content -> new PublisherAs(content).bytes())
+                        .thenApply(AstoJlap::read);
+                } else {
+                    res = CompletableFuture.completedFuture(Optional.empty());
+                }
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Reads stored log, invalid log is treated as absent.
+     * @param bytes Log bytes
+     * @return Log if it is valid
+     */
+    private static Optional<Jlap> read(final byte[] bytes) {
+        Optional<Jlap> res;
+        try {
+            res = Optional.of(new Jlap.Stored(bytes).jlap());
+        } catch (final IOException err) {
+            res = Optional.empty();
+        }
+        return res;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.ArtipieIOException;
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.conda.meta.EntryPredicate;
+import com.artipie.conda.meta.IndexingStream;
+import com.artipie.conda.meta.JsonMaid;
+import com.artipie.conda.meta.RepodataIndex;
+import com.artipie.conda.meta.RepodataPatch;
+import com.artipie.conda.meta.StampingStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Asto json maid removes packages from repodata index, reading and writing to/from abstract
+ * storage. Removed entries are found by repodata index sidecar and spliced out of the
+ * repodata bytes, see {@link JsonMaid.Indexed}, repodata is scanned only if the index is
+ * absent or stale. Index and revision stamp are updated together with the repodata and JLAP
+ * patch is logged, see {@link Sidecars}, then current repodata, shards of the removed packages
+ * and channel data are regenerated, see {@link AstoCurrentRepodata}, {@link AstoShards} and
+ * {@link AstoChannelData}. Cleaning is serialized with the other updates of the repodata
+ * file, see {@link RepodataQueue}, compressed repodata variants are produced after that, see
+ * {@link CompressedVariants}.
+ * @since 0.4
+ */
+public final class AstoJsonMaid {
+
+    /**
+     * Abstract storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Repodata file key.
+     */
+    private final Key key;
+
+    /**
+     * Repodata cache to invalidate after repodata is written.
+     */
+    private final RepodataCache cache;
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param key Repodata file key
+     */
+    public AstoJsonMaid(final Storage asto, final Key key) {
+        this(asto, key, RepodataCache.NONE);
+    }
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param key Repodata file key
+     * @param cache Repodata cache to invalidate after repodata is written
+     */
+    public AstoJsonMaid(final Storage asto, final Key key, final RepodataCache cache) {
+        this.asto = asto;
+        this.key = key;
+        this.cache = cache;
+    }
+
+    /**
+     * Removes packages from repodata.json, does nothing if repodata does not exist.
+     * @param removed Filenames or sha256 checksums of the packages to remove
+     * @return Completable operation
+     */
+    public CompletionStage<Void> clean(final Set<String> removed) {
+        return this.perform(maid -> maid.clean(removed));
+    }
+
+    /**
+     * Removes packages matched by predicate from repodata.json, does nothing if repodata
+     * does not exist.
+     * @param removed Predicate of the packages to remove
+     * @return Completable operation
+     */
+    public CompletionStage<Void> clean(final EntryPredicate removed) {
+        return this.perform(maid -> maid.clean(removed));
+    }
+
+    /**
+     * Cleans repodata with json maid.
+     * @param action Clean action
+     * @return Completable operation
+     */
+    private CompletionStage<Void> perform(final Action action) {
+        final CompressedVariants variants =
+            new CompressedVariants(this.asto, this.key, this.cache);
+        return new RepodataQueue(this.asto, this.key).run(
+            () -> this.asto.exists(this.key).thenCompose(
+                exists -> {
+                    final CompletionStage<Void> res;
+                    if (exists) {
+                        res = this.asto.value(this.key)
+                            .thenCompose(content -> new PublisherAs(content).bytes())
+                            .thenCompose(
+                                bytes -> new StoredIndex(this.asto, this.key).value()
+                                    .thenCompose(
+                                        index -> new StoredStamp(this.asto, this.key).blake2b()
+                                            .thenCompose(
+                                                from -> this.perform(
+                                                    bytes,
+                                                    index.filter(idx -> idx.matches(bytes)),
+                                                    from, action
+                                                )
+                                            )
+                                    )
+                            );
+                    } else {
+                        res = CompletableFuture.allOf();
+                    }
+                    return res;
+                }
+            ).thenRun(() -> this.cache.invalidate(this.key))
+        ).thenRun(variants::refresh);
+    }
+
+    /**
+     * Cleans repodata bytes and saves repodata and its sidecars, compressed variants are
+     * removed before the repodata is saved. JLAP
+     * patch is built from the indexes of the previous and cleaned repodata.
+     * @param bytes Repodata bytes
+     * @param index Repodata index matching the bytes, if any
+     * @param from BLAKE2b-256 checksum of the repodata from its stamp, if any
+     * @param action Clean action
+     * @return Completable operation
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private CompletionStage<Void> perform(final byte[] bytes, final Optional<RepodataIndex> index,
+        final Optional<String> from, final Action action) {
+        final ByteArrayOutputStream res = new ByteArrayOutputStream(bytes.length);
+        final byte[] cleaned;
+        final Sidecars sidecars;
+        try {
+            final StampingStream stamping = new StampingStream(res);
+            final IndexingStream out = new IndexingStream(stamping);
+            action.clean(new JsonMaid.Indexed(bytes, index, out));
+            cleaned = res.toByteArray();
+            sidecars = new Sidecars(
+                ByteBuffer.wrap(cleaned), out.index(), stamping.stamp(), from,
+                index.map(idx -> new RepodataPatch(idx, out.index(), Collections.emptyList()))
+            );
+        } catch (final IOException err) {
+            throw new ArtipieIOException(err);
+        }
+        return new CompressedVariants(this.asto, this.key).remove()
+            .thenCompose(nothing -> this.asto.save(this.key, new Content.From(cleaned)))
+            .thenCompose(nothing -> sidecars.save(this.asto, this.key))
+            .thenCompose(
+                nothing -> new AstoCurrentRepodata(this.asto, this.key)
+                    .update(sidecars.entries())
+            ).thenCompose(
+                nothing -> new AstoShards(this.asto, this.key)
+                    .update(sidecars.entries(), sidecars.touched())
+            ).thenCompose(
+                nothing -> new AstoChannelData(this.asto, this.key).update(sidecars.entries())
+            );
+    }
+
+    /**
+     * Clean action.
+     * @since 0.4
+     */
+    @FunctionalInterface
+    private interface Action {
+
+        /**
+         * Cleans repodata.
+         * @param maid Json maid
+         * @throws IOException On IO error
+         */
+        void clean(JsonMaid maid) throws IOException;
+    }
+}
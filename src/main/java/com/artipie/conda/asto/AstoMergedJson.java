@@ -9,16 +9,59 @@ import com.artipie.asto.Key;
 import com.artipie.asto.Storage;
 import com.artipie.asto.misc.UncheckedIOFunc;
 import com.artipie.asto.streams.StorageValuePipeline;
+import com.artipie.conda.meta.IndexingStream;
 import com.artipie.conda.meta.MergedJson;
+import com.artipie.conda.meta.PackageRecord;
+import com.artipie.conda.meta.RepodataEntries;
+import com.artipie.conda.meta.RepodataIndex;
+import com.artipie.conda.meta.RepodataPatch;
+import com.artipie.conda.meta.RepodataStamp;
+import com.artipie.conda.meta.RevisionInput;
+import com.artipie.conda.meta.StampingStream;
 import com.fasterxml.jackson.core.JsonFactory;
+import com.jcabi.log.Logger;
+import io.reactivex.schedulers.Schedulers;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
 import javax.json.JsonObject;
+import org.apache.commons.io.output.TeeOutputStream;
 
 /**
  * Asto merged json adds packages metadata to repodata index, reading and writing to/from
- * abstract storage.
+ * abstract storage. Packages are kept sorted by filename, see {@link MergedJson.Sorted}.
+ * Repodata sidecars, index, revision stamp and JLAP patch from the previous revision, are
+ * built while repodata is written and saved after it, see {@link RepodataIndex} and
+ * {@link Sidecars}. Current repodata, repodata shards and channel data are regenerated after
+ * that from the entries written in the same pass, without reading the repodata back, see
+ * {@link RepodataEntries}, {@link AstoCurrentRepodata}, {@link AstoShards} and
+ * {@link AstoChannelData}: only the shards of the changed packages are rewritten. Compressed
+ * repodata variants are removed before the repodata is written and compressed again in
+ * background when the update is done, see {@link CompressedVariants}. When the local root
+ * directory of {@link com.artipie.asto.fs.FileStorage} is given, repodata file is processed
+ * directly on {@link Schedulers#io()}: input is memory-mapped and output is written through
+ * file channel, bypassing storage content publishers. Updates of the same repodata
+ * file, including the ones by {@link AstoJsonMaid} and {@link AstoRetention}, are serialized,
+ * see {@link RepodataQueue}, so concurrent updates are never lost.
  * @since 0.4
  * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
@@ -34,14 +77,48 @@ public final class AstoMergedJson {
      */
     private final Key key;
 
+    /**
+     * Repodata cache to invalidate after repodata is written.
+     */
+    private final RepodataCache cache;
+
+    /**
+     * Local root directory of the file storage.
+     */
+    private final Optional<Path> root;
+
     /**
      * Ctor.
      * @param asto Abstract storage
      * @param key Repodata file key
      */
     public AstoMergedJson(final Storage asto, final Key key) {
+        this(asto, key, RepodataCache.NONE);
+    }
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param key Repodata file key
+     * @param cache Repodata cache to invalidate after repodata is written
+     */
+    public AstoMergedJson(final Storage asto, final Key key, final RepodataCache cache) {
+        this(asto, key, cache, Optional.empty());
+    }
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param key Repodata file key
+     * @param cache Repodata cache to invalidate after repodata is written
+     * @param root Local root directory of the storage, if it is a file storage
+     */
+    public AstoMergedJson(final Storage asto, final Key key, final RepodataCache cache,
+        final Optional<Path> root) {
         this.asto = asto;
         this.key = key;
+        this.cache = cache;
+        this.root = root;
     }
 
     /**
@@ -50,18 +127,291 @@ public final class AstoMergedJson {
      * @return Completable operation
      */
     public CompletionStage<Void> merge(final Map<String, JsonObject> items) {
-        return new StorageValuePipeline<>(this.asto, this.key).process(
-            (opt, out) -> {
-                try {
-                    final JsonFactory factory = new JsonFactory();
-                    new MergedJson.Jackson(
-                        factory.createGenerator(out),
-                        opt.map(new UncheckedIOFunc<>(factory::createParser))
-                    ).merge(items);
-                } catch (final IOException err) {
-                    throw new ArtipieIOException(err);
+        final List<PackageRecord> records = new ArrayList<>(items.size());
+        for (final Map.Entry<String, JsonObject> item : items.entrySet()) {
+            records.add(new PackageRecord(item.getKey(), item.getValue()));
+        }
+        return this.merge(records);
+    }
+
+    /**
+     * Merges or adds provided new packages records into repodata.json.
+     * @param records Records to merge
+     * @return Completable operation
+     */
+    public CompletionStage<Void> merge(final Collection<PackageRecord> records) {
+        return this.update(records, Collections.emptySet());
+    }
+
+    /**
+     * Adds provided new packages records into repodata.json and removes packages from it
+     * in a single read and write of the repodata.
+     * @param records Records to merge
+     * @param removed Filenames or sha256 checksums of the packages to remove
+     * @return Completable operation
+     */
+    public CompletionStage<Void> update(final Collection<PackageRecord> records,
+        final Set<String> removed) {
+        final CompressedVariants variants =
+            new CompressedVariants(this.asto, this.key, this.cache);
+        return new RepodataQueue(this.asto, this.key).run(
+            () -> variants.remove().thenCompose(
+                nothing -> new StoredIndex(this.asto, this.key).value()
+            ).thenCompose(
+                before -> new StoredStamp(this.asto, this.key).blake2b().thenCompose(
+                    from -> this.update(records, removed, before, from)
+                )
+            ).thenCompose(
+                sidecars -> new AstoCurrentRepodata(this.asto, this.key)
+                    .update(sidecars.entries())
+                    .thenCompose(
+                        nothing -> new AstoShards(this.asto, this.key)
+                            .update(sidecars.entries(), sidecars.touched())
+                    ).thenCompose(
+                        nothing -> new AstoChannelData(this.asto, this.key)
+                            .update(sidecars.entries())
+                    )
+            ).thenRun(() -> this.cache.invalidate(this.key))
+        ).thenRun(variants::refresh);
+    }
+
+    /**
+     * Rewrites repodata and saves its sidecars.
+     * @param records Records to merge
+     * @param removed Filenames or sha256 checksums of the packages to remove
+     * @param before Index of the previous repodata revision, if any
+     * @param from BLAKE2b-256 checksum of the previous revision from its stamp, if any
+     * @return Sidecars of the saved repodata
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private CompletionStage<Sidecars> update(final Collection<PackageRecord> records,
+        final Set<String> removed, final Optional<RepodataIndex> before,
+        final Optional<String> from) {
+        final CompletionStage<Sidecars> res;
+        if (this.root.isPresent()) {
+            res = CompletableFuture.supplyAsync(
+                () -> this.mapped(
+                    this.root.get().resolve(this.key.string()), records, removed, before, from
+                ),
+                task -> Schedulers.io().scheduleDirect(task)
+            ).thenCompose(
+                sidecars -> sidecars.save(this.asto, this.key).thenApply(nothing -> sidecars)
+            );
+        } else {
+            res = new StorageValuePipeline<Sidecars>(this.asto, this.key)
+                .processWithResult(
+                    (opt, out) -> AstoMergedJson.teed(
+                        opt, out, records, removed, before, from
+                    )
+                ).thenCompose(
+                    sidecars -> sidecars.save(this.asto, this.key).thenApply(nothing -> sidecars)
+                );
+        }
+        return res;
+    }
+
+    /**
+     * Updates repodata file on local filesystem: json parser reads memory-mapped repodata,
+     * output is written through file channel into temporary file, which is atomically moved
+     * in place of the repodata. Sidecars are built from the moved file mapped into memory.
+     * If the update fails for any reason, the input is closed and the temporary file is
+     * removed.
+     * @param file Repodata file
+     * @param records Records to merge
+     * @param removed Filenames or sha256 checksums of the packages to remove
+     * @param before Index of the previous repodata revision, if any
+     * @param from BLAKE2b-256 checksum of the previous revision from its stamp, if any
+     * @return Sidecars of the written repodata
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private Sidecars mapped(final Path file, final Collection<PackageRecord> records,
+        final Set<String> removed, final Optional<RepodataIndex> before,
+        final Optional<String> from) {
+        final Path tmp = AstoMergedJson.temp(file);
+        final List<Closeable> streams = new ArrayList<>(1);
+        boolean done = false;
+        try {
+            Files.createDirectories(file.getParent());
+            final Optional<InputStream> input;
+            if (Files.exists(file)) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    if (channel.size() <= Integer.MAX_VALUE) {
+                        input = Optional.of(
+                            new MappedInput(
+                                channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                            )
+                        );
+                    } else {
+                        input = Optional.of(Files.newInputStream(file));
+                    }
                 }
+                streams.add(input.get());
+            } else {
+                input = Optional.empty();
+            }
+            final Function<ByteBuffer, Sidecars> res;
+            try (FileChannel channel = FileChannel.open(
+                tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE
+            )) {
+                res = AstoMergedJson.write(
+                    input, Channels.newOutputStream(channel), records, removed, before, from
+                );
+            }
+            Files.move(
+                tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING
+            );
+            done = true;
+            return res.apply(AstoMergedJson.map(file));
+        } catch (final IOException err) {
+            throw new ArtipieIOException(err);
+        } finally {
+            AstoMergedJson.close(streams);
+            if (!done) {
+                AstoMergedJson.delete(Collections.singletonList(tmp));
+            }
+        }
+    }
+
+    /**
+     * Merges records into repodata from storage input and writes result to storage output,
+     * the output is teed into local temporary file to build sidecars from it, the file is
+     * removed once it is mapped into memory.
+     * @param input Repodata input, if any
+     * @param out Storage output
+     * @param records Records to merge
+     * @param removed Filenames or sha256 checksums of the packages to remove
+     * @param before Index of the previous repodata revision, if any
+     * @param from BLAKE2b-256 checksum of the previous revision from its stamp, if any
+     * @return Sidecars of the written repodata
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private static Sidecars teed(final Optional<InputStream> input,
+        final OutputStream out, final Collection<PackageRecord> records,
+        final Set<String> removed, final Optional<RepodataIndex> before,
+        final Optional<String> from) {
+        final Path copy;
+        try {
+            copy = Files.createTempFile("repodata", ".json");
+        } catch (final IOException err) {
+            throw new ArtipieIOException(err);
+        }
+        try {
+            final Function<ByteBuffer, Sidecars> res;
+            try (FileChannel channel = FileChannel.open(copy, StandardOpenOption.WRITE)) {
+                res = AstoMergedJson.write(
+                    input, new TeeOutputStream(out, Channels.newOutputStream(channel)),
+                    records, removed, before, from
+                );
+            }
+            return res.apply(AstoMergedJson.map(copy));
+        } catch (final IOException err) {
+            throw new ArtipieIOException(err);
+        } finally {
+            AstoMergedJson.delete(Collections.singletonList(copy));
+        }
+    }
+
+    /**
+     * Maps written repodata file into memory, mapping stays valid after the file is
+     * closed, moved or removed.
+     * @param file Repodata file
+     * @return Read-only buffer with file content
+     * @throws IOException On error
+     */
+    private static ByteBuffer map(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(
+                    String.format("Repodata %s is too large to index: %d", file, channel.size())
+                );
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Closes the streams, errors are logged.
+     * @param streams Streams to close
+     */
+    private static void close(final Collection<Closeable> streams) {
+        for (final Closeable stream : streams) {
+            try {
+                stream.close();
+            } catch (final IOException err) {
+                Logger.warn(AstoMergedJson.class, "Failed to close stream: %[exception]s", err);
             }
+        }
+    }
+
+    /**
+     * Deletes the temporary files, errors are logged.
+     * @param temps Files to delete
+     */
+    private static void delete(final Collection<Path> temps) {
+        for (final Path temp : temps) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (final IOException err) {
+                Logger.warn(
+                    AstoMergedJson.class, "Failed to delete %s: %[exception]s", temp, err
+                );
+            }
+        }
+    }
+
+    /**
+     * Temporary file to write the new version of the given file to.
+     * @param file File
+     * @return Temporary file path next to the file
+     */
+    private static Path temp(final Path file) {
+        return file.resolveSibling(
+            String.format(".%s.%s.tmp", file.getFileName(), UUID.randomUUID())
         );
     }
+
+    /**
+     * Merges records into repodata from input and writes result to output, see
+     * {@link MergedJson.Sorted}. Output is closed after the repodata is written. Previous
+     * revision is read through {@link RevisionInput} to check that its index is up to date
+     * and JLAP patch can be built, the revision is identified by the checksum from its
+     * stamp, so it is not hashed again. Written repodata is not kept in memory: caller
+     * passes it back as (memory-mapped) buffer to build current repodata, shards and channel
+     * data from it.
+     * @param input Repodata input, if any
+     * @param out Output
+     * @param records Records to merge
+     * @param removed Filenames or sha256 checksums of the packages to remove
+     * @param before Index of the previous repodata revision, if any
+     * @param from BLAKE2b-256 checksum of the previous revision from its stamp, if any
+     * @return Sidecars of the written repodata by its content
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private static Function<ByteBuffer, Sidecars> write(final Optional<InputStream> input,
+        final OutputStream out, final Collection<PackageRecord> records,
+        final Set<String> removed, final Optional<RepodataIndex> before,
+        final Optional<String> from) {
+        try {
+            final JsonFactory factory = new JsonFactory();
+            final StampingStream stamping = new StampingStream(out);
+            final IndexingStream indexing = new IndexingStream(stamping);
+            final Optional<RevisionInput> previous = input.map(RevisionInput::new);
+            new MergedJson.Sorted(
+                factory.createGenerator(indexing),
+                previous.map(new UncheckedIOFunc<>(factory::createParser)),
+                removed
+            ).merge(records);
+            final Optional<RepodataPatch> patch;
+            if (previous.isPresent()) {
+                patch = previous.get().changes(before, indexing.index(), records);
+            } else {
+                patch = Optional.empty();
+            }
+            final RepodataIndex index = indexing.index();
+            final RepodataStamp stamp = stamping.stamp();
+            return json -> new Sidecars(json, index, stamp, from, patch);
+        } catch (final IOException err) {
+            throw new ArtipieIOException(err);
+        }
+    }
 }
@@ -0,0 +1,235 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.ArtipieIOException;
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.conda.meta.IndexingStream;
+import com.artipie.conda.meta.JsonPruner;
+import com.artipie.conda.meta.RepodataIndex;
+import com.artipie.conda.meta.RepodataPatch;
+import com.artipie.conda.meta.Retention;
+import com.artipie.conda.meta.StampingStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Asto retention removes expired packages from repodata.json by {@link Retention} policy and
+ * deletes expired packages files from storage. Files are deleted in batches, batch size
+ * limits the number of parallel delete operations. Repodata sidecars and JLAP log are updated
+ * together with repodata, see {@link Sidecars}, current repodata, shards of the expired
+ * packages and channel data are regenerated, see {@link AstoCurrentRepodata},
+ * {@link AstoShards} and {@link AstoChannelData}. Repodata pruning is serialized with the
+ * other updates of the repodata file, see {@link RepodataQueue}, compressed repodata variants
+ * are produced and expired files are deleted after that, see {@link CompressedVariants}.
+ * @since 0.4
+ */
+public final class AstoRetention {
+
+    /**
+     * Default number of parallel delete operations.
+     */
+    private static final int PARALLEL = 8;
+
+    /**
+     * Abstract storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Repodata file key, packages are stored next to it.
+     */
+    private final Key key;
+
+    /**
+     * Max number of parallel delete operations.
+     */
+    private final int parallel;
+
+    /**
+     * Repodata cache to invalidate after repodata is written.
+     */
+    private final RepodataCache cache;
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param key Repodata file key
+     */
+    public AstoRetention(final Storage asto, final Key key) {
+        this(asto, key, AstoRetention.PARALLEL);
+    }
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param key Repodata file key
+     * @param parallel Max number of parallel delete operations
+     */
+    public AstoRetention(final Storage asto, final Key key, final int parallel) {
+        this(asto, key, parallel, RepodataCache.NONE);
+    }
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param key Repodata file key
+     * @param parallel Max number of parallel delete operations
+     * @param cache Repodata cache to invalidate after repodata is written
+     */
+    public AstoRetention(final Storage asto, final Key key, final int parallel,
+        final RepodataCache cache) {
+        this.asto = asto;
+        this.key = key;
+        this.parallel = parallel;
+        this.cache = cache;
+    }
+
+    /**
+     * Removes expired packages from repodata and storage.
+     * @param policy Retention policy
+     * @return Filenames of the removed packages
+     */
+    public CompletionStage<Set<String>> prune(final Retention policy) {
+        return new RepodataQueue(this.asto, this.key).run(
+            () -> this.asto.exists(this.key).thenCompose(
+                exists -> {
+                    final CompletionStage<Set<String>> res;
+                    if (exists) {
+                        res = this.asto.value(this.key)
+                            .thenCompose(content -> new PublisherAs(content).bytes())
+                            .thenCompose(
+                                bytes -> new StoredIndex(this.asto, this.key).value()
+                                    .thenCompose(
+                                        index -> new StoredStamp(this.asto, this.key).blake2b()
+                                            .thenCompose(
+                                                from -> this.prune(
+                                                    bytes,
+                                                    index.filter(idx -> idx.matches(bytes)),
+                                                    from, policy
+                                                )
+                                            )
+                                    )
+                            );
+                    } else {
+                        res = CompletableFuture.completedFuture(Collections.emptySet());
+                    }
+                    return res;
+                }
+            )
+        ).thenCompose(
+            expired -> {
+                if (!expired.isEmpty()) {
+                    new CompressedVariants(this.asto, this.key, this.cache).refresh();
+                }
+                return this.delete(new ArrayList<>(expired)).thenApply(nothing -> expired);
+            }
+        );
+    }
+
+    /**
+     * Prunes repodata and saves it together with its sidecars if anything was removed,
+     * compressed variants are removed before the repodata is saved. JLAP patch is built from
+     * the indexes of the previous and pruned repodata.
+     * @param bytes Repodata bytes
+     * @param index Repodata index matching the bytes, if any
+     * @param from BLAKE2b-256 checksum of the repodata from its stamp, if any
+     * @param policy Retention policy
+     * @return Filenames of the removed packages
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private CompletionStage<Set<String>> prune(final byte[] bytes,
+        final Optional<RepodataIndex> index, final Optional<String> from,
+        final Retention policy) {
+        final ByteArrayOutputStream res = new ByteArrayOutputStream(bytes.length);
+        final byte[] pruned;
+        final Sidecars sidecars;
+        final Set<String> expired;
+        try {
+            final StampingStream stamping = new StampingStream(res);
+            final IndexingStream out = new IndexingStream(stamping);
+            expired = new JsonPruner(bytes, out).prune(policy);
+            pruned = res.toByteArray();
+            sidecars = new Sidecars(
+                ByteBuffer.wrap(pruned), out.index(), stamping.stamp(), from,
+                index.map(idx -> new RepodataPatch(idx, out.index(), Collections.emptyList()))
+            );
+        } catch (final IOException err) {
+            throw new ArtipieIOException(err);
+        }
+        final CompletionStage<Set<String>> stage;
+        if (expired.isEmpty()) {
+            stage = CompletableFuture.completedFuture(expired);
+        } else {
+            stage = new CompressedVariants(this.asto, this.key).remove()
+                .thenCompose(nothing -> this.asto.save(this.key, new Content.From(pruned)))
+                .thenCompose(nothing -> sidecars.save(this.asto, this.key))
+                .thenCompose(
+                    nothing -> new AstoCurrentRepodata(this.asto, this.key)
+                        .update(sidecars.entries())
+                ).thenCompose(
+                    nothing -> new AstoShards(this.asto, this.key)
+                        .update(sidecars.entries(), sidecars.touched())
+                ).thenCompose(
+                    nothing -> new AstoChannelData(this.asto, this.key)
+                        .update(sidecars.entries())
+                ).thenRun(() -> this.cache.invalidate(this.key))
+                .thenApply(nothing -> expired);
+        }
+        return stage;
+    }
+
+    /**
+     * Deletes packages files in batches.
+     * @param names Packages filenames
+     * @return Completable operation
+     */
+    private CompletionStage<Void> delete(final List<String> names) {
+        CompletionStage<Void> res = CompletableFuture.allOf();
+        for (int from = 0; from < names.size(); from = from + this.parallel) {
+            final List<String> batch = names.subList(
+                from, Math.min(from + this.parallel, names.size())
+            );
+            res = res.thenCompose(
+                nothing -> CompletableFuture.allOf(
+                    batch.stream().map(this::delete).toArray(CompletableFuture[]::new)
+                )
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Deletes package file if it exists.
+     * @param name Package filename
+     * @return Completable operation
+     */
+    private CompletableFuture<Void> delete(final String name) {
+        final Key pkg = this.key.parent().<Key>map(parent -> new Key.From(parent, name))
+            .orElse(new Key.From(name));
+        return this.asto.exists(pkg).thenCompose(
+            exists -> {
+                final CompletableFuture<Void> res;
+                if (exists) {
+                    res = this.asto.delete(pkg);
+                } else {
+                    res = CompletableFuture.allOf();
+                }
+                return res;
+            }
+        );
+    }
+}
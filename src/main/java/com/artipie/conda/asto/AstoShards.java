@@ -0,0 +1,285 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.ArtipieIOException;
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.KeyLastPart;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.conda.meta.Compression;
+import com.artipie.conda.meta.RepodataEntries;
+import com.artipie.conda.meta.RepodataShards;
+import com.artipie.conda.meta.ShardsIndex;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Predicate;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+
+/**
+ * Asto shards generates sharded repodata (CEP-16) next to the repodata: zstd compressed
+ * shards, see {@link RepodataShards}, are saved to `shards/<sha256>.msgpack.zst` and indexed
+ * in `repodata_shards.msgpack.zst`, see {@link ShardsIndex}. When changed packages are known,
+ * only the shards of their names are rebuilt and the rest of the index is kept, otherwise all
+ * shards are rebuilt. Shards are content-addressed and never change. The index is saved after
+ * the shards, then the shards referenced neither by the saved index nor by the previous one
+ * are deleted: clients which have just fetched the previous index can still get its shards
+ * until the next update.
+ * @since 0.4
+ */
+final class AstoShards {
+
+    /**
+     * Shards index file name.
+     */
+    private static final String INDEX = "repodata_shards.msgpack.zst";
+
+    /**
+     * Shards directory name.
+     */
+    private static final String SHARDS = "shards";
+
+    /**
+     * Shard file extension.
+     */
+    private static final String EXT = ".msgpack.zst";
+
+    /**
+     * Abstract storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Repodata file key.
+     */
+    private final Key key;
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param key Repodata file key
+     */
+    AstoShards(final Storage asto, final Key key) {
+        this.asto = asto;
+        this.key = key;
+    }
+
+    /**
+     * Updates shards from the given repodata entries, which should be the actual content of
+     * the repodata file.
+     * @param repodata Repodata entries
+     * @param touched Filenames of the changed packages, if known
+     * @return Completable operation
+     */
+    CompletionStage<Void> update(final RepodataEntries repodata,
+        final Optional<Set<String>> touched) {
+        final Key index = this.sibling(AstoShards.INDEX);
+        return this.stored(index).thenCompose(
+            stored -> {
+                final Map<String, byte[]> checksums = new TreeMap<>();
+                CompletionStage<Void> res = CompletableFuture.allOf();
+                final byte[] idx;
+                try {
+                    final Predicate<String> names;
+                    if (stored.isPresent() && touched.isPresent()) {
+                        final Set<String> changed = new RepodataShards(repodata)
+                            .names(touched.get());
+                        checksums.putAll(stored.get().shards());
+                        checksums.keySet().removeAll(changed);
+                        names = changed::contains;
+                    } else {
+                        names = name -> true;
+                    }
+                    for (final Map.Entry<String, byte[]> shard
+                        : new RepodataShards(repodata).shards(names).entrySet()) {
+                        final byte[] bytes = AstoShards.compressed(shard.getValue());
+                        final byte[] checksum = AstoShards.sha256(bytes);
+                        checksums.put(shard.getKey(), checksum);
+                        res = res.thenCompose(nothing -> this.save(checksum, bytes));
+                    }
+                    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    try (OutputStream zst = new Compression.Zstd().compress(out)) {
+                        new ShardsIndex(this.subdir(), checksums).writeTo(zst);
+                    }
+                    idx = out.toByteArray();
+                } catch (final IOException err) {
+                    throw new ArtipieIOException(err);
+                }
+                final Set<String> kept = new HashSet<>(checksums.size());
+                checksums.values().forEach(checksum -> kept.add(AstoShards.hex(checksum)));
+                stored.ifPresent(
+                    prev -> prev.shards().values()
+                        .forEach(checksum -> kept.add(AstoShards.hex(checksum)))
+                );
+                return res.thenCompose(
+                    nothing -> this.asto.save(index, new Content.From(idx))
+                ).thenCompose(nothing -> this.clean(kept));
+            }
+        );
+    }
+
+    /**
+     * Saves shard if it does not exist yet.
+     * @param checksum Sha256 checksum of the compressed shard
+     * @param bytes Compressed shard
+     * @return Completable operation
+     */
+    private CompletionStage<Void> save(final byte[] checksum, final byte[] bytes) {
+        final Key shard = this.sibling(
+            String.format("%s/%s%s", AstoShards.SHARDS, AstoShards.hex(checksum), AstoShards.EXT)
+        );
+        return this.asto.exists(shard).thenCompose(
+            exists -> {
+                final CompletionStage<Void> res;
+                if (exists) {
+                    res = CompletableFuture.allOf();
+                } else {
+                    res = this.asto.save(shard, new Content.From(bytes));
+                }
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Deletes the shards which are referenced neither by the saved index nor by the previous
+     * one. Errors are ignored, unreferenced shard is deleted on one of the next updates.
+     * @param kept Hex checksums of the shards to keep
+     * @return Completable operation
+     */
+    private CompletionStage<Void> clean(final Set<String> kept) {
+        return this.asto.list(this.sibling(AstoShards.SHARDS)).thenCompose(
+            keys -> {
+                CompletionStage<Void> res = CompletableFuture.allOf();
+                for (final Key shard : keys) {
+                    final String name = new KeyLastPart(shard).get();
+                    if (name.endsWith(AstoShards.EXT) && !kept.contains(
+                        name.substring(0, name.length() - AstoShards.EXT.length())
+                    )) {
+                        res = res.thenCompose(
+                            nothing -> this.asto.delete(shard).exceptionally(ignored -> null)
+                        );
+                    }
+                }
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Reads stored shards index if it exists and is valid.
+     * @param index Index key
+     * @return Index if found
+     */
+    private CompletionStage<Optional<ShardsIndex>> stored(final Key index) {
+        return this.asto.exists(index).thenCompose(
+            exists -> {
+                final CompletionStage<Optional<ShardsIndex>> res;
+                if (exists) {
+                    res = this.asto.value(index)
+                        .thenCompose(content -> new PublisherAs(content).bytes())
+                        .thenApply(AstoShards::read);
+                } else {
+                    res = CompletableFuture.completedFuture(Optional.empty());
+                }
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Subdir name, the name of the repodata parent key.
+     * @return Subdir
+     */
+    private String subdir() {
+        return this.key.parent().map(parent -> new KeyLastPart(parent).get()).orElse("");
+    }
+
+    /**
+     * Key next to the repodata.
+     * @param name Relative name
+     * @return Key
+     */
+    private Key sibling(final String name) {
+        return this.key.parent().<Key>map(parent -> new Key.From(parent, name))
+            .orElse(new Key.From(name));
+    }
+
+    /**
+     * Reads stored index, invalid index is treated as absent.
+     * @param bytes Compressed index bytes
+     * @return Index if it is valid
+     */
+    private static Optional<ShardsIndex> read(final byte[] bytes) {
+        Optional<ShardsIndex> res;
+        try (InputStream input = new ZstdCompressorInputStream(new ByteArrayInputStream(bytes))) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buf = new byte[8192];
+            int read = input.read(buf);
+            while (read >= 0) {
+                out.write(buf, 0, read);
+                read = input.read(buf);
+            }
+            res = Optional.of(new ShardsIndex.Stored(out.toByteArray()).index());
+        } catch (final IOException err) {
+            res = Optional.empty();
+        }
+        return res;
+    }
+
+    /**
+     * Hex form of the checksum.
+     * @param checksum Checksum bytes
+     * @return Hex string
+     */
+    private static String hex(final byte[] checksum) {
+        final StringBuilder res = new StringBuilder(checksum.length * 2);
+        for (final byte bte : checksum) {
+            res.append(String.format(Locale.US, "%02x", bte));
+        }
+        return res.toString();
+    }
+
+    /**
+     * Zstd compressed bytes.
+     * @param bytes Bytes
+     * @return Compressed bytes
+     * @throws IOException On IO error
+     */
+    private static byte[] compressed(final byte[] bytes) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream zst = new Compression.Zstd().compress(out)) {
+            zst.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Sha256 checksum.
+     * @param bytes Bytes
+     * @return Checksum bytes
+     */
+    private static byte[] sha256(final byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (final NoSuchAlgorithmException err) {
+            throw new IllegalStateException(err);
+        }
+    }
+}
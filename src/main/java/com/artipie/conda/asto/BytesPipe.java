@@ -0,0 +1,148 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bytes pipe: input stream of the buffers pushed by another thread. The pipe holds up to the
+ * given number of buffers, the pushing thread waits while the pipe is full, so the reader
+ * paces the writer. Once the reader closes the stream, pushed buffers are discarded, so the
+ * writer never waits for the reader which is done.
+ * @since 0.4
+ */
+final class BytesPipe extends InputStream {
+
+    /**
+     * End of stream marker.
+     */
+    private static final ByteBuffer EOF = ByteBuffer.allocate(0);
+
+    /**
+     * How long to wait for the free space before checking whether the reader is closed,
+     * milliseconds.
+     */
+    private static final long WAIT = 100;
+
+    /**
+     * Buffers queue.
+     */
+    private final BlockingQueue<ByteBuffer> queue;
+
+    /**
+     * Is the stream closed by the reader.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Buffer being read.
+     */
+    private ByteBuffer current;
+
+    /**
+     * Ctor.
+     * @param capacity Maximum number of buffers in the pipe
+     */
+    BytesPipe(final int capacity) {
+        super();
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.current = ByteBuffer.allocate(0);
+    }
+
+    /**
+     * Pushes the buffer to the pipe, waits while the pipe is full. Buffer should not be
+     * modified afterwards.
+     * @param buffer Bytes
+     * @throws InterruptedException If interrupted while waiting
+     */
+    void push(final ByteBuffer buffer) throws InterruptedException {
+        if (buffer.hasRemaining()) {
+            this.offer(buffer);
+        }
+    }
+
+    /**
+     * Marks the end of the stream.
+     * @throws InterruptedException If interrupted while waiting
+     */
+    void finish() throws InterruptedException {
+        this.offer(BytesPipe.EOF);
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int res;
+        if (this.next()) {
+            res = this.current.get() & 0xFF;
+        } else {
+            res = -1;
+        }
+        return res;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int off, final int len) throws IOException {
+        final int res;
+        if (len == 0) {
+            res = 0;
+        } else if (this.next()) {
+            res = Math.min(len, this.current.remaining());
+            this.current.get(bytes, off, res);
+        } else {
+            res = -1;
+        }
+        return res;
+    }
+
+    @Override
+    public int available() {
+        return this.current.remaining();
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        this.queue.clear();
+    }
+
+    /**
+     * Takes the next buffer if the current one is read.
+     * @return False on the end of the stream
+     * @throws IOException If interrupted or closed
+     */
+    private boolean next() throws IOException {
+        if (this.closed) {
+            throw new IOException("Stream closed");
+        }
+        try {
+            while (!this.current.hasRemaining() && this.current != BytesPipe.EOF) {
+                this.current = this.queue.take();
+            }
+        } catch (final InterruptedException err) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(err.getMessage());
+        }
+        return this.current.hasRemaining();
+    }
+
+    /**
+     * Offers the buffer to the queue until it is accepted or the reader is closed.
+     * @param buffer Buffer
+     * @throws InterruptedException If interrupted while waiting
+     */
+    private void offer(final ByteBuffer buffer) throws InterruptedException {
+        boolean done = this.closed;
+        while (!done) {
+            done = this.queue.offer(buffer, BytesPipe.WAIT, TimeUnit.MILLISECONDS)
+                || this.closed;
+        }
+    }
+}
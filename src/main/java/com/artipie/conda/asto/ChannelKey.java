@@ -0,0 +1,24 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Key;
+
+/**
+ * Key of the subdir channel summary sidecar file, see
+ * {@link com.artipie.conda.meta.ChannelSummary}: summary is stored next to the repodata with
+ * `.channel` extension.
+ * @since 0.4
+ */
+public final class ChannelKey extends Key.Wrap {
+
+    /**
+     * Ctor.
+     * @param repodata Repodata key
+     */
+    public ChannelKey(final Key repodata) {
+        super(new Key.From(String.format("%s.channel", repodata.string())));
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Key;
+import com.artipie.conda.meta.Compression;
+
+/**
+ * Key of the compressed repodata variant, see {@link Compression}: variant is stored next to
+ * the repodata with compression extension, for example `repodata.json.zst`.
+ * @since 0.4
+ */
+public final class CompressedKey extends Key.Wrap {
+
+    /**
+     * Ctor.
+     * @param repodata Repodata key
+     * @param compression Compression
+     */
+    public CompressedKey(final Key repodata, final Compression compression) {
+        super(
+            new Key.From(String.format("%s.%s", repodata.string(), compression.extension()))
+        );
+    }
+}
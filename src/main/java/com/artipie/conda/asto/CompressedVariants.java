@@ -0,0 +1,330 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.ArtipieIOException;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.KeyLastPart;
+import com.artipie.asto.streams.StorageValuePipeline;
+import com.artipie.conda.meta.Compression;
+import com.artipie.conda.meta.RepodataStamp;
+import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Compressed repodata variants, see {@link Compression#ALL}, stored next to the repodata by
+ * {@link CompressedKey}. Variants are produced outside of the repodata queue, see
+ * {@link RepodataQueue}: writers remove the variants before the new repodata is saved, see
+ * {@link #remove()}, and request new ones when the update is done, see {@link #refresh()}, so
+ * clients fall back to the plain repodata until the variants are ready. Repodata is streamed
+ * from the storage through the compressor to a temporary item, one variant at a time, see
+ * {@link StorageValuePipeline}, then the variants are moved in place in the repodata queue
+ * only if the repodata revision stamp is still the one read before the compression, see
+ * {@link StampKey}, and the repodata cache is invalidated. So variants of the outdated
+ * repodata are dropped and clients never get stale variants. Repodata is compressed at most
+ * once at a time per repodata file: refreshes requested while the repodata is being
+ * compressed are served by one more run after it, so a burst of updates compresses the latest
+ * repodata twice at most.
+ * @since 0.4
+ */
+final class CompressedVariants {
+
+    /**
+     * Compression runs by storage and repodata key.
+     */
+    private static final Map<Storage, ConcurrentMap<String, Flight>> FLIGHTS =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Abstract storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Repodata file key.
+     */
+    private final Key key;
+
+    /**
+     * Repodata cache to invalidate after the variants are saved.
+     */
+    private final RepodataCache cache;
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param key Repodata file key
+     */
+    CompressedVariants(final Storage asto, final Key key) {
+        this(asto, key, RepodataCache.NONE);
+    }
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param key Repodata file key
+     * @param cache Repodata cache to invalidate after the variants are saved
+     */
+    CompressedVariants(final Storage asto, final Key key, final RepodataCache cache) {
+        this.asto = asto;
+        this.key = key;
+        this.cache = cache;
+    }
+
+    /**
+     * Removes the variants of the repodata, if they exist.
+     * @return Completable operation
+     */
+    CompletionStage<Void> remove() {
+        CompletionStage<Void> res = CompletableFuture.allOf();
+        for (final Compression compression : Compression.ALL) {
+            final Key variant = new CompressedKey(this.key, compression);
+            res = res.thenCompose(nothing -> this.asto.exists(variant)).thenCompose(
+                exists -> {
+                    final CompletionStage<Void> del;
+                    if (exists) {
+                        del = this.asto.delete(variant);
+                    } else {
+                        del = CompletableFuture.allOf();
+                    }
+                    return del;
+                }
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Compresses the repodata and saves the variants. Errors are logged, variants stay
+     * absent if compression fails.
+     * @return Completable operation, completes when the variants of the repodata revision
+     *  saved before this call are written
+     */
+    CompletionStage<Void> refresh() {
+        return CompressedVariants.FLIGHTS
+            .computeIfAbsent(this.asto, any -> new ConcurrentHashMap<>())
+            .computeIfAbsent(this.key.string(), any -> new Flight())
+            .request(this::compress);
+    }
+
+    /**
+     * Compresses the repodata to temporary items and moves them in place if the repodata
+     * was not updated meanwhile, temporary items are removed otherwise.
+     * @return Completable operation
+     */
+    private CompletionStage<Void> compress() {
+        final Map<Compression, Key> temps = new LinkedHashMap<>(Compression.ALL.size());
+        for (final Compression compression : Compression.ALL) {
+            temps.put(compression, CompressedVariants.temp(this.key, compression));
+        }
+        return this.asto.exists(this.key).thenCompose(
+            exists -> {
+                final CompletionStage<Void> res;
+                if (exists) {
+                    res = this.revision().thenCompose(
+                        revision -> this.compressed(temps).thenCompose(
+                            nothing -> new RepodataQueue(this.asto, this.key)
+                                .run(() -> this.place(revision, temps))
+                        )
+                    );
+                } else {
+                    res = CompletableFuture.allOf();
+                }
+                return res;
+            }
+        ).handle(
+            (nothing, err) -> {
+                if (err != null) {
+                    Logger.error(
+                        this, "Failed to compress %s: %[exception]s", this.key.string(), err
+                    );
+                }
+                CompletionStage<Void> clean = CompletableFuture.allOf();
+                for (final Key temp : temps.values()) {
+                    clean = clean.thenCompose(
+                        prev -> this.asto.exists(temp).thenCompose(
+                            found -> {
+                                final CompletionStage<Void> del;
+                                if (found) {
+                                    del = this.asto.delete(temp);
+                                } else {
+                                    del = CompletableFuture.allOf();
+                                }
+                                return del;
+                            }
+                        ).exceptionally(ignored -> null)
+                    );
+                }
+                return clean;
+            }
+        ).thenCompose(stage -> stage);
+    }
+
+    /**
+     * Streams the repodata through the compressors to the temporary items, one variant at a
+     * time.
+     * @param temps Temporary items by compression
+     * @return Completable operation
+     */
+    private CompletionStage<Void> compressed(final Map<Compression, Key> temps) {
+        CompletionStage<Void> res = CompletableFuture.allOf();
+        for (final Map.Entry<Compression, Key> temp : temps.entrySet()) {
+            res = res.thenCompose(
+                nothing -> new StorageValuePipeline<Void>(this.asto, this.key, temp.getValue())
+                    .process(
+                        (input, out) -> {
+                            if (!input.isPresent()) {
+                                throw new ArtipieIOException(
+                                    String.format("%s does not exist", this.key.string())
+                                );
+                            }
+                            try (OutputStream cmp = temp.getKey().compress(out)) {
+                                IOUtils.copy(input.get(), cmp);
+                            } catch (final IOException err) {
+                                throw new ArtipieIOException(err);
+                            }
+                        }
+                    )
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Moves compressed variants in place, if the repodata revision is the one they were
+     * compressed from, and invalidates the repodata cache. Should be run in the repodata
+     * queue, so that the repodata is not updated meanwhile.
+     * @param revision Repodata revision the variants were compressed from
+     * @param temps Temporary items by compression
+     * @return Completable operation
+     */
+    private CompletionStage<Void> place(final String revision, final Map<Compression, Key> temps) {
+        return this.revision().thenCompose(
+            current -> {
+                CompletionStage<Void> res = CompletableFuture.allOf();
+                if (current.equals(revision)) {
+                    for (final Map.Entry<Compression, Key> temp : temps.entrySet()) {
+                        res = res.thenCompose(
+                            nothing -> this.asto.move(
+                                temp.getValue(), new CompressedKey(this.key, temp.getKey())
+                            )
+                        );
+                    }
+                    res = res.thenRun(() -> this.cache.invalidate(this.key));
+                }
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Sha256 checksum of the stored repodata revision stamp, see {@link StampKey}.
+     * @return Checksum, empty if the stamp does not exist or is unreadable
+     */
+    private CompletionStage<String> revision() {
+        return new StoredStamp(this.asto, this.key).value()
+            .thenApply(stamp -> stamp.map(RepodataStamp::sha256).orElse(""));
+    }
+
+    /**
+     * Temporary item to compress the variant to, hidden next to the repodata.
+     * @param repodata Repodata key
+     * @param compression Compression
+     * @return Temporary item key
+     */
+    private static Key temp(final Key repodata, final Compression compression) {
+        final String name = String.format(
+            ".%s.%s.tmp",
+            new KeyLastPart(new CompressedKey(repodata, compression)).get(), UUID.randomUUID()
+        );
+        return repodata.parent().<Key>map(parent -> new Key.From(parent, name))
+            .orElse(new Key.From(name));
+    }
+
+    /**
+     * Compression runs of one repodata file: one run at a time and at most one pending run
+     * shared by all the refreshes requested during the current run.
+     * @since 0.4
+     */
+    private static final class Flight {
+
+        /**
+         * Completion of the current run, null if nothing runs.
+         */
+        private CompletableFuture<Void> running;
+
+        /**
+         * Completion of the pending run, null if nothing is pending.
+         */
+        private CompletableFuture<Void> pending;
+
+        /**
+         * Requests the run.
+         * @param task Compression task
+         * @return Completion of the run which starts after this request
+         */
+        CompletionStage<Void> request(final Supplier<CompletionStage<Void>> task) {
+            final CompletableFuture<Void> res;
+            final boolean start;
+            synchronized (this) {
+                if (this.running == null) {
+                    this.running = new CompletableFuture<>();
+                    res = this.running;
+                    start = true;
+                } else {
+                    if (this.pending == null) {
+                        this.pending = new CompletableFuture<>();
+                    }
+                    res = this.pending;
+                    start = false;
+                }
+            }
+            if (start) {
+                this.launch(task, res);
+            }
+            return res;
+        }
+
+        /**
+         * Runs the task, then the pending run if it was requested.
+         * @param task Compression task
+         * @param done Completion of the run
+         */
+        private void launch(final Supplier<CompletionStage<Void>> task,
+            final CompletableFuture<Void> done) {
+            CompletableFuture.allOf().thenCompose(nothing -> task.get()).whenComplete(
+                (nothing, err) -> {
+                    final CompletableFuture<Void> next;
+                    synchronized (this) {
+                        next = this.pending;
+                        this.pending = null;
+                        this.running = next;
+                    }
+                    if (err == null) {
+                        done.complete(null);
+                    } else {
+                        done.completeExceptionally(err);
+                    }
+                    if (next != null) {
+                        this.launch(task, next);
+                    }
+                }
+            );
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.ext.KeyLastPart;
+import com.artipie.conda.meta.Compression;
+
+/**
+ * Key of the repodata body encoded for HTTP response, see {@link Compression}: encoded bodies
+ * are stored under `.encoded` prefix of the repodata subdir and keyed by repodata sha256
+ * checksum, for example `noarch/.encoded/repodata.json.{sha256}.gz`.
+ * @since 0.4
+ */
+public final class EncodedKey extends Key.Wrap {
+
+    /**
+     * Ctor.
+     * @param repodata Repodata key
+     * @param sha Repodata sha256 checksum
+     * @param compression Encoding compression
+     */
+    public EncodedKey(final Key repodata, final String sha, final Compression compression) {
+        super(
+            new Key.From(
+                new Prefix(repodata),
+                String.format(
+                    "%s.%s.%s", new KeyLastPart(repodata).get(), sha, compression.extension()
+                )
+            )
+        );
+    }
+
+    /**
+     * Prefix of the encoded bodies of the repodata subdir.
+     * @since 0.4
+     */
+    public static final class Prefix extends Key.Wrap {
+
+        /**
+         * Prefix name.
+         */
+        private static final String NAME = ".encoded";
+
+        /**
+         * Ctor.
+         * @param repodata Repodata key
+         */
+        public Prefix(final Key repodata) {
+            super(
+                repodata.parent().<Key>map(parent -> new Key.From(parent, Prefix.NAME))
+                    .orElse(new Key.From(Prefix.NAME))
+            );
+        }
+    }
+}
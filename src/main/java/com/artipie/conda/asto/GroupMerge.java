@@ -0,0 +1,239 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.conda.meta.PackageRecord;
+import io.reactivex.schedulers.Schedulers;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group merge commits concurrent merges into the same repodata file together: records
+ * arriving within the window after the first one, or while the previous batch is being
+ * merged, are merged in one pass of {@link AstoMergedJson}, so a burst of uploads into the
+ * subdir rewrites its repodata a few times instead of once per package. Batches of the same
+ * repodata file are merged one after another, batches of different files proceed in parallel.
+ * Each caller completes when the batch with its records is persisted, or fails with the
+ * batch. When the batch has several records with the same filename, the last one wins.
+ * @since 0.4
+ */
+public final class GroupMerge {
+
+    /**
+     * Default window to collect the batch, milliseconds.
+     */
+    public static final long WINDOW = 50;
+
+    /**
+     * Abstract storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Repodata cache to invalidate after repodata is written.
+     */
+    private final RepodataCache cache;
+
+    /**
+     * Window to collect the batch, milliseconds.
+     */
+    private final long window;
+
+    /**
+     * Local root directory of the file storage.
+     */
+    private final Optional<Path> root;
+
+    /**
+     * Batches by repodata key.
+     */
+    private final ConcurrentMap<Key, Batch> batches;
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param cache Repodata cache to invalidate after repodata is written
+     */
+    public GroupMerge(final Storage asto, final RepodataCache cache) {
+        this(asto, cache, GroupMerge.WINDOW);
+    }
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param cache Repodata cache to invalidate after repodata is written
+     * @param window Window to collect the batch, milliseconds
+     */
+    public GroupMerge(final Storage asto, final RepodataCache cache, final long window) {
+        this(asto, cache, window, Optional.empty());
+    }
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param cache Repodata cache to invalidate after repodata is written
+     * @param window Window to collect the batch, milliseconds
+     * @param root Local root directory of the storage, if it is a file storage, see
+     *  {@link AstoMergedJson}
+     */
+    public GroupMerge(final Storage asto, final RepodataCache cache, final long window,
+        final Optional<Path> root) {
+        this.asto = asto;
+        this.cache = cache;
+        this.window = window;
+        this.root = root;
+        this.batches = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Merges or adds provided new packages records into repodata file with the next batch.
+     * @param key Repodata file key
+     * @param records Records to merge
+     * @return Completable operation, completes when the batch is persisted
+     */
+    public CompletionStage<Void> merge(final Key key, final Collection<PackageRecord> records) {
+        final CompletableFuture<Void> res = new CompletableFuture<>();
+        this.batches.compute(
+            key,
+            (item, current) -> {
+                final Batch batch = Optional.ofNullable(current).orElseGet(Batch::new);
+                if (batch.add(records, res)) {
+                    Schedulers.computation().scheduleDirect(
+                        () -> this.flush(key, batch), this.window, TimeUnit.MILLISECONDS
+                    );
+                }
+                return batch;
+            }
+        );
+        return res;
+    }
+
+    /**
+     * Merges pending records of the batch, then the records arrived during the merge are
+     * flushed by the next task scheduled on {@link Schedulers#computation()}, so flushes
+     * never nest on the stack, even if the merge completes synchronously. Idle batch is
+     * removed unless records were added to it after it was found empty.
+     * @param key Repodata file key
+     * @param batch Batch
+     */
+    private void flush(final Key key, final Batch batch) {
+        final Map<String, PackageRecord> records = new LinkedHashMap<>();
+        final List<CompletableFuture<Void>> waiters = new ArrayList<>(1);
+        if (batch.take(records, waiters)) {
+            CompletableFuture.completedFuture(key).thenCompose(
+                item -> new AstoMergedJson(this.asto, item, this.cache, this.root)
+                    .merge(records.values())
+            ).whenComplete(
+                (nothing, err) -> {
+                    for (final CompletableFuture<Void> waiter : waiters) {
+                        if (err == null) {
+                            waiter.complete(null);
+                        } else {
+                            waiter.completeExceptionally(err);
+                        }
+                    }
+                    Schedulers.computation().scheduleDirect(() -> this.flush(key, batch));
+                }
+            );
+        } else {
+            this.batches.computeIfPresent(
+                key,
+                (item, current) -> {
+                    final Batch res;
+                    if (current == batch && batch.idle()) {
+                        res = null;
+                    } else {
+                        res = current;
+                    }
+                    return res;
+                }
+            );
+        }
+    }
+
+    /**
+     * Batch of the records pending merge into one repodata file.
+     * @since 0.4
+     */
+    private static final class Batch {
+
+        /**
+         * Pending records by filename.
+         */
+        private final Map<String, PackageRecord> records;
+
+        /**
+         * Callers waiting for the pending records.
+         */
+        private final List<CompletableFuture<Void>> waiters;
+
+        /**
+         * Is the flush scheduled or the merge in progress.
+         */
+        private boolean busy;
+
+        /**
+         * Ctor.
+         */
+        Batch() {
+            this.records = new LinkedHashMap<>();
+            this.waiters = new ArrayList<>(1);
+        }
+
+        /**
+         * Adds records to the batch.
+         * @param items Records
+         * @param waiter Caller waiting for the records to be merged
+         * @return True if the batch was idle and the flush should be scheduled
+         */
+        synchronized boolean add(final Collection<PackageRecord> items,
+            final CompletableFuture<Void> waiter) {
+            for (final PackageRecord item : items) {
+                this.records.remove(item.filename());
+                this.records.put(item.filename(), item);
+            }
+            this.waiters.add(waiter);
+            final boolean idle = !this.busy;
+            this.busy = true;
+            return idle;
+        }
+
+        /**
+         * Takes pending records out of the batch, marks the batch idle if there are none.
+         * @param items Where to put the records
+         * @param callers Where to put the waiting callers
+         * @return True if there were pending records
+         */
+        synchronized boolean take(final Map<String, PackageRecord> items,
+            final List<CompletableFuture<Void>> callers) {
+            items.putAll(this.records);
+            callers.addAll(this.waiters);
+            this.records.clear();
+            this.waiters.clear();
+            this.busy = !callers.isEmpty();
+            return this.busy;
+        }
+
+        /**
+         * Whether the batch is idle: no flush is scheduled and no merge is in progress.
+         * @return True if idle
+         */
+        synchronized boolean idle() {
+            return !this.busy;
+        }
+    }
+}
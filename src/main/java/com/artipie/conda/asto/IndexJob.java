@@ -0,0 +1,249 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Key;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+
+/**
+ * Index job: uploaded package waiting to be added to the repodata of its subdir, see
+ * {@link IndexJobs}. Job keeps everything obtained at upload, so the package is not read
+ * again when the job is run: package and upload keys, uploader, package info json files and
+ * repodata entry. Job is stored in json form, failed job keeps the error message.
+ * @since 0.4
+ */
+public final class IndexJob {
+
+    /**
+     * Package key field name.
+     */
+    private static final String PACKAGE = "package";
+
+    /**
+     * Upload key field name.
+     */
+    private static final String UPLOAD = "upload";
+
+    /**
+     * Owner field name.
+     */
+    private static final String OWNER = "owner";
+
+    /**
+     * Repodata entry field name.
+     */
+    private static final String ENTRY = "entry";
+
+    /**
+     * Info files field name.
+     */
+    private static final String FILES = "files";
+
+    /**
+     * Error field name.
+     */
+    private static final String ERROR = "error";
+
+    /**
+     * Package key.
+     */
+    private final Key pkg;
+
+    /**
+     * Uploaded package key.
+     */
+    private final Key upload;
+
+    /**
+     * Uploader login.
+     */
+    private final String owner;
+
+    /**
+     * Package info json files by name.
+     */
+    private final Map<String, JsonObject> files;
+
+    /**
+     * Repodata entry of the package.
+     */
+    private final JsonObject entry;
+
+    /**
+     * Error message of the failed job.
+     */
+    private final Optional<String> error;
+
+    /**
+     * Ctor.
+     * @param pkg Package key, `subdir/filename`
+     * @param upload Uploaded package key
+     * @param owner Uploader login
+     * @param files Package info json files by name, see
+     *  {@link com.artipie.conda.meta.InfoIndex#files()}
+     * @param entry Repodata entry of the package
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public IndexJob(final Key pkg, final Key upload, final String owner,
+        final Map<String, JsonObject> files, final JsonObject entry) {
+        this(pkg, upload, owner, files, entry, Optional.empty());
+    }
+
+    /**
+     * Ctor.
+     * @param pkg Package key, `subdir/filename`
+     * @param upload Uploaded package key
+     * @param owner Uploader login
+     * @param files Package info json files by name
+     * @param entry Repodata entry of the package
+     * @param error Error message of the failed job
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private IndexJob(final Key pkg, final Key upload, final String owner,
+        final Map<String, JsonObject> files, final JsonObject entry,
+        final Optional<String> error) {
+        this.pkg = pkg;
+        this.upload = upload;
+        this.owner = owner;
+        this.files = Collections.unmodifiableMap(new HashMap<>(files));
+        this.entry = entry;
+        this.error = error;
+    }
+
+    /**
+     * Package key.
+     * @return Key, `subdir/filename`
+     */
+    public Key pkg() {
+        return this.pkg;
+    }
+
+    /**
+     * Uploaded package key.
+     * @return Key
+     */
+    public Key upload() {
+        return this.upload;
+    }
+
+    /**
+     * Uploader login.
+     * @return Login
+     */
+    public String owner() {
+        return this.owner;
+    }
+
+    /**
+     * Package info json files by name.
+     * @return Info json files
+     */
+    public Map<String, JsonObject> files() {
+        return this.files;
+    }
+
+    /**
+     * Repodata entry of the package.
+     * @return Entry json
+     */
+    public JsonObject entry() {
+        return this.entry;
+    }
+
+    /**
+     * Error message if the job failed.
+     * @return Error message
+     */
+    public Optional<String> error() {
+        return this.error;
+    }
+
+    /**
+     * The same job failed with the error.
+     * @param message Error message
+     * @return Failed job
+     */
+    public IndexJob failed(final String message) {
+        return new IndexJob(
+            this.pkg, this.upload, this.owner, this.files, this.entry, Optional.of(message)
+        );
+    }
+
+    /**
+     * Job json bytes.
+     * @return Bytes
+     */
+    public byte[] bytes() {
+        final JsonObjectBuilder info = Json.createObjectBuilder();
+        this.files.forEach(info::add);
+        final JsonObjectBuilder json = Json.createObjectBuilder()
+            .add(IndexJob.PACKAGE, this.pkg.string())
+            .add(IndexJob.UPLOAD, this.upload.string())
+            .add(IndexJob.OWNER, this.owner)
+            .add(IndexJob.ENTRY, this.entry)
+            .add(IndexJob.FILES, info);
+        this.error.ifPresent(msg -> json.add(IndexJob.ERROR, msg));
+        return json.build().toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Index job stored in json form, see {@link IndexJob#bytes()}.
+     * @since 0.4
+     */
+    public static final class Stored {
+
+        /**
+         * Job bytes.
+         */
+        private final byte[] bytes;
+
+        /**
+         * Ctor.
+         * @param bytes Job bytes
+         */
+        @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+        public Stored(final byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * Reads the job.
+         * @return Index job
+         * @throws JsonException If bytes are not a valid job
+         */
+        public IndexJob job() {
+            final JsonObject json = Json.createReader(new ByteArrayInputStream(this.bytes))
+                .readObject();
+            final JsonObject info = json.getJsonObject(IndexJob.FILES);
+            final Map<String, JsonObject> files = new HashMap<>();
+            for (final String name : info.keySet()) {
+                files.put(name, info.getJsonObject(name));
+            }
+            final Optional<String> error;
+            if (json.containsKey(IndexJob.ERROR)) {
+                error = Optional.of(json.getString(IndexJob.ERROR));
+            } else {
+                error = Optional.empty();
+            }
+            return new IndexJob(
+                new Key.From(json.getString(IndexJob.PACKAGE)),
+                new Key.From(json.getString(IndexJob.UPLOAD)),
+                json.getString(IndexJob.OWNER),
+                files,
+                json.getJsonObject(IndexJob.ENTRY),
+                error
+            );
+        }
+    }
+}
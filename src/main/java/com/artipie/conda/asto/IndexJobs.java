@@ -0,0 +1,429 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.KeyLastPart;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.conda.meta.PackageRecord;
+import com.artipie.scheduling.ArtifactEvent;
+import com.jcabi.log.Logger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import javax.json.JsonObject;
+
+/**
+ * Index jobs add uploaded packages to the repodata: package metadata goes to the channel data
+ * summary, see {@link AstoChannelData}, its repodata entry is merged into the subdir
+ * repodata, see {@link GroupMerge}, then the package is moved from the upload key in place and
+ * artifact event is added. Several jobs can be run together, see {@link #index(Collection)},
+ * then the summary and the repodata of each subdir are updated once for all its jobs. Each
+ * step can be repeated, so a job interrupted after the package was moved is run again safely.
+ * Job is either run right away, see {@link #index(IndexJob)}, or submitted: job record is
+ * saved to the storage under `.jobs` and the job is run in background, see
+ * {@link #submit(IndexJob)}. Record is removed when the job is done and kept with the error
+ * message if it failed, so the jobs left by a restart or a failure are run again by
+ * {@link #resume()}.
+ * @since 0.4
+ */
+public final class IndexJobs {
+
+    /**
+     * Job records root key.
+     */
+    private static final Key ROOT = new Key.From(".jobs");
+
+    /**
+     * Resumes in progress by storage.
+     */
+    private static final Map<Storage, CompletableFuture<Void>> RESUMES =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Repository type.
+     */
+    private static final String CONDA = "conda";
+
+    /**
+     * Max number of packages moved in place or resumed jobs run in parallel.
+     */
+    private static final int PARALLEL = 8;
+
+    /**
+     * Abstract storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Repodata merges.
+     */
+    private final GroupMerge merges;
+
+    /**
+     * Artifacts events queue.
+     */
+    private final Optional<Queue<ArtifactEvent>> events;
+
+    /**
+     * Repository name.
+     */
+    private final String rname;
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param merges Repodata merges
+     * @param events Artifact events
+     * @param rname Repository name
+     */
+    public IndexJobs(final Storage asto, final GroupMerge merges,
+        final Optional<Queue<ArtifactEvent>> events, final String rname) {
+        this.asto = asto;
+        this.merges = merges;
+        this.events = events;
+        this.rname = rname;
+    }
+
+    /**
+     * Runs the job.
+     * @param job Index job
+     * @return Completable operation, completes when the package is in the repodata
+     */
+    public CompletionStage<Void> index(final IndexJob job) {
+        return this.index(Collections.singletonList(job));
+    }
+
+    /**
+     * Runs the jobs together: jobs of each subdir are added to the channel data summary in one
+     * update and merged into the repodata in one pass, subdirs are processed in parallel.
+     * @param jobs Index jobs
+     * @return Completable operation, completes when all the packages are in the repodata
+     */
+    public CompletionStage<Void> index(final Collection<IndexJob> jobs) {
+        final Map<String, List<IndexJob>> subdirs = new LinkedHashMap<>();
+        for (final IndexJob job : jobs) {
+            subdirs.computeIfAbsent(
+                IndexJobs.subdir(job.pkg()).string(), any -> new ArrayList<>(1)
+            ).add(job);
+        }
+        final List<CompletableFuture<Void>> all = new ArrayList<>(subdirs.size());
+        for (final List<IndexJob> items : subdirs.values()) {
+            all.add(this.batch(items).toCompletableFuture());
+        }
+        return CompletableFuture.allOf(all.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Saves the job record and runs the job in background.
+     * @param job Index job
+     * @return Completable operation, completes when the job record is saved
+     */
+    public CompletionStage<Void> submit(final IndexJob job) {
+        return this.asto.save(IndexJobs.record(job.pkg()), new Content.From(job.bytes()))
+            .thenRun(() -> this.run(job));
+    }
+
+    /**
+     * Runs all the jobs with saved records: pending jobs left by a restart and failed jobs.
+     * Should be called once on startup, before uploads are accepted. Concurrent resumes of
+     * the same storage, for example by several slices of one repository, share one run, so
+     * a job is not run twice. Jobs are run in batches of {@link #PARALLEL} jobs, so a long
+     * backlog of records does not load the storage with all of its jobs at once. Errors are
+     * logged.
+     * @return Completable operation, completes when all the jobs are done or failed, never fails
+     */
+    public CompletionStage<Void> resume() {
+        final CompletableFuture<Void> flight = new CompletableFuture<>();
+        final CompletableFuture<Void> running = IndexJobs.RESUMES.putIfAbsent(this.asto, flight);
+        final CompletionStage<Void> res;
+        if (running == null) {
+            this.records().whenComplete(
+                (nothing, err) -> {
+                    IndexJobs.RESUMES.remove(this.asto, flight);
+                    flight.complete(null);
+                }
+            );
+            res = flight;
+        } else {
+            res = running;
+        }
+        return res;
+    }
+
+    /**
+     * Status of the package: pending if the job record exists, failed if the job failed,
+     * indexed if there is no job and the package is in place.
+     * @param pkg Package key, `subdir/filename`
+     * @return Status and the error message of the failed job, empty if package is unknown
+     */
+    public CompletionStage<Optional<Status>> status(final Key pkg) {
+        final Key record = IndexJobs.record(pkg);
+        return this.asto.exists(record).thenCompose(
+            pending -> {
+                final CompletionStage<Optional<Status>> res;
+                if (pending) {
+                    res = this.asto.value(record)
+                        .thenCompose(content -> new PublisherAs(content).bytes())
+                        .thenApply(
+                            bytes -> Optional.of(
+                                new Status(new IndexJob.Stored(bytes).job().error())
+                            )
+                        );
+                } else {
+                    res = this.asto.exists(pkg).thenApply(
+                        exists -> {
+                            final Optional<Status> status;
+                            if (exists) {
+                                status = Optional.of(Status.INDEXED);
+                            } else {
+                                status = Optional.empty();
+                            }
+                            return status;
+                        }
+                    );
+                }
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Runs the jobs of one subdir.
+     * @param jobs Index jobs of the subdir
+     * @return Completable operation
+     */
+    private CompletionStage<Void> batch(final List<IndexJob> jobs) {
+        final Key repodata = new Key.From(IndexJobs.subdir(jobs.get(0).pkg()), "repodata.json");
+        final Map<String, Map<String, JsonObject>> files = new LinkedHashMap<>();
+        final List<PackageRecord> records = new ArrayList<>(jobs.size());
+        for (final IndexJob job : jobs) {
+            final String filename = new KeyLastPart(job.pkg()).get();
+            files.put(filename, job.files());
+            records.add(new PackageRecord(filename, job.entry()));
+        }
+        CompletionStage<Void> res = new AstoChannelData(this.asto, repodata).add(files)
+            .thenCompose(nothing -> this.merges.merge(repodata, records));
+        for (int from = 0; from < jobs.size(); from = from + IndexJobs.PARALLEL) {
+            final List<IndexJob> batch = jobs.subList(
+                from, Math.min(from + IndexJobs.PARALLEL, jobs.size())
+            );
+            res = res.thenCompose(
+                nothing -> CompletableFuture.allOf(
+                    batch.stream().map(job -> this.place(job).toCompletableFuture())
+                        .toArray(CompletableFuture[]::new)
+                )
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Moves indexed package from the upload key in place, if it was not moved yet, and adds
+     * artifact event.
+     * @param job Index job
+     * @return Completable operation
+     */
+    private CompletionStage<Void> place(final IndexJob job) {
+        CompletionStage<Void> res = this.asto.exists(job.upload()).thenCompose(
+            uploaded -> {
+                final CompletionStage<Void> move;
+                if (uploaded) {
+                    move = this.asto.move(job.upload(), job.pkg());
+                } else {
+                    move = CompletableFuture.allOf();
+                }
+                return move;
+            }
+        );
+        if (this.events.isPresent()) {
+            final JsonObject entry = job.entry();
+            res = res.thenAccept(
+                nothing -> this.events.get().add(
+                    new ArtifactEvent(
+                        IndexJobs.CONDA, this.rname, job.owner(),
+                        String.join("_", entry.getString("name"), entry.getString("arch")),
+                        entry.getString("version"),
+                        entry.getJsonNumber("size").longValue()
+                    )
+                )
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Runs the jobs of all the saved records in batches.
+     * @return Completable operation, never fails
+     */
+    private CompletionStage<Void> records() {
+        return this.asto.list(IndexJobs.ROOT).thenCompose(
+            keys -> {
+                final List<Key> records = new ArrayList<>(keys);
+                CompletionStage<Void> res = CompletableFuture.allOf();
+                for (int from = 0; from < records.size(); from = from + IndexJobs.PARALLEL) {
+                    final List<Key> batch = records.subList(
+                        from, Math.min(from + IndexJobs.PARALLEL, records.size())
+                    );
+                    res = res.thenCompose(
+                        nothing -> CompletableFuture.allOf(
+                            batch.stream().map(key -> this.resume(key).toCompletableFuture())
+                                .toArray(CompletableFuture[]::new)
+                        )
+                    );
+                }
+                return res;
+            }
+        ).exceptionally(
+            err -> {
+                Logger.error(this, "Failed to resume index jobs: %[exception]s", err);
+                return null;
+            }
+        );
+    }
+
+    /**
+     * Reads the job record and runs the job.
+     * @param record Job record key
+     * @return Completable operation, never fails
+     */
+    private CompletionStage<Void> resume(final Key record) {
+        return this.asto.value(record)
+            .thenCompose(content -> new PublisherAs(content).bytes())
+            .thenApply(bytes -> new IndexJob.Stored(bytes).job())
+            .thenCompose(this::run)
+            .exceptionally(
+                err -> {
+                    Logger.error(
+                        this, "Failed to resume index job %s: %[exception]s", record.string(), err
+                    );
+                    return null;
+                }
+            );
+    }
+
+    /**
+     * Runs the job and removes its record, failed job record is kept with the error.
+     * @param job Index job
+     * @return Completable operation, never fails
+     */
+    private CompletionStage<Void> run(final IndexJob job) {
+        final Key record = IndexJobs.record(job.pkg());
+        return this.index(job).thenCompose(nothing -> this.asto.delete(record)).handle(
+            (nothing, err) -> {
+                final CompletionStage<Void> res;
+                if (err == null) {
+                    res = CompletableFuture.allOf();
+                } else {
+                    Logger.error(
+                        this, "Failed to index %s: %[exception]s", job.pkg().string(), err
+                    );
+                    res = this.asto.save(
+                        record, new Content.From(job.failed(IndexJobs.message(err)).bytes())
+                    ).exceptionally(ignored -> null);
+                }
+                return res;
+            }
+        ).thenCompose(stage -> stage);
+    }
+
+    /**
+     * Job record key.
+     * @param pkg Package key
+     * @return Record key
+     */
+    private static Key record(final Key pkg) {
+        return new Key.From(IndexJobs.ROOT, String.format("%s.json", pkg.string()));
+    }
+
+    /**
+     * Subdir of the package.
+     * @param pkg Package key
+     * @return Subdir key
+     */
+    private static Key subdir(final Key pkg) {
+        return pkg.parent().orElse(Key.ROOT);
+    }
+
+    /**
+     * Error message, completion wrappers are skipped.
+     * @param err Error
+     * @return Message
+     */
+    private static String message(final Throwable err) {
+        Throwable cause = err;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return String.valueOf(cause.getMessage());
+    }
+
+    /**
+     * Package indexing status.
+     * @since 0.4
+     */
+    public static final class Status {
+
+        /**
+         * Indexed package status.
+         */
+        static final Status INDEXED = new Status("indexed", Optional.empty());
+
+        /**
+         * Status name.
+         */
+        private final String name;
+
+        /**
+         * Error message of the failed job.
+         */
+        private final Optional<String> error;
+
+        /**
+         * Ctor of the status of the job.
+         * @param error Error message if the job failed
+         */
+        Status(final Optional<String> error) {
+            this(error.map(msg -> "failed").orElse("pending"), error);
+        }
+
+        /**
+         * Ctor.
+         * @param name Status name
+         * @param error Error message of the failed job
+         */
+        private Status(final String name, final Optional<String> error) {
+            this.name = name;
+            this.error = error;
+        }
+
+        /**
+         * Status name: pending, failed or indexed. Package is visible in the repodata once it
+         * is indexed.
+         * @return Name
+         */
+        public String name() {
+            return this.name;
+        }
+
+        /**
+         * Error message of the failed job.
+         * @return Message if the job failed
+         */
+        public Optional<String> error() {
+            return this.error;
+        }
+    }
+}
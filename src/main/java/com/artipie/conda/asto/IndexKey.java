@@ -0,0 +1,23 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Key;
+
+/**
+ * Key of the repodata index sidecar file, see {@link com.artipie.conda.meta.RepodataIndex}:
+ * index is stored next to the repodata with `.idx` extension.
+ * @since 0.4
+ */
+final class IndexKey extends Key.Wrap {
+
+    /**
+     * Ctor.
+     * @param repodata Repodata key
+     */
+    IndexKey(final Key repodata) {
+        super(new Key.From(String.format("%s.idx", repodata.string())));
+    }
+}
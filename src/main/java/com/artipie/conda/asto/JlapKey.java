@@ -0,0 +1,31 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Key;
+
+/**
+ * Key of the repodata JLAP file, see {@link com.artipie.conda.meta.Jlap}: file is stored next
+ * to the repodata as `repodata.jlap`.
+ * @since 0.4
+ */
+public final class JlapKey extends Key.Wrap {
+
+    /**
+     * JLAP file name.
+     */
+    private static final String NAME = "repodata.jlap";
+
+    /**
+     * Ctor.
+     * @param repodata Repodata key
+     */
+    public JlapKey(final Key repodata) {
+        super(
+            repodata.parent().<Key>map(parent -> new Key.From(parent, JlapKey.NAME))
+                .orElse(new Key.From(JlapKey.NAME))
+        );
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Input stream reading from a byte buffer, used to feed json parser from memory-mapped file
+ * without intermediate copies into stream buffers.
+ * @since 0.4
+ */
+final class MappedInput extends InputStream {
+
+    /**
+     * Buffer to read from.
+     */
+    private final ByteBuffer buf;
+
+    /**
+     * Ctor.
+     * @param buf Buffer to read from
+     */
+    MappedInput(final ByteBuffer buf) {
+        super();
+        this.buf = buf;
+    }
+
+    @Override
+    public int read() {
+        final int res;
+        if (this.buf.hasRemaining()) {
+            res = this.buf.get() & 0xff;
+        } else {
+            res = -1;
+        }
+        return res;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int off, final int len) {
+        final int res;
+        if (len == 0) {
+            res = 0;
+        } else if (this.buf.hasRemaining()) {
+            res = Math.min(len, this.buf.remaining());
+            this.buf.get(bytes, off, res);
+        } else {
+            res = -1;
+        }
+        return res;
+    }
+
+    @Override
+    public int available() {
+        return this.buf.remaining();
+    }
+}
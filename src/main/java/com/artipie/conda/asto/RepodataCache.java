@@ -0,0 +1,333 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.conda.meta.RepodataStamp;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache of repodata files: repodata, its compressed variants, sidecars and encoded
+ * bodies are kept off-heap in direct buffers, so serving them does not touch the storage. Cache
+ * is bounded by the total size of the kept bodies, least recently used bodies are evicted
+ * first; bodies of unknown size or larger than the cache are read from storage each time.
+ * Writers of the repodata should invalidate the cache after the repodata and its sidecars are
+ * saved, see {@link #invalidate(Key)}. Bodies read before an invalidation are not cached after
+ * it, so the cache never keeps a revision older than the last invalidated one. Repodata can
+ * also be updated by another node sharing the storage, so readers revalidate the repodata
+ * revision before serving cached bodies, see {@link #stamp(Storage, Key)}: the last read
+ * revision stamp is kept in the cache and read from the storage again once it is older than
+ * the revalidation period, then the cached bodies of the subdir are dropped if its sha256
+ * checksum differs from the one the bodies were cached under. So another node's update is
+ * seen within the revalidation period, while cached reads cost no storage round trips.
+ * @since 0.4
+ */
+public final class RepodataCache {
+
+    /**
+     * Disabled cache, every value is read from storage.
+     */
+    public static final RepodataCache NONE = new RepodataCache(0, 0);
+
+    /**
+     * Default revalidation period of the revision stamp, milliseconds.
+     */
+    private static final long TTL = 1000;
+
+    /**
+     * Maximum total size of cached bodies in bytes.
+     */
+    private final long capacity;
+
+    /**
+     * Cached bodies by storage key in access order.
+     */
+    private final Map<Key, ByteBuffer> items;
+
+    /**
+     * Revalidation period of the revision stamp, milliseconds.
+     */
+    private final long ttl;
+
+    /**
+     * Last read revision stamps by repodata key.
+     */
+    private final Map<Key, Revision> revisions;
+
+    /**
+     * Cache hits counter.
+     */
+    private final AtomicLong hit;
+
+    /**
+     * Cache misses counter.
+     */
+    private final AtomicLong miss;
+
+    /**
+     * Storage reads shared by concurrent misses.
+     */
+    private final SharedReads reads;
+
+    /**
+     * Total size of cached bodies.
+     */
+    private long size;
+
+    /**
+     * Invalidations counter.
+     */
+    private long generation;
+
+    /**
+     * Ctor.
+     * @param capacity Maximum total size of cached bodies in bytes
+     */
+    public RepodataCache(final long capacity) {
+        this(capacity, RepodataCache.TTL);
+    }
+
+    /**
+     * Ctor.
+     * @param capacity Maximum total size of cached bodies in bytes
+     * @param ttl Revalidation period of the revision stamp, milliseconds
+     */
+    public RepodataCache(final long capacity, final long ttl) {
+        this.capacity = capacity;
+        this.ttl = ttl;
+        // @checkstyle MagicNumberCheck (1 line)
+        this.items = new LinkedHashMap<>(16, 0.75f, true);
+        this.revisions = new HashMap<>(0);
+        this.hit = new AtomicLong();
+        this.miss = new AtomicLong();
+        this.reads = new SharedReads(capacity);
+    }
+
+    /**
+     * Value of the storage item, from cache if it is cached or from storage otherwise. Read
+     * value is cached if it fits, concurrent misses of the same item share one storage read,
+     * see {@link SharedReads}.
+     * @param asto Storage
+     * @param key Item key
+     * @return Content if item exists
+     */
+    public CompletionStage<Optional<Content>> value(final Storage asto, final Key key) {
+        final Optional<ByteBuffer> cached = this.cached(key);
+        final CompletionStage<Optional<Content>> res;
+        if (cached.isPresent()) {
+            this.hit.incrementAndGet();
+            res = CompletableFuture.completedFuture(
+                Optional.of(SharedReads.Read.content(cached.get()))
+            );
+        } else {
+            this.miss.incrementAndGet();
+            final long gen = this.current();
+            res = this.reads.read(asto, key).thenApply(
+                read -> {
+                    read.buffer().ifPresent(buf -> this.put(key, buf, gen));
+                    return read.content();
+                }
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Checks whether storage item exists, cached items exist without storage round trip.
+     * @param asto Storage
+     * @param key Item key
+     * @return True if item exists
+     */
+    public CompletionStage<Boolean> exists(final Storage asto, final Key key) {
+        final CompletionStage<Boolean> res;
+        if (this.cached(key).isPresent()) {
+            res = CompletableFuture.completedFuture(true);
+        } else {
+            res = asto.exists(key);
+        }
+        return res;
+    }
+
+    /**
+     * Revision stamp of the repodata, see {@link RepodataStamp}. Stamp is served from the
+     * cache within the revalidation period and read from the storage otherwise, then the
+     * cached bodies of the subdir are dropped if the revision differs from the last seen one.
+     * Should be called before cached bodies of the subdir are served.
+     * @param asto Storage
+     * @param repodata Repodata key
+     * @return Stamp if it exists and is readable
+     */
+    public CompletionStage<Optional<RepodataStamp>> stamp(final Storage asto,
+        final Key repodata) {
+        final Optional<Revision> fresh = this.fresh(repodata);
+        final CompletionStage<Optional<RepodataStamp>> res;
+        if (fresh.isPresent()) {
+            this.hit.incrementAndGet();
+            res = CompletableFuture.completedFuture(fresh.get().stamp);
+        } else {
+            this.miss.incrementAndGet();
+            final long now = System.currentTimeMillis();
+            final long gen = this.current();
+            res = new StoredStamp(asto, repodata).value().thenApply(
+                item -> {
+                    this.revalidate(repodata, new Revision(item, now), gen);
+                    return item;
+                }
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Removes cached bodies of the repodata subdir: repodata, current repodata, their variants,
+     * encoded bodies and sidecars.
+     * @param repodata Repodata key
+     */
+    public synchronized void invalidate(final Key repodata) {
+        final Optional<Key> parent = repodata.parent();
+        final Optional<String> encoded = Optional.of(new EncodedKey.Prefix(repodata).string());
+        final Iterator<Map.Entry<Key, ByteBuffer>> iter = this.items.entrySet().iterator();
+        while (iter.hasNext()) {
+            final Map.Entry<Key, ByteBuffer> item = iter.next();
+            if (item.getKey().parent().equals(parent)
+                || item.getKey().parent().map(Key::string).equals(encoded)) {
+                this.size = this.size - item.getValue().capacity();
+                iter.remove();
+            }
+        }
+        this.revisions.keySet().removeIf(key -> key.parent().equals(parent));
+        this.generation = this.generation + 1;
+        this.reads.forget(repodata);
+    }
+
+    /**
+     * Number of values served from cache.
+     * @return Hits count
+     */
+    public long hits() {
+        return this.hit.get();
+    }
+
+    /**
+     * Number of values read from storage.
+     * @return Misses count
+     */
+    public long misses() {
+        return this.miss.get();
+    }
+
+    /**
+     * Last read revision stamp, if it was read within the revalidation period.
+     * @param repodata Repodata key
+     * @return Revision if it is fresh
+     */
+    private synchronized Optional<Revision> fresh(final Key repodata) {
+        return Optional.ofNullable(this.revisions.get(repodata)).filter(
+            item -> System.currentTimeMillis() - item.checked < this.ttl
+        );
+    }
+
+    /**
+     * Keeps read revision stamp, drops cached bodies of the subdir if the revision changed.
+     * Stamp read before an invalidation is not kept, as it may be older than the saved one.
+     * @param repodata Repodata key
+     * @param revision Read revision
+     * @param gen Invalidations counter before the stamp was read
+     */
+    private synchronized void revalidate(final Key repodata, final Revision revision,
+        final long gen) {
+        if (gen == this.generation) {
+            final Revision prev = this.revisions.get(repodata);
+            if (prev == null || !prev.sha256().equals(revision.sha256())) {
+                this.invalidate(repodata);
+            }
+            this.revisions.put(repodata, revision);
+        }
+    }
+
+    /**
+     * Cached body.
+     * @param key Item key
+     * @return Body if cached
+     */
+    private synchronized Optional<ByteBuffer> cached(final Key key) {
+        return Optional.ofNullable(this.items.get(key));
+    }
+
+    /**
+     * Current invalidations counter.
+     * @return Counter value
+     */
+    private synchronized long current() {
+        return this.generation;
+    }
+
+    /**
+     * Caches body unless cache was invalidated since it was read, evicts least recently used
+     * bodies to fit the capacity.
+     * @param key Item key
+     * @param buf Body
+     * @param gen Invalidations counter before the body was read
+     */
+    private synchronized void put(final Key key, final ByteBuffer buf, final long gen) {
+        if (gen == this.generation) {
+            final ByteBuffer prev = this.items.put(key, buf);
+            if (prev != null) {
+                this.size = this.size - prev.capacity();
+            }
+            this.size = this.size + buf.capacity();
+            final Iterator<ByteBuffer> iter = this.items.values().iterator();
+            while (this.size > this.capacity && iter.hasNext()) {
+                this.size = this.size - iter.next().capacity();
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Revision stamp read from the storage.
+     * @since 0.4
+     */
+    private static final class Revision {
+
+        /**
+         * Stamp, empty if repodata has no stamp.
+         */
+        private final Optional<RepodataStamp> stamp;
+
+        /**
+         * When the stamp was read, milliseconds.
+         */
+        private final long checked;
+
+        /**
+         * Ctor.
+         * @param stamp Stamp, empty if repodata has no stamp
+         * @param checked When the stamp was read, milliseconds
+         */
+        Revision(final Optional<RepodataStamp> stamp, final long checked) {
+            this.stamp = stamp;
+            this.checked = checked;
+        }
+
+        /**
+         * Sha256 checksum of the revision.
+         * @return Checksum, empty if repodata has no stamp
+         */
+        String sha256() {
+            return this.stamp.map(RepodataStamp::sha256).orElse("");
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Repodata queue serializes the operations which read, modify and write the repodata file
+ * of the storage, or another shared index file such as channel data: an operation starts
+ * when the previous operation on the same file completes, normally or not, operations on
+ * different files run in parallel. Nothing is blocked while waiting: the operation is
+ * chained to the completion of the previous one. Queues are shared by all the instances for
+ * the same storage and key within the process.
+ * @since 0.4
+ */
+final class RepodataQueue {
+
+    /**
+     * Tails of the queues: completion of the last queued operation by storage and key.
+     */
+    private static final Map<Storage, ConcurrentMap<String, CompletableFuture<Void>>> TAILS =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Abstract storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Repodata file key.
+     */
+    private final Key key;
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param key Repodata file key
+     */
+    RepodataQueue(final Storage asto, final Key key) {
+        this.asto = asto;
+        this.key = key;
+    }
+
+    /**
+     * Runs the operation after the operations queued before it.
+     * @param operation Operation
+     * @param <T> Result type
+     * @return Operation result
+     */
+    <T> CompletionStage<T> run(final Supplier<CompletionStage<T>> operation) {
+        final ConcurrentMap<String, CompletableFuture<Void>> tails = RepodataQueue.TAILS
+            .computeIfAbsent(this.asto, any -> new ConcurrentHashMap<>());
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        final CompletableFuture<Void> previous = tails.put(this.key.string(), done);
+        final CompletableFuture<Void> start;
+        if (previous == null) {
+            start = CompletableFuture.completedFuture(null);
+        } else {
+            start = previous;
+        }
+        return start.thenCompose(nothing -> operation.get()).whenComplete(
+            (res, err) -> {
+                tails.remove(this.key.string(), done);
+                done.complete(null);
+            }
+        );
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shared reads coalesce concurrent reads of the same storage item: the first reader fetches
+ * the item and readers arriving while it is in flight get the same bytes instead of reading
+ * the storage again. Bodies up to the limit are read into a direct buffer and fanned out to all
+ * readers, larger bodies or bodies of unknown size can not be shared, so each reader fetches
+ * them on its own. Nothing is kept after the read completes.
+ * @since 0.4
+ */
+public final class SharedReads {
+
+    /**
+     * Maximum size of the shared body in bytes.
+     */
+    private final long limit;
+
+    /**
+     * Reads in flight by storage key.
+     */
+    private final ConcurrentMap<Key, CompletableFuture<Read>> flights;
+
+    /**
+     * Ctor.
+     * @param limit Maximum size of the shared body in bytes
+     */
+    public SharedReads(final long limit) {
+        this.limit = limit;
+        this.flights = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Value of the storage item.
+     * @param asto Storage
+     * @param key Item key
+     * @return Content if item exists
+     */
+    public CompletionStage<Optional<Content>> value(final Storage asto, final Key key) {
+        return this.read(asto, key).thenApply(Read::content);
+    }
+
+    /**
+     * Reads storage item joining the read in flight, if any.
+     * @param asto Storage
+     * @param key Item key
+     * @return Read item
+     */
+    CompletionStage<Read> read(final Storage asto, final Key key) {
+        final CompletableFuture<Read> flight = new CompletableFuture<>();
+        final CompletableFuture<Read> current = this.flights.putIfAbsent(key, flight);
+        final CompletionStage<Read> res;
+        if (current == null) {
+            CompletableFuture.completedFuture(key).thenCompose(item -> this.fetch(asto, item))
+                .whenComplete(
+                    (read, err) -> {
+                        this.flights.remove(key, flight);
+                        if (err == null) {
+                            flight.complete(read);
+                        } else {
+                            flight.completeExceptionally(err);
+                        }
+                    }
+                );
+            res = flight;
+        } else {
+            res = current.thenCompose(
+                read -> {
+                    final CompletionStage<Read> own;
+                    if (read.shared()) {
+                        own = CompletableFuture.completedFuture(read);
+                    } else {
+                        own = this.fetch(asto, key);
+                    }
+                    return own;
+                }
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Detaches reads in flight of the repodata subdir, readers arriving after that start
+     * new reads. Should be called when the subdir is rewritten.
+     * @param repodata Repodata key
+     */
+    void forget(final Key repodata) {
+        final Optional<Key> parent = repodata.parent();
+        this.flights.keySet().removeIf(key -> key.parent().equals(parent));
+    }
+
+    /**
+     * Fetches storage item.
+     * @param asto Storage
+     * @param key Item key
+     * @return Read item
+     */
+    private CompletionStage<Read> fetch(final Storage asto, final Key key) {
+        return asto.exists(key).thenCompose(
+            exists -> {
+                final CompletionStage<Read> res;
+                if (exists) {
+                    res = asto.value(key).thenCompose(
+                        content -> {
+                            final CompletionStage<Read> body;
+                            if (this.limit > 0 && content.size().isPresent()
+                                && content.size().get() <= this.limit) {
+                                body = SharedReads.buffered(content, content.size().get())
+                                    .thenApply(buf -> new Read(Optional.of(buf), Optional.empty()));
+                            } else {
+                                body = CompletableFuture.completedFuture(
+                                    new Read(Optional.empty(), Optional.of(content))
+                                );
+                            }
+                            return body;
+                        }
+                    );
+                } else {
+                    res = CompletableFuture.completedFuture(
+                        new Read(Optional.empty(), Optional.empty())
+                    );
+                }
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Reads body into a direct buffer allocated once by the body size, chunks are written
+     * into the buffer as they arrive.
+     * @param content Body
+     * @param size Body size
+     * @return Buffer with the body, ready to be read
+     */
+    private static CompletionStage<ByteBuffer> buffered(final Content content, final long size) {
+        final CompletableFuture<ByteBuffer> res = new CompletableFuture<>();
+        Flowable.fromPublisher(content).collect(
+            () -> ByteBuffer.allocateDirect(Math.toIntExact(size)),
+            (buf, chunk) -> buf.put(chunk.duplicate())
+        ).subscribe(
+            buf -> {
+                buf.flip();
+                res.complete(buf);
+            },
+            res::completeExceptionally
+        );
+        return res;
+    }
+
+    /**
+     * Read storage item: buffered body, streamed body or nothing if item does not exist.
+     * @since 0.4
+     */
+    static final class Read {
+
+        /**
+         * Buffered body.
+         */
+        private final Optional<ByteBuffer> buf;
+
+        /**
+         * Streamed body.
+         */
+        private final Optional<Content> stream;
+
+        /**
+         * Ctor.
+         * @param buf Buffered body
+         * @param stream Streamed body
+         */
+        Read(final Optional<ByteBuffer> buf, final Optional<Content> stream) {
+            this.buf = buf;
+            this.stream = stream;
+        }
+
+        /**
+         * Buffered body.
+         * @return Body if it was buffered
+         */
+        Optional<ByteBuffer> buffer() {
+            return this.buf;
+        }
+
+        /**
+         * Whether the read can be shared by several readers: streamed body can be consumed
+         * only once.
+         * @return True if read can be shared
+         */
+        boolean shared() {
+            return !this.stream.isPresent();
+        }
+
+        /**
+         * Content of the read body, buffered body can be consumed any number of times.
+         * @return Content if item exists
+         */
+        Optional<Content> content() {
+            final Optional<Content> res;
+            if (this.buf.isPresent()) {
+                res = Optional.of(Read.content(this.buf.get()));
+            } else {
+                res = this.stream;
+            }
+            return res;
+        }
+
+        /**
+         * Content of the buffered body.
+         * @param buf Body
+         * @return Content
+         */
+        static Content content(final ByteBuffer buf) {
+            return new Content.From(
+                Optional.of((long) buf.remaining()), Flowable.fromCallable(buf::asReadOnlyBuffer)
+            );
+        }
+    }
+}
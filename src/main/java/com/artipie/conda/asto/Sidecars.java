@@ -0,0 +1,126 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.ArtipieIOException;
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.conda.meta.RepodataEntries;
+import com.artipie.conda.meta.RepodataIndex;
+import com.artipie.conda.meta.RepodataPatch;
+import com.artipie.conda.meta.RepodataStamp;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Repodata sidecar files built while repodata is written: byte offsets index, see
+ * {@link RepodataIndex}, revision stamp, see {@link RepodataStamp}, and JLAP patch from the
+ * previous revision, see {@link AstoJlap}. Changes from the previous revision also tell which
+ * repodata shards to rewrite, see {@link AstoShards}. Entries of the written repodata, located
+ * by the index, are kept to build current repodata, shards and channel data without reading
+ * the repodata back, see {@link RepodataEntries}.
+ * @since 0.4
+ */
+final class Sidecars {
+
+    /**
+     * Repodata index.
+     */
+    private final RepodataIndex index;
+
+    /**
+     * Entries of the written repodata.
+     */
+    private final RepodataEntries entries;
+
+    /**
+     * Repodata stamp.
+     */
+    private final RepodataStamp stamp;
+
+    /**
+     * BLAKE2b-256 checksum of the previous revision.
+     */
+    private final Optional<String> from;
+
+    /**
+     * Changes from the previous revision.
+     */
+    private final Optional<RepodataPatch> patch;
+
+    /**
+     * Ctor.
+     * @param written Written repodata bytes, for example memory-mapped repodata file
+     * @param index Repodata index
+     * @param stamp Repodata stamp
+     * @param from BLAKE2b-256 checksum of the previous revision, if any
+     * @param patch Changes from the previous revision, if known
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    Sidecars(final ByteBuffer written, final RepodataIndex index, final RepodataStamp stamp,
+        final Optional<String> from, final Optional<RepodataPatch> patch) {
+        this.entries = new RepodataEntries(written, index);
+        this.index = index;
+        this.stamp = stamp;
+        this.from = from;
+        this.patch = patch;
+    }
+
+    /**
+     * Entries of the written repodata.
+     * @return Repodata entries
+     */
+    RepodataEntries entries() {
+        return this.entries;
+    }
+
+    /**
+     * Filenames of the packages changed from the previous revision.
+     * @return Filenames if changes are known
+     */
+    Optional<Set<String>> touched() {
+        return this.patch.map(RepodataPatch::filenames);
+    }
+
+    /**
+     * Saves sidecars next to the repodata, should be called after repodata is saved. Stamp is
+     * saved before the index: next update checks the index against the repodata it reads and
+     * takes previous revision checksum from the stamp, so matching index guarantees that the
+     * stamp belongs to the same revision. JLAP log is updated last.
+     * @param asto Storage
+     * @param repodata Repodata key
+     * @return Completable operation
+     */
+    CompletionStage<Void> save(final Storage asto, final Key repodata) {
+        final ByteArrayOutputStream idx = new ByteArrayOutputStream();
+        final ByteArrayOutputStream stmp = new ByteArrayOutputStream();
+        final Optional<String> json;
+        try {
+            this.index.writeTo(idx);
+            this.stamp.writeTo(stmp);
+            if (this.patch.isPresent()) {
+                json = this.patch.get().json();
+            } else {
+                json = Optional.empty();
+            }
+        } catch (final IOException err) {
+            throw new ArtipieIOException(err);
+        }
+        return asto.save(new StampKey(repodata), new Content.From(stmp.toByteArray()))
+            .thenCompose(
+                nothing -> asto.save(
+                    new IndexKey(repodata), new Content.From(idx.toByteArray())
+                )
+            ).thenCompose(
+                nothing -> new AstoJlap(asto, repodata)
+                    .append(this.from, json, this.stamp.blake2b())
+            );
+    }
+}
@@ -0,0 +1,23 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Key;
+
+/**
+ * Key of the repodata stamp sidecar file, see {@link com.artipie.conda.meta.RepodataStamp}:
+ * stamp is stored next to the repodata with `.stamp` extension.
+ * @since 0.4
+ */
+public final class StampKey extends Key.Wrap {
+
+    /**
+     * Ctor.
+     * @param repodata Repodata key
+     */
+    public StampKey(final Key repodata) {
+        super(new Key.From(String.format("%s.stamp", repodata.string())));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.conda.meta.RepodataIndex;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Repodata index sidecar stored next to the repodata, see {@link IndexKey}.
+ * @since 0.4
+ */
+final class StoredIndex {
+
+    /**
+     * Abstract storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Repodata file key.
+     */
+    private final Key key;
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param key Repodata file key
+     */
+    StoredIndex(final Storage asto, final Key key) {
+        this.asto = asto;
+        this.key = key;
+    }
+
+    /**
+     * Reads repodata index if it exists and is readable.
+     * @return Repodata index if found
+     */
+    CompletionStage<Optional<RepodataIndex>> value() {
+        final Key idx = new IndexKey(this.key);
+        return this.asto.exists(idx).thenCompose(
+            exists -> {
+                final CompletionStage<Optional<RepodataIndex>> res;
+                if (exists) {
+                    res = this.asto.value(idx)
+                        .thenCompose(content -> new PublisherAs(content).bytes())
+                        .thenApply(StoredIndex::read);
+                } else {
+                    res = CompletableFuture.completedFuture(Optional.empty());
+                }
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Reads stored index, unreadable index is treated as absent.
+     * @param bytes Index bytes
+     * @return Index if it is readable
+     */
+    private static Optional<RepodataIndex> read(final byte[] bytes) {
+        Optional<RepodataIndex> res;
+        try {
+            res = Optional.of(new RepodataIndex.Stored(bytes).index());
+        } catch (final IOException err) {
+            res = Optional.empty();
+        }
+        return res;
+    }
+}
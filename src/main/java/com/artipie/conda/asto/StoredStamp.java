@@ -0,0 +1,105 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ValueNotFoundException;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.conda.meta.RepodataStamp;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Repodata revision stamp stored next to the repodata, see {@link StampKey}. Stamp is read
+ * with single storage call, absent key means there is no stamp.
+ * @since 0.4
+ */
+final class StoredStamp {
+
+    /**
+     * Abstract storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Repodata file key.
+     */
+    private final Key key;
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param key Repodata file key
+     */
+    StoredStamp(final Storage asto, final Key key) {
+        this.asto = asto;
+        this.key = key;
+    }
+
+    /**
+     * Reads repodata stamp if it exists and is readable.
+     * @return Repodata stamp if found
+     */
+    CompletionStage<Optional<RepodataStamp>> value() {
+        return this.asto.value(new StampKey(this.key))
+            .thenCompose(content -> new PublisherAs(content).bytes())
+            .thenApply(StoredStamp::read)
+            .handle(
+                (stamp, err) -> {
+                    final Optional<RepodataStamp> res;
+                    if (err == null) {
+                        res = stamp;
+                    } else if (StoredStamp.notFound(err)) {
+                        res = Optional.empty();
+                    } else {
+                        throw new CompletionException(err);
+                    }
+                    return res;
+                }
+            );
+    }
+
+    /**
+     * BLAKE2b-256 checksum of the stored repodata revision, which identifies it in JLAP log,
+     * see {@link AstoJlap}.
+     * @return Hex checksum if the stamp exists, is readable and has the checksum
+     */
+    CompletionStage<Optional<String>> blake2b() {
+        return this.value().thenApply(
+            stamp -> stamp.map(RepodataStamp::blake2b).filter(blake -> !blake.isEmpty())
+        );
+    }
+
+    /**
+     * Reads stored stamp, unreadable stamp is treated as absent.
+     * @param bytes Stamp bytes
+     * @return Stamp if it is readable
+     */
+    private static Optional<RepodataStamp> read(final byte[] bytes) {
+        Optional<RepodataStamp> res;
+        try {
+            res = Optional.of(new RepodataStamp.Stored(bytes).stamp());
+        } catch (final IOException err) {
+            res = Optional.empty();
+        }
+        return res;
+    }
+
+    /**
+     * Is the error caused by the absent storage item?
+     * @param err Error
+     * @return True if stamp does not exist
+     */
+    private static boolean notFound(final Throwable err) {
+        Throwable cause = err;
+        while (!(cause instanceof ValueNotFoundException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof ValueNotFoundException;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.http;
+
+import com.artipie.http.rq.RqHeaders;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Accept-Encoding request header. Encodings are chosen in server preference order, client
+ * weights are only used to exclude encodings with `q=0`.
+ * @since 0.4
+ */
+final class AcceptEncoding {
+
+    /**
+     * Header name.
+     */
+    static final String NAME = "Accept-Encoding";
+
+    /**
+     * Request headers.
+     */
+    private final Iterable<Map.Entry<String, String>> headers;
+
+    /**
+     * Ctor.
+     * @param headers Request headers
+     */
+    AcceptEncoding(final Iterable<Map.Entry<String, String>> headers) {
+        this.headers = headers;
+    }
+
+    /**
+     * Chooses encoding accepted by client.
+     * @param supported Supported encodings in preference order
+     * @return First of the supported encodings accepted by client, if any
+     */
+    Optional<String> preferred(final Collection<String> supported) {
+        final Set<String> accepted = new HashSet<>(supported.size());
+        boolean any = false;
+        final Set<String> rejected = new HashSet<>(supported.size());
+        for (final String value : new RqHeaders(this.headers, AcceptEncoding.NAME)) {
+            for (final String item : value.split(",")) {
+                final String[] parts = item.split(";");
+                final String name = parts[0].trim().toLowerCase(Locale.US);
+                if (AcceptEncoding.rejects(parts)) {
+                    rejected.add(name);
+                } else if ("*".equals(name)) {
+                    any = true;
+                } else {
+                    accepted.add(name);
+                }
+            }
+        }
+        Optional<String> res = Optional.empty();
+        for (final String encoding : supported) {
+            if (!rejected.contains(encoding) && (any || accepted.contains(encoding))) {
+                res = Optional.of(encoding);
+                break;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Does encoding item have zero weight?
+     * @param parts Encoding item parts: name and parameters
+     * @return True if `q=0`
+     */
+    private static boolean rejects(final String[] parts) {
+        boolean res = false;
+        for (int idx = 1; idx < parts.length; idx = idx + 1) {
+            final String[] param = parts[idx].trim().split("=");
+            if (param.length == 2 && "q".equalsIgnoreCase(param[0].trim())) {
+                try {
+                    res = Double.parseDouble(param[1].trim()) == 0;
+                } catch (final NumberFormatException ignored) {
+                    res = false;
+                }
+            }
+        }
+        return res;
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.http;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.conda.asto.AstoIngestion;
+import com.artipie.conda.asto.IndexJob;
+import com.artipie.conda.asto.IndexJobs;
+import com.artipie.http.Headers;
+import com.artipie.http.Response;
+import com.artipie.http.Slice;
+import com.artipie.http.async.AsyncResponse;
+import com.artipie.http.headers.ContentDisposition;
+import com.artipie.http.headers.Login;
+import com.artipie.http.rq.multipart.RqMultipart;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.http.rs.RsWithStatus;
+import com.artipie.http.rs.common.RsJson;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObjectBuilder;
+import org.reactivestreams.Publisher;
+
+/**
+ * Slice to upload many packages in one multipart request: each `file` part is a package,
+ * part filename is the package key `{subdir}/{filename}`. Parts are ingested as they arrive,
+ * see {@link AstoIngestion}, up to the limit of packages are saved and have their metadata
+ * extracted in parallel. Then all the packages are indexed together, see
+ * {@link IndexJobs#index(java.util.Collection)}: repodata of each subdir is rewritten once,
+ * or, in asynchronous mode, index jobs are submitted. Packages which already exist, are sent
+ * twice or are not valid are rejected without failing the others. Response lists the
+ * accepted packages and the reasons of the rejected ones, it is 201 Created, 202 Accepted in
+ * asynchronous mode, or 400 Bad Request if no package was accepted.
+ * @since 0.4
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ * @checkstyle ClassFanOutComplexityCheck (500 lines)
+ */
+public final class BulkUploadSlice implements Slice {
+
+    /**
+     * Package key pattern of the part filename: subdir and filename are made of lowercase
+     * letters, digits and `._+-` and do not start with a dot, so the key can neither leave the
+     * repository root nor point to the hidden service items, like uploads and job records.
+     */
+    private static final Pattern PKG = Pattern.compile(
+        "[a-z0-9_-][a-z0-9._+-]*/[a-z0-9_-][a-z0-9._+-]*(\\.tar\\.bz2|\\.conda)"
+    );
+
+    /**
+     * Max number of packages ingested in parallel.
+     */
+    private static final int PARALLEL = 4;
+
+    /**
+     * Abstract storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Index jobs.
+     */
+    private final IndexJobs jobs;
+
+    /**
+     * Is indexing asynchronous.
+     */
+    private final boolean async;
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param jobs Index jobs
+     * @param async Is indexing asynchronous
+     */
+    public BulkUploadSlice(final Storage asto, final IndexJobs jobs, final boolean async) {
+        this.asto = asto;
+        this.jobs = jobs;
+        this.async = async;
+    }
+
+    @Override
+    public Response response(final String line, final Iterable<Map.Entry<String, String>> headers,
+        final Publisher<ByteBuffer> body) {
+        final String owner = new Login(new Headers.From(headers)).getValue();
+        final List<IndexJob> accepted = Collections.synchronizedList(new ArrayList<>(0));
+        final Map<String, String> rejected = new ConcurrentSkipListMap<>();
+        final Set<String> seen = ConcurrentHashMap.newKeySet();
+        final CompletableFuture<Void> parts = new CompletableFuture<>();
+        Flowable.fromPublisher(
+            new RqMultipart(new Headers.From(headers), body).inspect(
+                (part, inspector) -> {
+                    if (new ContentDisposition(part.headers()).fieldName().equals("file")) {
+                        inspector.accept(part);
+                    } else {
+                        inspector.ignore(part);
+                    }
+                    return CompletableFuture.allOf();
+                }
+            )
+        ).flatMapSingle(
+            part -> BulkUploadSlice.single(
+                this.ingest(part, owner, seen, rejected).thenApply(
+                    job -> {
+                        job.ifPresent(accepted::add);
+                        return job.isPresent();
+                    }
+                )
+            ),
+            false, BulkUploadSlice.PARALLEL
+        ).ignoreElements().subscribe(() -> parts.complete(null), parts::completeExceptionally);
+        return new AsyncResponse(
+            parts.thenCompose(
+                nothing -> {
+                    final CompletionStage<Response> res;
+                    if (accepted.isEmpty()) {
+                        res = CompletableFuture.completedFuture(
+                            BulkUploadSlice.json(RsStatus.BAD_REQUEST, accepted, rejected)
+                        );
+                    } else if (this.async) {
+                        final List<CompletableFuture<Void>> all = new ArrayList<>(accepted.size());
+                        for (final IndexJob job : accepted) {
+                            all.add(this.jobs.submit(job).toCompletableFuture());
+                        }
+                        res = CompletableFuture.allOf(all.toArray(new CompletableFuture[0]))
+                            .thenApply(
+                                ignored -> BulkUploadSlice.json(
+                                    RsStatus.ACCEPTED, accepted, rejected
+                                )
+                            );
+                    } else {
+                        res = this.jobs.index(accepted).thenApply(
+                            ignored -> BulkUploadSlice.json(RsStatus.CREATED, accepted, rejected)
+                        );
+                    }
+                    return res;
+                }
+            )
+        );
+    }
+
+    /**
+     * Ingests the package part.
+     * @param part Package part
+     * @param owner Uploader login
+     * @param seen Package keys seen in the request
+     * @param rejected Where to put the reason if the package is rejected
+     * @return Index job of the package, empty if the package is rejected
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private CompletionStage<Optional<IndexJob>> ingest(final RqMultipart.Part part,
+        final String owner, final Set<String> seen, final Map<String, String> rejected) {
+        final String filename = new ContentDisposition(part.headers()).fileName();
+        final CompletionStage<Optional<IndexJob>> res;
+        if (filename == null || !BulkUploadSlice.PKG.matcher(filename).matches()) {
+            rejected.put(String.valueOf(filename), "invalid package key");
+            res = BulkUploadSlice.drain(part);
+        } else if (seen.add(filename)) {
+            final Key key = new Key.From(filename);
+            final Key temp = new Key.From(UpdateSlice.TMP, filename);
+            res = this.asto.exists(key).thenCompose(
+                main -> this.asto.exists(temp).thenApply(upl -> main || upl)
+            ).thenCompose(
+                exists -> {
+                    final CompletionStage<Optional<IndexJob>> job;
+                    if (exists) {
+                        rejected.put(filename, "package already exists");
+                        job = BulkUploadSlice.drain(part);
+                    } else {
+                        job = new AstoIngestion(this.asto, temp, UpdateSlice.info(filename))
+                            .save(part)
+                            .thenApply(
+                                pkg -> Optional.of(
+                                    new IndexJob(key, temp, owner, pkg.files(), pkg.entry())
+                                )
+                            ).exceptionally(
+                                err -> {
+                                    rejected.put(filename, BulkUploadSlice.message(err));
+                                    return Optional.empty();
+                                }
+                            ).thenCompose(
+                                item -> {
+                                    CompletionStage<Void> clean = CompletableFuture.allOf();
+                                    if (!item.isPresent()) {
+                                        clean = this.asto.delete(temp)
+                                            .exceptionally(ignored -> null);
+                                    }
+                                    return clean.thenApply(nothing -> item);
+                                }
+                            );
+                    }
+                    return job;
+                }
+            );
+        } else {
+            rejected.put(filename, "package is sent twice");
+            res = BulkUploadSlice.drain(part);
+        }
+        return res;
+    }
+
+    /**
+     * Reads and drops the body of the rejected package part.
+     * @param part Part
+     * @return Empty job, when the body is read
+     */
+    private static CompletionStage<Optional<IndexJob>> drain(final RqMultipart.Part part) {
+        final CompletableFuture<Optional<IndexJob>> res = new CompletableFuture<>();
+        Flowable.fromPublisher(part).ignoreElements().subscribe(
+            () -> res.complete(Optional.empty()), res::completeExceptionally
+        );
+        return res;
+    }
+
+    /**
+     * Single of the completion stage.
+     * @param stage Completion stage
+     * @param <T> Value type
+     * @return Single
+     */
+    private static <T> Single<T> single(final CompletionStage<T> stage) {
+        return Single.create(
+            emitter -> stage.whenComplete(
+                (value, err) -> {
+                    if (err == null) {
+                        emitter.onSuccess(value);
+                    } else {
+                        emitter.onError(err);
+                    }
+                }
+            )
+        );
+    }
+
+    /**
+     * Response listing accepted and rejected packages.
+     * @param status Response status
+     * @param accepted Accepted packages jobs
+     * @param rejected Rejection reasons by package key
+     * @return Response
+     */
+    private static Response json(final RsStatus status, final List<IndexJob> accepted,
+        final Map<String, String> rejected) {
+        final JsonArrayBuilder pkgs = Json.createArrayBuilder();
+        accepted.stream().map(job -> job.pkg().string()).sorted().forEach(pkgs::add);
+        final JsonObjectBuilder reasons = Json.createObjectBuilder();
+        rejected.forEach(reasons::add);
+        return new RsWithStatus(
+            new RsJson(
+                () -> Json.createObjectBuilder().add("packages", pkgs).add("rejected", reasons)
+                    .build(),
+                StandardCharsets.UTF_8
+            ),
+            status
+        );
+    }
+
+    /**
+     * Error message, completion wrappers are skipped.
+     * @param err Error
+     * @return Message
+     */
+    private static String message(final Throwable err) {
+        Throwable cause = err;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return String.valueOf(cause.getMessage());
+    }
+}
@@ -6,6 +6,10 @@ package com.artipie.conda.http;
 
 import com.artipie.asto.Key;
 import com.artipie.asto.Storage;
+import com.artipie.conda.asto.GroupMerge;
+import com.artipie.conda.asto.IndexJobs;
+import com.artipie.conda.asto.RepodataCache;
+import com.artipie.conda.asto.SharedReads;
 import com.artipie.conda.http.auth.TokenAuth;
 import com.artipie.conda.http.auth.TokenAuthScheme;
 import com.artipie.conda.http.auth.TokenAuthSlice;
@@ -23,7 +27,6 @@ import com.artipie.http.rt.RtRule;
 import com.artipie.http.rt.RtRulePath;
 import com.artipie.http.rt.SliceRoute;
 import com.artipie.http.slice.KeyFromPath;
-import com.artipie.http.slice.SliceDownload;
 import com.artipie.http.slice.SliceSimple;
 import com.artipie.scheduling.ArtifactEvent;
 import com.artipie.security.perms.Action;
@@ -58,6 +61,16 @@ public final class CondaSlice extends Slice.Wrap {
      */
     private static final Pattern PTRN = Pattern.compile(".*/(.*/.*(\\.tar\\.bz2|\\.conda))$");
 
+    /**
+     * Default repodata cache size in bytes.
+     */
+    private static final long CACHE_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * Max size of the package shared by concurrent downloads in bytes.
+     */
+    private static final long SHARED_SIZE = 32L * 1024 * 1024;
+
     /**
      * Anonymous tokens.
      */
@@ -114,15 +127,66 @@ public final class CondaSlice extends Slice.Wrap {
     public CondaSlice(final Storage storage, final Policy<?> policy, final Authentication users,
         final Tokens tokens, final String url, final String repo,
         final Optional<Queue<ArtifactEvent>> events) {
+        this(
+            storage, policy, users, tokens, url, repo, events,
+            new RepodataCache(CondaSlice.CACHE_SIZE), new SharedReads(CondaSlice.SHARED_SIZE)
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param storage Storage
+     * @param policy Permissions
+     * @param users Users
+     * @param tokens Tokens
+     * @param url Application url
+     * @param repo Repository name
+     * @param events Events queue
+     * @param cache Repodata cache shared by repodata downloads and updates
+     * @param reads Storage reads shared by concurrent package downloads
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public CondaSlice(final Storage storage, final Policy<?> policy, final Authentication users,
+        final Tokens tokens, final String url, final String repo,
+        final Optional<Queue<ArtifactEvent>> events, final RepodataCache cache,
+        final SharedReads reads) {
+        this(
+            storage, policy, users, tokens, url, repo, cache, reads,
+            new IndexJobs(storage, new GroupMerge(storage, cache), events, repo), false
+        );
+    }
+
+    /**
+     * Ctor. In asynchronous mode uploads are answered with 202 Accepted once the package and
+     * its index job are saved, packages are indexed in background and the indexing status is
+     * reported by `GET /{subdir}/{filename}/status`. Many packages can be uploaded in one
+     * multipart request by `POST /bulk`, see {@link BulkUploadSlice}. Slice does not run jobs
+     * left pending or failed by a previous run: owner of the jobs should resume them once on
+     * startup, see {@link IndexJobs#resume()}.
+     * @param storage Storage
+     * @param policy Permissions
+     * @param users Users
+     * @param tokens Tokens
+     * @param url Application url
+     * @param repo Repository name
+     * @param cache Repodata cache shared by repodata downloads and updates
+     * @param reads Storage reads shared by concurrent package downloads
+     * @param jobs Index jobs of the uploaded packages
+     * @param async Is indexing asynchronous
+     * @checkstyle ParameterNumberCheck (10 lines)
+     */
+    public CondaSlice(final Storage storage, final Policy<?> policy, final Authentication users,
+        final Tokens tokens, final String url, final String repo, final RepodataCache cache,
+        final SharedReads reads, final IndexJobs jobs, final boolean async) {
         super(
             new SliceRoute(
                 new RtRulePath(
                     new RtRule.All(
-                        new RtRule.ByPath("/t/.*repodata\\.json$"),
+                        new RtRule.ByPath("/t/.*repodata\\.(json(\\.bz2|\\.zst)?|jlap)$"),
                         new ByMethodsRule(RqMethod.GET)
                     ),
                     new TokenAuthSlice(
-                        new DownloadRepodataSlice(storage),
+                        new DownloadRepodataSlice(storage, cache),
                         new OperationControl(
                             policy, new AdapterBasicPermission(repo, Action.Standard.READ)
                         ),
@@ -131,11 +195,86 @@ public final class CondaSlice extends Slice.Wrap {
                 ),
                 new RtRulePath(
                     new RtRule.All(
-                        new RtRule.ByPath(".*repodata\\.json$"),
+                        new RtRule.ByPath(".*repodata\\.(json(\\.bz2|\\.zst)?|jlap)$"),
                         new ByMethodsRule(RqMethod.GET)
                     ),
                     new BasicAuthzSlice(
-                        new DownloadRepodataSlice(storage), users,
+                        new DownloadRepodataSlice(storage, cache), users,
+                        new OperationControl(
+                            policy, new AdapterBasicPermission(repo, Action.Standard.READ)
+                        )
+                    )
+                ),
+                new RtRulePath(
+                    new RtRule.All(
+                        new RtRule.ByPath("/t/.*channeldata\\.json$"),
+                        new ByMethodsRule(RqMethod.GET)
+                    ),
+                    new TokenAuthSlice(
+                        new DownloadChannelDataSlice(storage),
+                        new OperationControl(
+                            policy, new AdapterBasicPermission(repo, Action.Standard.READ)
+                        ),
+                        tokens.auth()
+                    )
+                ),
+                new RtRulePath(
+                    new RtRule.All(
+                        new RtRule.ByPath(".*channeldata\\.json$"),
+                        new ByMethodsRule(RqMethod.GET)
+                    ),
+                    new BasicAuthzSlice(
+                        new DownloadChannelDataSlice(storage), users,
+                        new OperationControl(
+                            policy, new AdapterBasicPermission(repo, Action.Standard.READ)
+                        )
+                    )
+                ),
+                new RtRulePath(
+                    new RtRule.All(
+                        new RtRule.ByPath("/t/.*shards(/[0-9a-f]+)?\\.msgpack\\.zst$"),
+                        new ByMethodsRule(RqMethod.GET)
+                    ),
+                    new TokenAuthSlice(
+                        new DownloadShardsSlice(storage),
+                        new OperationControl(
+                            policy, new AdapterBasicPermission(repo, Action.Standard.READ)
+                        ),
+                        tokens.auth()
+                    )
+                ),
+                new RtRulePath(
+                    new RtRule.All(
+                        new RtRule.ByPath(".*shards(/[0-9a-f]+)?\\.msgpack\\.zst$"),
+                        new ByMethodsRule(RqMethod.GET)
+                    ),
+                    new BasicAuthzSlice(
+                        new DownloadShardsSlice(storage), users,
+                        new OperationControl(
+                            policy, new AdapterBasicPermission(repo, Action.Standard.READ)
+                        )
+                    )
+                ),
+                new RtRulePath(
+                    new RtRule.All(
+                        new RtRule.ByPath("/t/.*(\\.tar\\.bz2|\\.conda)/status$"),
+                        new ByMethodsRule(RqMethod.GET)
+                    ),
+                    new TokenAuthSlice(
+                        new UploadStatusSlice(jobs),
+                        new OperationControl(
+                            policy, new AdapterBasicPermission(repo, Action.Standard.READ)
+                        ),
+                        tokens.auth()
+                    )
+                ),
+                new RtRulePath(
+                    new RtRule.All(
+                        new RtRule.ByPath(".*(\\.tar\\.bz2|\\.conda)/status$"),
+                        new ByMethodsRule(RqMethod.GET)
+                    ),
+                    new BasicAuthzSlice(
+                        new UploadStatusSlice(jobs), users,
                         new OperationControl(
                             policy, new AdapterBasicPermission(repo, Action.Standard.READ)
                         )
@@ -147,7 +286,7 @@ public final class CondaSlice extends Slice.Wrap {
                         new ByMethodsRule(RqMethod.GET)
                     ),
                     new TokenAuthSlice(
-                        new SliceDownload(storage, CondaSlice.transform()),
+                        new DownloadPackageSlice(storage, CondaSlice.transform(), reads),
                         new OperationControl(
                             policy, new AdapterBasicPermission(repo, Action.Standard.READ)
                         ), tokens.auth()
@@ -159,7 +298,7 @@ public final class CondaSlice extends Slice.Wrap {
                         new ByMethodsRule(RqMethod.GET)
                     ),
                     new BasicAuthzSlice(
-                        new SliceDownload(storage, CondaSlice.transform()), users,
+                        new DownloadPackageSlice(storage, CondaSlice.transform(), reads), users,
                         new OperationControl(
                             policy, new AdapterBasicPermission(repo, Action.Standard.READ)
                         )
@@ -203,11 +342,26 @@ public final class CondaSlice extends Slice.Wrap {
                 ),
                 new RtRulePath(
                     new RtRule.All(
-                        // @checkstyle LineLengthCheck (1 line)
-                        new RtRule.ByPath("/?[a-z0-9-._]*/[a-z0-9-._]*/[a-z0-9-._]*(\\.tar\\.bz2|\\.conda)$"),
+                        new RtRule.ByPath(".*/bulk$"), new ByMethodsRule(RqMethod.POST)
+                    ),
+                    new BasicAuthzSlice(
+                        new BulkUploadSlice(storage, jobs, async), users,
+                        new OperationControl(
+                            policy, new AdapterBasicPermission(repo, Action.Standard.WRITE)
+                        )
+                    )
+                ),
+                new RtRulePath(
+                    new RtRule.All(
+                        new RtRule.ByPath(
+                            String.join(
+                                "/", "/?[a-z0-9-._]*", "[a-z0-9-._]*",
+                                "[a-z0-9-._]*(\\.tar\\.bz2|\\.conda)$"
+                            )
+                        ),
                         new ByMethodsRule(RqMethod.POST)
                     ),
-                    new UpdateSlice(storage, events, repo)
+                    new UpdateSlice(storage, jobs, async)
                 ),
                 new RtRulePath(new ByMethodsRule(RqMethod.HEAD), new SliceSimple(StandardRs.OK)),
                 new RtRulePath(
@@ -0,0 +1,79 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.http;
+
+import com.artipie.http.rq.RqHeaders;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Conditional GET request: `If-None-Match` and `If-Modified-Since` headers. As RFC 7232
+ * requires, `If-Modified-Since` is ignored when `If-None-Match` is present.
+ * @since 0.4
+ */
+final class ConditionalRequest {
+
+    /**
+     * Request headers.
+     */
+    private final Iterable<Map.Entry<String, String>> headers;
+
+    /**
+     * Ctor.
+     * @param headers Request headers
+     */
+    ConditionalRequest(final Iterable<Map.Entry<String, String>> headers) {
+        this.headers = headers;
+    }
+
+    /**
+     * Does client already have the current version of the resource?
+     * @param etag Current entity tag, quoted
+     * @param modified Current modification time
+     * @return True if resource was not modified
+     */
+    boolean notModified(final String etag, final Instant modified) {
+        final List<String> match = new RqHeaders(this.headers, "If-None-Match");
+        final boolean res;
+        if (match.isEmpty()) {
+            res = new RqHeaders(this.headers, "If-Modified-Since").stream()
+                .findFirst()
+                .flatMap(ConditionalRequest::parse)
+                .map(since -> !modified.truncatedTo(ChronoUnit.SECONDS).isAfter(since))
+                .orElse(false);
+        } else {
+            res = match.stream()
+                .flatMap(value -> Arrays.stream(value.split(",")))
+                .map(String::trim)
+                .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                .anyMatch(tag -> "*".equals(tag) || etag.equals(tag));
+        }
+        return res;
+    }
+
+    /**
+     * Parses HTTP date.
+     * @param date Date header value
+     * @return Instant, empty if date is not valid
+     */
+    private static Optional<Instant> parse(final String date) {
+        Optional<Instant> res;
+        try {
+            res = Optional.of(
+                ZonedDateTime.parse(date.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant()
+            );
+        } catch (final DateTimeParseException ignored) {
+            res = Optional.empty();
+        }
+        return res;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.http;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.http.Headers;
+import com.artipie.http.Response;
+import com.artipie.http.Slice;
+import com.artipie.http.async.AsyncResponse;
+import com.artipie.http.headers.ContentFileName;
+import com.artipie.http.rs.RsFull;
+import com.artipie.http.rs.RsStatus;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import javax.json.Json;
+import org.reactivestreams.Publisher;
+
+/**
+ * Slice to download `channeldata.json` from the channel root, see
+ * {@link com.artipie.conda.asto.AstoChannelData}. If channel data does not exist yet, empty
+ * channel data is returned.
+ * @since 0.4
+ */
+public final class DownloadChannelDataSlice implements Slice {
+
+    /**
+     * Channel data key.
+     */
+    private static final Key KEY = new Key.From("channeldata.json");
+
+    /**
+     * Abstract storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     */
+    public DownloadChannelDataSlice(final Storage asto) {
+        this.asto = asto;
+    }
+
+    @Override
+    public Response response(final String line, final Iterable<Map.Entry<String, String>> headers,
+        final Publisher<ByteBuffer> body) {
+        return new AsyncResponse(
+            this.asto.exists(DownloadChannelDataSlice.KEY).thenCompose(
+                exists -> {
+                    final CompletionStage<Content> res;
+                    if (exists) {
+                        res = this.asto.value(DownloadChannelDataSlice.KEY);
+                    } else {
+                        res = CompletableFuture.completedFuture(
+                            new Content.From(
+                                Json.createObjectBuilder()
+                                    .add("channeldata_version", 1)
+                                    .add("packages", Json.createObjectBuilder())
+                                    .add("subdirs", Json.createArrayBuilder())
+                                    .build().toString().getBytes(StandardCharsets.US_ASCII)
+                            )
+                        );
+                    }
+                    return res;
+                }
+            ).thenApply(
+                content -> new RsFull(
+                    RsStatus.OK,
+                    new Headers.From(new ContentFileName(DownloadChannelDataSlice.KEY.string())),
+                    content
+                )
+            )
+        );
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.http;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.KeyLastPart;
+import com.artipie.conda.asto.SharedReads;
+import com.artipie.http.Headers;
+import com.artipie.http.Response;
+import com.artipie.http.Slice;
+import com.artipie.http.async.AsyncResponse;
+import com.artipie.http.headers.ContentFileName;
+import com.artipie.http.rq.RequestLineFrom;
+import com.artipie.http.rs.RsWithBody;
+import com.artipie.http.rs.StandardRs;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import org.reactivestreams.Publisher;
+
+/**
+ * Slice to download conda packages. Concurrent downloads of the same package share one
+ * storage read, see {@link SharedReads}, so a burst of clients installing the same package
+ * does not read it from storage for each client. Range requests are supported, see
+ * {@link RangeRequest}, so interrupted downloads can be resumed.
+ * @since 0.4
+ */
+public final class DownloadPackageSlice implements Slice {
+
+    /**
+     * Abstract storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Path to key transformation.
+     */
+    private final Function<String, Key> transform;
+
+    /**
+     * Shared storage reads.
+     */
+    private final SharedReads reads;
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param transform Path to key transformation
+     * @param reads Shared storage reads
+     */
+    public DownloadPackageSlice(final Storage asto, final Function<String, Key> transform,
+        final SharedReads reads) {
+        this.asto = asto;
+        this.transform = transform;
+        this.reads = reads;
+    }
+
+    @Override
+    public Response response(final String line, final Iterable<Map.Entry<String, String>> headers,
+        final Publisher<ByteBuffer> body) {
+        return new AsyncResponse(
+            CompletableFuture
+                .supplyAsync(() -> this.transform.apply(new RequestLineFrom(line).uri().getPath()))
+                .thenCompose(
+                    key -> this.reads.value(this.asto, key).thenApply(
+                        value -> value.map(
+                            content -> new RangeRequest(headers).response(
+                                new Headers.From(new ContentFileName(new KeyLastPart(key).get())),
+                                content
+                            )
+                        ).orElseGet(
+                            () -> new RsWithBody(
+                                StandardRs.NOT_FOUND,
+                                String.format("Key %s not found", key.string()),
+                                StandardCharsets.UTF_8
+                            )
+                        )
+                    )
+                )
+        );
+    }
+}
@@ -8,49 +8,111 @@ import com.artipie.asto.Content;
 import com.artipie.asto.Key;
 import com.artipie.asto.Storage;
 import com.artipie.asto.ext.KeyLastPart;
+import com.artipie.conda.asto.RepodataCache;
+import com.artipie.conda.meta.Compression;
+import com.artipie.conda.meta.RepodataStamp;
 import com.artipie.http.Headers;
 import com.artipie.http.Response;
 import com.artipie.http.Slice;
 import com.artipie.http.async.AsyncResponse;
 import com.artipie.http.headers.ContentFileName;
+import com.artipie.http.headers.Header;
 import com.artipie.http.rq.RequestLineFrom;
 import com.artipie.http.rs.RsFull;
 import com.artipie.http.rs.RsStatus;
+import com.artipie.http.rs.RsWithHeaders;
 import com.artipie.http.rs.RsWithStatus;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.json.Json;
 import org.reactivestreams.Publisher;
 
 /**
- * Slice to download repodata.json. If the repodata item does not exists in storage, empty
- * json is returned.
+ * Slice to download repodata.json, its pre-compressed `.bz2` and `.zst` variants, see
+ * {@link Compression}, and `repodata.jlap` patches log, see {@link com.artipie.conda.meta.Jlap}.
+ * If the repodata item does not exists in storage, empty json is returned, absent compressed
+ * variant or log is not found, so that conda client falls back to plain repodata.json. Plain
+ * repodata is encoded with gzip or zstd when client accepts it, encoded bodies are compressed
+ * once per repodata revision and cached in storage, see {@link EncodedRepodata}. Conditional
+ * requests for plain repodata are answered by the repodata revision stamp, see
+ * {@link ConditionalRequest}, range requests are answered with the requested part of the
+ * file, see {@link RangeRequest}. Files are read through {@link RepodataCache}, so repeated
+ * requests are served without storage round trips; the revision stamp of the repodata is
+ * revalidated against the storage at most once per the cache revalidation period.
  * @since 0.4
  * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ * @checkstyle ClassFanOutComplexityCheck (500 lines)
  */
 public final class DownloadRepodataSlice implements Slice {
 
     /**
      * Request path pattern.
      */
-    private static final Pattern RQ_PATH = Pattern.compile(".*/((.+)/(current_)?repodata\\.json)");
+    private static final Pattern RQ_PATH =
+        Pattern.compile(".*/((.+)/(current_)?repodata\\.(json|json\\.bz2|json\\.zst|jlap))");
+
+    /**
+     * Extension of plain repodata.
+     */
+    private static final String JSON = "json";
+
+    /**
+     * Supported content encodings in preference order.
+     */
+    private static final Map<String, Compression> ENCODINGS = DownloadRepodataSlice.encodings();
+
+    /**
+     * Vary header of negotiated responses.
+     */
+    private static final Header VARY = new Header("Vary", AcceptEncoding.NAME);
 
     /**
      * Abstract storage.
      */
     private final Storage asto;
 
+    /**
+     * Repodata cache.
+     */
+    private final RepodataCache cache;
+
+    /**
+     * Encodings in progress by cache key, see {@link EncodedRepodata}.
+     */
+    private final ConcurrentMap<String, CompletableFuture<byte[]>> flights;
+
     /**
      * Ctor.
      * @param asto Abstract storage
      */
     public DownloadRepodataSlice(final Storage asto) {
+        this(asto, RepodataCache.NONE);
+    }
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param cache Repodata cache
+     */
+    public DownloadRepodataSlice(final Storage asto, final RepodataCache cache) {
         this.asto = asto;
+        this.cache = cache;
+        this.flights = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -65,33 +127,43 @@ public final class DownloadRepodataSlice implements Slice {
                         final CompletionStage<Response> res;
                         if (matcher.matches()) {
                             final Key key = new Key.From(matcher.group(1));
-                            res = this.asto.exists(key).thenCompose(
-                                exist -> {
-                                    final CompletionStage<Content> content;
-                                    if (exist) {
-                                        content = this.asto.value(key);
-                                    } else {
-                                        content = CompletableFuture.completedFuture(
-                                            new Content.From(
-                                                Json.createObjectBuilder().add(
-                                                    "info", Json.createObjectBuilder()
-                                                        .add("subdir", matcher.group(2))
-                                                ).build().toString()
-                                                    .getBytes(StandardCharsets.US_ASCII)
-                                            )
-                                        );
-                                    }
-                                    return content;
-                                }
-                            ).thenApply(
-                                content -> new RsFull(
-                                    RsStatus.OK,
-                                    new Headers.From(
-                                        new ContentFileName(new KeyLastPart(key).get())
-                                    ),
-                                    content
-                                )
-                            );
+                            if (DownloadRepodataSlice.JSON.equals(matcher.group(4))) {
+                                res = this.stamp(key).thenCompose(
+                                    stamp -> this.exists(key, stamp).thenCompose(
+                                        exists -> {
+                                            final CompletionStage<Response> rsp;
+                                            if (exists) {
+                                                rsp = this.negotiated(key, stamp, headers);
+                                            } else {
+                                                rsp = CompletableFuture.completedFuture(
+                                                    DownloadRepodataSlice.empty(
+                                                        key, matcher.group(2)
+                                                    )
+                                                );
+                                            }
+                                            return rsp;
+                                        }
+                                    )
+                                );
+                            } else {
+                                res = this.stamp(
+                                    new Key.From(
+                                        matcher.group(2),
+                                        String.format(
+                                            "%srepodata.json",
+                                            Optional.ofNullable(matcher.group(3)).orElse("")
+                                        )
+                                    )
+                                ).thenCompose(
+                                    stamp -> this.cache.value(this.asto, key)
+                                ).thenApply(
+                                    value -> value.map(
+                                        content -> new RangeRequest(headers).response(
+                                            DownloadRepodataSlice.filename(key), content
+                                        )
+                                    ).orElseGet(() -> new RsWithStatus(RsStatus.NOT_FOUND))
+                                );
+                            }
                         } else {
                             res = CompletableFuture
                                 .completedFuture(new RsWithStatus(RsStatus.BAD_REQUEST));
@@ -101,4 +173,150 @@ public final class DownloadRepodataSlice implements Slice {
                 )
         );
     }
+
+    /**
+     * Response with repodata encoded by the encoding accepted by client, see
+     * {@link AcceptEncoding}. Encoded bodies are cached, see {@link EncodedRepodata}. If
+     * repodata revision stamp exists, response carries `ETag` and `Last-Modified` headers and
+     * conditional request is answered with 304 without reading repodata, see
+     * {@link RepodataStamp}.
+     * @param key Repodata key
+     * @param stamp Repodata revision stamp, if any
+     * @param headers Request headers
+     * @return Response
+     */
+    private CompletionStage<Response> negotiated(final Key key,
+        final Optional<RepodataStamp> stamp, final Iterable<Map.Entry<String, String>> headers) {
+        final Optional<String> encoding = new AcceptEncoding(headers)
+            .preferred(DownloadRepodataSlice.ENCODINGS.keySet());
+        final List<Map.Entry<String, String>> hdrs = new ArrayList<>(4);
+        hdrs.add(DownloadRepodataSlice.VARY);
+        encoding.ifPresent(enc -> hdrs.add(new Header("Content-Encoding", enc)));
+        final Optional<String> etag = stamp.map(
+            item -> String.format(
+                "\"%s\"",
+                encoding.map(enc -> String.join("-", item.sha256(), enc))
+                    .orElse(item.sha256())
+            )
+        );
+        if (stamp.isPresent()) {
+            hdrs.add(new Header("ETag", etag.get()));
+            hdrs.add(
+                new Header(
+                    "Last-Modified",
+                    DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                        stamp.get().modified().atZone(ZoneOffset.UTC)
+                    )
+                )
+            );
+        }
+        final Optional<Instant> modified = stamp.map(RepodataStamp::modified);
+        final CompletionStage<Response> res;
+        if (stamp.isPresent() && new ConditionalRequest(headers)
+            .notModified(etag.get(), stamp.get().modified())) {
+            res = CompletableFuture.completedFuture(
+                new RsWithHeaders(
+                    new RsWithStatus(RsStatus.NOT_MODIFIED), new Headers.From(hdrs)
+                )
+            );
+        } else if (encoding.isPresent()) {
+            res = new EncodedRepodata(
+                this.asto, key, DownloadRepodataSlice.ENCODINGS.get(encoding.get()),
+                stamp.map(RepodataStamp::sha256), this.cache, this.flights
+            ).content().thenApply(
+                content -> new RsWithHeaders(
+                    new RangeRequest(headers).response(
+                        DownloadRepodataSlice.filename(key), content, etag, modified
+                    ),
+                    new Headers.From(hdrs)
+                )
+            );
+        } else {
+            res = this.cache.value(this.asto, key).thenApply(
+                content -> content.<Response>map(
+                    body -> new RsWithHeaders(
+                        new RangeRequest(headers).response(
+                            DownloadRepodataSlice.filename(key), body, etag, modified
+                        ),
+                        new Headers.From(hdrs)
+                    )
+                ).orElseGet(() -> new RsWithStatus(RsStatus.NOT_FOUND))
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Checks whether repodata exists: stamp is saved after the repodata, so repodata with
+     * stamp exists without checking the storage.
+     * @param key Repodata key
+     * @param stamp Repodata revision stamp, if any
+     * @return True if repodata exists
+     */
+    private CompletionStage<Boolean> exists(final Key key, final Optional<RepodataStamp> stamp) {
+        final CompletionStage<Boolean> res;
+        if (stamp.isPresent()) {
+            res = CompletableFuture.completedFuture(true);
+        } else {
+            res = this.cache.exists(this.asto, key);
+        }
+        return res;
+    }
+
+    /**
+     * Reads repodata revision stamp if it exists and is readable, cached files of the subdir
+     * are dropped if the revision changed, see {@link RepodataCache#stamp(Storage, Key)}.
+     * @param key Repodata key
+     * @return Stamp if found
+     */
+    private CompletionStage<Optional<RepodataStamp>> stamp(final Key key) {
+        return this.cache.stamp(this.asto, key);
+    }
+
+    /**
+     * Supported content encodings in preference order.
+     * @return Compressions by encoding name
+     */
+    private static Map<String, Compression> encodings() {
+        final Map<String, Compression> res = new LinkedHashMap<>(2);
+        res.put("zstd", new Compression.Zstd());
+        res.put("gzip", new Compression.Gzip());
+        return Collections.unmodifiableMap(res);
+    }
+
+    /**
+     * Response with empty repodata of the subdir.
+     * @param key Repodata key
+     * @param subdir Subdir name
+     * @return Response
+     */
+    private static Response empty(final Key key, final String subdir) {
+        return DownloadRepodataSlice.file(
+            key,
+            new Content.From(
+                Json.createObjectBuilder().add(
+                    "info", Json.createObjectBuilder().add("subdir", subdir)
+                ).build().toString().getBytes(StandardCharsets.US_ASCII)
+            )
+        );
+    }
+
+    /**
+     * Response with repodata file.
+     * @param key Repodata key
+     * @param content Repodata content
+     * @return Response
+     */
+    private static Response file(final Key key, final Content content) {
+        return new RsFull(RsStatus.OK, DownloadRepodataSlice.filename(key), content);
+    }
+
+    /**
+     * Headers with repodata file name.
+     * @param key Repodata key
+     * @return Headers
+     */
+    private static Headers filename(final Key key) {
+        return new Headers.From(new ContentFileName(new KeyLastPart(key).get()));
+    }
 }
@@ -0,0 +1,120 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.http;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.KeyLastPart;
+import com.artipie.http.Headers;
+import com.artipie.http.Response;
+import com.artipie.http.Slice;
+import com.artipie.http.async.AsyncResponse;
+import com.artipie.http.headers.ContentFileName;
+import com.artipie.http.headers.Header;
+import com.artipie.http.rq.RequestLineFrom;
+import com.artipie.http.rs.RsFull;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.http.rs.RsWithStatus;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.reactivestreams.Publisher;
+
+/**
+ * Slice to download sharded repodata (CEP-16): `repodata_shards.msgpack.zst` index and
+ * `shards/<sha256>.msgpack.zst` shards, see {@link com.artipie.conda.meta.ShardsIndex}. Shards
+ * are content-addressed and never change, so they are served with long-lived immutable
+ * caching, while the index is revalidated on each request. Absent items are not found, so that
+ * conda client falls back to repodata.json.
+ * @since 0.4
+ */
+public final class DownloadShardsSlice implements Slice {
+
+    /**
+     * Request path pattern.
+     */
+    private static final Pattern RQ_PATH = Pattern.compile(
+        ".*/((.+)/(repodata_shards|shards/[0-9a-f]{64})\\.msgpack\\.zst)"
+    );
+
+    /**
+     * Cache control of the shards.
+     */
+    private static final Header IMMUTABLE =
+        new Header("Cache-Control", "public, max-age=31536000, immutable");
+
+    /**
+     * Cache control of the shards index.
+     */
+    private static final Header REVALIDATE = new Header("Cache-Control", "no-cache");
+
+    /**
+     * Abstract storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     */
+    public DownloadShardsSlice(final Storage asto) {
+        this.asto = asto;
+    }
+
+    @Override
+    public Response response(final String line, final Iterable<Map.Entry<String, String>> headers,
+        final Publisher<ByteBuffer> body) {
+        return new AsyncResponse(
+            CompletableFuture
+                .supplyAsync(() -> new RequestLineFrom(line).uri().getPath())
+                .thenCompose(
+                    path -> {
+                        final Matcher matcher = DownloadShardsSlice.RQ_PATH.matcher(path);
+                        final CompletionStage<Response> res;
+                        if (matcher.matches()) {
+                            final Key key = new Key.From(matcher.group(1));
+                            final Header cache;
+                            if (matcher.group(3).startsWith("shards/")) {
+                                cache = DownloadShardsSlice.IMMUTABLE;
+                            } else {
+                                cache = DownloadShardsSlice.REVALIDATE;
+                            }
+                            res = this.asto.exists(key).thenCompose(
+                                exist -> {
+                                    final CompletionStage<Response> rsp;
+                                    if (exist) {
+                                        rsp = this.asto.value(key).thenApply(
+                                            content -> new RsFull(
+                                                RsStatus.OK,
+                                                new Headers.From(
+                                                    new ContentFileName(
+                                                        new KeyLastPart(key).get()
+                                                    ),
+                                                    cache
+                                                ),
+                                                content
+                                            )
+                                        );
+                                    } else {
+                                        rsp = CompletableFuture.completedFuture(
+                                            new RsWithStatus(RsStatus.NOT_FOUND)
+                                        );
+                                    }
+                                    return rsp;
+                                }
+                            );
+                        } else {
+                            res = CompletableFuture
+                                .completedFuture(new RsWithStatus(RsStatus.BAD_REQUEST));
+                        }
+                        return res;
+                    }
+                )
+        );
+    }
+}
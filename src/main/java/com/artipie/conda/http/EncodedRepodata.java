@@ -0,0 +1,260 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.http;
+
+import com.artipie.asto.ArtipieIOException;
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.ContentDigest;
+import com.artipie.asto.ext.Digests;
+import com.artipie.asto.ext.KeyLastPart;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.conda.asto.CompressedKey;
+import com.artipie.conda.asto.EncodedKey;
+import com.artipie.conda.asto.RepodataCache;
+import com.artipie.conda.meta.Compression;
+import io.reactivex.schedulers.Schedulers;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Repodata encoded for HTTP response. If the revision is known from its stamp and the
+ * compressed variant of the same format is saved for it, see {@link CompressedKey}, the
+ * variant is served as is. Otherwise encoded body is cached in storage under the encodings
+ * prefix of the subdir and keyed by repodata sha256 checksum, see {@link EncodedKey}, so
+ * repodata is compressed once per revision. Concurrent misses of the same body share one
+ * encoding, which runs on {@link Schedulers#computation()}. Body is cached by the checksum
+ * of the repodata bytes actually encoded, so a body is never cached under the checksum of
+ * another revision. Cached bodies of the previous revisions are removed when new one is
+ * cached, bodies being encoded are kept. Cached bodies are read through
+ * {@link RepodataCache}.
+ * @since 0.4
+ */
+final class EncodedRepodata {
+
+    /**
+     * Abstract storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Repodata key.
+     */
+    private final Key key;
+
+    /**
+     * Encoding compression.
+     */
+    private final Compression compression;
+
+    /**
+     * Repodata sha256 checksum, if known.
+     */
+    private final Optional<String> sha;
+
+    /**
+     * Repodata cache.
+     */
+    private final RepodataCache cache;
+
+    /**
+     * Encodings in progress by cache key, shared by the encoded bodies of one slice.
+     */
+    private final ConcurrentMap<String, CompletableFuture<byte[]>> flights;
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param key Repodata key
+     * @param compression Encoding compression
+     */
+    EncodedRepodata(final Storage asto, final Key key, final Compression compression) {
+        this(
+            asto, key, compression, Optional.empty(), RepodataCache.NONE,
+            new ConcurrentHashMap<>()
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param asto Abstract storage
+     * @param key Repodata key
+     * @param compression Encoding compression
+     * @param sha Repodata sha256 checksum, if known, see
+     *  {@link com.artipie.conda.meta.RepodataStamp}
+     * @param cache Repodata cache
+     * @param flights Encodings in progress by cache key
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    EncodedRepodata(final Storage asto, final Key key, final Compression compression,
+        final Optional<String> sha, final RepodataCache cache,
+        final ConcurrentMap<String, CompletableFuture<byte[]>> flights) {
+        this.asto = asto;
+        this.key = key;
+        this.compression = compression;
+        this.sha = sha;
+        this.cache = cache;
+        this.flights = flights;
+    }
+
+    /**
+     * Encoded repodata content, repodata should exist. Compressed variant is served if the
+     * checksum is known and the variant is saved, see {@link CompressedKey}.
+     * @return Encoded content
+     */
+    CompletionStage<Content> content() {
+        final CompletionStage<Optional<Content>> variant;
+        if (this.sha.isPresent() && Compression.ALL.stream().anyMatch(
+            cmp -> cmp.extension().equals(this.compression.extension())
+        )) {
+            variant = this.cache.value(this.asto, new CompressedKey(this.key, this.compression));
+        } else {
+            variant = CompletableFuture.completedFuture(Optional.empty());
+        }
+        return variant.thenCompose(
+            found -> found.<CompletionStage<Content>>map(CompletableFuture::completedFuture)
+                .orElseGet(this::encoded)
+        );
+    }
+
+    /**
+     * Repodata content encoded and cached by the repodata checksum. Repodata is read to compute
+     * the checksum only if the checksum is not known.
+     * @return Encoded content
+     */
+    private CompletionStage<Content> encoded() {
+        final CompletionStage<String> checksum;
+        if (this.sha.isPresent()) {
+            checksum = CompletableFuture.completedFuture(this.sha.get());
+        } else {
+            checksum = this.asto.value(this.key)
+                .thenCompose(content -> new ContentDigest(content, Digests.SHA256).hex());
+        }
+        return checksum.thenCompose(
+            hash -> {
+                final Key cached = new EncodedKey(this.key, hash, this.compression);
+                return this.cache.value(this.asto, cached).thenCompose(
+                    value -> {
+                        final CompletionStage<Content> res;
+                        if (value.isPresent()) {
+                            res = CompletableFuture.completedFuture(value.get());
+                        } else {
+                            res = this.encoded(cached).thenApply(Content.From::new);
+                        }
+                        return res;
+                    }
+                );
+            }
+        );
+    }
+
+    /**
+     * Encoded repodata bytes, concurrent misses of the same cache key share one encoding.
+     * @param cached Cache key
+     * @return Encoded bytes
+     */
+    private CompletionStage<byte[]> encoded(final Key cached) {
+        final CompletableFuture<byte[]> flight = new CompletableFuture<>();
+        final CompletableFuture<byte[]> running =
+            this.flights.putIfAbsent(cached.string(), flight);
+        final CompletableFuture<byte[]> res;
+        if (running == null) {
+            this.encode().whenComplete(
+                (bytes, err) -> {
+                    this.flights.remove(cached.string(), flight);
+                    if (err == null) {
+                        flight.complete(bytes);
+                    } else {
+                        flight.completeExceptionally(err);
+                    }
+                }
+            );
+            res = flight;
+        } else {
+            res = running;
+        }
+        return res;
+    }
+
+    /**
+     * Encodes repodata, saves it by the cache key of the checksum of the encoded repodata
+     * bytes, which differs from the requested one if repodata was updated after its stamp
+     * was read, and removes stale cached bodies.
+     * @return Encoded bytes
+     */
+    private CompletionStage<byte[]> encode() {
+        return this.asto.value(this.key)
+            .thenCompose(content -> new PublisherAs(content).bytes())
+            .thenCompose(
+                bytes -> new ContentDigest(new Content.From(bytes), Digests.SHA256).hex()
+                    .thenCombine(
+                        CompletableFuture.supplyAsync(
+                            () -> this.compressed(bytes),
+                            task -> Schedulers.computation().scheduleDirect(task)
+                        ),
+                        (hash, encoded) -> {
+                            final Key actual = new EncodedKey(this.key, hash, this.compression);
+                            return this.asto.save(actual, new Content.From(encoded))
+                                .thenCompose(nothing -> this.clean(actual))
+                                .thenApply(nothing -> encoded);
+                        }
+                    ).thenCompose(stage -> stage)
+            );
+    }
+
+    /**
+     * Compresses repodata bytes.
+     * @param bytes Repodata bytes
+     * @return Encoded bytes
+     */
+    private byte[] compressed(final byte[] bytes) {
+        final ByteArrayOutputStream res = new ByteArrayOutputStream();
+        try (OutputStream out = this.compression.compress(res)) {
+            out.write(bytes);
+        } catch (final IOException err) {
+            throw new ArtipieIOException(err);
+        }
+        return res.toByteArray();
+    }
+
+    /**
+     * Removes cached bodies of the previous repodata revisions, bodies being encoded are kept.
+     * Only the encodings prefix of the subdir is listed.
+     * @param cached Actual cache key
+     * @return Completable operation
+     */
+    private CompletionStage<Void> clean(final Key cached) {
+        final Key prefix = new EncodedKey.Prefix(this.key);
+        final Pattern stale = Pattern.compile(
+            String.format(
+                "%s/%s\\.[0-9a-f]{64}\\.%s",
+                Pattern.quote(prefix.string()),
+                Pattern.quote(new KeyLastPart(this.key).get()),
+                Pattern.quote(this.compression.extension())
+            )
+        );
+        return this.asto.list(prefix).thenCompose(
+            keys -> CompletableFuture.allOf(
+                keys.stream()
+                    .filter(item -> !item.equals(cached))
+                    .filter(item -> !this.flights.containsKey(item.string()))
+                    .filter(item -> stale.matcher(item.string()).matches())
+                    .map(
+                        item -> this.asto.delete(item).exceptionally(ignored -> null)
+                            .toCompletableFuture()
+                    )
+                    .toArray(CompletableFuture[]::new)
+            )
+        );
+    }
+}
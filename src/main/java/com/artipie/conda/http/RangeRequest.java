@@ -0,0 +1,285 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.http;
+
+import com.artipie.asto.Content;
+import com.artipie.http.Headers;
+import com.artipie.http.Response;
+import com.artipie.http.headers.Header;
+import com.artipie.http.rq.RqHeaders;
+import com.artipie.http.rs.RsFull;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.http.rs.RsWithHeaders;
+import com.artipie.http.rs.RsWithStatus;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Range request: `Range` header with a single `bytes` range and `If-Range` precondition, see
+ * RFC 7233. Requested range is answered with 206 and only the range bytes are sent, storage
+ * read is cancelled as soon as the range end is read. Multiple ranges, other units, malformed
+ * ranges and ranges with failed `If-Range` are ignored and the whole body is sent, as the RFC
+ * allows; body of unknown size is always sent whole.
+ * @since 0.4
+ */
+final class RangeRequest {
+
+    /**
+     * Single bytes range pattern.
+     */
+    private static final Pattern BYTES = Pattern.compile("bytes=(\\d{0,18})-(\\d{0,18})");
+
+    /**
+     * Accept-Ranges header.
+     */
+    private static final Header ACCEPT = new Header("Accept-Ranges", "bytes");
+
+    /**
+     * Request headers.
+     */
+    private final Iterable<Map.Entry<String, String>> headers;
+
+    /**
+     * Ctor.
+     * @param headers Request headers
+     */
+    RangeRequest(final Iterable<Map.Entry<String, String>> headers) {
+        this.headers = headers;
+    }
+
+    /**
+     * Response with the requested range of the body or the whole body, for bodies without
+     * validators: range with `If-Range` is ignored.
+     * @param hdrs Response headers
+     * @param content Body
+     * @return Response
+     */
+    Response response(final Iterable<Map.Entry<String, String>> hdrs, final Content content) {
+        return this.response(hdrs, content, Optional.empty(), Optional.empty());
+    }
+
+    /**
+     * Response with the requested range of the body or the whole body.
+     * @param hdrs Response headers
+     * @param content Body
+     * @param etag Current entity tag, quoted, if any
+     * @param modified Current modification time, if any
+     * @return Response
+     */
+    Response response(final Iterable<Map.Entry<String, String>> hdrs, final Content content,
+        final Optional<String> etag, final Optional<Instant> modified) {
+        final Response res;
+        if (content.size().isPresent()) {
+            final long size = content.size().get();
+            final List<Map.Entry<String, String>> all = new ArrayList<>(4);
+            hdrs.forEach(all::add);
+            all.add(RangeRequest.ACCEPT);
+            final Optional<Matcher> range = this.range(etag, modified);
+            if (!range.isPresent() || !RangeRequest.valid(range.get())) {
+                res = new RsFull(RsStatus.OK, new Headers.From(all), content);
+            } else if (RangeRequest.satisfiable(range.get(), size)) {
+                final long first = RangeRequest.first(range.get(), size);
+                final long last = RangeRequest.last(range.get(), size);
+                all.add(
+                    new Header(
+                        "Content-Range", String.format("bytes %d-%d/%d", first, last, size)
+                    )
+                );
+                res = new RsFull(
+                    RsStatus.PARTIAL_CONTENT, new Headers.From(all),
+                    RangeRequest.part(content, first, last - first + 1)
+                );
+            } else {
+                all.add(new Header("Content-Range", String.format("bytes */%d", size)));
+                res = new RsWithHeaders(
+                    new RsWithStatus(RsStatus.REQUESTED_RANGE_NOT_SATISFIABLE),
+                    new Headers.From(all)
+                );
+            }
+        } else {
+            res = new RsFull(RsStatus.OK, new Headers.From(hdrs), content);
+        }
+        return res;
+    }
+
+    /**
+     * Requested bytes range if `If-Range` precondition, if any, holds.
+     * @param etag Current entity tag, quoted, if any
+     * @param modified Current modification time, if any
+     * @return Matched range
+     */
+    private Optional<Matcher> range(final Optional<String> etag,
+        final Optional<Instant> modified) {
+        final Optional<Matcher> res;
+        final List<String> cond = new RqHeaders(this.headers, "If-Range");
+        if (cond.isEmpty() || RangeRequest.holds(cond.get(0).trim(), etag, modified)) {
+            res = new RqHeaders(this.headers, "Range").stream()
+                .findFirst()
+                .map(value -> RangeRequest.BYTES.matcher(value.trim()))
+                .filter(Matcher::matches);
+        } else {
+            res = Optional.empty();
+        }
+        return res;
+    }
+
+    /**
+     * Checks `If-Range` precondition: entity tag must match strongly, date must be equal to
+     * the modification time.
+     * @param cond Precondition value
+     * @param etag Current entity tag, quoted, if any
+     * @param modified Current modification time, if any
+     * @return True if precondition holds
+     */
+    private static boolean holds(final String cond, final Optional<String> etag,
+        final Optional<Instant> modified) {
+        final boolean res;
+        if (cond.startsWith("\"")) {
+            res = etag.map(cond::equals).orElse(false);
+        } else if (cond.startsWith("W/")) {
+            res = false;
+        } else {
+            res = modified.flatMap(
+                time -> RangeRequest.parse(cond).map(
+                    date -> time.truncatedTo(ChronoUnit.SECONDS).equals(date)
+                )
+            ).orElse(false);
+        }
+        return res;
+    }
+
+    /**
+     * Is range well formed: at least one bound is present and first byte is not after the
+     * last one.
+     * @param range Matched range
+     * @return True if range is valid
+     */
+    private static boolean valid(final Matcher range) {
+        final boolean res;
+        if (range.group(1).isEmpty()) {
+            res = !range.group(2).isEmpty();
+        } else {
+            res = range.group(2).isEmpty()
+                || Long.parseLong(range.group(1)) <= Long.parseLong(range.group(2));
+        }
+        return res;
+    }
+
+    /**
+     * Does range overlap the body?
+     * @param range Valid matched range
+     * @param size Body size
+     * @return True if range is satisfiable
+     */
+    private static boolean satisfiable(final Matcher range, final long size) {
+        final boolean res;
+        if (range.group(1).isEmpty()) {
+            res = size > 0 && Long.parseLong(range.group(2)) > 0;
+        } else {
+            res = Long.parseLong(range.group(1)) < size;
+        }
+        return res;
+    }
+
+    /**
+     * First byte of the range.
+     * @param range Satisfiable matched range
+     * @param size Body size
+     * @return Position of the first byte
+     */
+    private static long first(final Matcher range, final long size) {
+        final long res;
+        if (range.group(1).isEmpty()) {
+            res = Math.max(0, size - Long.parseLong(range.group(2)));
+        } else {
+            res = Long.parseLong(range.group(1));
+        }
+        return res;
+    }
+
+    /**
+     * Last byte of the range.
+     * @param range Satisfiable matched range
+     * @param size Body size
+     * @return Position of the last byte
+     */
+    private static long last(final Matcher range, final long size) {
+        final long res;
+        if (range.group(1).isEmpty() || range.group(2).isEmpty()) {
+            res = size - 1;
+        } else {
+            res = Math.min(size - 1, Long.parseLong(range.group(2)));
+        }
+        return res;
+    }
+
+    /**
+     * Part of the body, body is not read after the part end.
+     * @param content Body
+     * @param first Position of the first byte
+     * @param length Part length
+     * @return Part content
+     */
+    private static Content part(final Content content, final long first, final long length) {
+        final long end = first + length;
+        return new Content.From(
+            Optional.of(length),
+            Flowable.defer(
+                () -> {
+                    final AtomicLong offset = new AtomicLong();
+                    return Flowable.fromPublisher(content)
+                        .map(
+                            buf -> {
+                                final long start = offset.getAndAdd(buf.remaining());
+                                final ByteBuffer res = buf.duplicate();
+                                res.limit(
+                                    buf.position()
+                                        + (int) Math.max(0, Math.min(end - start, buf.remaining()))
+                                );
+                                res.position(
+                                    Math.min(
+                                        res.limit(),
+                                        buf.position() + (int) Math.max(0, first - start)
+                                    )
+                                );
+                                return res.slice();
+                            }
+                        )
+                        .takeUntil(buf -> offset.get() >= end)
+                        .filter(ByteBuffer::hasRemaining);
+                }
+            )
+        );
+    }
+
+    /**
+     * Parses HTTP date.
+     * @param date Date header value
+     * @return Instant, empty if date is not valid
+     */
+    private static Optional<Instant> parse(final String date) {
+        Optional<Instant> res;
+        try {
+            res = Optional.of(
+                ZonedDateTime.parse(date, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant()
+            );
+        } catch (final DateTimeParseException ignored) {
+            res = Optional.empty();
+        }
+        return res;
+    }
+}
@@ -4,14 +4,14 @@
  */
 package com.artipie.conda.http;
 
-import com.artipie.asto.Content;
 import com.artipie.asto.Key;
 import com.artipie.asto.Storage;
-import com.artipie.asto.ext.ContentDigest;
-import com.artipie.asto.ext.Digests;
-import com.artipie.asto.misc.UncheckedIOScalar;
-import com.artipie.asto.streams.ContentAsStream;
-import com.artipie.conda.asto.AstoMergedJson;
+import com.artipie.conda.asto.AstoChannelData;
+import com.artipie.conda.asto.AstoIngestion;
+import com.artipie.conda.asto.GroupMerge;
+import com.artipie.conda.asto.IndexJob;
+import com.artipie.conda.asto.IndexJobs;
+import com.artipie.conda.asto.RepodataCache;
 import com.artipie.conda.meta.InfoIndex;
 import com.artipie.http.Headers;
 import com.artipie.http.Response;
@@ -25,22 +25,26 @@ import com.artipie.http.rs.RsStatus;
 import com.artipie.http.rs.RsWithStatus;
 import com.artipie.scheduling.ArtifactEvent;
 import io.reactivex.Flowable;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
-import java.util.Collections;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import javax.json.Json;
-import javax.json.JsonObjectBuilder;
 import org.reactivestreams.Publisher;
 
 /**
- * Slice to update the repository.
+ * Slice to update the repository. Package metadata is read from the package info files at
+ * upload: info/index.json becomes the repodata entry, info/about.json and
+ * info/run_exports.json go to the channel data, see {@link AstoChannelData}. Package is read
+ * once: info files, size and checksums are obtained while it streams to the storage, see
+ * {@link AstoIngestion}. Then the package is indexed, see {@link IndexJobs}: right away,
+ * concurrent uploads into the same subdir are merged into its repodata in batches, see
+ * {@link GroupMerge}, or, in asynchronous mode, in background after the upload is answered.
  * @since 0.4
  * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  * @checkstyle ClassFanOutComplexityCheck (500 lines)
@@ -55,32 +59,27 @@ public final class UpdateSlice implements Slice {
     /**
      * Temporary upload key.
      */
-    private static final Key TMP = new Key.From(".upload");
+    static final Key TMP = new Key.From(".upload");
 
     /**
-     * Repository type and artifact file extension.
+     * Artifact file extension.
      */
     private static final String CONDA = "conda";
 
-    /**
-     * Package size metadata json field.
-     */
-    private static final String SIZE = "size";
-
     /**
      * Abstract storage.
      */
     private final Storage asto;
 
     /**
-     * Artifacts events queue.
+     * Index jobs.
      */
-    private final Optional<Queue<ArtifactEvent>> events;
+    private final IndexJobs jobs;
 
     /**
-     * Repository name.
+     * Is indexing asynchronous.
      */
-    private final String rname;
+    private final boolean async;
 
     /**
      * Ctor.
@@ -91,9 +90,49 @@ public final class UpdateSlice implements Slice {
      */
     public UpdateSlice(final Storage asto, final Optional<Queue<ArtifactEvent>> events,
         final String rname) {
+        this(asto, events, rname, RepodataCache.NONE);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param asto Abstract storage
+     * @param events Artifact events
+     * @param rname Repository name
+     * @param cache Repodata cache to invalidate when repodata is updated
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public UpdateSlice(final Storage asto, final Optional<Queue<ArtifactEvent>> events,
+        final String rname, final RepodataCache cache) {
+        this(asto, events, rname, new GroupMerge(asto, cache));
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param asto Abstract storage
+     * @param events Artifact events
+     * @param rname Repository name
+     * @param merges Repodata merges, uploads into the same subdir are merged in batches
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public UpdateSlice(final Storage asto, final Optional<Queue<ArtifactEvent>> events,
+        final String rname, final GroupMerge merges) {
+        this(asto, new IndexJobs(asto, merges, events, rname), false);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param asto Abstract storage
+     * @param jobs Index jobs
+     * @param async Is indexing asynchronous: upload is answered with 202 Accepted as soon as
+     *  the package and its index job are saved, the job is run in background
+     */
+    public UpdateSlice(final Storage asto, final IndexJobs jobs, final boolean async) {
         this.asto = asto;
-        this.events = events;
-        this.rname = rname;
+        this.jobs = jobs;
+        this.async = async;
     }
 
     @Override
@@ -114,46 +153,16 @@ public final class UpdateSlice implements Slice {
                                 new RsWithStatus(RsStatus.BAD_REQUEST)
                             );
                         } else {
-                            resp = this.asto.save(
-                                temp,
-                                new Content.From(
-                                    UpdateSlice.filePart(new Headers.From(headers), body)
-                                )
-                            )
-                                .thenCompose(empty -> this.infoJson(matcher.group(1), temp))
-                                .thenCompose(json -> this.addChecksum(temp, Digests.MD5, json))
-                                .thenCompose(json -> this.addChecksum(temp, Digests.SHA256, json))
-                                .thenApply(JsonObjectBuilder::build)
-                                .thenCompose(
-                                    json -> {
-                                        //@checkstyle MagicNumberCheck (20 lines)
-                                        //@checkstyle LineLengthCheck (20 lines)
-                                        //@checkstyle NestedIfDepthCheck (20 lines)
-                                        CompletionStage<Void> action = new AstoMergedJson(
-                                            this.asto, new Key.From(matcher.group(2), "repodata.json")
-                                        ).merge(
-                                            Collections.singletonMap(matcher.group(3), json)
-                                        ).thenCompose(
-                                            ignored -> this.asto.move(temp, new Key.From(matcher.group(1)))
-                                        );
-                                        if (this.events.isPresent()) {
-                                            action = action.thenAccept(
-                                                nothing -> this.events.get().add(
-                                                    new ArtifactEvent(
-                                                        UpdateSlice.CONDA, this.rname,
-                                                        new Login(new Headers.From(headers)).getValue(),
-                                                        String.join("_", json.getString("name"), json.getString("arch")),
-                                                        json.getString("version"),
-                                                        json.getJsonNumber(UpdateSlice.SIZE).longValue()
-                                                    )
-                                                )
-                                            );
-                                        }
-                                        return action;
-                                    }
-                                ).thenApply(
-                                    ignored -> new RsWithStatus(RsStatus.CREATED)
-                                );
+                            resp = new AstoIngestion(
+                                this.asto, temp, UpdateSlice.info(matcher.group(1))
+                            ).save(UpdateSlice.filePart(new Headers.From(headers), body))
+                                .thenApply(
+                                    pkg -> new IndexJob(
+                                        new Key.From(matcher.group(1)), temp,
+                                        new Login(new Headers.From(headers)).getValue(),
+                                        pkg.files(), pkg.entry()
+                                    )
+                                ).thenCompose(this::index);
                         }
                         return resp;
                     }
@@ -166,39 +175,36 @@ public final class UpdateSlice implements Slice {
     }
 
     /**
-     * Adds checksum of the package to json.
-     * @param key Package key
-     * @param alg Digest algorithm
-     * @param json Json to add value to
-     * @return JsonObjectBuilder with added checksum as completion action
+     * Runs or submits the index job.
+     * @param job Index job
+     * @return Response: 201 Created when the package is indexed, 202 Accepted when the job
+     *  is submitted
      */
-    private CompletionStage<JsonObjectBuilder> addChecksum(final Key key, final Digests alg,
-        final JsonObjectBuilder json) {
-        return this.asto.value(key).thenCompose(val -> new ContentDigest(val, alg).hex())
-            .thenApply(hex -> json.add(alg.name().toLowerCase(Locale.US), hex));
+    private CompletionStage<Response> index(final IndexJob job) {
+        final CompletionStage<Response> res;
+        if (this.async) {
+            res = this.jobs.submit(job).thenApply(
+                nothing -> new RsWithStatus(RsStatus.ACCEPTED)
+            );
+        } else {
+            res = this.jobs.index(job).thenApply(nothing -> new RsWithStatus(RsStatus.CREATED));
+        }
+        return res;
     }
 
     /**
-     * Get info index json from uploaded package.
+     * Info index of the uploaded package stream.
      * @param name Package name
-     * @param key Package input stream
-     * @return JsonObjectBuilder with package info as completion action
+     * @return Info index of the package stream
      */
-    private CompletionStage<JsonObjectBuilder> infoJson(final String name, final Key key) {
-        return this.asto.value(key).thenCompose(
-            val -> new ContentAsStream<JsonObjectBuilder>(val).process(
-                input -> {
-                    final InfoIndex info;
-                    if (name.endsWith(UpdateSlice.CONDA)) {
-                        info = new InfoIndex.Conda(input);
-                    } else {
-                        info = new InfoIndex.TarBz(input);
-                    }
-                    return Json.createObjectBuilder(new UncheckedIOScalar<>(info::json).value())
-                        .add(UpdateSlice.SIZE, val.size().get());
-                }
-            )
-        );
+    static Function<InputStream, InfoIndex> info(final String name) {
+        final Function<InputStream, InfoIndex> res;
+        if (name.endsWith(UpdateSlice.CONDA)) {
+            res = InfoIndex.Conda::new;
+        } else {
+            res = InfoIndex.TarBz::new;
+        }
+        return res;
     }
 
     /**
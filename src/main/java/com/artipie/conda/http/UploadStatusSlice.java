@@ -0,0 +1,79 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.http;
+
+import com.artipie.asto.Key;
+import com.artipie.conda.asto.IndexJobs;
+import com.artipie.http.Response;
+import com.artipie.http.Slice;
+import com.artipie.http.async.AsyncResponse;
+import com.artipie.http.rq.RequestLineFrom;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.http.rs.RsWithStatus;
+import com.artipie.http.rs.common.RsJson;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.json.Json;
+import javax.json.JsonObjectBuilder;
+import org.reactivestreams.Publisher;
+
+/**
+ * Slice to report the indexing status of the uploaded package, see {@link IndexJobs}:
+ * `GET /{subdir}/{filename}/status` returns json with the status, which is `pending`, `failed`
+ * with the error message or `indexed` once the package is visible in the repodata. Unknown
+ * package gets 404 Not Found.
+ * @since 0.4
+ */
+public final class UploadStatusSlice implements Slice {
+
+    /**
+     * Regex to obtain package key from request line.
+     */
+    private static final Pattern PKG =
+        Pattern.compile(".*/([^/]*/[^/]*(\\.tar\\.bz2|\\.conda))/status$");
+
+    /**
+     * Index jobs.
+     */
+    private final IndexJobs jobs;
+
+    /**
+     * Ctor.
+     * @param jobs Index jobs
+     */
+    public UploadStatusSlice(final IndexJobs jobs) {
+        this.jobs = jobs;
+    }
+
+    @Override
+    public Response response(final String line, final Iterable<Map.Entry<String, String>> headers,
+        final Publisher<ByteBuffer> body) {
+        final Matcher matcher = UploadStatusSlice.PKG.matcher(
+            new RequestLineFrom(line).uri().getPath()
+        );
+        final Response res;
+        if (matcher.matches()) {
+            res = new AsyncResponse(
+                this.jobs.status(new Key.From(matcher.group(1))).thenApply(
+                    status -> status.<Response>map(
+                        item -> {
+                            final JsonObjectBuilder json = Json.createObjectBuilder()
+                                .add("package", matcher.group(1))
+                                .add("status", item.name());
+                            item.error().ifPresent(msg -> json.add("error", msg));
+                            return new RsJson(json::build, StandardCharsets.UTF_8);
+                        }
+                    ).orElseGet(() -> new RsWithStatus(RsStatus.NOT_FOUND))
+                )
+            );
+        } else {
+            res = new RsWithStatus(RsStatus.BAD_REQUEST);
+        }
+        return res;
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * BLAKE2b-256 message digest, optionally keyed, see RFC 7693. JLAP files, see {@link Jlap},
+ * identify repodata revisions by BLAKE2b-256 hash and chain their lines with keyed BLAKE2b-256,
+ * the algorithm is not provided by the JDK.
+ * @since 0.4
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+final class Blake2b {
+
+    /**
+     * Digest size in bytes.
+     */
+    static final int SIZE = 32;
+
+    /**
+     * Block size in bytes.
+     */
+    private static final int BLOCK = 128;
+
+    /**
+     * Initialization vector.
+     */
+    private static final long[] IV = {
+        0x6a09e667f3bcc908L, 0xbb67ae8584caa73bL, 0x3c6ef372fe94f82bL, 0xa54ff53a5f1d36f1L,
+        0x510e527fade682d1L, 0x9b05688c2b3e6c1fL, 0x1f83d9abfb41bd6bL, 0x5be0cd19137e2179L,
+    };
+
+    /**
+     * Message word permutations of the rounds.
+     */
+    private static final byte[][] SIGMA = {
+        {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15},
+        {14, 10, 4, 8, 9, 15, 13, 6, 1, 12, 0, 2, 11, 7, 5, 3},
+        {11, 8, 12, 0, 5, 2, 15, 13, 10, 14, 3, 6, 7, 1, 9, 4},
+        {7, 9, 3, 1, 13, 12, 11, 14, 2, 6, 5, 10, 4, 0, 15, 8},
+        {9, 0, 5, 7, 2, 4, 10, 15, 14, 1, 11, 12, 6, 8, 3, 13},
+        {2, 12, 6, 10, 0, 11, 8, 3, 4, 13, 7, 5, 15, 14, 1, 9},
+        {12, 5, 1, 15, 14, 13, 4, 10, 0, 7, 6, 3, 9, 2, 8, 11},
+        {13, 11, 7, 14, 12, 1, 3, 9, 5, 0, 15, 4, 8, 6, 2, 10},
+        {6, 15, 14, 9, 11, 3, 0, 8, 12, 2, 13, 7, 1, 4, 10, 5},
+        {10, 2, 8, 4, 7, 6, 1, 5, 15, 11, 9, 14, 3, 12, 13, 0},
+        {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15},
+        {14, 10, 4, 8, 9, 15, 13, 6, 1, 12, 0, 2, 11, 7, 5, 3},
+    };
+
+    /**
+     * Chain state.
+     */
+    private final long[] state;
+
+    /**
+     * Pending block, compressed only when more input arrives or on digest.
+     */
+    private final byte[] buffer;
+
+    /**
+     * Work vector.
+     */
+    private final long[] work;
+
+    /**
+     * Message words of the block.
+     */
+    private final long[] words;
+
+    /**
+     * Number of bytes in pending block.
+     */
+    private int filled;
+
+    /**
+     * Number of compressed bytes.
+     */
+    private long counter;
+
+    /**
+     * Ctor for unkeyed digest.
+     */
+    Blake2b() {
+        this(new byte[0]);
+    }
+
+    /**
+     * Ctor.
+     * @param key Key, up to 64 bytes, empty for unkeyed digest
+     */
+    Blake2b(final byte[] key) {
+        if (key.length > 64) {
+            throw new IllegalArgumentException("BLAKE2b key is longer than 64 bytes");
+        }
+        this.state = Arrays.copyOf(Blake2b.IV, 8);
+        this.state[0] = this.state[0] ^ 0x01010000L ^ (long) key.length << 8 ^ Blake2b.SIZE;
+        this.buffer = new byte[Blake2b.BLOCK];
+        this.work = new long[16];
+        this.words = new long[16];
+        if (key.length > 0) {
+            System.arraycopy(key, 0, this.buffer, 0, key.length);
+            this.filled = Blake2b.BLOCK;
+        }
+    }
+
+    /**
+     * Updates digest with bytes.
+     * @param bytes Bytes
+     * @param off Offset
+     * @param len Length
+     */
+    void update(final byte[] bytes, final int off, final int len) {
+        int pos = off;
+        final int end = off + len;
+        while (pos < end) {
+            if (this.filled == Blake2b.BLOCK) {
+                this.counter = this.counter + Blake2b.BLOCK;
+                this.compress(false);
+                this.filled = 0;
+            }
+            final int step = Math.min(Blake2b.BLOCK - this.filled, end - pos);
+            System.arraycopy(bytes, pos, this.buffer, this.filled, step);
+            this.filled = this.filled + step;
+            pos = pos + step;
+        }
+    }
+
+    /**
+     * Updates digest with one byte.
+     * @param bte Byte
+     */
+    void update(final byte bte) {
+        this.update(new byte[] {bte}, 0, 1);
+    }
+
+    /**
+     * Completes the digest, this instance should not be used after that.
+     * @return Digest bytes
+     */
+    byte[] digest() {
+        this.counter = this.counter + this.filled;
+        Arrays.fill(this.buffer, this.filled, Blake2b.BLOCK, (byte) 0);
+        this.compress(true);
+        final byte[] res = new byte[Blake2b.SIZE];
+        for (int idx = 0; idx < Blake2b.SIZE; idx = idx + 1) {
+            res[idx] = (byte) (this.state[idx / 8] >>> 8 * (idx % 8));
+        }
+        return res;
+    }
+
+    /**
+     * Keyed BLAKE2b-256 hash of bytes.
+     * @param key Key
+     * @param bytes Bytes
+     * @return Digest bytes
+     */
+    static byte[] keyed(final byte[] key, final byte[] bytes) {
+        final Blake2b blake = new Blake2b(key);
+        blake.update(bytes, 0, bytes.length);
+        return blake.digest();
+    }
+
+    /**
+     * Hex representation of the bytes.
+     * @param bytes Bytes
+     * @return Lowercase hex string
+     */
+    static String hex(final byte[] bytes) {
+        final StringBuilder res = new StringBuilder(bytes.length * 2);
+        for (final byte bte : bytes) {
+            res.append(String.format(Locale.US, "%02x", bte));
+        }
+        return res.toString();
+    }
+
+    /**
+     * Bytes of the hex string.
+     * @param hex Hex string
+     * @return Bytes
+     */
+    static byte[] unhex(final String hex) {
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException(String.format("Invalid hex string '%s'", hex));
+        }
+        final byte[] res = new byte[hex.length() / 2];
+        for (int idx = 0; idx < res.length; idx = idx + 1) {
+            res[idx] = (byte) Integer.parseInt(hex.substring(idx * 2, idx * 2 + 2), 16);
+        }
+        return res;
+    }
+
+    /**
+     * Compresses pending block into the state.
+     * @param last Is it the last block?
+     */
+    private void compress(final boolean last) {
+        for (int idx = 0; idx < 16; idx = idx + 1) {
+            long word = 0;
+            for (int bte = 7; bte >= 0; bte = bte - 1) {
+                word = word << 8 | this.buffer[idx * 8 + bte] & 0xffL;
+            }
+            this.words[idx] = word;
+        }
+        System.arraycopy(this.state, 0, this.work, 0, 8);
+        System.arraycopy(Blake2b.IV, 0, this.work, 8, 8);
+        this.work[12] = this.work[12] ^ this.counter;
+        if (last) {
+            this.work[14] = ~this.work[14];
+        }
+        for (final byte[] sigma : Blake2b.SIGMA) {
+            this.mix(0, 4, 8, 12, this.words[sigma[0]], this.words[sigma[1]]);
+            this.mix(1, 5, 9, 13, this.words[sigma[2]], this.words[sigma[3]]);
+            this.mix(2, 6, 10, 14, this.words[sigma[4]], this.words[sigma[5]]);
+            this.mix(3, 7, 11, 15, this.words[sigma[6]], this.words[sigma[7]]);
+            this.mix(0, 5, 10, 15, this.words[sigma[8]], this.words[sigma[9]]);
+            this.mix(1, 6, 11, 12, this.words[sigma[10]], this.words[sigma[11]]);
+            this.mix(2, 7, 8, 13, this.words[sigma[12]], this.words[sigma[13]]);
+            this.mix(3, 4, 9, 14, this.words[sigma[14]], this.words[sigma[15]]);
+        }
+        for (int idx = 0; idx < 8; idx = idx + 1) {
+            this.state[idx] = this.state[idx] ^ this.work[idx] ^ this.work[idx + 8];
+        }
+    }
+
+    /**
+     * Mixing function G.
+     * @param first Index of a
+     * @param second Index of b
+     * @param third Index of c
+     * @param fourth Index of d
+     * @param xword Message word x
+     * @param yword Message word y
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private void mix(final int first, final int second, final int third, final int fourth,
+        final long xword, final long yword) {
+        final long[] vec = this.work;
+        vec[first] = vec[first] + vec[second] + xword;
+        vec[fourth] = Long.rotateRight(vec[fourth] ^ vec[first], 32);
+        vec[third] = vec[third] + vec[fourth];
+        vec[second] = Long.rotateRight(vec[second] ^ vec[third], 24);
+        vec[first] = vec[first] + vec[second] + yword;
+        vec[fourth] = Long.rotateRight(vec[fourth] ^ vec[first], 16);
+        vec[third] = vec[third] + vec[fourth];
+        vec[second] = Long.rotateRight(vec[second] ^ vec[third], 63);
+    }
+}
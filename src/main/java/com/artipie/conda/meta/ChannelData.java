@@ -0,0 +1,140 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Channel data: `channeldata.json` is the channel-wide summary of the packages, it lists the
+ * channel subdirs and, for each package, the latest version across all subdirs, the subdirs
+ * where the package is present, its about metadata and run exports. Channel data is merged
+ * from the subdirs summaries, see {@link ChannelSummary}; when several subdirs have the
+ * package, the entry of the greatest version, then the latest timestamp, is used.
+ * @since 0.4
+ */
+public final class ChannelData {
+
+    /**
+     * Subdirs field name.
+     */
+    private static final String SUBDIRS = "subdirs";
+
+    /**
+     * Json mapper.
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Summaries by subdir name.
+     */
+    private final Map<String, ChannelSummary> summaries;
+
+    /**
+     * Ctor.
+     * @param summaries Summaries by subdir name
+     */
+    public ChannelData(final Map<String, ChannelSummary> summaries) {
+        this.summaries = summaries;
+    }
+
+    /**
+     * Writes channel data json to the output. Output stream is not closed.
+     * @param out Where to write
+     * @throws IOException On IO error
+     */
+    public void writeTo(final OutputStream out) throws IOException {
+        final Map<String, ObjectNode> packages = new TreeMap<>();
+        final Map<String, SortedSet<String>> subdirs = new TreeMap<>();
+        for (final Map.Entry<String, ChannelSummary> summary
+            : new TreeMap<>(this.summaries).entrySet()) {
+            final Iterator<Map.Entry<String, JsonNode>> items =
+                summary.getValue().latest().fields();
+            while (items.hasNext()) {
+                final Map.Entry<String, JsonNode> item = items.next();
+                subdirs.computeIfAbsent(item.getKey(), key -> new TreeSet<>())
+                    .add(summary.getKey());
+                final ObjectNode current = packages.get(item.getKey());
+                if (current == null || ChannelData.newer(item.getValue(), current)) {
+                    packages.put(item.getKey(), ((ObjectNode) item.getValue()).deepCopy());
+                }
+            }
+        }
+        final ObjectNode root = JsonNodeFactory.instance.objectNode();
+        root.put("channeldata_version", 1);
+        final ObjectNode pkgs = root.putObject("packages");
+        for (final Map.Entry<String, ObjectNode> pkg : packages.entrySet()) {
+            final ArrayNode dirs = pkg.getValue().putArray(ChannelData.SUBDIRS);
+            subdirs.get(pkg.getKey()).forEach(dirs::add);
+            pkgs.set(pkg.getKey(), pkg.getValue());
+        }
+        final ArrayNode dirs = root.putArray(ChannelData.SUBDIRS);
+        new TreeSet<>(this.summaries.keySet()).forEach(dirs::add);
+        out.write(ChannelData.MAPPER.writerWithDefaultPrettyPrinter().writeValueAsBytes(root));
+    }
+
+    /**
+     * Is the entry newer than the current one: its version is greater or versions are equal
+     * and its timestamp is later.
+     * @param entry Channel data entry
+     * @param current Current entry
+     * @return True if entry is newer
+     */
+    private static boolean newer(final JsonNode entry, final JsonNode current) {
+        final int cmp = new CondaVersion(entry.path("version").asText(""))
+            .compareTo(new CondaVersion(current.path("version").asText("")));
+        return cmp > 0 || cmp == 0
+            && entry.path("timestamp").asLong() > current.path("timestamp").asLong();
+    }
+
+    /**
+     * Channel data stored in json form, see {@link ChannelData#writeTo(OutputStream)}.
+     * @since 0.4
+     */
+    public static final class Stored {
+
+        /**
+         * Channel data bytes.
+         */
+        private final byte[] bytes;
+
+        /**
+         * Ctor.
+         * @param bytes Channel data bytes
+         */
+        @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+        public Stored(final byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * Reads channel subdirs.
+         * @return Subdirs names
+         * @throws IOException If bytes are not a valid channel data
+         */
+        public Set<String> subdirs() throws IOException {
+            final JsonNode root = ChannelData.MAPPER.readTree(this.bytes);
+            if (root == null || !root.path(ChannelData.SUBDIRS).isArray()) {
+                throw new IOException("Invalid channel data");
+            }
+            final Set<String> res = new TreeSet<>();
+            for (final JsonNode subdir : root.get(ChannelData.SUBDIRS)) {
+                res.add(subdir.asText());
+            }
+            return res;
+        }
+    }
+}
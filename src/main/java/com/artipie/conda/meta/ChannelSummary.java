@@ -0,0 +1,269 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+import javax.json.JsonObject;
+
+/**
+ * Channel summary of the subdir: `channeldata.json` entry of the latest version of each
+ * package in the subdir, see {@link ChannelData}, and the metadata of the subdir packages
+ * which is not kept in repodata, taken from `info/about.json` and `info/run_exports.json` at
+ * upload time. Summary is updated from the subdir repodata on each index change, so that
+ * channel data can be regenerated without reading repodata of the other subdirs.
+ * @since 0.4
+ */
+public final class ChannelSummary {
+
+    /**
+     * Fields of `info/about.json` copied to channel data.
+     */
+    static final List<String> ABOUT = Collections.unmodifiableList(
+        Arrays.asList(
+            "home", "license", "license_family", "summary", "description", "dev_url", "doc_url",
+            "source_url"
+        )
+    );
+
+    /**
+     * Run exports field name.
+     */
+    static final String RUN_EXPORTS = "run_exports";
+
+    /**
+     * Packages metadata field name.
+     */
+    private static final String PACKAGES = "packages";
+
+    /**
+     * Latest versions field name.
+     */
+    private static final String LATEST = "latest";
+
+    /**
+     * Json mapper.
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Packages metadata by filename.
+     */
+    private final ObjectNode packages;
+
+    /**
+     * Channel data entries of the latest versions by package name.
+     */
+    private final ObjectNode latest;
+
+    /**
+     * Ctor of empty summary.
+     */
+    public ChannelSummary() {
+        this(JsonNodeFactory.instance.objectNode(), JsonNodeFactory.instance.objectNode());
+    }
+
+    /**
+     * Ctor.
+     * @param packages Packages metadata by filename
+     * @param latest Channel data entries of the latest versions by package name
+     */
+    private ChannelSummary(final ObjectNode packages, final ObjectNode latest) {
+        this.packages = packages;
+        this.latest = latest;
+    }
+
+    /**
+     * Summary with the upload time metadata of the package added. Package is included into
+     * the latest versions on the next update, see {@link #update(String, byte[])}.
+     * @param filename Package filename
+     * @param files Package info json files by name, see {@link InfoIndex#files()}
+     * @return Updated summary
+     * @throws IOException On json error
+     */
+    public ChannelSummary with(final String filename, final Map<String, JsonObject> files)
+        throws IOException {
+        return this.with(Collections.singletonMap(filename, files));
+    }
+
+    /**
+     * Summary with the upload time metadata of the packages added, see
+     * {@link #with(String, Map)}.
+     * @param packages Packages info json files by package filename
+     * @return Updated summary
+     * @throws IOException On json error
+     */
+    public ChannelSummary with(final Map<String, Map<String, JsonObject>> packages)
+        throws IOException {
+        final ObjectNode pkgs = this.packages.deepCopy();
+        for (final Map.Entry<String, Map<String, JsonObject>> pkg : packages.entrySet()) {
+            final ObjectNode meta = ChannelSummary.meta(pkg.getValue());
+            if (meta.size() > 0) {
+                pkgs.set(pkg.getKey(), meta);
+            } else {
+                pkgs.remove(pkg.getKey());
+            }
+        }
+        return new ChannelSummary(pkgs, this.latest);
+    }
+
+    /**
+     * Summary of the subdir with the given repodata: latest version of each package, the
+     * build with the greatest version, build number and timestamp, with its metadata.
+     * Metadata of the packages absent in the repodata is dropped.
+     * @param subdir Subdir name
+     * @param repodata Repodata bytes
+     * @return Updated summary
+     * @throws IOException On IO error or if repodata is malformed
+     */
+    public ChannelSummary update(final String subdir, final byte[] repodata) throws IOException {
+        return this.update(subdir, new RepodataEntries(repodata));
+    }
+
+    /**
+     * Summary of the subdir with the given repodata entries, see
+     * {@link #update(String, byte[])}.
+     * @param subdir Subdir name
+     * @param repodata Repodata entries
+     * @return Updated summary
+     * @throws IOException On IO error or if repodata is malformed
+     */
+    public ChannelSummary update(final String subdir, final RepodataEntries repodata)
+        throws IOException {
+        final Map<String, Retention.Build> builds = new HashMap<>();
+        final Map<String, CondaVersion> versions = new HashMap<>();
+        final ObjectNode pkgs = JsonNodeFactory.instance.objectNode();
+        final Comparator<Retention.Build> order = Comparator
+            .<Retention.Build, CondaVersion>comparing(item -> versions.get(item.filename()))
+            .thenComparingLong(Retention.Build::number)
+            .thenComparingLong(Retention.Build::timestamp);
+        for (final RepodataEntries.Entry entry : repodata.entries()) {
+            final Retention.Build build = entry.build();
+            if (!build.name().isEmpty()) {
+                versions.put(build.filename(), new CondaVersion(build.version()));
+                builds.merge(build.name(), build, BinaryOperator.maxBy(order));
+            }
+            if (this.packages.has(build.filename())) {
+                pkgs.set(build.filename(), this.packages.get(build.filename()));
+            }
+        }
+        final ObjectNode res = JsonNodeFactory.instance.objectNode();
+        for (final Retention.Build build : builds.values()) {
+            final ObjectNode item = res.putObject(build.name());
+            item.put("version", build.version());
+            item.put("timestamp", build.timestamp());
+            item.put("reference_package", String.join("/", subdir, build.filename()));
+            final JsonNode meta = pkgs.path(build.filename());
+            for (final String name : ChannelSummary.ABOUT) {
+                if (meta.has(name)) {
+                    item.set(name, meta.get(name));
+                }
+            }
+            if (meta.has(ChannelSummary.RUN_EXPORTS)) {
+                item.putObject(ChannelSummary.RUN_EXPORTS)
+                    .set(build.version(), meta.get(ChannelSummary.RUN_EXPORTS));
+            }
+        }
+        return new ChannelSummary(pkgs, res);
+    }
+
+    /**
+     * Writes summary json to the output. Output stream is not closed.
+     * @param out Where to write
+     * @throws IOException On IO error
+     */
+    public void writeTo(final OutputStream out) throws IOException {
+        final ObjectNode root = JsonNodeFactory.instance.objectNode();
+        root.set(ChannelSummary.PACKAGES, this.packages);
+        root.set(ChannelSummary.LATEST, this.latest);
+        out.write(ChannelSummary.MAPPER.writeValueAsBytes(root));
+    }
+
+    /**
+     * Channel data entries of the latest versions by package name.
+     * @return Entries, should not be modified
+     */
+    ObjectNode latest() {
+        return this.latest;
+    }
+
+    /**
+     * Package metadata from the info json files: about fields and run exports.
+     * @param files Package info json files by name
+     * @return Metadata json
+     * @throws IOException On json error
+     */
+    private static ObjectNode meta(final Map<String, JsonObject> files) throws IOException {
+        final ObjectNode meta = JsonNodeFactory.instance.objectNode();
+        if (files.containsKey(InfoIndex.ABOUT)) {
+            final JsonNode about = ChannelSummary.MAPPER.readTree(
+                files.get(InfoIndex.ABOUT).toString()
+            );
+            for (final String field : ChannelSummary.ABOUT) {
+                if (about.path(field).isTextual()) {
+                    meta.set(field, about.get(field));
+                }
+            }
+        }
+        if (files.containsKey(InfoIndex.RUN_EXPORTS)) {
+            final JsonNode exports = ChannelSummary.MAPPER.readTree(
+                files.get(InfoIndex.RUN_EXPORTS).toString()
+            );
+            if (exports.isObject() && exports.size() > 0) {
+                meta.set(ChannelSummary.RUN_EXPORTS, exports);
+            }
+        }
+        return meta;
+    }
+
+    /**
+     * Channel summary stored in json form, see {@link ChannelSummary#writeTo(OutputStream)}.
+     * @since 0.4
+     */
+    public static final class Stored {
+
+        /**
+         * Summary bytes.
+         */
+        private final byte[] bytes;
+
+        /**
+         * Ctor.
+         * @param bytes Summary bytes
+         */
+        @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+        public Stored(final byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * Reads the summary.
+         * @return Channel summary
+         * @throws IOException If bytes are not a valid summary
+         */
+        public ChannelSummary summary() throws IOException {
+            final JsonNode root = ChannelSummary.MAPPER.readTree(this.bytes);
+            if (root == null || !root.path(ChannelSummary.PACKAGES).isObject()
+                || !root.path(ChannelSummary.LATEST).isObject()) {
+                throw new IOException("Invalid channel summary");
+            }
+            return new ChannelSummary(
+                (ObjectNode) root.get(ChannelSummary.PACKAGES),
+                (ObjectNode) root.get(ChannelSummary.LATEST)
+            );
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
+
+/**
+ * Compression of the repodata.json variants served to conda clients: `repodata.json.bz2` and
+ * `repodata.json.zst` files and HTTP content encodings.
+ * @since 0.4
+ */
+public interface Compression {
+
+    /**
+     * All supported compressions.
+     */
+    List<Compression> ALL = Collections.unmodifiableList(
+        Arrays.asList(new Compression.Bzip2(), new Compression.Zstd())
+    );
+
+    /**
+     * File extension of the compressed variant without leading dot.
+     * @return Extension
+     */
+    String extension();
+
+    /**
+     * Compressing stream, which writes compressed bytes to the given output. Compressed data
+     * is finished and output is closed when compressing stream is closed.
+     * @param out Output for compressed bytes
+     * @return Compressing stream
+     * @throws IOException On IO error
+     */
+    OutputStream compress(OutputStream out) throws IOException;
+
+    /**
+     * Bzip2 compression.
+     * @since 0.4
+     */
+    final class Bzip2 implements Compression {
+
+        @Override
+        public String extension() {
+            return "bz2";
+        }
+
+        @Override
+        public OutputStream compress(final OutputStream out) throws IOException {
+            return new BZip2CompressorOutputStream(out);
+        }
+    }
+
+    /**
+     * Gzip compression, is not used for stored repodata variants, but can be used to encode
+     * repodata for HTTP clients.
+     * @since 0.4
+     */
+    final class Gzip implements Compression {
+
+        @Override
+        public String extension() {
+            return "gz";
+        }
+
+        @Override
+        public OutputStream compress(final OutputStream out) throws IOException {
+            return new GZIPOutputStream(out);
+        }
+    }
+
+    /**
+     * Zstandard compression.
+     * @since 0.4
+     */
+    final class Zstd implements Compression {
+
+        /**
+         * Compression level.
+         */
+        private final int level;
+
+        /**
+         * Ctor with default compression level.
+         */
+        public Zstd() {
+            // @checkstyle MagicNumberCheck (1 line)
+            this(3);
+        }
+
+        /**
+         * Ctor.
+         * @param level Compression level
+         */
+        public Zstd(final int level) {
+            this.level = level;
+        }
+
+        @Override
+        public String extension() {
+            return "zst";
+        }
+
+        @Override
+        public OutputStream compress(final OutputStream out) throws IOException {
+            return new ZstdCompressorOutputStream(out, this.level);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Conda package version with conda ordering: version consists of optional epoch
+ * (`1!`), main part and optional local part (`+local`), parts are split into components
+ * by dots and underscores, components are split into numbers and strings. Numbers are
+ * compared numerically, strings lexicographically, strings are less than numbers except
+ * `post` which is greater, `dev` is less than any other string. Missing components are
+ * treated as zeros, thus `1.1 == 1.1.0` and `1.1dev1 < 1.1a1 < 1.1rc1 < 1.1 < 1.1post1`.
+ * @since 0.4
+ */
+public final class CondaVersion implements Comparable<CondaVersion> {
+
+    /**
+     * Pattern of component tokens.
+     */
+    private static final Pattern TOKEN = Pattern.compile("[0-9]+|[^0-9]+");
+
+    /**
+     * Post-release string token.
+     */
+    private static final String POST = "post";
+
+    /**
+     * Development string token.
+     */
+    private static final String DEV = "dev";
+
+    /**
+     * Version string.
+     */
+    private final String origin;
+
+    /**
+     * Epoch.
+     */
+    private final BigInteger epoch;
+
+    /**
+     * Main part components.
+     */
+    private final List<List<Object>> main;
+
+    /**
+     * Local part components.
+     */
+    private final List<List<Object>> local;
+
+    /**
+     * Ctor.
+     * @param version Version string
+     */
+    public CondaVersion(final String version) {
+        this.origin = version;
+        String rest = version.trim().toLowerCase(Locale.US).replace('-', '_');
+        final int bang = rest.indexOf('!');
+        BigInteger epc = BigInteger.ZERO;
+        if (bang > 0 && rest.substring(0, bang).matches("[0-9]+")) {
+            epc = new BigInteger(rest.substring(0, bang));
+            rest = rest.substring(bang + 1);
+        }
+        this.epoch = epc;
+        final int plus = rest.indexOf('+');
+        if (plus >= 0) {
+            this.main = CondaVersion.components(rest.substring(0, plus));
+            this.local = CondaVersion.components(rest.substring(plus + 1));
+        } else {
+            this.main = CondaVersion.components(rest);
+            this.local = Collections.emptyList();
+        }
+    }
+
+    /**
+     * Does this version start with given version components? For example, `1.2.3` starts
+     * with `1.2`, but `1.20` does not.
+     * @param prefix Prefix version
+     * @return True if version starts with prefix
+     */
+    public boolean startsWith(final CondaVersion prefix) {
+        boolean res = this.epoch.equals(prefix.epoch);
+        for (int idx = 0; res && idx < prefix.main.size(); idx = idx + 1) {
+            res = CondaVersion.compare(
+                CondaVersion.component(this.main, idx), prefix.main.get(idx)
+            ) == 0;
+        }
+        return res;
+    }
+
+    @Override
+    public int compareTo(final CondaVersion other) {
+        int res = this.epoch.compareTo(other.epoch);
+        if (res == 0) {
+            res = CondaVersion.compareParts(this.main, other.main);
+        }
+        if (res == 0) {
+            res = CondaVersion.compareParts(this.local, other.local);
+        }
+        return res;
+    }
+
+    @Override
+    public String toString() {
+        return this.origin;
+    }
+
+    /**
+     * Splits version part into components.
+     * @param part Version part
+     * @return Components
+     */
+    private static List<List<Object>> components(final String part) {
+        final List<List<Object>> res = new ArrayList<>(4);
+        for (final String item : part.split("[._]", -1)) {
+            final List<Object> tokens = new ArrayList<>(2);
+            final Matcher matcher = CondaVersion.TOKEN.matcher(item);
+            while (matcher.find()) {
+                final String token = matcher.group();
+                if (Character.isDigit(token.charAt(0))) {
+                    tokens.add(new BigInteger(token));
+                } else {
+                    tokens.add(token);
+                }
+            }
+            if (tokens.isEmpty() || tokens.get(0) instanceof String) {
+                tokens.add(0, BigInteger.ZERO);
+            }
+            res.add(tokens);
+        }
+        return res;
+    }
+
+    /**
+     * Compares version parts, missing components are zeros.
+     * @param first First part
+     * @param second Second part
+     * @return Comparison result
+     */
+    private static int compareParts(final List<List<Object>> first,
+        final List<List<Object>> second) {
+        int res = 0;
+        final int size = Math.max(first.size(), second.size());
+        for (int idx = 0; res == 0 && idx < size; idx = idx + 1) {
+            res = CondaVersion.compare(
+                CondaVersion.component(first, idx), CondaVersion.component(second, idx)
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Compares components, missing tokens are zeros.
+     * @param first First component
+     * @param second Second component
+     * @return Comparison result
+     */
+    private static int compare(final List<Object> first, final List<Object> second) {
+        int res = 0;
+        final int size = Math.max(first.size(), second.size());
+        for (int idx = 0; res == 0 && idx < size; idx = idx + 1) {
+            res = CondaVersion.compare(
+                CondaVersion.token(first, idx), CondaVersion.token(second, idx)
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Compares tokens.
+     * @param first First token
+     * @param second Second token
+     * @return Comparison result
+     */
+    private static int compare(final Object first, final Object second) {
+        final int res;
+        if (first instanceof BigInteger && second instanceof BigInteger) {
+            res = ((BigInteger) first).compareTo((BigInteger) second);
+        } else if (first instanceof String && second instanceof String) {
+            final int rank = Integer.compare(CondaVersion.rank(first), CondaVersion.rank(second));
+            if (rank == 0) {
+                res = ((String) first).compareTo((String) second);
+            } else {
+                res = rank;
+            }
+        } else if (first instanceof String) {
+            res = Integer.compare(CondaVersion.rank(first), 1);
+        } else {
+            res = Integer.compare(1, CondaVersion.rank(second));
+        }
+        return res;
+    }
+
+    /**
+     * Rank of the token among strings: `dev` is the lowest, `post` is higher than numbers.
+     * @param token String token
+     * @return Rank: -1 for dev, 0 for other strings, 2 for post
+     */
+    private static int rank(final Object token) {
+        final int res;
+        if (CondaVersion.DEV.equals(token)) {
+            res = -1;
+        } else if (CondaVersion.POST.equals(token)) {
+            res = 2;
+        } else {
+            res = 0;
+        }
+        return res;
+    }
+
+    /**
+     * Component by index or zero component.
+     * @param part Version part
+     * @param idx Index
+     * @return Component
+     */
+    private static List<Object> component(final List<List<Object>> part, final int idx) {
+        final List<Object> res;
+        if (idx < part.size()) {
+            res = part.get(idx);
+        } else {
+            res = Collections.singletonList(BigInteger.ZERO);
+        }
+        return res;
+    }
+
+    /**
+     * Token by index or zero.
+     * @param component Component
+     * @param idx Index
+     * @return Token
+     */
+    private static Object token(final List<Object> component, final int idx) {
+        final Object res;
+        if (idx < component.size()) {
+            res = component.get(idx);
+        } else {
+            res = BigInteger.ZERO;
+        }
+        return res;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Current repodata: `current_repodata.json` contains only the latest version of each package
+ * (all the builds of this version) and the packages these versions depend on, if the
+ * dependencies are not satisfied by the latest versions. Versions are ordered by conda rules,
+ * see {@link CondaVersion}, dependencies are matched by {@link MatchSpec}. Selection uses
+ * the build fields and dependencies decoded once per entry, selected entries are copied to the
+ * output as raw bytes, see {@link RepodataEntries}. Output stream is not closed by this
+ * implementation.
+ * @since 0.4
+ */
+public final class CurrentRepodata {
+
+    /**
+     * Prefix of virtual packages names, such packages are never present in repodata.
+     */
+    private static final String VIRTUAL = "__";
+
+    /**
+     * Repodata entries.
+     */
+    private final RepodataEntries input;
+
+    /**
+     * Where to write the result.
+     */
+    private final OutputStream out;
+
+    /**
+     * Ctor.
+     * @param input Repodata json bytes
+     * @param out Where to write the result
+     */
+    public CurrentRepodata(final byte[] input, final OutputStream out) {
+        this(new RepodataEntries(input), out);
+    }
+
+    /**
+     * Ctor.
+     * @param input Repodata entries
+     * @param out Where to write the result
+     */
+    public CurrentRepodata(final RepodataEntries input, final OutputStream out) {
+        this.input = input;
+        this.out = out;
+    }
+
+    /**
+     * Writes current repodata.
+     * @return Filenames of the packages included into current repodata
+     * @throws IOException On IO error
+     */
+    public Set<String> write() throws IOException {
+        final Map<String, List<Candidate>> names = new HashMap<>();
+        for (final RepodataEntries.Entry entry : this.input.entries()) {
+            names.computeIfAbsent(entry.build().name(), key -> new ArrayList<>(1))
+                .add(new Candidate(entry.build(), entry.depends()));
+        }
+        final Set<String> kept = CurrentRepodata.select(names);
+        this.input.write(this.out, kept::contains);
+        return kept;
+    }
+
+    /**
+     * Selects latest versions of the packages and their dependencies.
+     * @param names Candidates by package name
+     * @return Filenames of the selected packages
+     */
+    private static Set<String> select(final Map<String, List<Candidate>> names) {
+        final Set<String> res = new HashSet<>(names.size());
+        final Map<String, List<Candidate>> selected = new HashMap<>(names.size());
+        final Deque<Candidate> queue = new ArrayDeque<>(names.size());
+        for (final Map.Entry<String, List<Candidate>> name : names.entrySet()) {
+            final CondaVersion latest = Collections.max(
+                name.getValue(), Comparator.comparing(item -> item.version)
+            ).version;
+            for (final Candidate item : name.getValue()) {
+                if (item.version.compareTo(latest) == 0) {
+                    CurrentRepodata.add(item, res, selected, queue);
+                }
+            }
+        }
+        while (!queue.isEmpty()) {
+            for (final String dependency : queue.poll().depends) {
+                final MatchSpec spec = new MatchSpec(dependency);
+                if (!spec.name().startsWith(CurrentRepodata.VIRTUAL)
+                    && names.containsKey(spec.name())
+                    && selected.getOrDefault(spec.name(), Collections.emptyList())
+                        .stream().noneMatch(item -> item.satisfies(spec))) {
+                    final Optional<Candidate> best = names.get(spec.name()).stream()
+                        .filter(item -> item.satisfies(spec))
+                        .max(
+                            Comparator.<Candidate, CondaVersion>comparing(item -> item.version)
+                                .thenComparingLong(item -> item.build.number())
+                                .thenComparingLong(item -> item.build.timestamp())
+                        );
+                    best.ifPresent(item -> CurrentRepodata.add(item, res, selected, queue));
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Adds candidate to selection.
+     * @param item Candidate
+     * @param res Selected filenames
+     * @param selected Selected candidates by name
+     * @param queue Candidates to resolve dependencies of
+     */
+    private static void add(final Candidate item, final Set<String> res,
+        final Map<String, List<Candidate>> selected, final Deque<Candidate> queue) {
+        if (res.add(item.build.filename())) {
+            selected.computeIfAbsent(item.build.name(), key -> new ArrayList<>(1)).add(item);
+            queue.add(item);
+        }
+    }
+
+    /**
+     * Package build which can be selected into current repodata.
+     * @since 0.4
+     */
+    private static final class Candidate {
+
+        /**
+         * Package build.
+         */
+        private final Retention.Build build;
+
+        /**
+         * Package version.
+         */
+        private final CondaVersion version;
+
+        /**
+         * Package dependencies match specifications.
+         */
+        private final List<String> depends;
+
+        /**
+         * Ctor.
+         * @param build Package build
+         * @param depends Package dependencies match specifications
+         */
+        Candidate(final Retention.Build build, final List<String> depends) {
+            this.build = build;
+            this.version = new CondaVersion(build.version());
+            this.depends = depends;
+        }
+
+        /**
+         * Does the build satisfy match specification?
+         * @param spec Match specification
+         * @return True if satisfies
+         */
+        boolean satisfies(final MatchSpec spec) {
+            return spec.matches(this.build.version(), this.build.build());
+        }
+    }
+}
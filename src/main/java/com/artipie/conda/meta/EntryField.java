@@ -0,0 +1,70 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+
+/**
+ * Text value of the top level field of repodata package entry. Entry is read only until
+ * the field is found.
+ * @since 0.4
+ */
+final class EntryField {
+
+    /**
+     * Parser of the package entry, pointing before the start of the entry object.
+     */
+    private final JsonParser entry;
+
+    /**
+     * Field name.
+     */
+    private final String field;
+
+    /**
+     * Ctor.
+     * @param entry Buffered package entry
+     * @param field Field name
+     */
+    EntryField(final TokenBuffer entry, final String field) {
+        this(entry.asParser(), field);
+    }
+
+    /**
+     * Ctor.
+     * @param entry Parser of the package entry, pointing before the start of the entry object
+     * @param field Field name
+     */
+    EntryField(final JsonParser entry, final String field) {
+        this.entry = entry;
+        this.field = field;
+    }
+
+    /**
+     * Reads field value, parser is closed after reading.
+     * @return Field value as text or empty string if entry does not have the field
+     * @throws IOException On IO error
+     */
+    String value() throws IOException {
+        String res = "";
+        boolean found = false;
+        try (JsonParser prs = this.entry) {
+            prs.nextToken();
+            while (!found && prs.nextToken() == JsonToken.FIELD_NAME) {
+                found = this.field.equals(prs.getCurrentName());
+                prs.nextToken();
+                if (found) {
+                    res = prs.getText();
+                } else {
+                    prs.skipChildren();
+                }
+            }
+        }
+        return res;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Several top level fields of the package entry. Entry is read only until all the fields are
+ * found, nested values of other fields are skipped without decoding, see {@link EntryField}.
+ * @since 0.4
+ */
+final class EntryFields {
+
+    /**
+     * Parser of the package entry, pointing before the start of the entry object.
+     */
+    private final JsonParser entry;
+
+    /**
+     * Fields names.
+     */
+    private final Set<String> fields;
+
+    /**
+     * Ctor.
+     * @param entry Parser of the package entry, pointing before the start of the entry object
+     * @param fields Fields names
+     */
+    EntryFields(final JsonParser entry, final Set<String> fields) {
+        this.entry = entry;
+        this.fields = fields;
+    }
+
+    /**
+     * Reads fields values, parser is closed after reading.
+     * @return Fields values as text by name, fields absent in the entry are not included
+     * @throws IOException On IO error
+     */
+    Map<String, String> values() throws IOException {
+        final Map<String, String> res = new HashMap<>(this.fields.size());
+        try (JsonParser prs = this.entry) {
+            prs.nextToken();
+            while (res.size() < this.fields.size() && prs.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = prs.getCurrentName();
+                prs.nextToken();
+                if (this.fields.contains(name) && prs.currentToken().isScalarValue()) {
+                    res.put(name, prs.getText());
+                } else {
+                    prs.skipChildren();
+                }
+            }
+        }
+        return res;
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Predicate;
+
+/**
+ * Predicate on repodata package entry. Entry fields are decoded only when predicate asks
+ * for them, see {@link PackageEntry.Lazy}, so predicates should check cheap conditions
+ * (such as filename) first.
+ * @since 0.4
+ */
+@FunctionalInterface
+public interface EntryPredicate {
+
+    /**
+     * Tests package entry.
+     * @param entry Package entry
+     * @return True if entry matches
+     * @throws IOException On IO error
+     */
+    boolean test(PackageEntry entry) throws IOException;
+
+    /**
+     * Predicate on package filename, entry fields are not decoded.
+     * @since 0.4
+     */
+    final class Filename implements EntryPredicate {
+
+        /**
+         * Filename condition.
+         */
+        private final Predicate<String> cond;
+
+        /**
+         * Ctor.
+         * @param cond Filename condition
+         */
+        public Filename(final Predicate<String> cond) {
+            this.cond = cond;
+        }
+
+        @Override
+        public boolean test(final PackageEntry entry) {
+            return this.cond.test(entry.filename());
+        }
+    }
+
+    /**
+     * Predicate on package metadata field.
+     * @since 0.4
+     */
+    final class Field implements EntryPredicate {
+
+        /**
+         * Field name.
+         */
+        private final String name;
+
+        /**
+         * Field value condition.
+         */
+        private final Predicate<String> cond;
+
+        /**
+         * Ctor.
+         * @param name Field name
+         * @param cond Field value condition
+         */
+        public Field(final String name, final Predicate<String> cond) {
+            this.name = name;
+            this.cond = cond;
+        }
+
+        @Override
+        public boolean test(final PackageEntry entry) throws IOException {
+            return this.cond.test(entry.field(this.name));
+        }
+    }
+
+    /**
+     * Predicate on package name.
+     * @since 0.4
+     */
+    final class Name extends Wrap {
+
+        /**
+         * Ctor.
+         * @param cond Name condition
+         */
+        public Name(final Predicate<String> cond) {
+            super(new Field("name", cond));
+        }
+    }
+
+    /**
+     * Predicate on package version.
+     * @since 0.4
+     */
+    final class Version extends Wrap {
+
+        /**
+         * Ctor.
+         * @param cond Version condition
+         */
+        public Version(final Predicate<String> cond) {
+            super(new Field("version", cond));
+        }
+    }
+
+    /**
+     * Predicate on package build string.
+     * @since 0.4
+     */
+    final class Build extends Wrap {
+
+        /**
+         * Ctor.
+         * @param cond Build string condition
+         */
+        public Build(final Predicate<String> cond) {
+            super(new Field("build", cond));
+        }
+    }
+
+    /**
+     * Predicate on package subdir.
+     * @since 0.4
+     */
+    final class Subdir extends Wrap {
+
+        /**
+         * Ctor.
+         * @param cond Subdir condition
+         */
+        public Subdir(final Predicate<String> cond) {
+            super(new Field("subdir", cond));
+        }
+    }
+
+    /**
+     * Entry matches if all the predicates match, predicates are tested in the given order
+     * until the first mismatch.
+     * @since 0.4
+     */
+    final class All implements EntryPredicate {
+
+        /**
+         * Predicates.
+         */
+        private final Collection<EntryPredicate> preds;
+
+        /**
+         * Ctor.
+         * @param preds Predicates
+         */
+        public All(final EntryPredicate... preds) {
+            this(Arrays.asList(preds));
+        }
+
+        /**
+         * Ctor.
+         * @param preds Predicates
+         */
+        public All(final Collection<EntryPredicate> preds) {
+            this.preds = preds;
+        }
+
+        @Override
+        public boolean test(final PackageEntry entry) throws IOException {
+            boolean res = true;
+            for (final EntryPredicate pred : this.preds) {
+                if (!pred.test(entry)) {
+                    res = false;
+                    break;
+                }
+            }
+            return res;
+        }
+    }
+
+    /**
+     * Entry matches if any of the predicates matches, predicates are tested in the given
+     * order until the first match.
+     * @since 0.4
+     */
+    final class Any implements EntryPredicate {
+
+        /**
+         * Predicates.
+         */
+        private final Collection<EntryPredicate> preds;
+
+        /**
+         * Ctor.
+         * @param preds Predicates
+         */
+        public Any(final EntryPredicate... preds) {
+            this(Arrays.asList(preds));
+        }
+
+        /**
+         * Ctor.
+         * @param preds Predicates
+         */
+        public Any(final Collection<EntryPredicate> preds) {
+            this.preds = preds;
+        }
+
+        @Override
+        public boolean test(final PackageEntry entry) throws IOException {
+            boolean res = false;
+            for (final EntryPredicate pred : this.preds) {
+                if (pred.test(entry)) {
+                    res = true;
+                    break;
+                }
+            }
+            return res;
+        }
+    }
+
+    /**
+     * Predicate envelope.
+     * @since 0.4
+     */
+    abstract class Wrap implements EntryPredicate {
+
+        /**
+         * Origin predicate.
+         */
+        private final EntryPredicate origin;
+
+        /**
+         * Ctor.
+         * @param origin Origin predicate
+         */
+        protected Wrap(final EntryPredicate origin) {
+            this.origin = origin;
+        }
+
+        @Override
+        public final boolean test(final PackageEntry entry) throws IOException {
+            return this.origin.test(entry);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Output stream which builds {@link RepodataIndex} of the repodata json written through it.
+ * Bytes are passed to the underlying stream as is and scanned on the fly: scanner only tracks
+ * strings and nesting depth, so the index is built in the same pass as the repodata is
+ * written, without reading it back.
+ * @since 0.4
+ * @checkstyle CyclomaticComplexityCheck (500 lines)
+ */
+@SuppressWarnings({"PMD.AvoidFieldNameMatchingMethodName", "PMD.TooManyFields"})
+public final class IndexingStream extends FilterOutputStream {
+
+    /**
+     * Json factory to decode escaped strings.
+     */
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    /**
+     * Indexed entries.
+     */
+    private final List<RepodataIndex.Entry> entries;
+
+    /**
+     * Captured string bytes.
+     */
+    private final ByteArrayOutputStream text;
+
+    /**
+     * Checksum of the written bytes.
+     */
+    private final CRC32 crc;
+
+    /**
+     * Is container on each depth an object (not array)?
+     */
+    private boolean[] objects;
+
+    /**
+     * Current nesting depth, root object has depth 1.
+     */
+    private int depth;
+
+    /**
+     * Position of the next byte.
+     */
+    private long pos;
+
+    /**
+     * Is scanner inside a string?
+     */
+    private boolean str;
+
+    /**
+     * Was previous string byte an escape?
+     */
+    private boolean esc;
+
+    /**
+     * Does current string contain escapes?
+     */
+    private boolean escaped;
+
+    /**
+     * Is current string captured?
+     */
+    private boolean capture;
+
+    /**
+     * Is next string in current object a member name?
+     */
+    private boolean key;
+
+    /**
+     * Is current string a member name?
+     */
+    private boolean named;
+
+    /**
+     * Current root member name.
+     */
+    private String root;
+
+    /**
+     * Is scanner inside packages object?
+     */
+    private boolean pkgs;
+
+    /**
+     * Current entry name.
+     */
+    private String name;
+
+    /**
+     * Current entry start.
+     */
+    private long start;
+
+    /**
+     * Current entry field name.
+     */
+    private String field;
+
+    /**
+     * Current entry sha256.
+     */
+    private String sha;
+
+    /**
+     * Ctor.
+     * @param out Underlying output stream
+     */
+    public IndexingStream(final OutputStream out) {
+        super(out);
+        this.entries = new ArrayList<>(0);
+        this.text = new ByteArrayOutputStream();
+        this.crc = new CRC32();
+        this.objects = new boolean[16];
+        this.root = "";
+        this.name = "";
+        this.field = "";
+        this.sha = "";
+    }
+
+    /**
+     * Index of the bytes written so far, should be called after repodata is written.
+     * @return Repodata index
+     */
+    public RepodataIndex index() {
+        return new RepodataIndex(this.pos, this.crc.getValue(), new ArrayList<>(this.entries));
+    }
+
+    @Override
+    public void write(final int bte) throws IOException {
+        this.scan((byte) bte);
+        this.crc.update(bte);
+        this.out.write(bte);
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int off, final int len) throws IOException {
+        for (int idx = off; idx < off + len; idx = idx + 1) {
+            this.scan(bytes[idx]);
+        }
+        this.crc.update(bytes, off, len);
+        this.out.write(bytes, off, len);
+    }
+
+    /**
+     * Scans next byte.
+     * @param bte Byte
+     * @throws IOException If string can not be decoded
+     */
+    @SuppressWarnings("PMD.CognitiveComplexity")
+    private void scan(final byte bte) throws IOException {
+        if (this.str) {
+            if (this.esc) {
+                this.esc = false;
+                this.text(bte);
+            } else if (bte == '\\') {
+                this.esc = true;
+                this.escaped = true;
+                this.text(bte);
+            } else if (bte == '"') {
+                this.str = false;
+                if (this.capture) {
+                    this.string(this.decoded());
+                }
+            } else {
+                this.text(bte);
+            }
+        } else if (bte == '"') {
+            this.str = true;
+            this.escaped = false;
+            this.named = this.key && this.objects[this.depth];
+            this.capture = this.depth == 1 && this.named
+                || this.pkgs && (this.depth == 2 && this.named || this.depth == 3);
+            this.text.reset();
+            if (this.pkgs && this.depth == 2 && this.named) {
+                this.start = this.pos;
+            }
+        } else if (bte == '{' || bte == '[') {
+            this.opening(bte == '{');
+        } else if (bte == '}' || bte == ']') {
+            this.closing();
+        } else if (bte == ',') {
+            this.key = this.objects[this.depth];
+        } else if (bte == ':') {
+            this.key = false;
+        }
+        this.pos = this.pos + 1;
+    }
+
+    /**
+     * Adds byte to captured string.
+     * @param bte Byte
+     */
+    private void text(final byte bte) {
+        if (this.capture) {
+            this.text.write(bte);
+        }
+    }
+
+    /**
+     * Handles opening brace or bracket.
+     * @param object Is it object?
+     */
+    private void opening(final boolean object) {
+        this.depth = this.depth + 1;
+        if (this.depth == this.objects.length) {
+            this.objects = Arrays.copyOf(this.objects, this.objects.length * 2);
+        }
+        this.objects[this.depth] = object;
+        this.key = object;
+        if (this.depth == 2 && object) {
+            this.pkgs = RepodataSpans.PACKAGES.equals(this.root)
+                || RepodataSpans.PACKAGES_CONDA.equals(this.root);
+        } else if (this.depth == 3 && this.pkgs) {
+            this.field = "";
+            this.sha = "";
+        }
+    }
+
+    /**
+     * Handles closing brace or bracket.
+     */
+    private void closing() {
+        if (this.pkgs && this.depth == 3 && this.objects[this.depth]) {
+            this.entries.add(
+                new RepodataIndex.Entry(this.name, this.sha, this.start, this.pos + 1)
+            );
+        } else if (this.depth == 2) {
+            this.pkgs = false;
+        }
+        this.depth = Math.max(this.depth - 1, 0);
+        this.key = false;
+    }
+
+    /**
+     * Handles captured string.
+     * @param value String value
+     */
+    private void string(final String value) {
+        if (this.depth == 1) {
+            this.root = value;
+        } else if (this.depth == 2) {
+            this.name = value;
+        } else if (this.named) {
+            this.field = value;
+        } else if ("sha256".equals(this.field)) {
+            this.sha = value;
+        }
+    }
+
+    /**
+     * Decodes captured string.
+     * @return String value
+     * @throws IOException If string can not be decoded
+     */
+    private String decoded() throws IOException {
+        final String res;
+        if (this.escaped) {
+            final ByteArrayOutputStream quoted = new ByteArrayOutputStream();
+            quoted.write('"');
+            this.text.writeTo(quoted);
+            quoted.write('"');
+            try (JsonParser parser = IndexingStream.FACTORY.createParser(quoted.toByteArray())) {
+                parser.nextToken();
+                res = parser.getText();
+            }
+        } else {
+            res = new String(this.text.toByteArray(), StandardCharsets.UTF_8);
+        }
+        return res;
+    }
+}
@@ -8,7 +8,8 @@ import com.artipie.ArtipieException;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Optional;
+import java.util.HashMap;
+import java.util.Map;
 import javax.json.Json;
 import javax.json.JsonObject;
 import org.apache.commons.compress.archivers.ArchiveEntry;
@@ -30,6 +31,16 @@ public interface InfoIndex {
      */
     String FILE_NAME = "info/index.json";
 
+    /**
+     * Name of the package about file.
+     */
+    String ABOUT = "info/about.json";
+
+    /**
+     * Name of the package run exports file.
+     */
+    String RUN_EXPORTS = "info/run_exports.json";
+
     /**
      * Conda package metadata info/index.json content as json object.
      * @return Metadata json
@@ -37,6 +48,15 @@ public interface InfoIndex {
      */
     JsonObject json() throws IOException;
 
+    /**
+     * Package info json files: info/index.json, info/about.json and info/run_exports.json,
+     * read in one pass over the package. Package stream can be read only once, so either this
+     * method or {@link #json()} should be called.
+     * @return Json files by name, info/index.json is always present
+     * @throws IOException On error
+     */
+    Map<String, JsonObject> files() throws IOException;
+
     /**
      * Implementation of {@link InfoIndex} to read metadata from `tar.bz2` conda package.
      * @since 0.2
@@ -57,29 +77,27 @@ public interface InfoIndex {
         }
 
         @Override
-        @SuppressWarnings("PMD.AssignmentInOperand")
         public JsonObject json() throws IOException {
-            Optional<JsonObject> res = Optional.empty();
+            return this.files().get(InfoIndex.FILE_NAME);
+        }
+
+        @Override
+        @SuppressWarnings("PMD.AssignmentInOperand")
+        public Map<String, JsonObject> files() throws IOException {
+            final Map<String, JsonObject> res = new HashMap<>(3);
             try (
                 TarArchiveInputStream archive = new TarArchiveInputStream(
                     new BZip2CompressorInputStream(this.input)
                 )
             ) {
-                ArchiveEntry entry;
-                while ((entry = archive.getNextEntry()) != null) {
-                    if (!archive.canReadEntryData(entry) || entry.isDirectory()) {
-                        continue;
-                    }
-                    if (InfoIndex.FILE_NAME.equals(entry.getName())) {
-                        res = Optional.of(Json.createReader(archive).readObject());
-                    }
-                }
+                InfoIndex.read(archive, res);
             }
-            return res.orElseThrow(
-                () -> new ArtipieException(
+            if (!res.containsKey(InfoIndex.FILE_NAME)) {
+                throw new ArtipieException(
                     "Illegal package .tar.bz2: info/index.json file not found"
-                )
-            );
+                );
+            }
+            return res;
         }
     }
 
@@ -104,9 +122,14 @@ public interface InfoIndex {
         }
 
         @Override
-        @SuppressWarnings({"PMD.CyclomaticComplexity", "PMD.AssignmentInOperand"})
         public JsonObject json() throws IOException {
-            Optional<JsonObject> res = Optional.empty();
+            return this.files().get(InfoIndex.FILE_NAME);
+        }
+
+        @Override
+        @SuppressWarnings("PMD.AssignmentInOperand")
+        public Map<String, JsonObject> files() throws IOException {
+            final Map<String, JsonObject> res = new HashMap<>(3);
             try (
                 ArchiveInputStream archive = new ArchiveStreamFactory().createArchiveInputStream(
                     new BufferedInputStream(this.input)
@@ -119,27 +142,43 @@ public interface InfoIndex {
                     }
                     final String name = entry.getName();
                     if (name.startsWith("info") && name.endsWith("tar.zst")) {
-                        final TarArchiveInputStream info = new TarArchiveInputStream(
-                            new ZstdCompressorInputStream(archive)
+                        InfoIndex.read(
+                            new TarArchiveInputStream(new ZstdCompressorInputStream(archive)),
+                            res
                         );
-                        while ((entry = info.getNextEntry()) != null) {
-                            if (!info.canReadEntryData(entry) || entry.isDirectory()) {
-                                continue;
-                            }
-                            if (InfoIndex.FILE_NAME.equals(entry.getName())) {
-                                res = Optional.of(Json.createReader(info).readObject());
-                            }
-                        }
                     }
                 }
             } catch (final ArchiveException ex) {
                 throw new IOException(ex);
             }
-            return res.orElseThrow(
-                () -> new ArtipieException(
+            if (!res.containsKey(InfoIndex.FILE_NAME)) {
+                throw new ArtipieException(
                     "Illegal package `.conda`: info/index.json file not found"
-                )
-            );
+                );
+            }
+            return res;
+        }
+    }
+
+    /**
+     * Reads info json files from the tar archive.
+     * @param archive Tar archive
+     * @param res Where to put json files by name
+     * @throws IOException On error
+     */
+    @SuppressWarnings("PMD.AssignmentInOperand")
+    static void read(final TarArchiveInputStream archive, final Map<String, JsonObject> res)
+        throws IOException {
+        ArchiveEntry entry;
+        while ((entry = archive.getNextEntry()) != null) {
+            if (!archive.canReadEntryData(entry) || entry.isDirectory()) {
+                continue;
+            }
+            final String name = entry.getName();
+            if (InfoIndex.FILE_NAME.equals(name) || InfoIndex.ABOUT.equals(name)
+                || InfoIndex.RUN_EXPORTS.equals(name)) {
+                res.put(name, Json.createReader(archive).readObject());
+            }
         }
     }
 }
@@ -0,0 +1,217 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonReader;
+
+/**
+ * JLAP file of the repodata (CEP-10): log of JSON Patches between repodata revisions which
+ * lets clients update cached repodata.json without downloading it again. File consists of the
+ * lines: hex initialization vector, patch lines `{"from":...,"patch":[...],"to":...}`, metadata
+ * line `{"latest":...,"url":"repodata.json"}` and hex checksum. Revisions are identified by
+ * BLAKE2b-256 checksum of the repodata, see {@link RepodataStamp#blake2b()}, each line is
+ * chained with keyed BLAKE2b-256 of the previous line, starting from the initialization vector,
+ * last line is the chain value of the metadata line. Instances are immutable.
+ * @since 0.4
+ */
+public final class Jlap {
+
+    /**
+     * Initialization vector of the new log.
+     */
+    private static final String ZERO = String.join("", Collections.nCopies(64, "0"));
+
+    /**
+     * Hex checksum pattern.
+     */
+    private static final Pattern HEX = Pattern.compile("[0-9a-f]{64}");
+
+    /**
+     * Initialization vector, hex.
+     */
+    private final String vector;
+
+    /**
+     * Patch lines from the oldest to the newest.
+     */
+    private final List<String> patches;
+
+    /**
+     * BLAKE2b-256 checksum of the latest repodata revision, hex.
+     */
+    private final String last;
+
+    /**
+     * Ctor for the new log without patches.
+     * @param latest BLAKE2b-256 checksum of the latest repodata revision, hex
+     */
+    public Jlap(final String latest) {
+        this(Jlap.ZERO, Collections.emptyList(), latest);
+    }
+
+    /**
+     * Ctor.
+     * @param vector Initialization vector, hex
+     * @param patches Patch lines from the oldest to the newest
+     * @param latest BLAKE2b-256 checksum of the latest repodata revision, hex
+     */
+    Jlap(final String vector, final List<String> patches, final String latest) {
+        this.vector = vector;
+        this.patches = patches;
+        this.last = latest;
+    }
+
+    /**
+     * BLAKE2b-256 checksum of the latest repodata revision.
+     * @return Hex checksum
+     */
+    public String latest() {
+        return this.last;
+    }
+
+    /**
+     * Patch lines from the oldest to the newest.
+     * @return Unmodifiable list of lines
+     */
+    public List<String> patches() {
+        return Collections.unmodifiableList(this.patches);
+    }
+
+    /**
+     * Log with one more patch from the latest revision to the new one.
+     * @param patch JSON Patch array, single line
+     * @param latest BLAKE2b-256 checksum of the new repodata revision, hex
+     * @return Appended log
+     */
+    public Jlap append(final String patch, final String latest) {
+        final List<String> lines = new ArrayList<>(this.patches);
+        lines.add(
+            String.format("{\"from\":\"%s\",\"patch\":%s,\"to\":\"%s\"}", this.last, patch, latest)
+        );
+        return new Jlap(this.vector, lines, latest);
+    }
+
+    /**
+     * Log trimmed to the size limit: the oldest patches are dropped until log fits the limit,
+     * initialization vector of the trimmed log is the chain value of the last dropped line,
+     * so that chain values of the kept lines do not change.
+     * @param limit Max log size in bytes
+     * @return Trimmed log
+     */
+    public Jlap trimmed(final long limit) {
+        long size = this.bytes().length;
+        int drop = 0;
+        byte[] chain = Blake2b.unhex(this.vector);
+        while (drop < this.patches.size() && size > limit) {
+            final byte[] line = this.patches.get(drop).getBytes(StandardCharsets.UTF_8);
+            chain = Blake2b.keyed(chain, line);
+            size = size - line.length - 1;
+            drop = drop + 1;
+        }
+        return new Jlap(
+            Blake2b.hex(chain), new ArrayList<>(this.patches.subList(drop, this.patches.size())),
+            this.last
+        );
+    }
+
+    /**
+     * Writes the log to the output. Output stream is not closed.
+     * @param out Where to write
+     * @throws IOException On IO error
+     */
+    public void writeTo(final OutputStream out) throws IOException {
+        out.write(this.bytes());
+        out.flush();
+    }
+
+    /**
+     * Log bytes: lines separated by new line, without trailing new line.
+     * @return Bytes
+     */
+    private byte[] bytes() {
+        final List<String> lines = new ArrayList<>(this.patches.size() + 3);
+        lines.add(this.vector);
+        lines.addAll(this.patches);
+        lines.add(
+            String.format("{\"latest\":\"%s\",\"url\":\"repodata.json\"}", this.last)
+        );
+        byte[] chain = Blake2b.unhex(this.vector);
+        for (final String line : lines.subList(1, lines.size())) {
+            chain = Blake2b.keyed(chain, line.getBytes(StandardCharsets.UTF_8));
+        }
+        lines.add(Blake2b.hex(chain));
+        return String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Log stored in JLAP format, see {@link Jlap#writeTo(OutputStream)}.
+     * @since 0.4
+     */
+    public static final class Stored {
+
+        /**
+         * Log bytes.
+         */
+        private final byte[] bytes;
+
+        /**
+         * Ctor.
+         * @param bytes Log bytes
+         */
+        @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+        public Stored(final byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * Reads the log and verifies its checksum chain.
+         * @return Log
+         * @throws IOException If bytes are not a valid log
+         */
+        public Jlap jlap() throws IOException {
+            final List<String> lines = new ArrayList<>(
+                Arrays.asList(new String(this.bytes, StandardCharsets.UTF_8).split("\n", -1))
+            );
+            if (!lines.isEmpty() && lines.get(lines.size() - 1).isEmpty()) {
+                lines.remove(lines.size() - 1);
+            }
+            if (lines.size() < 3 || !Jlap.HEX.matcher(lines.get(0)).matches()) {
+                throw new IOException("Invalid JLAP file");
+            }
+            byte[] chain = Blake2b.unhex(lines.get(0));
+            for (final String line : lines.subList(1, lines.size() - 1)) {
+                chain = Blake2b.keyed(chain, line.getBytes(StandardCharsets.UTF_8));
+            }
+            if (!Blake2b.hex(chain).equals(lines.get(lines.size() - 1))) {
+                throw new IOException("JLAP file checksum does not match");
+            }
+            final String latest;
+            try (JsonReader reader = Json.createReader(
+                new StringReader(lines.get(lines.size() - 2))
+            )) {
+                latest = reader.readObject().getString("latest", "");
+            } catch (final JsonException err) {
+                throw new IOException("Invalid JLAP metadata", err);
+            }
+            if (latest.isEmpty()) {
+                throw new IOException("JLAP metadata has no latest revision");
+            }
+            return new Jlap(
+                lines.get(0), new ArrayList<>(lines.subList(1, lines.size() - 2)), latest
+            );
+        }
+    }
+}
@@ -4,13 +4,18 @@
  */
 package com.artipie.conda.meta;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Json maid removes items from json repodata.
@@ -18,6 +23,11 @@ import java.util.Set;
  */
 public interface JsonMaid {
 
+    /**
+     * Package sha256 checksum field name.
+     */
+    String SHA = "sha256";
+
     /**
      * Cleans xml by ids (checksums) and returns actual package count.
      * @param checksums Checksums
@@ -25,6 +35,14 @@ public interface JsonMaid {
      */
     void clean(Set<String> checksums) throws IOException;
 
+    /**
+     * Removes entries matched by predicate. Entry fields are decoded only if predicate
+     * asks for them.
+     * @param removed Predicate of the entries to remove
+     * @throws IOException When something wrong
+     */
+    void clean(EntryPredicate removed) throws IOException;
+
     /**
      * Implementation of {@link JsonMaid} based on {@link com.fasterxml.jackson}.
      * @since 0.1
@@ -52,8 +70,13 @@ public interface JsonMaid {
         }
 
         @Override
-        @SuppressWarnings("PMD.AssignmentInOperand")
         public void clean(final Set<String> checksums) throws IOException {
+            this.clean(entry -> checksums.contains(entry.field(JsonMaid.SHA)));
+        }
+
+        @Override
+        @SuppressWarnings("PMD.AssignmentInOperand")
+        public void clean(final EntryPredicate removed) throws IOException {
             JsonToken token;
             while ((token = this.parser.nextToken()) != null) {
                 if (token == JsonToken.FIELD_NAME
@@ -64,7 +87,7 @@ public interface JsonMaid {
                     this.parser.nextToken();
                     this.parser.setCodec(new ObjectMapper());
                     final ObjectNode nodes = this.parser.<ObjectNode>readValueAsTree();
-                    if (!checksums.contains(nodes.get("sha256").asText())) {
+                    if (!removed.test(new PackageEntry.Tree(name, nodes))) {
                         this.gnrt.writeFieldName(name);
                         this.gnrt.setCodec(new ObjectMapper());
                         this.gnrt.writeTree(nodes);
@@ -77,4 +100,232 @@ public interface JsonMaid {
             this.parser.close();
         }
     }
+
+    /**
+     * Implementation of {@link JsonMaid} which copies raw bytes of the kept entries from
+     * input to output: entries are tokenized only to read sha256 checksum, kept entries are
+     * not serialized again. Repodata bytes are processed in memory, output stream is not
+     * closed by this implementation.
+     * @since 0.4
+     */
+    final class Passthrough implements JsonMaid {
+
+        /**
+         * Repodata json bytes.
+         */
+        private final byte[] input;
+
+        /**
+         * Where to write the result.
+         */
+        private final OutputStream out;
+
+        /**
+         * Ctor.
+         * @param input Repodata json bytes
+         * @param out Where to write the result
+         */
+        @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+        public Passthrough(final byte[] input, final OutputStream out) {
+            this.input = input;
+            this.out = out;
+        }
+
+        @Override
+        public void clean(final Set<String> checksums) throws IOException {
+            final RawRepodata raw = new RawRepodata(this.input);
+            raw.write(this.out, raw.without(checksums));
+        }
+
+        @Override
+        public void clean(final EntryPredicate removed) throws IOException {
+            final RawRepodata raw = new RawRepodata(this.input);
+            raw.write(this.out, raw.without(removed));
+        }
+    }
+
+    /**
+     * Implementation of {@link JsonMaid} which removes entries found in {@link RepodataIndex}
+     * by splicing repodata bytes: removed entries are cut out together with separating commas,
+     * the rest of the repodata is copied as is without scanning. Index is expected to describe
+     * the repodata, callers check it once with {@link RepodataIndex#matches(byte[])}; if any
+     * of the found entries is not where index says it is anyway, repodata is cleaned with
+     * {@link Passthrough} full scan. Output stream is not closed by this implementation.
+     * @since 0.4
+     */
+    final class Indexed implements JsonMaid {
+
+        /**
+         * Json factory.
+         */
+        private static final JsonFactory FACTORY = new JsonFactory();
+
+        /**
+         * Repodata json bytes.
+         */
+        private final byte[] input;
+
+        /**
+         * Repodata index.
+         */
+        private final Optional<RepodataIndex> index;
+
+        /**
+         * Where to write the result.
+         */
+        private final OutputStream out;
+
+        /**
+         * Ctor.
+         * @param input Repodata json bytes
+         * @param index Repodata index matching the input, if any
+         * @param out Where to write the result
+         */
+        @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+        public Indexed(final byte[] input, final Optional<RepodataIndex> index,
+            final OutputStream out) {
+            this.input = input;
+            this.index = index;
+            this.out = out;
+        }
+
+        @Override
+        public void clean(final Set<String> checksums) throws IOException {
+            final Optional<List<RepodataIndex.Entry>> found = this.index.map(
+                idx -> idx.entries().stream().filter(
+                    entry -> checksums.contains(entry.name())
+                        || checksums.contains(entry.sha256())
+                ).collect(Collectors.toList())
+            );
+            if (found.isPresent() && this.valid(found.get())) {
+                this.splice(found.get());
+            } else {
+                new Passthrough(this.input, this.out).clean(checksums);
+            }
+        }
+
+        /**
+         * Removes entries matched by predicate. Predicate may need any of the entry fields,
+         * so the repodata is cleaned with {@link Passthrough} scan regardless of the index.
+         * @param removed Predicate of the entries to remove
+         * @throws IOException On IO error
+         */
+        @Override
+        public void clean(final EntryPredicate removed) throws IOException {
+            new Passthrough(this.input, this.out).clean(removed);
+        }
+
+        /**
+         * Writes repodata without given entries. Consecutive removed entries are cut out as
+         * one run, run is cut with the following comma or, for the last entry of the object,
+         * with the preceding one.
+         * @param removed Entries to remove ordered by position
+         * @throws IOException On IO error
+         */
+        private void splice(final List<RepodataIndex.Entry> removed) throws IOException {
+            int pos = 0;
+            int first = 0;
+            while (first < removed.size()) {
+                int last = first;
+                while (last + 1 < removed.size() && this.adjacent(
+                    (int) removed.get(last).end(), (int) removed.get(last + 1).start()
+                )) {
+                    last = last + 1;
+                }
+                int start = (int) removed.get(first).start();
+                int end = (int) removed.get(last).end();
+                final int after = this.skip(end, 1);
+                final int before = this.skip(start - 1, -1);
+                if (after < this.input.length && this.input[after] == ',') {
+                    end = this.skip(after + 1, 1);
+                } else if (before >= 0 && this.input[before] == ',') {
+                    start = before;
+                }
+                this.out.write(this.input, pos, start - pos);
+                pos = end;
+                first = last + 1;
+            }
+            this.out.write(this.input, pos, this.input.length - pos);
+            this.out.flush();
+        }
+
+        /**
+         * Checks that entries are where index says they are: each range should contain
+         * the member with indexed filename and sha256.
+         * @param entries Entries to check
+         * @return True if all entries are valid
+         * @throws IOException On IO error
+         */
+        private boolean valid(final List<RepodataIndex.Entry> entries) throws IOException {
+            boolean res = true;
+            for (final RepodataIndex.Entry entry : entries) {
+                if (!this.valid(entry)) {
+                    res = false;
+                    break;
+                }
+            }
+            return res;
+        }
+
+        /**
+         * Checks that entry range contains the member with indexed filename and sha256.
+         * @param entry Entry to check
+         * @return True if entry is valid
+         * @throws IOException On IO error
+         */
+        private boolean valid(final RepodataIndex.Entry entry) throws IOException {
+            boolean res = false;
+            if (entry.start() >= 0 && entry.end() <= this.input.length
+                && entry.start() < entry.end()) {
+                final byte[] member = new byte[(int) (entry.end() - entry.start()) + 2];
+                member[0] = '{';
+                System.arraycopy(
+                    this.input, (int) entry.start(), member, 1, member.length - 2
+                );
+                member[member.length - 1] = '}';
+                try {
+                    final List<RepodataSpans.Span> spans = new RepodataSpans(member).root();
+                    res = spans.size() == 1 && spans.get(0).name().equals(entry.name())
+                        && spans.get(0).end() == member.length - 1
+                        && new EntryField(
+                            Indexed.FACTORY.createParser(
+                                member, spans.get(0).value(),
+                                spans.get(0).end() - spans.get(0).value()
+                            ),
+                            "sha256"
+                        ).value().equals(entry.sha256());
+                } catch (final IOException err) {
+                    res = false;
+                }
+            }
+            return res;
+        }
+
+        /**
+         * Is there only one comma and whitespaces between positions?
+         * @param from Start position, inclusive
+         * @param till End position, exclusive
+         * @return True if entries at positions are adjacent members
+         */
+        private boolean adjacent(final int from, final int till) {
+            final int comma = this.skip(from, 1);
+            return comma < till && this.input[comma] == ','
+                && this.skip(comma + 1, 1) == till;
+        }
+
+        /**
+         * Skips whitespaces.
+         * @param from Start position
+         * @param step Direction, 1 or -1
+         * @return Position of the first non whitespace byte
+         */
+        private int skip(final int from, final int step) {
+            int pos = from;
+            while (pos >= 0 && pos < this.input.length
+                && Character.isWhitespace(this.input[pos])) {
+                pos = pos + step;
+            }
+            return pos;
+        }
+    }
 }
@@ -0,0 +1,85 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Json pruner removes expired packages from repodata by {@link Retention} policy. Only the
+ * fields retention needs are read from each entry, kept entries are copied to the output as
+ * raw bytes, see {@link RawRepodata}. Repodata bytes are processed in memory, output stream
+ * is not closed by this implementation.
+ * @since 0.4
+ */
+public final class JsonPruner {
+
+    /**
+     * Json factory.
+     */
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    /**
+     * Repodata json bytes.
+     */
+    private final byte[] input;
+
+    /**
+     * Where to write the result.
+     */
+    private final OutputStream out;
+
+    /**
+     * Ctor.
+     * @param input Repodata json bytes
+     * @param out Where to write the result
+     */
+    @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+    public JsonPruner(final byte[] input, final OutputStream out) {
+        this.input = input;
+        this.out = out;
+    }
+
+    /**
+     * Removes expired packages.
+     * @param policy Retention policy
+     * @return Filenames of the removed packages
+     * @throws IOException On IO error
+     */
+    public Set<String> prune(final Retention policy) throws IOException {
+        final RepodataSpans spans = new RepodataSpans(this.input);
+        final Set<String> names = Retention.Build.names();
+        final List<Retention.Build> builds = new ArrayList<>(0);
+        for (final RepodataSpans.Span field : spans.root()) {
+            if ((RepodataSpans.PACKAGES.equals(field.name())
+                || RepodataSpans.PACKAGES_CONDA.equals(field.name()))
+                && spans.isObject(field)) {
+                for (final RepodataSpans.Span entry : spans.members(field)) {
+                    builds.add(
+                        new Retention.Build(
+                            entry.name(),
+                            new EntryFields(
+                                JsonPruner.FACTORY.createParser(
+                                    this.input, entry.value(), entry.end() - entry.value()
+                                ),
+                                names
+                            ).values()
+                        )
+                    );
+                }
+            }
+        }
+        final Set<String> expired = policy.expired(builds);
+        new RawRepodata(this.input).write(
+            this.out, entry -> !expired.contains(entry.name()), Collections.emptyMap()
+        );
+        return expired;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import java.util.regex.Pattern;
+
+/**
+ * Conda dependency match specification from package `depends` list, for example
+ * `python >=3.6,<3.7.0a0` or `pyqt 5.6.0 py36h0386399_5`: package name, optional version
+ * specification and optional build string glob. Version specification supports `,` (and),
+ * `|` (or), comparison operators, `~=` compatible release, `=` and trailing `*` prefix match,
+ * see {@link CondaVersion}.
+ * @since 0.4
+ */
+final class MatchSpec {
+
+    /**
+     * Version comparison operators, longest first.
+     */
+    private static final String[] OPERATORS = {">=", "<=", "==", "!=", "~=", ">", "<", "="};
+
+    /**
+     * Any version or build.
+     */
+    private static final String ANY = "*";
+
+    /**
+     * Package name.
+     */
+    private final String pkg;
+
+    /**
+     * Version specification.
+     */
+    private final String version;
+
+    /**
+     * Build string glob.
+     */
+    private final String build;
+
+    /**
+     * Ctor.
+     * @param spec Match specification
+     */
+    MatchSpec(final String spec) {
+        String text = spec.trim();
+        final int bracket = text.indexOf('[');
+        if (bracket >= 0) {
+            text = text.substring(0, bracket).trim();
+        }
+        final String[] parts = text.split("\\s+");
+        String name = parts[0];
+        String ver = MatchSpec.ANY;
+        for (int idx = 0; idx < name.length(); idx = idx + 1) {
+            if ("<>=!~".indexOf(name.charAt(idx)) >= 0) {
+                ver = name.substring(idx);
+                name = name.substring(0, idx);
+                break;
+            }
+        }
+        if (parts.length > 1) {
+            ver = parts[1];
+        }
+        this.pkg = name;
+        this.version = ver;
+        if (parts.length > 2) {
+            this.build = parts[2];
+        } else {
+            this.build = MatchSpec.ANY;
+        }
+    }
+
+    /**
+     * Package name.
+     * @return Name
+     */
+    String name() {
+        return this.pkg;
+    }
+
+    /**
+     * Does package match the specification?
+     * @param ver Package version
+     * @param bld Package build string
+     * @return True if matches
+     */
+    boolean matches(final String ver, final String bld) {
+        return MatchSpec.glob(this.build, bld) && this.matches(ver);
+    }
+
+    /**
+     * Does version match the version specification?
+     * @param ver Version
+     * @return True if matches
+     */
+    private boolean matches(final String ver) {
+        final CondaVersion actual = new CondaVersion(ver);
+        boolean res = false;
+        for (final String alternative : this.version.split("\\|")) {
+            boolean all = true;
+            for (final String term : alternative.split(",")) {
+                all = MatchSpec.term(term.trim(), ver, actual);
+                if (!all) {
+                    break;
+                }
+            }
+            if (all) {
+                res = true;
+                break;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Does version match single version term?
+     * @param term Version term
+     * @param raw Version string
+     * @param actual Version
+     * @return True if matches
+     * @checkstyle CyclomaticComplexityCheck (50 lines)
+     */
+    @SuppressWarnings("PMD.CognitiveComplexity")
+    private static boolean term(final String term, final String raw, final CondaVersion actual) {
+        String operator = "";
+        for (final String item : MatchSpec.OPERATORS) {
+            if (term.startsWith(item)) {
+                operator = item;
+                break;
+            }
+        }
+        final String value = term.substring(operator.length()).trim();
+        final boolean prefix = value.endsWith(MatchSpec.ANY);
+        final CondaVersion expected = new CondaVersion(MatchSpec.trimmed(value));
+        final boolean res;
+        if (value.isEmpty() || MatchSpec.ANY.equals(value)) {
+            res = !"!=".equals(operator);
+        } else if (value.indexOf('*') >= 0 && value.indexOf('*') < value.length() - 1) {
+            res = MatchSpec.glob(value, raw) != "!=".equals(operator);
+        } else if (">=".equals(operator)) {
+            res = actual.compareTo(expected) >= 0;
+        } else if ("<=".equals(operator)) {
+            res = actual.compareTo(expected) <= 0;
+        } else if (">".equals(operator)) {
+            res = actual.compareTo(expected) > 0;
+        } else if ("<".equals(operator)) {
+            res = actual.compareTo(expected) < 0;
+        } else if ("!=".equals(operator)) {
+            res = !MatchSpec.equal(actual, expected, prefix);
+        } else if ("~=".equals(operator)) {
+            res = actual.compareTo(expected) >= 0
+                && actual.startsWith(new CondaVersion(MatchSpec.compatible(value)));
+        } else if ("=".equals(operator)) {
+            res = actual.startsWith(expected);
+        } else {
+            res = MatchSpec.equal(actual, expected, prefix);
+        }
+        return res;
+    }
+
+    /**
+     * Checks version equality or prefix match.
+     * @param actual Actual version
+     * @param expected Expected version
+     * @param prefix Is it prefix match?
+     * @return True if versions match
+     */
+    private static boolean equal(final CondaVersion actual, final CondaVersion expected,
+        final boolean prefix) {
+        final boolean res;
+        if (prefix) {
+            res = actual.startsWith(expected);
+        } else {
+            res = actual.compareTo(expected) == 0;
+        }
+        return res;
+    }
+
+    /**
+     * Version without trailing `*` and `.*`.
+     * @param value Version
+     * @return Trimmed version
+     */
+    private static String trimmed(final String value) {
+        String res = value;
+        while (res.endsWith(MatchSpec.ANY) || res.endsWith(".")) {
+            res = res.substring(0, res.length() - 1);
+        }
+        return res;
+    }
+
+    /**
+     * Prefix of the compatible release: version without the last component.
+     * @param value Version
+     * @return Prefix
+     */
+    private static String compatible(final String value) {
+        final String trimmed = MatchSpec.trimmed(value);
+        final int dot = trimmed.lastIndexOf('.');
+        final String res;
+        if (dot > 0) {
+            res = trimmed.substring(0, dot);
+        } else {
+            res = trimmed;
+        }
+        return res;
+    }
+
+    /**
+     * Matches text with glob, where `*` is any sequence of characters.
+     * @param glob Glob
+     * @param text Text
+     * @return True if text matches
+     */
+    private static boolean glob(final String glob, final String text) {
+        final StringBuilder regex = new StringBuilder();
+        for (final String part : glob.split("\\*", -1)) {
+            if (regex.length() > 0) {
+                regex.append(".*");
+            }
+            regex.append(Pattern.quote(part));
+        }
+        return Pattern.matches(regex.toString(), text);
+    }
+}
@@ -7,11 +7,19 @@ package com.artipie.conda.meta;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicReference;
 import javax.json.JsonObject;
 
@@ -26,7 +34,21 @@ public interface MergedJson {
      * @param items Items to add, filename <-> metadata json
      * @throws IOException On IO error
      */
-    void merge(Map<String, JsonObject> items) throws IOException;
+    default void merge(Map<String, JsonObject> items) throws IOException {
+        final List<PackageRecord> records = new ArrayList<>(items.size());
+        for (final Map.Entry<String, JsonObject> item : items.entrySet()) {
+            records.add(new PackageRecord(item.getKey(), item.getValue()));
+        }
+        this.merge(records);
+    }
+
+    /**
+     * Appends provided package records to existing repodata.json, records metadata is
+     * written as is.
+     * @param records Records to add
+     * @throws IOException On IO error
+     */
+    void merge(Collection<PackageRecord> records) throws IOException;
 
     /**
      * Implementation of {@link MergedJson} based on {@link com.fasterxml.jackson}.
@@ -76,7 +98,11 @@ public interface MergedJson {
 
         @Override
         @SuppressWarnings("PMD.AssignmentInOperand")
-        public void merge(final Map<String, JsonObject> items) throws IOException {
+        public void merge(final Collection<PackageRecord> records) throws IOException {
+            final Map<String, PackageRecord> items = new HashMap<>(records.size());
+            for (final PackageRecord rec : records) {
+                items.put(rec.filename(), rec);
+            }
             if (this.parser.isPresent()) {
                 final JsonParser prsr = this.parser.get();
                 JsonToken token;
@@ -112,7 +138,9 @@ public interface MergedJson {
         }
 
         /**
-         * Processes current json token.
+         * Processes current json token. Existing package entries are never read into memory:
+         * entries which are not replaced are copied from parser to generator as is, replaced
+         * entries are skipped.
          * @param items Packages items to append
          * @param prsr Json parser
          * @param token Current token
@@ -121,7 +149,7 @@ public interface MergedJson {
          * @throws IOException On IO error
          * @checkstyle ParameterNumberCheck (5 lines)
          */
-        private void processJsonToken(final Map<String, JsonObject> items, final JsonParser prsr,
+        private void processJsonToken(final Map<String, PackageRecord> items, final JsonParser prsr,
             final JsonToken token, final AtomicReference<Boolean> tars,
             final AtomicReference<Boolean> condas) throws IOException {
             if (token == JsonToken.FIELD_NAME && Jackson.PACKAGES.equals(prsr.getCurrentName())) {
@@ -134,14 +162,11 @@ public interface MergedJson {
             } else if (token == JsonToken.FIELD_NAME
                 && (prsr.getCurrentName().endsWith(Jackson.TAR)
                 || prsr.getCurrentName().endsWith(Jackson.CONDA))) {
-                final String name = prsr.getCurrentName();
-                prsr.nextToken();
-                prsr.setCodec(new ObjectMapper());
-                final ObjectNode nodes = prsr.<ObjectNode>readValueAsTree();
-                if (!items.containsKey(name)) {
-                    this.gnrt.writeFieldName(name);
-                    this.gnrt.setCodec(new ObjectMapper());
-                    this.gnrt.writeTree(nodes);
+                if (items.containsKey(prsr.getCurrentName())) {
+                    prsr.nextToken();
+                    prsr.skipChildren();
+                } else {
+                    this.gnrt.copyCurrentStructure(prsr);
                 }
             } else {
                 this.gnrt.copyCurrentEvent(prsr);
@@ -156,7 +181,7 @@ public interface MergedJson {
          * @param type Packages type to write
          * @throws IOException On IO error
          */
-        private void writePackagesItem(final Map<String, JsonObject> items,
+        private void writePackagesItem(final Map<String, PackageRecord> items,
             final String name, final String type) throws IOException {
             this.gnrt.writeFieldName(name);
             this.gnrt.writeStartObject();
@@ -171,7 +196,7 @@ public interface MergedJson {
          * @param type Packages type
          * @throws IOException On IO error
          */
-        private void appendNewPackages(final Map<String, JsonObject> items,
+        private void appendNewPackages(final Map<String, PackageRecord> items,
             final JsonParser prsr, final String type) throws IOException {
             this.gnrt.copyCurrentEvent(prsr);
             prsr.nextToken();
@@ -185,15 +210,217 @@ public interface MergedJson {
          * @param type Packages type
          * @throws IOException On IO error
          */
-        private void writeNewPackages(final Map<String, JsonObject> items, final String type)
+        private void writeNewPackages(final Map<String, PackageRecord> items, final String type)
+            throws IOException {
+            for (final Map.Entry<String, PackageRecord> pckg : items.entrySet()) {
+                if (pckg.getKey().endsWith(type)) {
+                    pckg.getValue().writeTo(this.gnrt);
+                }
+            }
+        }
+    }
+
+    /**
+     * Implementation of {@link MergedJson} which keeps `packages` and `packages.conda` sorted
+     * by filename, as `conda index` does. New items are sorted and merged with the entries
+     * of the existing repodata.json in a single pass: before each existing entry all the new
+     * items with smaller filenames are written, existing entry with the filename of any new
+     * item is skipped, as the item is written in its place or before it, other entries are
+     * copied as is. Existing repodata written in upload order, as {@link Jackson} does, is
+     * merged without duplicates. If existing repodata is sorted, the result is sorted too,
+     * and the same input always produces the same output.
+     * <p>
+     * Existing entries can be removed in the same pass: entry is removed if its filename or
+     * sha256 checksum is in the set of removed items. Entries are read to check the checksum
+     * only when the set is not empty.
+     * @since 0.4
+     */
+    final class Sorted implements MergedJson {
+
+        /**
+         * Package checksum field name.
+         */
+        private static final String SHA256 = "sha256";
+
+        /**
+         * Json object name `packages`.
+         */
+        private static final String PACKAGES = "packages";
+
+        /**
+         * Json object name `packages.conda`.
+         */
+        private static final String PACKAGES_CONDA = "packages.conda";
+
+        /**
+         * Conda packages extension.
+         */
+        private static final String CONDA = ".conda";
+
+        /**
+         * Json generator.
+         */
+        private final JsonGenerator gnrt;
+
+        /**
+         * Json parser.
+         */
+        private final Optional<JsonParser> parser;
+
+        /**
+         * Filenames or sha256 checksums of the packages to remove.
+         */
+        private final Set<String> removed;
+
+        /**
+         * Ctor.
+         * @param gnrt Json generator
+         * @param parser Json parser
+         */
+        public Sorted(final JsonGenerator gnrt, final Optional<JsonParser> parser) {
+            this(gnrt, parser, Collections.emptySet());
+        }
+
+        /**
+         * Ctor.
+         * @param gnrt Json generator
+         * @param parser Json parser
+         * @param removed Filenames or sha256 checksums of the packages to remove
+         */
+        public Sorted(final JsonGenerator gnrt, final Optional<JsonParser> parser,
+            final Set<String> removed) {
+            this.gnrt = gnrt;
+            this.parser = parser;
+            this.removed = removed;
+        }
+
+        @Override
+        public void merge(final Collection<PackageRecord> records) throws IOException {
+            final SortedMap<String, PackageRecord> tars = new TreeMap<>();
+            final SortedMap<String, PackageRecord> condas = new TreeMap<>();
+            for (final PackageRecord rec : records) {
+                if (rec.filename().endsWith(Sorted.CONDA)) {
+                    condas.put(rec.filename(), rec);
+                } else {
+                    tars.put(rec.filename(), rec);
+                }
+            }
+            boolean ptars = false;
+            boolean pcondas = false;
+            this.gnrt.writeStartObject();
+            if (this.parser.isPresent() && this.parser.get().nextToken() != null) {
+                final JsonParser prsr = this.parser.get();
+                while (prsr.nextToken() == JsonToken.FIELD_NAME) {
+                    final String name = prsr.getCurrentName();
+                    if (Sorted.PACKAGES.equals(name)) {
+                        prsr.nextToken();
+                        this.mergePackages(name, tars, Optional.of(prsr));
+                        ptars = true;
+                    } else if (Sorted.PACKAGES_CONDA.equals(name)) {
+                        prsr.nextToken();
+                        this.mergePackages(name, condas, Optional.of(prsr));
+                        pcondas = true;
+                    } else {
+                        this.gnrt.copyCurrentStructure(prsr);
+                    }
+                }
+            }
+            if (!ptars) {
+                this.mergePackages(Sorted.PACKAGES, tars, Optional.empty());
+            }
+            if (!pcondas) {
+                this.mergePackages(Sorted.PACKAGES_CONDA, condas, Optional.empty());
+            }
+            this.gnrt.writeEndObject();
+            this.gnrt.close();
+        }
+
+        /**
+         * Writes `packages` or `packages.conda` json object merging sorted new items with
+         * the existing entries from parser (if present). Parser is expected to point to the
+         * start of the existing packages object.
+         * @param name Json object name: `packages` or `packages.conda`
+         * @param items Sorted new items
+         * @param prsr Parser with existing entries
+         * @throws IOException On IO error
+         */
+        private void mergePackages(final String name,
+            final SortedMap<String, PackageRecord> items, final Optional<JsonParser> prsr)
             throws IOException {
-            for (final String pckg : items.keySet()) {
-                if (pckg.endsWith(type)) {
-                    this.gnrt.writeFieldName(pckg);
-                    this.gnrt.setCodec(new ObjectMapper());
-                    this.gnrt.writeTree(new ObjectMapper().readTree(items.get(pckg).toString()));
+            this.gnrt.writeFieldName(name);
+            this.gnrt.writeStartObject();
+            final Iterator<Map.Entry<String, PackageRecord>> iter = items.entrySet().iterator();
+            Map.Entry<String, PackageRecord> next = Sorted.next(iter);
+            if (prsr.isPresent()) {
+                final JsonParser src = prsr.get();
+                while (src.nextToken() == JsonToken.FIELD_NAME) {
+                    final String existing = src.getCurrentName();
+                    while (next != null && next.getKey().compareTo(existing) < 0) {
+                        this.writeItem(next);
+                        next = Sorted.next(iter);
+                    }
+                    if (items.containsKey(existing)) {
+                        if (next != null && next.getKey().equals(existing)) {
+                            this.writeItem(next);
+                            next = Sorted.next(iter);
+                        }
+                        src.nextToken();
+                        src.skipChildren();
+                    } else if (this.removed.contains(existing)) {
+                        src.nextToken();
+                        src.skipChildren();
+                    } else if (this.removed.isEmpty()) {
+                        this.gnrt.copyCurrentStructure(src);
+                    } else {
+                        this.copyUnlessRemoved(src);
+                    }
                 }
             }
+            while (next != null) {
+                this.writeItem(next);
+                next = Sorted.next(iter);
+            }
+            this.gnrt.writeEndObject();
+        }
+
+        /**
+         * Writes new package item.
+         * @param item Item to write
+         * @throws IOException On IO error
+         */
+        private void writeItem(final Map.Entry<String, PackageRecord> item) throws IOException {
+            item.getValue().writeTo(this.gnrt);
+        }
+
+        /**
+         * Copies current entry from parser unless its sha256 checksum is in the set of
+         * removed items. Parser is expected to point to the entry field name.
+         * @param src Parser
+         * @throws IOException On IO error
+         */
+        private void copyUnlessRemoved(final JsonParser src) throws IOException {
+            final String name = src.getCurrentName();
+            src.nextToken();
+            final TokenBuffer buf = new TokenBuffer(src);
+            buf.copyCurrentStructure(src);
+            if (!this.removed.contains(new EntryField(buf, Sorted.SHA256).value())) {
+                this.gnrt.writeFieldName(name);
+                buf.serialize(this.gnrt);
+            }
+        }
+
+        /**
+         * Next item from iterator.
+         * @param iter Iterator
+         * @return Next item or null if there are no more items
+         */
+        private static Map.Entry<String, PackageRecord> next(
+            final Iterator<Map.Entry<String, PackageRecord>> iter) {
+            Map.Entry<String, PackageRecord> res = null;
+            if (iter.hasNext()) {
+                res = iter.next();
+            }
+            return res;
         }
     }
 }
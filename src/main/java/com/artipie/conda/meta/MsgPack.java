@@ -0,0 +1,346 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * MessagePack encoding of json trees, as sharded repodata (CEP-16) is msgpack encoded, see
+ * {@link RepodataShards}. Binary nodes are encoded as msgpack `bin`, other nodes as their
+ * json counterparts. Only the subset of the format needed for repodata is supported: extension
+ * types are rejected by the reader.
+ * @since 0.4
+ * @checkstyle MagicNumberCheck (500 lines)
+ * @checkstyle CyclomaticComplexityCheck (500 lines)
+ */
+final class MsgPack {
+
+    /**
+     * Json node factory.
+     */
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    /**
+     * Output.
+     */
+    private final DataOutputStream out;
+
+    /**
+     * Ctor.
+     * @param out Where to write encoded values
+     */
+    MsgPack(final OutputStream out) {
+        this.out = new DataOutputStream(out);
+    }
+
+    /**
+     * Writes json tree.
+     * @param node Json node
+     * @throws IOException On IO error
+     */
+    void write(final JsonNode node) throws IOException {
+        if (node.isObject()) {
+            this.header(node.size(), 0x80, 0xde);
+            final Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                final Map.Entry<String, JsonNode> field = fields.next();
+                this.string(field.getKey());
+                this.write(field.getValue());
+            }
+        } else if (node.isArray()) {
+            this.header(node.size(), 0x90, 0xdc);
+            for (final JsonNode item : node) {
+                this.write(item);
+            }
+        } else if (node.isBinary()) {
+            this.binary(node.binaryValue());
+        } else if (node.isTextual()) {
+            this.string(node.textValue());
+        } else if (node.isBoolean()) {
+            this.out.writeByte(node.booleanValue() ? 0xc3 : 0xc2);
+        } else if (node.isIntegralNumber() && node.canConvertToLong()) {
+            this.integer(node.longValue());
+        } else if (node.isNumber()) {
+            this.out.writeByte(0xcb);
+            this.out.writeDouble(node.doubleValue());
+        } else {
+            this.out.writeByte(0xc0);
+        }
+        this.out.flush();
+    }
+
+    /**
+     * Writes string.
+     * @param value String
+     * @throws IOException On IO error
+     */
+    private void string(final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < 32) {
+            this.out.writeByte(0xa0 | bytes.length);
+        } else if (bytes.length < 0x100) {
+            this.out.writeByte(0xd9);
+            this.out.writeByte(bytes.length);
+        } else if (bytes.length < 0x10000) {
+            this.out.writeByte(0xda);
+            this.out.writeShort(bytes.length);
+        } else {
+            this.out.writeByte(0xdb);
+            this.out.writeInt(bytes.length);
+        }
+        this.out.write(bytes);
+    }
+
+    /**
+     * Writes binary.
+     * @param bytes Bytes
+     * @throws IOException On IO error
+     */
+    private void binary(final byte[] bytes) throws IOException {
+        if (bytes.length < 0x100) {
+            this.out.writeByte(0xc4);
+            this.out.writeByte(bytes.length);
+        } else if (bytes.length < 0x10000) {
+            this.out.writeByte(0xc5);
+            this.out.writeShort(bytes.length);
+        } else {
+            this.out.writeByte(0xc6);
+            this.out.writeInt(bytes.length);
+        }
+        this.out.write(bytes);
+    }
+
+    /**
+     * Writes integer in the shortest form.
+     * @param value Integer
+     * @throws IOException On IO error
+     */
+    private void integer(final long value) throws IOException {
+        if (value >= 0 && value < 0x80 || value < 0 && value >= -32) {
+            this.out.writeByte((int) value);
+        } else if (value >= 0 && value < 0x100) {
+            this.out.writeByte(0xcc);
+            this.out.writeByte((int) value);
+        } else if (value >= 0 && value < 0x10000) {
+            this.out.writeByte(0xcd);
+            this.out.writeShort((int) value);
+        } else if (value >= 0 && value < 0x100000000L) {
+            this.out.writeByte(0xce);
+            this.out.writeInt((int) value);
+        } else if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            this.out.writeByte(0xd2);
+            this.out.writeInt((int) value);
+        } else {
+            this.out.writeByte(0xd3);
+            this.out.writeLong(value);
+        }
+    }
+
+    /**
+     * Writes map or array header.
+     * @param size Number of items
+     * @param fix Fix format marker
+     * @param wide 16 bit format marker, 32 bit marker follows it
+     * @throws IOException On IO error
+     */
+    private void header(final int size, final int fix, final int wide) throws IOException {
+        if (size < 16) {
+            this.out.writeByte(fix | size);
+        } else if (size < 0x10000) {
+            this.out.writeByte(wide);
+            this.out.writeShort(size);
+        } else {
+            this.out.writeByte(wide + 1);
+            this.out.writeInt(size);
+        }
+    }
+
+    /**
+     * MessagePack reader, decodes values into json trees.
+     * @since 0.4
+     */
+    static final class Reader {
+
+        /**
+         * Input.
+         */
+        private final DataInputStream input;
+
+        /**
+         * Ctor.
+         * @param bytes Encoded bytes
+         */
+        Reader(final byte[] bytes) {
+            this.input = new DataInputStream(new ByteArrayInputStream(bytes));
+        }
+
+        /**
+         * Reads next value.
+         * @return Json node
+         * @throws IOException If value is malformed or not supported
+         * @checkstyle ExecutableStatementCountCheck (100 lines)
+         * @checkstyle JavaNCSSCheck (100 lines)
+         */
+        @SuppressWarnings("PMD.NcssCount")
+        JsonNode read() throws IOException {
+            final int head = this.input.readUnsignedByte();
+            final JsonNode res;
+            if (head < 0x80 || head >= 0xe0) {
+                res = MsgPack.NODES.numberNode((byte) head);
+            } else if (head < 0x90) {
+                res = this.map(head & 0x0f);
+            } else if (head < 0xa0) {
+                res = this.array(head & 0x0f);
+            } else if (head < 0xc0) {
+                res = this.string(head & 0x1f);
+            } else {
+                switch (head) {
+                    case 0xc0:
+                        res = MsgPack.NODES.nullNode();
+                        break;
+                    case 0xc2:
+                        res = MsgPack.NODES.booleanNode(false);
+                        break;
+                    case 0xc3:
+                        res = MsgPack.NODES.booleanNode(true);
+                        break;
+                    case 0xc4:
+                        res = MsgPack.NODES.binaryNode(this.bytes(this.input.readUnsignedByte()));
+                        break;
+                    case 0xc5:
+                        res = MsgPack.NODES.binaryNode(
+                            this.bytes(this.input.readUnsignedShort())
+                        );
+                        break;
+                    case 0xc6:
+                        res = MsgPack.NODES.binaryNode(this.bytes(this.input.readInt()));
+                        break;
+                    case 0xca:
+                        res = MsgPack.NODES.numberNode(this.input.readFloat());
+                        break;
+                    case 0xcb:
+                        res = MsgPack.NODES.numberNode(this.input.readDouble());
+                        break;
+                    case 0xcc:
+                        res = MsgPack.NODES.numberNode(this.input.readUnsignedByte());
+                        break;
+                    case 0xcd:
+                        res = MsgPack.NODES.numberNode(this.input.readUnsignedShort());
+                        break;
+                    case 0xce:
+                        res = MsgPack.NODES.numberNode(this.input.readInt() & 0xffffffffL);
+                        break;
+                    case 0xcf:
+                    case 0xd3:
+                        res = MsgPack.NODES.numberNode(this.input.readLong());
+                        break;
+                    case 0xd0:
+                        res = MsgPack.NODES.numberNode(this.input.readByte());
+                        break;
+                    case 0xd1:
+                        res = MsgPack.NODES.numberNode(this.input.readShort());
+                        break;
+                    case 0xd2:
+                        res = MsgPack.NODES.numberNode(this.input.readInt());
+                        break;
+                    case 0xd9:
+                        res = this.string(this.input.readUnsignedByte());
+                        break;
+                    case 0xda:
+                        res = this.string(this.input.readUnsignedShort());
+                        break;
+                    case 0xdb:
+                        res = this.string(this.input.readInt());
+                        break;
+                    case 0xdc:
+                        res = this.array(this.input.readUnsignedShort());
+                        break;
+                    case 0xdd:
+                        res = this.array(this.input.readInt());
+                        break;
+                    case 0xde:
+                        res = this.map(this.input.readUnsignedShort());
+                        break;
+                    case 0xdf:
+                        res = this.map(this.input.readInt());
+                        break;
+                    default:
+                        throw new IOException(
+                            String.format("Unsupported msgpack format 0x%02x", head)
+                        );
+                }
+            }
+            return res;
+        }
+
+        /**
+         * Reads map with string keys.
+         * @param size Number of entries
+         * @return Object node
+         * @throws IOException On IO error
+         */
+        private JsonNode map(final int size) throws IOException {
+            final ObjectNode res = MsgPack.NODES.objectNode();
+            for (int idx = 0; idx < size; idx = idx + 1) {
+                final JsonNode key = this.read();
+                if (!key.isTextual()) {
+                    throw new IOException("Msgpack map key is not a string");
+                }
+                res.set(key.textValue(), this.read());
+            }
+            return res;
+        }
+
+        /**
+         * Reads array.
+         * @param size Number of items
+         * @return Array node
+         * @throws IOException On IO error
+         */
+        private JsonNode array(final int size) throws IOException {
+            final ArrayNode res = MsgPack.NODES.arrayNode();
+            for (int idx = 0; idx < size; idx = idx + 1) {
+                res.add(this.read());
+            }
+            return res;
+        }
+
+        /**
+         * Reads string.
+         * @param size Length in bytes
+         * @return Text node
+         * @throws IOException On IO error
+         */
+        private JsonNode string(final int size) throws IOException {
+            return MsgPack.NODES.textNode(new String(this.bytes(size), StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Reads bytes.
+         * @param size Number of bytes
+         * @return Bytes
+         * @throws IOException On IO error
+         */
+        private byte[] bytes(final int size) throws IOException {
+            if (size < 0) {
+                throw new IOException("Msgpack value is too long");
+            }
+            final byte[] res = new byte[size];
+            this.input.readFully(res);
+            return res;
+        }
+    }
+}
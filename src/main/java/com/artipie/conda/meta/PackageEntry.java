@@ -0,0 +1,139 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Package entry of repodata.json: package filename and metadata fields.
+ * @since 0.4
+ */
+public interface PackageEntry {
+
+    /**
+     * Package filename.
+     * @return Filename
+     */
+    String filename();
+
+    /**
+     * Metadata field value.
+     * @param name Field name
+     * @return Field value as text, empty string if entry does not have the field
+     * @throws IOException On IO error
+     */
+    String field(String name) throws IOException;
+
+    /**
+     * Package entry which decodes metadata fields lazily: entry is read only until requested
+     * field is found, each field is decoded once.
+     * @since 0.4
+     */
+    final class Lazy implements PackageEntry {
+
+        /**
+         * Package filename.
+         */
+        private final String name;
+
+        /**
+         * Source of the entry parsers.
+         */
+        private final Source source;
+
+        /**
+         * Decoded fields.
+         */
+        private final Map<String, String> cache;
+
+        /**
+         * Ctor.
+         * @param name Package filename
+         * @param source Source of the entry parsers
+         */
+        public Lazy(final String name, final Source source) {
+            this.name = name;
+            this.source = source;
+            this.cache = new HashMap<>(2);
+        }
+
+        @Override
+        public String filename() {
+            return this.name;
+        }
+
+        @Override
+        public String field(final String field) throws IOException {
+            String res = this.cache.get(field);
+            if (res == null) {
+                res = new EntryField(this.source.parser(), field).value();
+                this.cache.put(field, res);
+            }
+            return res;
+        }
+    }
+
+    /**
+     * Package entry backed by already read json tree.
+     * @since 0.4
+     */
+    final class Tree implements PackageEntry {
+
+        /**
+         * Package filename.
+         */
+        private final String name;
+
+        /**
+         * Package metadata json.
+         */
+        private final JsonNode json;
+
+        /**
+         * Ctor.
+         * @param name Package filename
+         * @param json Package metadata json
+         */
+        public Tree(final String name, final JsonNode json) {
+            this.name = name;
+            this.json = json;
+        }
+
+        @Override
+        public String filename() {
+            return this.name;
+        }
+
+        @Override
+        public String field(final String field) {
+            final String res;
+            if (this.json.has(field)) {
+                res = this.json.get(field).asText();
+            } else {
+                res = "";
+            }
+            return res;
+        }
+    }
+
+    /**
+     * Source of the package entry parsers.
+     * @since 0.4
+     */
+    @FunctionalInterface
+    interface Source {
+
+        /**
+         * New parser of the entry, pointing before the start of the entry object.
+         * @return Json parser
+         * @throws IOException On IO error
+         */
+        JsonParser parser() throws IOException;
+    }
+}
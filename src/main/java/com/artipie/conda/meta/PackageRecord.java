@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import javax.json.JsonObject;
+
+/**
+ * Package record of repodata.json: package filename and already encoded json metadata of
+ * the package. Record is written to the repodata as is, without parsing and serializing
+ * the metadata again. Metadata is kept as a string, the form {@link JsonGenerator} writes raw
+ * values from, so the metadata is decoded once and not on every write.
+ * @since 0.4
+ */
+public final class PackageRecord {
+
+    /**
+     * Package filename.
+     */
+    private final String name;
+
+    /**
+     * Encoded json metadata of the package.
+     */
+    private final String json;
+
+    /**
+     * Ctor.
+     * @param name Package filename
+     * @param json Package metadata json
+     */
+    public PackageRecord(final String name, final JsonObject json) {
+        this(name, json.toString());
+    }
+
+    /**
+     * Ctor.
+     * @param name Package filename
+     * @param json Encoded json metadata of the package
+     */
+    public PackageRecord(final String name, final byte[] json) {
+        this(name, new String(json, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Primary ctor.
+     * @param name Package filename
+     * @param json Encoded json metadata of the package
+     */
+    private PackageRecord(final String name, final String json) {
+        this.name = name;
+        this.json = json;
+    }
+
+    /**
+     * Package filename.
+     * @return Filename
+     */
+    public String filename() {
+        return this.name;
+    }
+
+    /**
+     * Parser of the package metadata json.
+     * @param factory Json factory
+     * @return Json parser
+     * @throws IOException On IO error
+     */
+    JsonParser parser(final JsonFactory factory) throws IOException {
+        return factory.createParser(this.json);
+    }
+
+    /**
+     * Writes the record as json object field: filename as field name and package metadata
+     * as raw json value.
+     * @param gnrt Json generator to write to
+     * @throws IOException On IO error
+     */
+    public void writeTo(final JsonGenerator gnrt) throws IOException {
+        gnrt.writeFieldName(this.name);
+        gnrt.writeRawValue(this.json);
+    }
+}
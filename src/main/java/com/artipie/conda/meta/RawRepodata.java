@@ -0,0 +1,164 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Repodata.json rewritten by copying raw bytes. Byte span of each member is found by
+ * {@link RepodataSpans}, bytes of the kept members are copied to the output as is, only
+ * the entries filter decides to inspect are tokenized.
+ * @since 0.4
+ */
+final class RawRepodata {
+
+    /**
+     * Json factory.
+     */
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    /**
+     * Repodata json bytes.
+     */
+    private final byte[] json;
+
+    /**
+     * Ctor.
+     * @param json Repodata json bytes
+     */
+    @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+    RawRepodata(final byte[] json) {
+        this.json = json;
+    }
+
+    /**
+     * Writes repodata with filtered entries to output.
+     * @param out Where to write the result
+     * @param filter Which entries to keep
+     * @throws IOException On IO error
+     */
+    void write(final OutputStream out, final EntryFilter filter) throws IOException {
+        final RepodataSpans spans = new RepodataSpans(this.json);
+        boolean empty = true;
+        out.write('{');
+        for (final RepodataSpans.Span field : spans.root()) {
+            empty = RawRepodata.separate(out, empty);
+            if (RawRepodata.packages(field.name()) && spans.isObject(field)) {
+                out.write(this.json, field.start(), field.value() - field.start());
+                this.writePackages(out, spans.members(field), filter);
+            } else {
+                out.write(this.json, field.start(), field.end() - field.start());
+            }
+        }
+        out.write('}');
+        out.flush();
+    }
+
+    /**
+     * Writes packages object with filtered entries.
+     * @param out Output
+     * @param entries Existing entries
+     * @param filter Which entries to keep
+     * @throws IOException On IO error
+     */
+    private void writePackages(final OutputStream out, final List<RepodataSpans.Span> entries,
+        final EntryFilter filter) throws IOException {
+        out.write('{');
+        boolean empty = true;
+        for (final RepodataSpans.Span entry : entries) {
+            if (filter.keep(entry)) {
+                empty = RawRepodata.separate(out, empty);
+                out.write(this.json, entry.start(), entry.end() - entry.start());
+            }
+        }
+        out.write('}');
+    }
+
+    /**
+     * Filter to remove entries by filenames or sha256 checksums. Entry is tokenized only if
+     * its filename is not in the set, and only until sha256 field is found.
+     * @param removed Filenames or sha256 checksums of the packages to remove
+     * @return Entries filter
+     */
+    EntryFilter without(final Set<String> removed) {
+        final EntryFilter res;
+        if (removed.isEmpty()) {
+            res = entry -> true;
+        } else {
+            res = entry -> !removed.contains(entry.name())
+                && !removed.contains(
+                    new EntryField(
+                        RawRepodata.FACTORY.createParser(
+                            this.json, entry.value(), entry.end() - entry.value()
+                        ),
+                        "sha256"
+                    ).value()
+                );
+        }
+        return res;
+    }
+
+    /**
+     * Filter to remove entries matched by predicate. Entry fields are decoded lazily, only
+     * when predicate asks for them.
+     * @param removed Predicate of the entries to remove
+     * @return Entries filter
+     */
+    EntryFilter without(final EntryPredicate removed) {
+        return entry -> !removed.test(
+            new PackageEntry.Lazy(
+                entry.name(),
+                () -> RawRepodata.FACTORY.createParser(
+                    this.json, entry.value(), entry.end() - entry.value()
+                )
+            )
+        );
+    }
+
+    /**
+     * Writes comma if there were members written before.
+     * @param out Output
+     * @param empty Is object empty so far?
+     * @return False as object is not empty after the next member
+     * @throws IOException On IO error
+     */
+    private static boolean separate(final OutputStream out, final boolean empty)
+        throws IOException {
+        if (!empty) {
+            out.write(',');
+        }
+        return false;
+    }
+
+    /**
+     * Is it packages object name?
+     * @param name Member name
+     * @return True if it is `packages` or `packages.conda`
+     */
+    private static boolean packages(final String name) {
+        return RepodataSpans.PACKAGES.equals(name)
+            || RepodataSpans.PACKAGES_CONDA.equals(name);
+    }
+
+    /**
+     * Decides whether to keep existing package entry.
+     * @since 0.4
+     */
+    @FunctionalInterface
+    interface EntryFilter {
+
+        /**
+         * Should the entry be kept?
+         * @param entry Entry span
+         * @return True to keep the entry
+         * @throws IOException On IO error
+         */
+        boolean keep(RepodataSpans.Span entry) throws IOException;
+    }
+}
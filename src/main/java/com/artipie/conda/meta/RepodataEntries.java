@@ -0,0 +1,350 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import org.apache.commons.io.output.NullOutputStream;
+
+/**
+ * Package entries of repodata.json located by the byte offsets index, see
+ * {@link RepodataIndex}. Repodata written through {@link IndexingStream} is indexed in the
+ * same pass, so current repodata, shards and channel summary are built from the written
+ * entries and their offsets without scanning the json again, see {@link CurrentRepodata},
+ * {@link RepodataShards} and {@link ChannelSummary}. Build fields and dependencies of each
+ * entry are decoded once, on the first call of {@link #entries()}, and shared by all of them.
+ * Repodata is read from a byte buffer, so a memory-mapped repodata file is not copied to heap:
+ * only the bytes of each entry are copied when it is decoded.
+ * Entries with `.conda` filenames are in `packages.conda` object, other entries in
+ * `packages`, as {@link MergedJson.Sorted} keeps them.
+ * @since 0.4
+ */
+public final class RepodataEntries {
+
+    /**
+     * Json factory.
+     */
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    /**
+     * Package depends field name.
+     */
+    private static final String DEPENDS = "depends";
+
+    /**
+     * Buffer size to copy repodata bytes to the output.
+     */
+    private static final int BUFFER = 8192;
+
+    /**
+     * Repodata json bytes, from position zero to the limit.
+     */
+    private final ByteBuffer json;
+
+    /**
+     * Repodata index, null until the repodata is indexed.
+     */
+    private RepodataIndex offsets;
+
+    /**
+     * Decoded entries, null until decoded.
+     */
+    private List<Entry> decoded;
+
+    /**
+     * Ctor, repodata is indexed on first use.
+     * @param json Repodata json bytes
+     */
+    public RepodataEntries(final byte[] json) {
+        this(ByteBuffer.wrap(json), Optional.empty());
+    }
+
+    /**
+     * Ctor.
+     * @param json Repodata json bytes
+     * @param index Index of the repodata, built while the repodata was written
+     */
+    public RepodataEntries(final byte[] json, final RepodataIndex index) {
+        this(ByteBuffer.wrap(json), index);
+    }
+
+    /**
+     * Ctor.
+     * @param json Repodata json bytes, for example memory-mapped repodata file
+     * @param index Index of the repodata, built while the repodata was written
+     */
+    public RepodataEntries(final ByteBuffer json, final RepodataIndex index) {
+        this(json, Optional.of(index));
+    }
+
+    /**
+     * Ctor.
+     * @param json Repodata json bytes
+     * @param index Index of the repodata, if known
+     */
+    private RepodataEntries(final ByteBuffer json, final Optional<RepodataIndex> index) {
+        this.json = json.duplicate();
+        this.json.rewind();
+        this.offsets = index.orElse(null);
+    }
+
+    /**
+     * Package entries ordered by position.
+     * @return Unmodifiable list of entries
+     * @throws IOException If repodata is malformed
+     */
+    synchronized List<Entry> entries() throws IOException {
+        if (this.decoded == null) {
+            final List<RepodataIndex.Entry> indexed = this.index().entries();
+            final List<Entry> res = new ArrayList<>(indexed.size());
+            for (final RepodataIndex.Entry entry : indexed) {
+                res.add(this.decode(entry));
+            }
+            this.decoded = Collections.unmodifiableList(res);
+        }
+        return this.decoded;
+    }
+
+    /**
+     * Parser of the entry value, pointing before the start of the entry object.
+     * @param entry Entry
+     * @return Parser
+     * @throws IOException On IO error
+     */
+    JsonParser parser(final Entry entry) throws IOException {
+        return RepodataEntries.FACTORY.createParser(this.bytes(entry.value, entry.end));
+    }
+
+    /**
+     * Writes repodata with the accepted entries only: bytes of the root members and of the
+     * accepted entries are copied to the output as is. Output stream is not closed.
+     * @param out Where to write
+     * @param filenames Filenames of the entries to keep
+     * @throws IOException On IO error
+     */
+    void write(final OutputStream out, final Predicate<String> filenames) throws IOException {
+        final byte[] buf = new byte[RepodataEntries.BUFFER];
+        int pos = 0;
+        boolean first = true;
+        for (final RepodataIndex.Entry entry : this.index().entries()) {
+            final int start = (int) entry.start();
+            if (!this.separator(pos, start)) {
+                this.copy(out, pos, start, buf);
+                first = true;
+            }
+            if (filenames.test(entry.name())) {
+                if (!first) {
+                    out.write(',');
+                }
+                this.copy(out, start, (int) entry.end(), buf);
+                first = false;
+            }
+            pos = (int) entry.end();
+        }
+        this.copy(out, pos, this.json.limit(), buf);
+    }
+
+    /**
+     * Repodata index, repodata is indexed on the first call if the index is not known.
+     * @return Index
+     * @throws IOException On IO error
+     */
+    private synchronized RepodataIndex index() throws IOException {
+        if (this.offsets == null) {
+            final IndexingStream out = new IndexingStream(NullOutputStream.NULL_OUTPUT_STREAM);
+            this.copy(out, 0, this.json.limit(), new byte[RepodataEntries.BUFFER]);
+            this.offsets = out.index();
+        }
+        return this.offsets;
+    }
+
+    /**
+     * Copies the range of the repodata bytes.
+     * @param from Range start
+     * @param until Range end
+     * @return Bytes
+     */
+    private byte[] bytes(final int from, final int until) {
+        final byte[] res = new byte[until - from];
+        final ByteBuffer src = this.json.duplicate();
+        src.position(from);
+        src.get(res);
+        return res;
+    }
+
+    /**
+     * Writes the range of the repodata bytes to the output through the buffer.
+     * @param out Output
+     * @param from Range start
+     * @param until Range end
+     * @param buf Buffer
+     * @throws IOException On IO error
+     */
+    private void copy(final OutputStream out, final int from, final int until,
+        final byte[] buf) throws IOException {
+        final ByteBuffer src = this.json.duplicate();
+        src.position(from);
+        src.limit(until);
+        while (src.hasRemaining()) {
+            final int len = Math.min(buf.length, src.remaining());
+            src.get(buf, 0, len);
+            out.write(buf, 0, len);
+        }
+    }
+
+    /**
+     * Is the range between two entries of the same object: commas and whitespaces only?
+     * @param from Range start
+     * @param until Range end
+     * @return True if range separates the entries of the same object
+     */
+    private boolean separator(final int from, final int until) {
+        boolean res = from > 0;
+        for (int pos = from; res && pos < until; pos = pos + 1) {
+            final byte bte = this.json.get(pos);
+            res = bte == ',' || bte == ' ' || bte == '\n' || bte == '\r' || bte == '\t';
+        }
+        return res;
+    }
+
+    /**
+     * Decodes build fields and dependencies of the indexed entry, other fields are skipped
+     * without decoding.
+     * @param indexed Indexed entry
+     * @return Entry
+     * @throws IOException If entry is malformed
+     */
+    private Entry decode(final RepodataIndex.Entry indexed) throws IOException {
+        final int end = (int) indexed.end();
+        int value = (int) indexed.start() + 1;
+        while (this.json.get(value) != '"') {
+            if (this.json.get(value) == '\\') {
+                value = value + 1;
+            }
+            value = value + 1;
+        }
+        while (this.json.get(value) != '{') {
+            value = value + 1;
+        }
+        final Set<String> names = Retention.Build.names();
+        final Map<String, String> fields = new LinkedHashMap<>(names.size());
+        final List<String> depends = new ArrayList<>(0);
+        try (JsonParser prs = RepodataEntries.FACTORY.createParser(this.bytes(value, end))) {
+            prs.nextToken();
+            while (prs.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = prs.getCurrentName();
+                prs.nextToken();
+                if (names.contains(name) && prs.currentToken().isScalarValue()) {
+                    fields.put(name, prs.getText());
+                } else if (RepodataEntries.DEPENDS.equals(name)
+                    && prs.currentToken() == JsonToken.START_ARRAY) {
+                    while (prs.nextToken() != JsonToken.END_ARRAY) {
+                        if (prs.currentToken() == JsonToken.VALUE_STRING) {
+                            depends.add(prs.getText());
+                        } else {
+                            prs.skipChildren();
+                        }
+                    }
+                } else {
+                    prs.skipChildren();
+                }
+            }
+        }
+        return new Entry(new Retention.Build(indexed.name(), fields), depends, value, end);
+    }
+
+    /**
+     * Decoded package entry.
+     * @since 0.4
+     */
+    static final class Entry {
+
+        /**
+         * Package build.
+         */
+        private final Retention.Build build;
+
+        /**
+         * Package dependencies match specifications.
+         */
+        private final List<String> depends;
+
+        /**
+         * Entry value start position.
+         */
+        private final int value;
+
+        /**
+         * Position after the entry value closing brace.
+         */
+        private final int end;
+
+        /**
+         * Ctor.
+         * @param build Package build
+         * @param depends Package dependencies match specifications
+         * @param value Entry value start position
+         * @param end Position after the entry value closing brace
+         * @checkstyle ParameterNumberCheck (5 lines)
+         */
+        Entry(final Retention.Build build, final List<String> depends, final int value,
+            final int end) {
+            this.build = build;
+            this.depends = depends;
+            this.value = value;
+            this.end = end;
+        }
+
+        /**
+         * Package filename.
+         * @return Filename
+         */
+        String filename() {
+            return this.build.filename();
+        }
+
+        /**
+         * Package build.
+         * @return Build
+         */
+        Retention.Build build() {
+            return this.build;
+        }
+
+        /**
+         * Package dependencies match specifications.
+         * @return Unmodifiable list of dependencies
+         */
+        List<String> depends() {
+            return Collections.unmodifiableList(this.depends);
+        }
+
+        /**
+         * Name of the packages object the entry is in.
+         * @return Object name
+         */
+        String packages() {
+            final String res;
+            if (this.build.filename().endsWith(".conda")) {
+                res = RepodataSpans.PACKAGES_CONDA;
+            } else {
+                res = RepodataSpans.PACKAGES;
+            }
+            return res;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * Byte offsets index of repodata.json: filename, sha256 checksum and byte range of each
+ * package entry from `packages` and `packages.conda` objects. Index is kept next to the
+ * repodata as a sidecar file, it is written by {@link IndexingStream} together with the
+ * repodata and allows to find and splice the entries without scanning the whole file.
+ * @since 0.4
+ */
+public final class RepodataIndex {
+
+    /**
+     * Index file format marker.
+     */
+    private static final int MAGIC = 0x43494458;
+
+    /**
+     * Index file format version.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Size of the indexed repodata in bytes.
+     */
+    private final long size;
+
+    /**
+     * CRC32 checksum of the indexed repodata.
+     */
+    private final long crc;
+
+    /**
+     * Entries ordered by position.
+     */
+    private final List<Entry> entries;
+
+    /**
+     * Ctor.
+     * @param size Size of the indexed repodata in bytes
+     * @param crc CRC32 checksum of the indexed repodata
+     * @param entries Entries ordered by position
+     */
+    public RepodataIndex(final long size, final long crc, final List<Entry> entries) {
+        this.size = size;
+        this.crc = crc;
+        this.entries = entries;
+    }
+
+    /**
+     * Size of the indexed repodata in bytes.
+     * @return Size
+     */
+    public long size() {
+        return this.size;
+    }
+
+    /**
+     * Is the index built for given repodata? Size and CRC32 checksum of the repodata are
+     * compared with the indexed ones.
+     * @param repodata Repodata bytes
+     * @return True if index matches the repodata
+     */
+    public boolean matches(final byte[] repodata) {
+        final CRC32 check = new CRC32();
+        check.update(repodata, 0, repodata.length);
+        return this.matches(repodata.length, check.getValue());
+    }
+
+    /**
+     * Is the index built for repodata of given size and CRC32 checksum?
+     * @param length Repodata size in bytes
+     * @param checksum CRC32 checksum of the repodata
+     * @return True if index matches the repodata
+     */
+    public boolean matches(final long length, final long checksum) {
+        return this.size == length && this.crc == checksum;
+    }
+
+    /**
+     * Indexed entries ordered by position.
+     * @return Unmodifiable list of entries
+     */
+    public List<Entry> entries() {
+        return Collections.unmodifiableList(this.entries);
+    }
+
+    /**
+     * Finds entry by package filename or sha256 checksum.
+     * @param key Filename or sha256 checksum
+     * @return Entry if found
+     */
+    public Optional<Entry> find(final String key) {
+        return this.entries.stream()
+            .filter(entry -> entry.name().equals(key) || entry.sha256().equals(key))
+            .findFirst();
+    }
+
+    /**
+     * Writes index in binary form to the output. Output stream is not closed.
+     * @param out Where to write
+     * @throws IOException On IO error
+     */
+    public void writeTo(final OutputStream out) throws IOException {
+        final DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(RepodataIndex.MAGIC);
+        data.writeInt(RepodataIndex.VERSION);
+        data.writeLong(this.size);
+        data.writeLong(this.crc);
+        data.writeInt(this.entries.size());
+        for (final Entry entry : this.entries) {
+            data.writeUTF(entry.name());
+            data.writeUTF(entry.sha256());
+            data.writeLong(entry.start());
+            data.writeLong(entry.end());
+        }
+        data.flush();
+    }
+
+    /**
+     * Index stored in binary form, see {@link RepodataIndex#writeTo(OutputStream)}.
+     * @since 0.4
+     */
+    public static final class Stored {
+
+        /**
+         * Index bytes.
+         */
+        private final byte[] bytes;
+
+        /**
+         * Ctor.
+         * @param bytes Index bytes
+         */
+        @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+        public Stored(final byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * Reads the index.
+         * @return Repodata index
+         * @throws IOException If bytes are not a valid index
+         */
+        public RepodataIndex index() throws IOException {
+            final DataInputStream data = new DataInputStream(
+                new ByteArrayInputStream(this.bytes)
+            );
+            if (data.readInt() != RepodataIndex.MAGIC
+                || data.readInt() != RepodataIndex.VERSION) {
+                throw new IOException("Unsupported repodata index format");
+            }
+            final long size = data.readLong();
+            final long crc = data.readLong();
+            final int count = data.readInt();
+            final List<Entry> entries = new ArrayList<>(count);
+            for (int idx = 0; idx < count; idx = idx + 1) {
+                entries.add(
+                    new Entry(data.readUTF(), data.readUTF(), data.readLong(), data.readLong())
+                );
+            }
+            return new RepodataIndex(size, crc, entries);
+        }
+    }
+
+    /**
+     * Indexed repodata entry.
+     * @since 0.4
+     */
+    public static final class Entry {
+
+        /**
+         * Package filename.
+         */
+        private final String name;
+
+        /**
+         * Sha256 checksum, empty if entry has no checksum.
+         */
+        private final String sha;
+
+        /**
+         * Position of the entry name opening quote.
+         */
+        private final long first;
+
+        /**
+         * Position after the entry value closing brace.
+         */
+        private final long last;
+
+        /**
+         * Ctor.
+         * @param name Package filename
+         * @param sha Sha256 checksum, empty if entry has no checksum
+         * @param first Position of the entry name opening quote
+         * @param last Position after the entry value closing brace
+         * @checkstyle ParameterNumberCheck (5 lines)
+         */
+        public Entry(final String name, final String sha, final long first, final long last) {
+            this.name = name;
+            this.sha = sha;
+            this.first = first;
+            this.last = last;
+        }
+
+        /**
+         * Package filename.
+         * @return Filename
+         */
+        public String name() {
+            return this.name;
+        }
+
+        /**
+         * Sha256 checksum.
+         * @return Checksum, empty if entry has no checksum
+         */
+        public String sha256() {
+            return this.sha;
+        }
+
+        /**
+         * Position of the entry name opening quote.
+         * @return Start position, inclusive
+         */
+        public long start() {
+            return this.first;
+        }
+
+        /**
+         * Position after the entry value closing brace.
+         * @return End position, exclusive
+         */
+        public long end() {
+            return this.last;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * JSON Patch (RFC 6902) between two repodata revisions built from their indexes, see
+ * {@link RepodataIndex}: entries absent in the new revision are removed, merged records and
+ * entries with changed sha256 are added. Values of the added entries are taken from the merged
+ * records, so the patch can not be built if an entry changed without a record. `.conda` entries
+ * are addressed in `packages.conda` object, other entries in `packages`, as repodata written by
+ * {@link MergedJson.Sorted} keeps them.
+ * @since 0.4
+ */
+public final class RepodataPatch {
+
+    /**
+     * Json factory.
+     */
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    /**
+     * Index of the previous revision.
+     */
+    private final RepodataIndex before;
+
+    /**
+     * Index of the new revision.
+     */
+    private final RepodataIndex after;
+
+    /**
+     * Records merged into new revision.
+     */
+    private final Collection<PackageRecord> records;
+
+    /**
+     * Ctor.
+     * @param before Index of the previous revision
+     * @param after Index of the new revision
+     * @param records Records merged into new revision
+     */
+    public RepodataPatch(final RepodataIndex before, final RepodataIndex after,
+        final Collection<PackageRecord> records) {
+        this.before = before;
+        this.after = after;
+        this.records = records;
+    }
+
+    /**
+     * JSON Patch array in compact single line form.
+     * @return Patch if it can be built
+     * @throws IOException On IO error
+     */
+    public Optional<String> json() throws IOException {
+        final SortedMap<String, String> old = RepodataPatch.checksums(this.before);
+        final SortedMap<String, String> cur = RepodataPatch.checksums(this.after);
+        final Map<String, PackageRecord> recs = new HashMap<>(this.records.size());
+        for (final PackageRecord rec : this.records) {
+            recs.put(rec.filename(), rec);
+        }
+        final StringWriter res = new StringWriter();
+        boolean known = true;
+        try (JsonGenerator gnrt = RepodataPatch.FACTORY.createGenerator(res)) {
+            gnrt.writeStartArray();
+            for (final String name : old.keySet()) {
+                if (!cur.containsKey(name)) {
+                    gnrt.writeStartObject();
+                    gnrt.writeStringField("op", "remove");
+                    gnrt.writeStringField("path", RepodataPatch.path(name));
+                    gnrt.writeEndObject();
+                }
+            }
+            for (final Map.Entry<String, String> entry : cur.entrySet()) {
+                final String name = entry.getKey();
+                if (recs.containsKey(name)) {
+                    gnrt.writeStartObject();
+                    gnrt.writeStringField("op", "add");
+                    gnrt.writeStringField("path", RepodataPatch.path(name));
+                    gnrt.writeFieldName("value");
+                    try (JsonParser parser = recs.get(name).parser(RepodataPatch.FACTORY)) {
+                        parser.nextToken();
+                        gnrt.copyCurrentStructure(parser);
+                    }
+                    gnrt.writeEndObject();
+                } else if (!entry.getValue().equals(old.get(name))) {
+                    known = false;
+                    break;
+                }
+            }
+            gnrt.writeEndArray();
+        }
+        final Optional<String> patch;
+        if (known) {
+            patch = Optional.of(res.toString());
+        } else {
+            patch = Optional.empty();
+        }
+        return patch;
+    }
+
+    /**
+     * Filenames of the entries changed between revisions: removed, added, merged and entries
+     * with changed sha256.
+     * @return Sorted filenames
+     */
+    public Set<String> filenames() {
+        final SortedMap<String, String> old = RepodataPatch.checksums(this.before);
+        final SortedMap<String, String> cur = RepodataPatch.checksums(this.after);
+        final Set<String> res = new TreeSet<>();
+        for (final String name : old.keySet()) {
+            if (!cur.containsKey(name)) {
+                res.add(name);
+            }
+        }
+        for (final Map.Entry<String, String> entry : cur.entrySet()) {
+            if (!entry.getValue().equals(old.get(entry.getKey()))) {
+                res.add(entry.getKey());
+            }
+        }
+        for (final PackageRecord rec : this.records) {
+            res.add(rec.filename());
+        }
+        return res;
+    }
+
+    /**
+     * Sha256 checksums of the indexed entries by filename.
+     * @param index Repodata index
+     * @return Sorted checksums
+     */
+    private static SortedMap<String, String> checksums(final RepodataIndex index) {
+        final SortedMap<String, String> res = new TreeMap<>();
+        for (final RepodataIndex.Entry entry : index.entries()) {
+            res.put(entry.name(), entry.sha256());
+        }
+        return res;
+    }
+
+    /**
+     * JSON Pointer (RFC 6901) of the package entry.
+     * @param name Package filename
+     * @return Pointer
+     */
+    private static String path(final String name) {
+        final String object;
+        if (name.endsWith(".conda")) {
+            object = RepodataSpans.PACKAGES_CONDA;
+        } else {
+            object = RepodataSpans.PACKAGES;
+        }
+        return String.format(
+            "/%s/%s", object, name.replace("~", "~0").replace("/", "~1")
+        );
+    }
+}
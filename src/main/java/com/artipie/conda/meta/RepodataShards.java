@@ -0,0 +1,179 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Repodata shards (CEP-16): repodata entries grouped by package name, each shard is msgpack
+ * map `{"packages": {...}, "packages.conda": {...}, "removed": []}` with sha256 and md5
+ * checksums encoded as binary, see {@link MsgPack}. Package name is taken from the `name`
+ * field of the entry, entries are located by their offsets, see {@link RepodataEntries}, and
+ * only the entries of requested names are decoded.
+ * @since 0.4
+ */
+public final class RepodataShards {
+
+    /**
+     * Json mapper.
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Hex checksum pattern.
+     */
+    private static final Pattern HEX = Pattern.compile("([0-9a-f]{2})+");
+
+    /**
+     * Checksum fields encoded as binary.
+     */
+    private static final String[] CHECKSUMS = {"sha256", "md5"};
+
+    /**
+     * Repodata entries.
+     */
+    private final RepodataEntries json;
+
+    /**
+     * Ctor.
+     * @param json Repodata json bytes
+     */
+    public RepodataShards(final byte[] json) {
+        this(new RepodataEntries(json));
+    }
+
+    /**
+     * Ctor.
+     * @param json Repodata entries
+     */
+    public RepodataShards(final RepodataEntries json) {
+        this.json = json;
+    }
+
+    /**
+     * Msgpack encoded shards of the package names accepted by filter, names without entries
+     * in the repodata are absent in the result.
+     * @param names Package names filter
+     * @return Shards by package name
+     * @throws IOException On IO error
+     */
+    public Map<String, byte[]> shards(final Predicate<String> names) throws IOException {
+        final Map<String, ObjectNode> shards = new TreeMap<>();
+        for (final RepodataEntries.Entry entry : this.json.entries()) {
+            final String name = RepodataShards.name(entry);
+            if (names.test(name)) {
+                final ObjectNode shard = shards.computeIfAbsent(
+                    name, key -> RepodataShards.shard()
+                );
+                ((ObjectNode) shard.get(entry.packages()))
+                    .set(entry.filename(), this.record(entry));
+            }
+        }
+        final Map<String, byte[]> res = new TreeMap<>();
+        for (final Map.Entry<String, ObjectNode> shard : shards.entrySet()) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new MsgPack(out).write(shard.getValue());
+            res.put(shard.getKey(), out.toByteArray());
+        }
+        return res;
+    }
+
+    /**
+     * Names of the packages: the `name` field of the package entry, packages absent in the
+     * repodata, like the removed ones, are named by their filenames `name-version-build.ext`.
+     * @param filenames Package filenames
+     * @return Package names
+     * @throws IOException On IO error
+     */
+    public Set<String> names(final Set<String> filenames) throws IOException {
+        final Set<String> res = new HashSet<>(filenames.size());
+        final Set<String> absent = new HashSet<>(filenames);
+        for (final RepodataEntries.Entry entry : this.json.entries()) {
+            if (absent.remove(entry.filename())) {
+                res.add(RepodataShards.name(entry));
+            }
+        }
+        for (final String filename : absent) {
+            res.add(RepodataShards.name(filename));
+        }
+        return res;
+    }
+
+    /**
+     * Decodes repodata entry and converts checksums to binary.
+     * @param entry Entry
+     * @return Entry json
+     * @throws IOException On IO error
+     */
+    private JsonNode record(final RepodataEntries.Entry entry) throws IOException {
+        final JsonNode res;
+        try (JsonParser prs = this.json.parser(entry)) {
+            res = RepodataShards.MAPPER.readTree(prs);
+        }
+        if (res.isObject()) {
+            for (final String field : RepodataShards.CHECKSUMS) {
+                final JsonNode value = res.get(field);
+                if (value != null && value.isTextual()
+                    && RepodataShards.HEX.matcher(value.textValue()).matches()) {
+                    ((ObjectNode) res).put(field, Blake2b.unhex(value.textValue()));
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Package name of the entry, the filename is used if the entry has no name.
+     * @param entry Entry
+     * @return Package name
+     */
+    private static String name(final RepodataEntries.Entry entry) {
+        String res = entry.build().name();
+        if (res.isEmpty()) {
+            res = RepodataShards.name(entry.filename());
+        }
+        return res;
+    }
+
+    /**
+     * Package name of the package filename `name-version-build.ext`.
+     * @param filename Package filename
+     * @return Package name
+     */
+    private static String name(final String filename) {
+        final int build = filename.lastIndexOf('-');
+        final int version = filename.lastIndexOf('-', build - 1);
+        final String res;
+        if (version > 0) {
+            res = filename.substring(0, version);
+        } else {
+            res = filename;
+        }
+        return res;
+    }
+
+    /**
+     * Empty shard.
+     * @return Shard json
+     */
+    private static ObjectNode shard() {
+        final ObjectNode res = RepodataShards.MAPPER.createObjectNode();
+        res.putObject(RepodataSpans.PACKAGES);
+        res.putObject(RepodataSpans.PACKAGES_CONDA);
+        res.putArray("removed");
+        return res;
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Byte spans of repodata.json members. Json bytes are scanned without tokenizing the values:
+ * scanner only tracks strings and nesting depth to find where each member of the object
+ * starts and ends, which allows to split `packages` and `packages.conda` objects at
+ * entry boundaries.
+ * @since 0.4
+ */
+final class RepodataSpans {
+
+    /**
+     * Json object name `packages`.
+     */
+    static final String PACKAGES = "packages";
+
+    /**
+     * Json object name `packages.conda`.
+     */
+    static final String PACKAGES_CONDA = "packages.conda";
+
+    /**
+     * Repodata json bytes.
+     */
+    private final byte[] json;
+
+    /**
+     * Ctor.
+     * @param json Repodata json bytes
+     */
+    @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+    RepodataSpans(final byte[] json) {
+        this.json = json;
+    }
+
+    /**
+     * Members of the root json object. Empty list is returned for empty or blank input.
+     * @return Top level members spans
+     * @throws IOException If json is malformed
+     */
+    List<Span> root() throws IOException {
+        final int start = this.skipSpaces(0);
+        final List<Span> res;
+        if (start == this.json.length) {
+            res = Collections.emptyList();
+        } else {
+            res = this.members(start);
+        }
+        return res;
+    }
+
+    /**
+     * Members of the json object value of the given span.
+     * @param span Span with json object value
+     * @return Members of the object
+     * @throws IOException If json is malformed or value is not an object
+     */
+    List<Span> members(final Span span) throws IOException {
+        return this.members(span.value());
+    }
+
+    /**
+     * Is span value json object?
+     * @param span Span to check
+     * @return True if value is an object
+     */
+    boolean isObject(final Span span) {
+        return this.json[span.value()] == '{';
+    }
+
+    /**
+     * Members of the json object, starting at given position.
+     * @param open Position of the opening brace
+     * @return Members spans
+     * @throws IOException If json is malformed
+     */
+    private List<Span> members(final int open) throws IOException {
+        this.expect(open, '{');
+        final List<Span> res = new ArrayList<>(0);
+        int pos = this.skipSpaces(open + 1);
+        if (this.at(pos) == '}') {
+            pos = -1;
+        }
+        while (pos >= 0) {
+            this.expect(pos, '"');
+            final int key = this.stringEnd(pos);
+            final int colon = this.skipSpaces(key);
+            this.expect(colon, ':');
+            final int value = this.skipSpaces(colon + 1);
+            final int end = this.valueEnd(value);
+            res.add(new Span(this.name(pos, key), pos, value, end));
+            pos = this.skipSpaces(end);
+            if (this.at(pos) == ',') {
+                pos = this.skipSpaces(pos + 1);
+            } else {
+                this.expect(pos, '}');
+                pos = -1;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Finds the end of json value.
+     * @param start Value start position
+     * @return Position right after the value
+     * @throws IOException If json is malformed
+     */
+    private int valueEnd(final int start) throws IOException {
+        final byte first = this.at(start);
+        int pos = start;
+        if (first == '"') {
+            pos = this.stringEnd(start);
+        } else if (first == '{' || first == '[') {
+            int depth = 0;
+            do {
+                final byte cur = this.at(pos);
+                if (cur == '"') {
+                    pos = this.stringEnd(pos);
+                } else {
+                    if (cur == '{' || cur == '[') {
+                        depth += 1;
+                    } else if (cur == '}' || cur == ']') {
+                        depth -= 1;
+                    }
+                    pos += 1;
+                }
+            } while (depth > 0);
+        } else {
+            while (pos < this.json.length && !RepodataSpans.delimiter(this.json[pos])) {
+                pos += 1;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Finds the end of json string.
+     * @param start Position of the opening quote
+     * @return Position right after the closing quote
+     * @throws IOException If json is malformed
+     */
+    private int stringEnd(final int start) throws IOException {
+        int pos = start + 1;
+        while (this.at(pos) != '"') {
+            if (this.json[pos] == '\\') {
+                pos += 1;
+            }
+            pos += 1;
+        }
+        return pos + 1;
+    }
+
+    /**
+     * Decodes member name.
+     * @param start Position of the opening quote
+     * @param end Position right after the closing quote
+     * @return Member name
+     * @throws IOException On error
+     */
+    private String name(final int start, final int end) throws IOException {
+        boolean escaped = false;
+        for (int pos = start + 1; !escaped && pos < end - 1; pos += 1) {
+            escaped = this.json[pos] == '\\';
+        }
+        final String res;
+        if (escaped) {
+            try (JsonParser prs = new JsonFactory().createParser(this.json, start, end - start)) {
+                prs.nextToken();
+                res = prs.getText();
+            }
+        } else {
+            res = new String(this.json, start + 1, end - start - 2, StandardCharsets.UTF_8);
+        }
+        return res;
+    }
+
+    /**
+     * Skips json whitespaces.
+     * @param start Start position
+     * @return Position of the first non-whitespace byte or length of the json
+     */
+    private int skipSpaces(final int start) {
+        int pos = start;
+        while (pos < this.json.length && RepodataSpans.space(this.json[pos])) {
+            pos += 1;
+        }
+        return pos;
+    }
+
+    /**
+     * Checks byte at the position.
+     * @param pos Position
+     * @param expected Expected byte
+     * @throws IOException If byte is not as expected
+     */
+    private void expect(final int pos, final char expected) throws IOException {
+        if (this.at(pos) != expected) {
+            throw new IOException(
+                String.format("Malformed json: expected '%s' at position %d", expected, pos)
+            );
+        }
+    }
+
+    /**
+     * Byte at the position.
+     * @param pos Position
+     * @return Byte
+     * @throws IOException If position is out of json bounds
+     */
+    private byte at(final int pos) throws IOException {
+        if (pos >= this.json.length) {
+            throw new IOException("Malformed json: unexpected end of input");
+        }
+        return this.json[pos];
+    }
+
+    /**
+     * Is byte a json whitespace?
+     * @param val Byte
+     * @return True if whitespace
+     */
+    private static boolean space(final byte val) {
+        return val == ' ' || val == '\n' || val == '\r' || val == '\t';
+    }
+
+    /**
+     * Is byte a delimiter of scalar json value?
+     * @param val Byte
+     * @return True if delimiter
+     */
+    private static boolean delimiter(final byte val) {
+        return val == ',' || val == '}' || val == ']' || RepodataSpans.space(val);
+    }
+
+    /**
+     * Span of json object member.
+     * @since 0.4
+     */
+    static final class Span {
+
+        /**
+         * Member name.
+         */
+        private final String name;
+
+        /**
+         * Position of the member name opening quote.
+         */
+        private final int start;
+
+        /**
+         * Value start position.
+         */
+        private final int value;
+
+        /**
+         * Position right after the value.
+         */
+        private final int end;
+
+        /**
+         * Ctor.
+         * @param name Member name
+         * @param start Position of the member name opening quote
+         * @param value Value start position
+         * @param end Position right after the value
+         * @checkstyle ParameterNumberCheck (5 lines)
+         */
+        Span(final String name, final int start, final int value, final int end) {
+            this.name = name;
+            this.start = start;
+            this.value = value;
+            this.end = end;
+        }
+
+        /**
+         * Member name.
+         * @return Name
+         */
+        String name() {
+            return this.name;
+        }
+
+        /**
+         * Position of the member name opening quote.
+         * @return Position
+         */
+        int start() {
+            return this.start;
+        }
+
+        /**
+         * Value start position.
+         * @return Position
+         */
+        int value() {
+            return this.value;
+        }
+
+        /**
+         * Position right after the value.
+         * @return Position
+         */
+        int end() {
+            return this.end;
+        }
+    }
+}
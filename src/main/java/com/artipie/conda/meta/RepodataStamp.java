@@ -0,0 +1,159 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+
+/**
+ * Repodata.json revision stamp: sha256 and BLAKE2b-256 checksums and modification time of the
+ * repodata, BLAKE2b-256 checksum identifies repodata revision in JLAP patches, see
+ * {@link Jlap}. Stamp is kept next to the repodata as a small sidecar file, it is written by
+ * {@link StampingStream} together with the repodata and allows to answer conditional
+ * requests without reading the repodata.
+ * @since 0.4
+ */
+public final class RepodataStamp {
+
+    /**
+     * Stamp file format marker.
+     */
+    private static final int MAGIC = 0x43535450;
+
+    /**
+     * Stamp file format version.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * First stamp file format version, without BLAKE2b-256 checksum.
+     */
+    private static final int FIRST = 1;
+
+    /**
+     * Sha256 checksum of the repodata, hex.
+     */
+    private final String sha;
+
+    /**
+     * BLAKE2b-256 checksum of the repodata, hex, empty if unknown.
+     */
+    private final String blake;
+
+    /**
+     * Modification time, epoch millis.
+     */
+    private final long time;
+
+    /**
+     * Ctor.
+     * @param sha Sha256 checksum of the repodata, hex
+     * @param time Modification time, epoch millis
+     */
+    public RepodataStamp(final String sha, final long time) {
+        this(sha, "", time);
+    }
+
+    /**
+     * Ctor.
+     * @param sha Sha256 checksum of the repodata, hex
+     * @param blake BLAKE2b-256 checksum of the repodata, hex, empty if unknown
+     * @param time Modification time, epoch millis
+     */
+    public RepodataStamp(final String sha, final String blake, final long time) {
+        this.sha = sha;
+        this.blake = blake;
+        this.time = time;
+    }
+
+    /**
+     * Sha256 checksum of the repodata.
+     * @return Hex checksum
+     */
+    public String sha256() {
+        return this.sha;
+    }
+
+    /**
+     * BLAKE2b-256 checksum of the repodata.
+     * @return Hex checksum, empty if unknown
+     */
+    public String blake2b() {
+        return this.blake;
+    }
+
+    /**
+     * Modification time of the repodata.
+     * @return Modification time
+     */
+    public Instant modified() {
+        return Instant.ofEpochMilli(this.time);
+    }
+
+    /**
+     * Writes stamp in binary form to the output. Output stream is not closed.
+     * @param out Where to write
+     * @throws IOException On IO error
+     */
+    public void writeTo(final OutputStream out) throws IOException {
+        final DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(RepodataStamp.MAGIC);
+        data.writeInt(RepodataStamp.VERSION);
+        data.writeUTF(this.sha);
+        data.writeUTF(this.blake);
+        data.writeLong(this.time);
+        data.flush();
+    }
+
+    /**
+     * Stamp stored in binary form, see {@link RepodataStamp#writeTo(OutputStream)}.
+     * @since 0.4
+     */
+    public static final class Stored {
+
+        /**
+         * Stamp bytes.
+         */
+        private final byte[] bytes;
+
+        /**
+         * Ctor.
+         * @param bytes Stamp bytes
+         */
+        @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+        public Stored(final byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * Reads the stamp. Stamps of the first format version are read with unknown
+         * BLAKE2b-256 checksum.
+         * @return Repodata stamp
+         * @throws IOException If bytes are not a valid stamp
+         */
+        public RepodataStamp stamp() throws IOException {
+            final DataInputStream data = new DataInputStream(
+                new ByteArrayInputStream(this.bytes)
+            );
+            if (data.readInt() != RepodataStamp.MAGIC) {
+                throw new IOException("Unsupported repodata stamp format");
+            }
+            final int version = data.readInt();
+            final RepodataStamp res;
+            if (version == RepodataStamp.VERSION) {
+                res = new RepodataStamp(data.readUTF(), data.readUTF(), data.readLong());
+            } else if (version == RepodataStamp.FIRST) {
+                res = new RepodataStamp(data.readUTF(), data.readLong());
+            } else {
+                throw new IOException("Unsupported repodata stamp version");
+            }
+            return res;
+        }
+    }
+}
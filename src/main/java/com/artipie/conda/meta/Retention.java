@@ -0,0 +1,301 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Retention policy of the repodata packages: decides which package builds are expired and
+ * should be removed from repodata and storage.
+ * @since 0.4
+ */
+public interface Retention {
+
+    /**
+     * Finds expired builds.
+     * @param builds All the builds from repodata
+     * @return Filenames of the expired builds
+     */
+    Set<String> expired(Collection<Build> builds);
+
+    /**
+     * Keeps last N builds of each package name and version, builds are ordered by build
+     * number and timestamp. Different formats (`.tar.bz2` and `.conda`) of the same build
+     * are counted as one build.
+     * @since 0.4
+     */
+    final class KeepLast implements Retention {
+
+        /**
+         * How many builds to keep.
+         */
+        private final int count;
+
+        /**
+         * Ctor.
+         * @param count How many builds to keep
+         */
+        public KeepLast(final int count) {
+            this.count = count;
+        }
+
+        @Override
+        public Set<String> expired(final Collection<Build> builds) {
+            final Map<String, List<Build>> versions = builds.stream().collect(
+                Collectors.groupingBy(
+                    item -> String.join("\n", item.name(), item.version()),
+                    LinkedHashMap::new, Collectors.toList()
+                )
+            );
+            final Set<String> res = new HashSet<>(0);
+            for (final List<Build> version : versions.values()) {
+                final List<String> order = version.stream()
+                    .sorted(
+                        Comparator.<Build>comparingLong(Build::number)
+                            .thenComparingLong(Build::timestamp).reversed()
+                    ).map(Build::build).distinct().collect(Collectors.toList());
+                final Set<String> kept = new HashSet<>(
+                    order.subList(0, Math.min(this.count, order.size()))
+                );
+                version.stream().filter(item -> !kept.contains(item.build()))
+                    .map(Build::filename).forEach(res::add);
+            }
+            return res;
+        }
+    }
+
+    /**
+     * Drops builds older than given instant. Builds without timestamp are kept.
+     * @since 0.4
+     */
+    final class OlderThan implements Retention {
+
+        /**
+         * Builds before this instant are expired.
+         */
+        private final Instant limit;
+
+        /**
+         * Ctor.
+         * @param age Max age of the build
+         */
+        public OlderThan(final Duration age) {
+            this(Instant.now().minus(age));
+        }
+
+        /**
+         * Ctor.
+         * @param limit Builds before this instant are expired
+         */
+        public OlderThan(final Instant limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public Set<String> expired(final Collection<Build> builds) {
+            return builds.stream()
+                .filter(item -> item.timestamp() > 0 && item.time().isBefore(this.limit))
+                .map(Build::filename).collect(Collectors.toSet());
+        }
+    }
+
+    /**
+     * Keeps only the versions matched by pattern, builds of other versions are expired.
+     * @since 0.4
+     */
+    final class Versions implements Retention {
+
+        /**
+         * Versions to keep.
+         */
+        private final Pattern pattern;
+
+        /**
+         * Ctor.
+         * @param pattern Versions to keep
+         */
+        public Versions(final Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        @Override
+        public Set<String> expired(final Collection<Build> builds) {
+            return builds.stream()
+                .filter(item -> !this.pattern.matcher(item.version()).matches())
+                .map(Build::filename).collect(Collectors.toSet());
+        }
+    }
+
+    /**
+     * Build is expired if any of the policies expires it.
+     * @since 0.4
+     */
+    final class Any implements Retention {
+
+        /**
+         * Policies.
+         */
+        private final Collection<Retention> policies;
+
+        /**
+         * Ctor.
+         * @param policies Policies
+         */
+        public Any(final Retention... policies) {
+            this(Arrays.asList(policies));
+        }
+
+        /**
+         * Ctor.
+         * @param policies Policies
+         */
+        public Any(final Collection<Retention> policies) {
+            this.policies = policies;
+        }
+
+        @Override
+        public Set<String> expired(final Collection<Build> builds) {
+            final Set<String> res = new HashSet<>(0);
+            for (final Retention policy : this.policies) {
+                res.addAll(policy.expired(builds));
+            }
+            return res;
+        }
+    }
+
+    /**
+     * Package build from repodata.
+     * @since 0.4
+     */
+    final class Build {
+
+        /**
+         * Timestamps greater than this are in milliseconds, smaller are in seconds,
+         * the same rule is used by conda.
+         */
+        private static final long MILLIS = 253_402_300_799L;
+
+        /**
+         * Package filename.
+         */
+        private final String filename;
+
+        /**
+         * Package fields: name, version, build, build number and timestamp.
+         */
+        private final Map<String, String> fields;
+
+        /**
+         * Ctor.
+         * @param filename Package filename
+         * @param fields Package fields: name, version, build, build_number and timestamp
+         */
+        public Build(final String filename, final Map<String, String> fields) {
+            this.filename = filename;
+            this.fields = fields;
+        }
+
+        /**
+         * Package filename.
+         * @return Filename
+         */
+        public String filename() {
+            return this.filename;
+        }
+
+        /**
+         * Package name.
+         * @return Name
+         */
+        public String name() {
+            return this.fields.getOrDefault("name", "");
+        }
+
+        /**
+         * Package version.
+         * @return Version
+         */
+        public String version() {
+            return this.fields.getOrDefault("version", "");
+        }
+
+        /**
+         * Build string, filename is used if entry has no build string.
+         * @return Build
+         */
+        public String build() {
+            return this.fields.getOrDefault("build", this.filename);
+        }
+
+        /**
+         * Build number.
+         * @return Build number, 0 if absent
+         */
+        public long number() {
+            return Build.number(this.fields.get("build_number"));
+        }
+
+        /**
+         * Build timestamp as is.
+         * @return Timestamp, 0 if absent
+         */
+        public long timestamp() {
+            return Build.number(this.fields.get("timestamp"));
+        }
+
+        /**
+         * Build time.
+         * @return Build time
+         */
+        public Instant time() {
+            final long stamp = this.timestamp();
+            final Instant res;
+            if (stamp > Build.MILLIS) {
+                res = Instant.ofEpochMilli(stamp);
+            } else {
+                res = Instant.ofEpochSecond(stamp);
+            }
+            return res;
+        }
+
+        /**
+         * Fields names used by the build.
+         * @return Names of the fields
+         */
+        static Set<String> names() {
+            return new HashSet<>(
+                Arrays.asList("name", "version", "build", "build_number", "timestamp")
+            );
+        }
+
+        /**
+         * Parses number field.
+         * @param value Field value
+         * @return Number, 0 if value is absent or not a number
+         */
+        private static long number(final String value) {
+            long res = 0;
+            if (value != null) {
+                try {
+                    res = (long) Double.parseDouble(value);
+                } catch (final NumberFormatException ignored) {
+                    res = 0;
+                }
+            }
+            return res;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * Input stream of the previous repodata revision which is rewritten: bytes are passed to the
+ * reader as is, CRC32 checksum and size of the revision are computed on the fly. They tell
+ * whether the index of the previous revision, see {@link RepodataIndex}, describes the bytes
+ * actually read. Revision itself is identified in JLAP patches by the checksum from its stored
+ * stamp, see {@link RepodataStamp}, so it is not hashed again here. Bytes left unread by the
+ * reader are read on close or when changes are requested.
+ * @since 0.4
+ */
+public final class RevisionInput extends FilterInputStream {
+
+    /**
+     * Buffer size to read remaining bytes.
+     */
+    private static final int BUFFER = 8192;
+
+    /**
+     * CRC32 checksum of the read bytes.
+     */
+    private final CRC32 crc;
+
+    /**
+     * Number of read bytes.
+     */
+    private long size;
+
+    /**
+     * Whether the input is read to the end.
+     */
+    private boolean drained;
+
+    /**
+     * Ctor.
+     * @param input Repodata input
+     */
+    public RevisionInput(final InputStream input) {
+        super(input);
+        this.crc = new CRC32();
+    }
+
+    /**
+     * Changes from the previous revision to the written one, see {@link RepodataPatch}.
+     * Changes are known only if index of the previous revision matches the bytes read.
+     * @param before Index of the previous revision, if any
+     * @param after Index of the written revision
+     * @param records Records merged into written revision
+     * @return Patch if index of the previous revision matches
+     * @throws IOException On IO error
+     */
+    public Optional<RepodataPatch> changes(final Optional<RepodataIndex> before,
+        final RepodataIndex after, final Collection<PackageRecord> records) throws IOException {
+        this.drain();
+        final Optional<RepodataPatch> res;
+        if (before.isPresent() && before.get().matches(this.size, this.crc.getValue())) {
+            res = Optional.of(new RepodataPatch(before.get(), after, records));
+        } else {
+            res = Optional.empty();
+        }
+        return res;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int res = this.in.read();
+        if (res >= 0) {
+            this.crc.update(res);
+            this.size = this.size + 1;
+        }
+        return res;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int off, final int len) throws IOException {
+        final int res = this.in.read(bytes, off, len);
+        if (res > 0) {
+            this.crc.update(bytes, off, res);
+            this.size = this.size + res;
+        }
+        return res;
+    }
+
+    @Override
+    public long skip(final long num) throws IOException {
+        final byte[] buf = new byte[(int) Math.min(num, RevisionInput.BUFFER)];
+        long res = 0;
+        int read = 0;
+        while (res < num && read >= 0) {
+            read = this.read(buf, 0, (int) Math.min(buf.length, num - res));
+            if (read > 0) {
+                res = res + read;
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.drain();
+        super.close();
+    }
+
+    /**
+     * Reads the remaining bytes and completes the checksum, does nothing if it is
+     * already completed.
+     * @throws IOException On IO error
+     */
+    private void drain() throws IOException {
+        if (!this.drained) {
+            final byte[] buf = new byte[RevisionInput.BUFFER];
+            int read = 0;
+            while (read >= 0) {
+                read = this.read(buf, 0, buf.length);
+            }
+            this.drained = true;
+        }
+    }
+}
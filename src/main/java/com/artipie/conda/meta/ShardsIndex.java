@@ -0,0 +1,126 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Index of the repodata shards (CEP-16), `repodata_shards.msgpack.zst` content before
+ * compression: msgpack map with subdir info and sha256 checksum of each compressed shard by
+ * package name, see {@link RepodataShards}. Shards are stored next to the index in `shards`
+ * directory and named by their checksum.
+ * @since 0.4
+ */
+public final class ShardsIndex {
+
+    /**
+     * Index format version.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Shards field name.
+     */
+    private static final String SHARDS = "shards";
+
+    /**
+     * Subdir name.
+     */
+    private final String subdir;
+
+    /**
+     * Sha256 checksums of compressed shards by package name.
+     */
+    private final Map<String, byte[]> checksums;
+
+    /**
+     * Ctor.
+     * @param subdir Subdir name
+     * @param checksums Sha256 checksums of compressed shards by package name
+     */
+    public ShardsIndex(final String subdir, final Map<String, byte[]> checksums) {
+        this.subdir = subdir;
+        this.checksums = checksums;
+    }
+
+    /**
+     * Sha256 checksums of compressed shards by package name.
+     * @return Unmodifiable map of checksums
+     */
+    public Map<String, byte[]> shards() {
+        return Collections.unmodifiableMap(this.checksums);
+    }
+
+    /**
+     * Writes msgpack encoded index to the output. Output stream is not closed.
+     * @param out Where to write
+     * @throws IOException On IO error
+     */
+    public void writeTo(final OutputStream out) throws IOException {
+        final ObjectNode root = JsonNodeFactory.instance.objectNode();
+        root.put("version", ShardsIndex.VERSION);
+        root.putObject("info")
+            .put("base_url", "")
+            .put("shards_base_url", "./shards/")
+            .put("subdir", this.subdir);
+        final ObjectNode shards = root.putObject(ShardsIndex.SHARDS);
+        for (final Map.Entry<String, byte[]> shard : new TreeMap<>(this.checksums).entrySet()) {
+            shards.put(shard.getKey(), shard.getValue());
+        }
+        new MsgPack(out).write(root);
+    }
+
+    /**
+     * Shards index stored in msgpack form, see {@link ShardsIndex#writeTo(OutputStream)}.
+     * @since 0.4
+     */
+    public static final class Stored {
+
+        /**
+         * Index bytes.
+         */
+        private final byte[] bytes;
+
+        /**
+         * Ctor.
+         * @param bytes Index bytes
+         */
+        @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+        public Stored(final byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * Reads the index.
+         * @return Shards index
+         * @throws IOException If bytes are not a valid index
+         */
+        public ShardsIndex index() throws IOException {
+            final JsonNode root = new MsgPack.Reader(this.bytes).read();
+            final JsonNode shards = root.path(ShardsIndex.SHARDS);
+            if (!shards.isObject()) {
+                throw new IOException("Invalid repodata shards index");
+            }
+            final Map<String, byte[]> res = new TreeMap<>();
+            final Iterator<Map.Entry<String, JsonNode>> fields = shards.fields();
+            while (fields.hasNext()) {
+                final Map.Entry<String, JsonNode> field = fields.next();
+                if (!field.getValue().isBinary()) {
+                    throw new IOException("Invalid repodata shard checksum");
+                }
+                res.put(field.getKey(), field.getValue().binaryValue());
+            }
+            return new ShardsIndex(root.path("info").path("subdir").asText(""), res);
+        }
+    }
+}
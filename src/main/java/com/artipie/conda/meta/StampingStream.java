@@ -0,0 +1,69 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Output stream which builds {@link RepodataStamp} of the repodata written through it: bytes
+ * are passed to the underlying stream as is, sha256 and BLAKE2b-256 checksums are computed on
+ * the fly.
+ * @since 0.4
+ */
+public final class StampingStream extends FilterOutputStream {
+
+    /**
+     * Sha256 digest of the written bytes.
+     */
+    private final MessageDigest digest;
+
+    /**
+     * BLAKE2b-256 digest of the written bytes.
+     */
+    private final Blake2b blake;
+
+    /**
+     * Ctor.
+     * @param out Underlying output stream
+     */
+    public StampingStream(final OutputStream out) {
+        super(out);
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException err) {
+            throw new IllegalStateException(err);
+        }
+        this.blake = new Blake2b();
+    }
+
+    /**
+     * Stamp of the bytes written so far, should be called once after repodata is written.
+     * @return Repodata stamp with current time as modification time
+     */
+    public RepodataStamp stamp() {
+        return new RepodataStamp(
+            Blake2b.hex(this.digest.digest()), Blake2b.hex(this.blake.digest()),
+            System.currentTimeMillis()
+        );
+    }
+
+    @Override
+    public void write(final int bte) throws IOException {
+        this.digest.update((byte) bte);
+        this.blake.update((byte) bte);
+        this.out.write(bte);
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int off, final int len) throws IOException {
+        this.digest.update(bytes, off, len);
+        this.blake.update(bytes, off, len);
+        this.out.write(bytes, off, len);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda;
+
+import com.artipie.asto.test.TestResource;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.cactoos.list.ListOf;
+import org.cactoos.set.SetOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link CondaRepodata.Update}.
+ * @since 0.4
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+class CondaRepodataUpdateTest {
+
+    @Test
+    void addsAndRemovesPackagesInSinglePass() throws IOException {
+        final ByteArrayOutputStream res = new ByteArrayOutputStream();
+        try (InputStream input = new TestResource("repodata.json").asInputStream()) {
+            new CondaRepodata.Update(input, res).perform(
+                new ListOf<CondaRepodata.PackageItem>(
+                    new CondaRepodata.PackageItem(
+                        new TestResource("7zip-19.00-h59b6b97_2.conda").asInputStream(),
+                        "7zip-19.00-h59b6b97_2.conda", "7zip-sha256", "7zip-md5", 123L
+                    )
+                ),
+                new SetOf<>(
+                    "notebook-6.1.1-py38_0.conda",
+                    "b37f144a5c2349b1c58ef17a663cb79086a1f2f49e35503e4f411f6f698cee1a"
+                )
+            );
+        }
+        final JsonNode json = new ObjectMapper().readTree(res.toByteArray());
+        MatcherAssert.assertThat(
+            "Conda package was added and removed",
+            new ListOf<>(json.get("packages.conda").fieldNames()),
+            new IsEqual<>(
+                new ListOf<>("7zip-19.00-h59b6b97_2.conda", "tenacity-6.2.0-py37_0.conda")
+            )
+        );
+        MatcherAssert.assertThat(
+            "Tar package was removed",
+            new ListOf<>(json.get("packages").fieldNames()),
+            Matchers.contains("cram-0.7-py36_1.tar.bz2", "decorator-4.2.1-py27_0.tar.bz2")
+        );
+        MatcherAssert.assertThat(
+            "Added package has checksums",
+            json.get("packages.conda").get("7zip-19.00-h59b6b97_2.conda").get("sha256").asText(),
+            new IsEqual<>("7zip-sha256")
+        );
+    }
+}
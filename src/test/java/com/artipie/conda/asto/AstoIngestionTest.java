@@ -0,0 +1,97 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.ContentDigest;
+import com.artipie.asto.ext.Digests;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.asto.test.TestResource;
+import com.artipie.conda.meta.InfoIndex;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletionException;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link AstoIngestion}.
+ * @since 0.4
+ */
+class AstoIngestionTest {
+
+    /**
+     * Test storage.
+     */
+    private Storage asto;
+
+    @BeforeEach
+    void init() {
+        this.asto = new InMemoryStorage();
+    }
+
+    @Test
+    void savesPackageAndReadsMetadataInOnePass() {
+        final byte[] bytes = new TestResource("7zip-19.00-h59b6b97_2.conda").asBytes();
+        final Key key = new Key.From(".upload", "win-64", "7zip-19.00-h59b6b97_2.conda");
+        final AstoIngestion.Ingested pkg = new AstoIngestion(
+            this.asto, key, InfoIndex.Conda::new
+        ).save(AstoIngestionTest.chunks(bytes, 1000)).toCompletableFuture().join();
+        MatcherAssert.assertThat(
+            "Package was saved",
+            new PublisherAs(this.asto.value(key).join()).bytes().toCompletableFuture().join(),
+            Matchers.equalTo(bytes)
+        );
+        MatcherAssert.assertThat(
+            "Size and checksums were added to index json",
+            pkg.entry().toString(),
+            Matchers.allOf(
+                Matchers.containsString("\"name\":\"7zip\""),
+                Matchers.containsString(String.format("\"size\":%d", bytes.length)),
+                Matchers.containsString(
+                    String.format("\"md5\":\"%s\"", AstoIngestionTest.hex(bytes, Digests.MD5))
+                ),
+                Matchers.containsString(
+                    String.format(
+                        "\"sha256\":\"%s\"", AstoIngestionTest.hex(bytes, Digests.SHA256)
+                    )
+                )
+            )
+        );
+    }
+
+    @Test
+    void failsOnInvalidPackage() {
+        final byte[] bytes = new byte[100_000];
+        final CompletionException err = Assertions.assertThrows(
+            CompletionException.class,
+            () -> new AstoIngestion(
+                this.asto, new Key.From("any.tar.bz2"), InfoIndex.TarBz::new
+            ).save(AstoIngestionTest.chunks(bytes, 10)).toCompletableFuture().join()
+        );
+        MatcherAssert.assertThat(
+            err.getMessage(),
+            Matchers.notNullValue()
+        );
+    }
+
+    private static String hex(final byte[] bytes, final Digests alg) {
+        return new ContentDigest(new Content.From(bytes), alg).hex().toCompletableFuture().join();
+    }
+
+    private static Flowable<ByteBuffer> chunks(final byte[] bytes, final int size) {
+        return Flowable.range(0, (bytes.length + size - 1) / size).map(
+            idx -> ByteBuffer.wrap(
+                bytes, idx * size, Math.min(size, bytes.length - idx * size)
+            ).slice()
+        );
+    }
+}
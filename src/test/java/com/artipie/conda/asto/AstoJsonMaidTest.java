@@ -0,0 +1,130 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.asto.test.TestResource;
+import com.artipie.conda.meta.RepodataIndex;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.stream.Collectors;
+import org.cactoos.list.ListOf;
+import org.cactoos.set.SetOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link AstoJsonMaid}.
+ * @since 0.4
+ */
+class AstoJsonMaidTest {
+
+    /**
+     * Test key.
+     */
+    private static final Key KEY = new Key.From("linux-64", "repodata.json");
+
+    /**
+     * Test storage.
+     */
+    private Storage asto;
+
+    @BeforeEach
+    void init() {
+        this.asto = new InMemoryStorage();
+    }
+
+    @Test
+    void removesPackagesAndWritesIndex() throws IOException {
+        new TestResource("repodata.json").saveTo(this.asto, AstoJsonMaidTest.KEY);
+        new AstoJsonMaid(this.asto, AstoJsonMaidTest.KEY).clean(
+            new SetOf<>(
+                "cram-0.7-py36_1.tar.bz2",
+                "47d6dd01a1cff52af31804bbfffb4341fd8676c75d00d120cc66d9709e78ea7f"
+            )
+        ).toCompletableFuture().join();
+        this.assertIndexed(
+            "decorator-4.2.1-py27_0.tar.bz2", "pyqt-5.6.0-py36h0386399_5.tar.bz2",
+            "notebook-6.1.1-py38_0.conda"
+        );
+    }
+
+    @Test
+    void removesPackagesUsingIndexWrittenByMerge() throws IOException {
+        new TestResource("repodata.json").saveTo(this.asto, AstoJsonMaidTest.KEY);
+        new AstoMergedJson(this.asto, AstoJsonMaidTest.KEY)
+            .merge(Collections.emptyList()).toCompletableFuture().join();
+        new AstoJsonMaid(this.asto, AstoJsonMaidTest.KEY)
+            .clean(new SetOf<>("pyqt-5.6.0-py36h0386399_5.tar.bz2"))
+            .toCompletableFuture().join();
+        this.assertIndexed(
+            "cram-0.7-py36_1.tar.bz2", "decorator-4.2.1-py27_0.tar.bz2",
+            "notebook-6.1.1-py38_0.conda", "tenacity-6.2.0-py37_0.conda"
+        );
+    }
+
+    @Test
+    void ignoresBrokenIndex() throws IOException {
+        new TestResource("repodata.json").saveTo(this.asto, AstoJsonMaidTest.KEY);
+        this.asto.save(
+            new IndexKey(AstoJsonMaidTest.KEY), new Content.From(new byte[]{1, 2, 3})
+        ).join();
+        new AstoJsonMaid(this.asto, AstoJsonMaidTest.KEY)
+            .clean(new SetOf<>("decorator-4.2.1-py27_0.tar.bz2"))
+            .toCompletableFuture().join();
+        this.assertIndexed(
+            "cram-0.7-py36_1.tar.bz2", "pyqt-5.6.0-py36h0386399_5.tar.bz2",
+            "notebook-6.1.1-py38_0.conda", "tenacity-6.2.0-py37_0.conda"
+        );
+    }
+
+    @Test
+    void doesNothingWhenRepodataIsAbsent() {
+        new AstoJsonMaid(this.asto, AstoJsonMaidTest.KEY)
+            .clean(new SetOf<>("any")).toCompletableFuture().join();
+        MatcherAssert.assertThat(
+            this.asto.list(Key.ROOT).join(),
+            new IsEqual<>(Collections.emptyList())
+        );
+    }
+
+    /**
+     * Checks that stored index matches stored repodata and contains given entries.
+     * @param names Expected entries names
+     * @throws IOException On error
+     */
+    private void assertIndexed(final String... names) throws IOException {
+        final RepodataIndex index = new RepodataIndex.Stored(
+            this.bytes(new IndexKey(AstoJsonMaidTest.KEY))
+        ).index();
+        MatcherAssert.assertThat(
+            "Index does not match repodata",
+            index.matches(this.bytes(AstoJsonMaidTest.KEY)),
+            new IsEqual<>(true)
+        );
+        MatcherAssert.assertThat(
+            "Repodata entries are not correct",
+            index.entries().stream().map(RepodataIndex.Entry::name)
+                .collect(Collectors.toList()),
+            new IsEqual<>(new ListOf<>(names))
+        );
+    }
+
+    /**
+     * Reads value bytes.
+     * @param key Key
+     * @return Bytes
+     */
+    private byte[] bytes(final Key key) {
+        return this.asto.value(key).thenCompose(val -> new PublisherAs(val).bytes())
+            .toCompletableFuture().join();
+    }
+}
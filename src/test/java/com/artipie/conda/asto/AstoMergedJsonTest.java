@@ -4,19 +4,56 @@
  */
 package com.artipie.conda.asto;
 
+import com.artipie.asto.Content;
 import com.artipie.asto.Key;
 import com.artipie.asto.Storage;
+import com.artipie.asto.ext.ContentDigest;
+import com.artipie.asto.ext.Digests;
 import com.artipie.asto.ext.PublisherAs;
+import com.artipie.asto.fs.FileStorage;
 import com.artipie.asto.memory.InMemoryStorage;
 import com.artipie.asto.test.TestResource;
+import com.artipie.conda.meta.Compression;
+import com.artipie.conda.meta.Jlap;
+import com.artipie.conda.meta.PackageRecord;
+import com.artipie.conda.meta.RepodataStamp;
+import com.artipie.conda.meta.ShardsIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.json.Json;
 import javax.json.JsonObject;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.apache.commons.io.IOUtils;
+import org.cactoos.list.ListOf;
 import org.cactoos.map.MapEntry;
 import org.cactoos.map.MapOf;
+import org.cactoos.set.SetOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
 import org.json.JSONException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.skyscreamer.jsonassert.JSONAssert;
 
 /**
@@ -81,6 +118,460 @@ class AstoMergedJsonTest {
         );
     }
 
+    @Test
+    void addsAndRemovesItems() throws IOException {
+        new TestResource("MergedJsonTest/mp1_input.json")
+            .saveTo(this.asto, AstoMergedJsonTest.KEY);
+        new AstoMergedJson(this.asto, AstoMergedJsonTest.KEY).update(
+            new ListOf<PackageRecord>(
+                new PackageRecord(
+                    "pyqt-5.6.0-py36h0386399_5.tar.bz2",
+                    new TestResource("MergedJsonTest/pyqt-tar.json").asBytes()
+                )
+            ),
+            new SetOf<>("tenacity-6.2.0-py37_0.conda")
+        ).toCompletableFuture().join();
+        final JsonNode json = new ObjectMapper().readTree(this.getRepodata());
+        MatcherAssert.assertThat(
+            "Tar package was added",
+            new ListOf<>(json.get("packages").fieldNames()),
+            Matchers.contains(
+                "decorator-4.2.1-py27_0.tar.bz2", "pyqt-5.6.0-py36h0386399_5.tar.bz2"
+            )
+        );
+        MatcherAssert.assertThat(
+            "Conda package was removed",
+            json.get("packages.conda").size(),
+            new IsEqual<>(0)
+        );
+    }
+
+    @Test
+    void mergesOnFileStorage(@TempDir final Path dir) throws JSONException, IOException {
+        this.asto = new FileStorage(dir);
+        final Key key = new Key.From("linux-64", "repodata.json");
+        new TestResource("MergedJsonTest/mp1_input.json").saveTo(this.asto, key);
+        new AstoMergedJson(this.asto, key, RepodataCache.NONE, Optional.of(dir)).merge(
+            new MapOf<String, JsonObject>(
+                this.packageItem("notebook-6.1.1-py38_0.conda", "notebook-conda.json"),
+                this.packageItem("pyqt-5.6.0-py36h0386399_5.tar.bz2", "pyqt-tar.json")
+            )
+        ).toCompletableFuture().join();
+        JSONAssert.assertEquals(
+            new String(
+                Files.readAllBytes(dir.resolve("linux-64/repodata.json")),
+                StandardCharsets.UTF_8
+            ),
+            new String(
+                new TestResource("AstoMergedJsonTest/addsItemsWhenInputIsPresent.json")
+                    .asBytes(),
+                StandardCharsets.UTF_8
+            ),
+            true
+        );
+        new CompressedVariants(this.asto, key).refresh().toCompletableFuture().join();
+        MatcherAssert.assertThat(
+            "Temporary files should be removed",
+            this.asto.list(Key.ROOT).join().stream().map(Key::string)
+                .filter(name -> !name.startsWith("linux-64/shards/"))
+                .collect(Collectors.toList()),
+            Matchers.containsInAnyOrder(
+                "linux-64/repodata.json", "linux-64/repodata.json.idx",
+                "linux-64/repodata.json.bz2", "linux-64/repodata.json.zst",
+                "linux-64/repodata.json.stamp", "linux-64/current_repodata.json",
+                "linux-64/current_repodata.json.stamp", "linux-64/repodata.jlap",
+                "linux-64/repodata_shards.msgpack.zst", "linux-64/repodata.json.channel",
+                "channeldata.json"
+            )
+        );
+        MatcherAssert.assertThat(
+            "Compressed variant should contain the repodata",
+            IOUtils.toByteArray(
+                new ZstdCompressorInputStream(
+                    Files.newInputStream(dir.resolve("linux-64/repodata.json.zst"))
+                )
+            ),
+            new IsEqual<>(Files.readAllBytes(dir.resolve("linux-64/repodata.json")))
+        );
+    }
+
+    @Test
+    void removesTemporaryFilesOnFailure(@TempDir final Path dir) throws IOException {
+        this.asto = new FileStorage(dir);
+        final Key key = new Key.From("linux-64", "repodata.json");
+        final byte[] broken = "{\"packages\":{\"a.tar.bz2\":".getBytes(StandardCharsets.UTF_8);
+        this.asto.save(key, new Content.From(broken)).join();
+        final CompletableFuture<Void> res = new AstoMergedJson(
+            this.asto, key, RepodataCache.NONE, Optional.of(dir)
+        ).merge(
+            new MapOf<String, JsonObject>(
+                this.packageItem("notebook-6.1.1-py38_0.conda", "notebook-conda.json")
+            )
+        ).toCompletableFuture();
+        MatcherAssert.assertThat(
+            "Merge should fail",
+            res.handle((nothing, err) -> err != null).join(),
+            new IsEqual<>(true)
+        );
+        try (Stream<Path> files = Files.list(dir.resolve("linux-64"))) {
+            MatcherAssert.assertThat(
+                "Temporary files should be removed",
+                files.map(file -> file.getFileName().toString()).collect(Collectors.toList()),
+                Matchers.contains("repodata.json")
+            );
+        }
+        MatcherAssert.assertThat(
+            "Repodata should not be changed",
+            Files.readAllBytes(dir.resolve("linux-64/repodata.json")),
+            new IsEqual<>(broken)
+        );
+    }
+
+    @Test
+    void writesCompressedVariants() throws IOException {
+        new TestResource("MergedJsonTest/mp1_input.json")
+            .saveTo(this.asto, AstoMergedJsonTest.KEY);
+        final Key stale = new Key.From("repodata.json.zst");
+        this.asto.save(stale, new Content.From("stale".getBytes(StandardCharsets.UTF_8))).join();
+        final CompressedVariants variants =
+            new CompressedVariants(this.asto, AstoMergedJsonTest.KEY);
+        final CompletableFuture<Boolean> removed = new CompletableFuture<>();
+        new AstoMergedJson(
+            new Storage.Wrap(this.asto) {
+                @Override
+                public CompletableFuture<Void> save(final Key key, final Content content) {
+                    if (key.equals(AstoMergedJsonTest.KEY)) {
+                        removed.complete(!AstoMergedJsonTest.this.asto.exists(stale).join());
+                    }
+                    return super.save(key, content);
+                }
+
+                @Override
+                public CompletableFuture<Void> move(final Key source, final Key destination) {
+                    if (destination.equals(AstoMergedJsonTest.KEY)) {
+                        removed.complete(!AstoMergedJsonTest.this.asto.exists(stale).join());
+                    }
+                    return super.move(source, destination);
+                }
+            },
+            AstoMergedJsonTest.KEY
+        ).merge(
+            new MapOf<String, JsonObject>(
+                this.packageItem("pyqt-5.6.0-py36h0386399_5.tar.bz2", "pyqt-tar.json")
+            )
+        ).toCompletableFuture().join();
+        MatcherAssert.assertThat(
+            "Stale variant should be removed before repodata is saved",
+            removed.getNow(false),
+            new IsEqual<>(true)
+        );
+        variants.refresh().toCompletableFuture().join();
+        final byte[] repodata = this.getRepodata().getBytes(StandardCharsets.UTF_8);
+        MatcherAssert.assertThat(
+            "Bzip2 variant should contain the repodata",
+            IOUtils.toByteArray(
+                new BZip2CompressorInputStream(
+                    new ByteArrayInputStream(this.bytes(new Key.From("repodata.json.bz2")))
+                )
+            ),
+            new IsEqual<>(repodata)
+        );
+        MatcherAssert.assertThat(
+            "Zstd variant should contain the repodata",
+            IOUtils.toByteArray(
+                new ZstdCompressorInputStream(
+                    new ByteArrayInputStream(this.bytes(new Key.From("repodata.json.zst")))
+                )
+            ),
+            new IsEqual<>(repodata)
+        );
+    }
+
+    @Test
+    void savesVariantsOfFinalRepodataAfterBackToBackMerges() throws IOException {
+        final int second = 1 + Compression.ALL.size();
+        final GatedStorage gated = new GatedStorage(this.asto, 0, second);
+        this.asto = gated;
+        new AstoMergedJson(this.asto, AstoMergedJsonTest.KEY).merge(
+            new MapOf<String, JsonObject>(
+                this.packageItem("pyqt-5.6.0-py36h0386399_5.tar.bz2", "pyqt-tar.json")
+            )
+        ).toCompletableFuture().join();
+        gated.started(0).join();
+        new AstoMergedJson(this.asto, AstoMergedJsonTest.KEY).merge(
+            Collections.singleton(
+                new PackageRecord(
+                    "six-1.16.0-py_0.tar.bz2",
+                    Json.createObjectBuilder().add("name", "six").add("version", "1.16.0")
+                        .build()
+                )
+            )
+        ).toCompletableFuture().join();
+        final CompletableFuture<Void> last =
+            new CompressedVariants(this.asto, AstoMergedJsonTest.KEY).refresh()
+                .toCompletableFuture();
+        gated.open(0);
+        gated.started(second).join();
+        MatcherAssert.assertThat(
+            "Variants of the outdated repodata should not be saved",
+            this.asto.exists(new Key.From("repodata.json.zst")).join()
+                || this.asto.exists(new Key.From("repodata.json.bz2")).join(),
+            new IsEqual<>(false)
+        );
+        gated.open(second);
+        last.join();
+        final byte[] repodata = this.getRepodata().getBytes(StandardCharsets.UTF_8);
+        MatcherAssert.assertThat(
+            "Bzip2 variant should contain the final repodata",
+            IOUtils.toByteArray(
+                new BZip2CompressorInputStream(
+                    new ByteArrayInputStream(this.bytes(new Key.From("repodata.json.bz2")))
+                )
+            ),
+            new IsEqual<>(repodata)
+        );
+        MatcherAssert.assertThat(
+            "Zstd variant should contain the final repodata",
+            IOUtils.toByteArray(
+                new ZstdCompressorInputStream(
+                    new ByteArrayInputStream(this.bytes(new Key.From("repodata.json.zst")))
+                )
+            ),
+            new IsEqual<>(repodata)
+        );
+    }
+
+    @Test
+    void createsRepodataOnFileStorage(@TempDir final Path dir) throws IOException {
+        this.asto = new FileStorage(dir);
+        final Key key = new Key.From("noarch", "repodata.json");
+        new AstoMergedJson(this.asto, key, RepodataCache.NONE, Optional.of(dir)).merge(
+            new MapOf<String, JsonObject>(
+                this.packageItem("notebook-6.1.1-py38_0.conda", "notebook-conda.json")
+            )
+        ).toCompletableFuture().join();
+        MatcherAssert.assertThat(
+            new ListOf<>(
+                new ObjectMapper().readTree(dir.resolve("noarch/repodata.json").toFile())
+                    .get("packages.conda").fieldNames()
+            ),
+            Matchers.contains("notebook-6.1.1-py38_0.conda")
+        );
+    }
+
+    @Test
+    void writesRevisionStamp() throws IOException {
+        new TestResource("MergedJsonTest/mp1_input.json")
+            .saveTo(this.asto, AstoMergedJsonTest.KEY);
+        new AstoMergedJson(this.asto, AstoMergedJsonTest.KEY).merge(
+            new MapOf<String, JsonObject>(
+                this.packageItem("pyqt-5.6.0-py36h0386399_5.tar.bz2", "pyqt-tar.json")
+            )
+        ).toCompletableFuture().join();
+        MatcherAssert.assertThat(
+            new RepodataStamp.Stored(this.bytes(new StampKey(AstoMergedJsonTest.KEY)))
+                .stamp().sha256(),
+            new IsEqual<>(
+                new ContentDigest(
+                    new Content.From(this.bytes(AstoMergedJsonTest.KEY)), Digests.SHA256
+                ).hex().toCompletableFuture().join()
+            )
+        );
+    }
+
+    @Test
+    void logsJlapPatch() throws IOException {
+        new TestResource("MergedJsonTest/mp1_input.json")
+            .saveTo(this.asto, AstoMergedJsonTest.KEY);
+        final AstoMergedJson merged = new AstoMergedJson(this.asto, AstoMergedJsonTest.KEY);
+        merged.merge(
+            new MapOf<String, JsonObject>(
+                this.packageItem("pyqt-5.6.0-py36h0386399_5.tar.bz2", "pyqt-tar.json")
+            )
+        ).toCompletableFuture().join();
+        final String first = new RepodataStamp.Stored(
+            this.bytes(new StampKey(AstoMergedJsonTest.KEY))
+        ).stamp().blake2b();
+        final MapEntry<String, JsonObject> notebook =
+            this.packageItem("notebook-6.1.1-py38_0.conda", "notebook-conda.json");
+        merged.update(
+            new ListOf<>(new PackageRecord(notebook.getKey(), notebook.getValue())),
+            new SetOf<>("pyqt-5.6.0-py36h0386399_5.tar.bz2")
+        ).toCompletableFuture().join();
+        final String second = new RepodataStamp.Stored(
+            this.bytes(new StampKey(AstoMergedJsonTest.KEY))
+        ).stamp().blake2b();
+        final Jlap jlap = new Jlap.Stored(this.bytes(new JlapKey(AstoMergedJsonTest.KEY)))
+            .jlap();
+        MatcherAssert.assertThat(
+            "Latest revision should be the written repodata",
+            jlap.latest(),
+            new IsEqual<>(second)
+        );
+        MatcherAssert.assertThat(
+            "Log should contain one patch",
+            jlap.patches().size(),
+            new IsEqual<>(1)
+        );
+        final JsonNode patch = new ObjectMapper().readTree(jlap.patches().get(0));
+        MatcherAssert.assertThat(
+            "Patch should lead from the previous revision",
+            patch.get("from").asText(),
+            new IsEqual<>(first)
+        );
+        MatcherAssert.assertThat(
+            "Patch should remove and add packages",
+            new ListOf<>(patch.get("patch").elements()).stream()
+                .map(op -> String.join(" ", op.get("op").asText(), op.get("path").asText()))
+                .collect(Collectors.toList()),
+            Matchers.contains(
+                "remove /packages/pyqt-5.6.0-py36h0386399_5.tar.bz2",
+                "add /packages.conda/notebook-6.1.1-py38_0.conda"
+            )
+        );
+    }
+
+    @Test
+    void updatesShardsOfTouchedPackages() throws IOException {
+        new TestResource("MergedJsonTest/mp1_input.json")
+            .saveTo(this.asto, AstoMergedJsonTest.KEY);
+        final AstoMergedJson merged = new AstoMergedJson(this.asto, AstoMergedJsonTest.KEY);
+        merged.merge(
+            new MapOf<String, JsonObject>(
+                this.packageItem("pyqt-5.6.0-py36h0386399_5.tar.bz2", "pyqt-tar.json")
+            )
+        ).toCompletableFuture().join();
+        final Map<String, byte[]> first = this.shards();
+        MatcherAssert.assertThat(
+            "All packages should be sharded",
+            first.keySet(),
+            Matchers.contains("decorator", "pyqt", "tenacity")
+        );
+        final MapEntry<String, JsonObject> notebook =
+            this.packageItem("notebook-6.1.1-py38_0.conda", "notebook-conda.json");
+        merged.update(
+            new ListOf<>(new PackageRecord(notebook.getKey(), notebook.getValue())),
+            new SetOf<>("pyqt-5.6.0-py36h0386399_5.tar.bz2")
+        ).toCompletableFuture().join();
+        final Map<String, byte[]> second = this.shards();
+        MatcherAssert.assertThat(
+            "Shards of the removed and added packages should be updated",
+            second.keySet(),
+            Matchers.contains("decorator", "notebook", "tenacity")
+        );
+        MatcherAssert.assertThat(
+            "Shards of the untouched packages should be kept",
+            second.get("decorator"),
+            new IsEqual<>(first.get("decorator"))
+        );
+        final String sha = String.format("%064x", new BigInteger(1, second.get("notebook")));
+        MatcherAssert.assertThat(
+            "Shard should be stored by its sha256",
+            new ContentDigest(
+                new Content.From(
+                    this.bytes(new Key.From(String.format("shards/%s.msgpack.zst", sha)))
+                ),
+                Digests.SHA256
+            ).hex().toCompletableFuture().join(),
+            new IsEqual<>(sha)
+        );
+    }
+
+    @Test
+    void deletesShardsUnreferencedByTwoLastIndexes() throws IOException {
+        new TestResource("MergedJsonTest/mp1_input.json")
+            .saveTo(this.asto, AstoMergedJsonTest.KEY);
+        final AstoMergedJson merged = new AstoMergedJson(this.asto, AstoMergedJsonTest.KEY);
+        merged.merge(
+            new MapOf<String, JsonObject>(
+                this.packageItem("pyqt-5.6.0-py36h0386399_5.tar.bz2", "pyqt-tar.json")
+            )
+        ).toCompletableFuture().join();
+        final Key pyqt = new Key.From(
+            String.format(
+                "shards/%064x.msgpack.zst", new BigInteger(1, this.shards().get("pyqt"))
+            )
+        );
+        merged.update(
+            Collections.emptyList(), new SetOf<>("pyqt-5.6.0-py36h0386399_5.tar.bz2")
+        ).toCompletableFuture().join();
+        MatcherAssert.assertThat(
+            "Shard of the previous index should be kept",
+            this.asto.exists(pyqt).join(),
+            new IsEqual<>(true)
+        );
+        final MapEntry<String, JsonObject> notebook =
+            this.packageItem("notebook-6.1.1-py38_0.conda", "notebook-conda.json");
+        merged.merge(
+            new ListOf<>(new PackageRecord(notebook.getKey(), notebook.getValue()))
+        ).toCompletableFuture().join();
+        MatcherAssert.assertThat(
+            "Unreferenced shard should be deleted",
+            this.asto.exists(pyqt).join(),
+            new IsEqual<>(false)
+        );
+        MatcherAssert.assertThat(
+            "Shards of the index should be kept",
+            this.asto.list(new Key.From("shards")).join().size(),
+            new IsEqual<>(this.shards().size())
+        );
+    }
+
+    @Test
+    void keepsAllConcurrentUpdates() throws IOException {
+        final int total = 300;
+        final List<String> subdirs = new ListOf<>("linux-64", "noarch", "osx-64");
+        final ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            final List<CompletableFuture<Void>> all = new ArrayList<>(total);
+            for (int idx = 0; idx < total; idx = idx + 1) {
+                final Key key = new Key.From(subdirs.get(idx % subdirs.size()), "repodata.json");
+                final PackageRecord record = new PackageRecord(
+                    String.format("pkg%d-1.0-0.tar.bz2", idx),
+                    Json.createObjectBuilder().add("name", String.format("pkg%d", idx))
+                        .add("version", "1.0").build()
+                );
+                all.add(
+                    CompletableFuture.supplyAsync(() -> key, pool).thenCompose(
+                        item -> new AstoMergedJson(this.asto, item)
+                            .merge(Collections.singleton(record))
+                    )
+                );
+            }
+            CompletableFuture.allOf(all.toArray(new CompletableFuture[0])).join();
+        } finally {
+            pool.shutdown();
+        }
+        int found = 0;
+        for (final String subdir : subdirs) {
+            found = found + new ObjectMapper().readTree(
+                this.bytes(new Key.From(subdir, "repodata.json"))
+            ).path("packages").size();
+        }
+        MatcherAssert.assertThat(
+            "No concurrently merged package should be lost",
+            found,
+            new IsEqual<>(total)
+        );
+    }
+
+    private byte[] bytes(final Key key) {
+        return new PublisherAs(this.asto.value(key).toCompletableFuture().join())
+            .bytes().toCompletableFuture().join();
+    }
+
+    private Map<String, byte[]> shards() throws IOException {
+        return new ShardsIndex.Stored(
+            IOUtils.toByteArray(
+                new ZstdCompressorInputStream(
+                    new ByteArrayInputStream(
+                        this.bytes(new Key.From("repodata_shards.msgpack.zst"))
+                    )
+                )
+            )
+        ).index().shards();
+    }
+
     private String getRepodata() {
         return new PublisherAs(
             this.asto.value(AstoMergedJsonTest.KEY).toCompletableFuture().join()
@@ -97,4 +588,73 @@ class AstoMergedJsonTest {
         );
     }
 
+    /**
+     * Storage which holds the given repodata reads, counted from zero, until they are opened.
+     * Read content is taken when the read is requested.
+     * @since 0.4
+     */
+    private static final class GatedStorage extends Storage.Wrap {
+
+        /**
+         * Gates of the held reads by read number.
+         */
+        private final Map<Integer, CompletableFuture<Void>> gates;
+
+        /**
+         * Started reads by read number.
+         */
+        private final Map<Integer, CompletableFuture<Void>> reads;
+
+        /**
+         * Repodata reads counter.
+         */
+        private final AtomicInteger count;
+
+        /**
+         * Ctor.
+         * @param origin Origin storage
+         * @param held Numbers of the reads to hold
+         */
+        GatedStorage(final Storage origin, final int... held) {
+            super(origin);
+            this.gates = new ConcurrentHashMap<>();
+            this.reads = new ConcurrentHashMap<>();
+            this.count = new AtomicInteger();
+            for (final int num : held) {
+                this.gates.put(num, new CompletableFuture<>());
+            }
+        }
+
+        @Override
+        public CompletableFuture<Content> value(final Key key) {
+            final CompletableFuture<Content> res;
+            if (key.equals(AstoMergedJsonTest.KEY)) {
+                final int num = this.count.getAndIncrement();
+                final CompletableFuture<Content> content = super.value(key);
+                this.started(num).complete(null);
+                res = this.gates.getOrDefault(num, CompletableFuture.completedFuture(null))
+                    .thenCompose(nothing -> content);
+            } else {
+                res = super.value(key);
+            }
+            return res;
+        }
+
+        /**
+         * Opens the gate of the read.
+         * @param num Read number
+         */
+        void open(final int num) {
+            this.gates.get(num).complete(null);
+        }
+
+        /**
+         * Start of the read.
+         * @param num Read number
+         * @return Future completed when the read is requested
+         */
+        CompletableFuture<Void> started(final int num) {
+            return this.reads.computeIfAbsent(num, any -> new CompletableFuture<>());
+        }
+    }
 }
@@ -0,0 +1,100 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.asto.test.TestResource;
+import com.artipie.conda.meta.RepodataIndex;
+import com.artipie.conda.meta.Retention;
+import java.io.IOException;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link AstoRetention}.
+ * @since 0.4
+ */
+class AstoRetentionTest {
+
+    /**
+     * Test key.
+     */
+    private static final Key KEY = new Key.From("linux-64", "repodata.json");
+
+    /**
+     * Test storage.
+     */
+    private Storage asto;
+
+    @BeforeEach
+    void init() {
+        this.asto = new InMemoryStorage();
+    }
+
+    @Test
+    void removesExpiredPackagesAndFiles() throws IOException {
+        new TestResource("repodata.json").saveTo(this.asto, AstoRetentionTest.KEY);
+        for (final String name : new String[]{
+            "cram-0.7-py36_1.tar.bz2", "decorator-4.2.1-py27_0.tar.bz2",
+            "notebook-6.1.1-py38_0.conda",
+        }) {
+            this.asto.save(new Key.From("linux-64", name), Content.EMPTY).join();
+        }
+        MatcherAssert.assertThat(
+            "Removed packages are not correct",
+            new AstoRetention(this.asto, AstoRetentionTest.KEY, 1)
+                .prune(new Retention.Versions(Pattern.compile("[0-4]\\..*")))
+                .toCompletableFuture().join(),
+            Matchers.containsInAnyOrder(
+                "pyqt-5.6.0-py36h0386399_5.tar.bz2", "notebook-6.1.1-py38_0.conda",
+                "tenacity-6.2.0-py37_0.conda"
+            )
+        );
+        new CompressedVariants(this.asto, AstoRetentionTest.KEY).refresh()
+            .toCompletableFuture().join();
+        MatcherAssert.assertThat(
+            "Package files are not correct",
+            this.asto.list(new Key.From("linux-64")).join().stream().map(Key::string)
+                .filter(name -> !name.startsWith("linux-64/shards/"))
+                .collect(Collectors.toList()),
+            Matchers.containsInAnyOrder(
+                "linux-64/cram-0.7-py36_1.tar.bz2", "linux-64/decorator-4.2.1-py27_0.tar.bz2",
+                "linux-64/repodata.json", "linux-64/repodata.json.idx",
+                "linux-64/repodata.json.bz2", "linux-64/repodata.json.zst",
+                "linux-64/repodata.json.stamp", "linux-64/current_repodata.json",
+                "linux-64/current_repodata.json.stamp", "linux-64/repodata.jlap",
+                "linux-64/repodata_shards.msgpack.zst", "linux-64/repodata.json.channel"
+            )
+        );
+        final RepodataIndex index = new RepodataIndex.Stored(
+            new PublisherAs(this.asto.value(new IndexKey(AstoRetentionTest.KEY)).join())
+                .bytes().toCompletableFuture().join()
+        ).index();
+        MatcherAssert.assertThat(
+            "Repodata is not correct",
+            index.entries().stream().map(RepodataIndex.Entry::name)
+                .collect(Collectors.toList()),
+            Matchers.contains("cram-0.7-py36_1.tar.bz2", "decorator-4.2.1-py27_0.tar.bz2")
+        );
+    }
+
+    @Test
+    void doesNothingWhenRepodataIsAbsent() {
+        MatcherAssert.assertThat(
+            new AstoRetention(this.asto, AstoRetentionTest.KEY)
+                .prune(new Retention.KeepLast(1)).toCompletableFuture().join().isEmpty(),
+            new IsEqual<>(true)
+        );
+    }
+}
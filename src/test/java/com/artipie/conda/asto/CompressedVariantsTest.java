@@ -0,0 +1,140 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.conda.meta.Compression;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link CompressedVariants}.
+ * @since 0.4
+ */
+class CompressedVariantsTest {
+
+    /**
+     * Repodata key.
+     */
+    private static final Key KEY = new Key.From("noarch", "repodata.json");
+
+    @Test
+    void compressesRepodata() throws IOException {
+        final Storage asto = new InMemoryStorage();
+        final byte[] repodata = "{\"packages\":{}}".getBytes(StandardCharsets.UTF_8);
+        asto.save(CompressedVariantsTest.KEY, new Content.From(repodata)).join();
+        new CompressedVariants(asto, CompressedVariantsTest.KEY).refresh()
+            .toCompletableFuture().join();
+        MatcherAssert.assertThat(
+            IOUtils.toByteArray(
+                new ZstdCompressorInputStream(
+                    new ByteArrayInputStream(
+                        new PublisherAs(
+                            asto.value(new Key.From("noarch", "repodata.json.zst")).join()
+                        ).bytes().toCompletableFuture().join()
+                    )
+                )
+            ),
+            new IsEqual<>(repodata)
+        );
+    }
+
+    @Test
+    void sharesPendingRun() {
+        final GatedStorage asto = new GatedStorage(new InMemoryStorage());
+        asto.save(CompressedVariantsTest.KEY, new Content.From(new byte[]{'{', '}'})).join();
+        final List<CompletionStage<Void>> runs = new ArrayList<>(5);
+        for (int idx = 0; idx < 5; idx = idx + 1) {
+            runs.add(new CompressedVariants(asto, CompressedVariantsTest.KEY).refresh());
+        }
+        asto.open();
+        runs.forEach(run -> run.toCompletableFuture().join());
+        MatcherAssert.assertThat(
+            "Repodata should be compressed by the first and one pending run",
+            asto.reads(),
+            new IsEqual<>(2 * Compression.ALL.size())
+        );
+    }
+
+    @Test
+    void removesVariants() {
+        final Storage asto = new InMemoryStorage();
+        final Key variant = new Key.From("noarch", "repodata.json.bz2");
+        asto.save(variant, Content.EMPTY).join();
+        new CompressedVariants(asto, CompressedVariantsTest.KEY).remove()
+            .toCompletableFuture().join();
+        MatcherAssert.assertThat(asto.exists(variant).join(), new IsEqual<>(false));
+    }
+
+    /**
+     * Storage which holds existence checks until it is opened and counts repodata reads.
+     * @since 0.4
+     */
+    private static final class GatedStorage extends Storage.Wrap {
+
+        /**
+         * Gate.
+         */
+        private final CompletableFuture<Void> gate;
+
+        /**
+         * Repodata reads counter.
+         */
+        private final AtomicInteger count;
+
+        /**
+         * Ctor.
+         * @param origin Origin storage
+         */
+        GatedStorage(final Storage origin) {
+            super(origin);
+            this.gate = new CompletableFuture<>();
+            this.count = new AtomicInteger();
+        }
+
+        @Override
+        public CompletableFuture<Boolean> exists(final Key key) {
+            return this.gate.thenCompose(nothing -> super.exists(key));
+        }
+
+        @Override
+        public CompletableFuture<Content> value(final Key key) {
+            if (key.equals(CompressedVariantsTest.KEY)) {
+                this.count.incrementAndGet();
+            }
+            return super.value(key);
+        }
+
+        /**
+         * Opens the gate.
+         */
+        void open() {
+            this.gate.complete(null);
+        }
+
+        /**
+         * Number of repodata reads.
+         * @return Count
+         */
+        int reads() {
+            return this.count.get();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.conda.meta.PackageRecord;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.json.Json;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link GroupMerge}.
+ * @since 0.4
+ */
+class GroupMergeTest {
+
+    /**
+     * Repodata key.
+     */
+    private static final Key KEY = new Key.From("linux-64", "repodata.json");
+
+    @Test
+    void mergesConcurrentRecordsInBatch() {
+        final CountingStorage asto = new CountingStorage(new InMemoryStorage());
+        final GroupMerge merges = new GroupMerge(asto, RepodataCache.NONE, 500);
+        final List<CompletableFuture<Void>> all = new ArrayList<>(20);
+        for (int idx = 0; idx < 20; idx = idx + 1) {
+            all.add(
+                merges.merge(
+                    GroupMergeTest.KEY,
+                    Collections.singleton(
+                        new PackageRecord(
+                            String.format("pkg-%d-0.tar.bz2", idx),
+                            Json.createObjectBuilder().add("name", String.format("pkg%d", idx))
+                                .build()
+                        )
+                    )
+                ).toCompletableFuture()
+            );
+        }
+        CompletableFuture.allOf(all.toArray(new CompletableFuture[0])).join();
+        final String repodata = new PublisherAs(asto.value(GroupMergeTest.KEY).join())
+            .asciiString().toCompletableFuture().join();
+        for (int idx = 0; idx < 20; idx = idx + 1) {
+            MatcherAssert.assertThat(
+                repodata,
+                Matchers.containsString(String.format("\"pkg-%d-0.tar.bz2\"", idx))
+            );
+        }
+        MatcherAssert.assertThat(
+            "Repodata should be written once for the batch",
+            asto.saves.get(),
+            Matchers.equalTo(1)
+        );
+    }
+
+    @Test
+    void mergesRecordsArrivedDuringMerge() {
+        final CountingStorage asto = new CountingStorage(new InMemoryStorage());
+        final GroupMerge merges = new GroupMerge(asto, RepodataCache.NONE, 0);
+        final CompletableFuture<Void> first = merges.merge(
+            GroupMergeTest.KEY,
+            Collections.singleton(
+                new PackageRecord("a-1-0.tar.bz2", Json.createObjectBuilder().build())
+            )
+        ).toCompletableFuture();
+        final CompletableFuture<Void> second = merges.merge(
+            GroupMergeTest.KEY,
+            Collections.singleton(
+                new PackageRecord("b-1-0.tar.bz2", Json.createObjectBuilder().build())
+            )
+        ).toCompletableFuture();
+        CompletableFuture.allOf(first, second).join();
+        MatcherAssert.assertThat(
+            new PublisherAs(asto.value(GroupMergeTest.KEY).join())
+                .asciiString().toCompletableFuture().join(),
+            Matchers.allOf(
+                Matchers.containsString("a-1-0.tar.bz2"),
+                Matchers.containsString("b-1-0.tar.bz2")
+            )
+        );
+    }
+
+    @Test
+    void mergesManyBatchesOneAfterAnother() {
+        final CountingStorage asto = new CountingStorage(new InMemoryStorage());
+        final GroupMerge merges = new GroupMerge(asto, RepodataCache.NONE, 0);
+        for (int idx = 0; idx < 10; idx = idx + 1) {
+            merges.merge(
+                GroupMergeTest.KEY,
+                Collections.singleton(
+                    new PackageRecord(
+                        String.format("seq-%d-0.tar.bz2", idx), Json.createObjectBuilder().build()
+                    )
+                )
+            ).toCompletableFuture().join();
+        }
+        final String repodata = new PublisherAs(asto.value(GroupMergeTest.KEY).join())
+            .asciiString().toCompletableFuture().join();
+        for (int idx = 0; idx < 10; idx = idx + 1) {
+            MatcherAssert.assertThat(
+                repodata,
+                Matchers.containsString(String.format("\"seq-%d-0.tar.bz2\"", idx))
+            );
+        }
+    }
+
+    /**
+     * Storage counting repodata saves.
+     * @since 0.4
+     */
+    private static final class CountingStorage extends Storage.Wrap {
+
+        /**
+         * Repodata saves counter.
+         */
+        private final AtomicInteger saves;
+
+        /**
+         * Ctor.
+         * @param origin Origin storage
+         */
+        CountingStorage(final Storage origin) {
+            super(origin);
+            this.saves = new AtomicInteger();
+        }
+
+        @Override
+        public CompletableFuture<Void> save(final Key key, final Content content) {
+            if (GroupMergeTest.KEY.equals(key)) {
+                this.saves.incrementAndGet();
+            }
+            return super.save(key, content);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.asto.memory.InMemoryStorage;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link IndexJobs}.
+ * @since 0.4
+ */
+class IndexJobsTest {
+
+    /**
+     * Package key.
+     */
+    private static final Key PKG = new Key.From("noarch", "six-1.16.0-py_0.tar.bz2");
+
+    /**
+     * Upload key.
+     */
+    private static final Key UPLOAD = new Key.From(".upload", IndexJobsTest.PKG);
+
+    /**
+     * Job record key.
+     */
+    private static final Key RECORD =
+        new Key.From(".jobs", "noarch", "six-1.16.0-py_0.tar.bz2.json");
+
+    /**
+     * Test storage.
+     */
+    private Storage asto;
+
+    @BeforeEach
+    void init() {
+        this.asto = new InMemoryStorage();
+        this.asto.save(IndexJobsTest.UPLOAD, new Content.From(new byte[]{1, 2, 3})).join();
+    }
+
+    @Test
+    void resumesPendingJobs() {
+        this.asto.save(IndexJobsTest.RECORD, new Content.From(IndexJobsTest.job().bytes())).join();
+        final IndexJobs jobs = IndexJobsTest.jobs(this.asto);
+        MatcherAssert.assertThat(
+            "Job should be pending",
+            jobs.status(IndexJobsTest.PKG).toCompletableFuture().join()
+                .map(IndexJobs.Status::name),
+            new IsEqual<>(Optional.of("pending"))
+        );
+        jobs.resume().toCompletableFuture().join();
+        MatcherAssert.assertThat(
+            "Package should be added to repodata",
+            new PublisherAs(this.asto.value(new Key.From("noarch", "repodata.json")).join())
+                .asciiString().toCompletableFuture().join(),
+            Matchers.containsString("\"six-1.16.0-py_0.tar.bz2\"")
+        );
+        MatcherAssert.assertThat(
+            "Package should be moved in place",
+            this.asto.exists(IndexJobsTest.PKG).join()
+                && !this.asto.exists(IndexJobsTest.UPLOAD).join(),
+            new IsEqual<>(true)
+        );
+        MatcherAssert.assertThat(
+            "Package should be indexed",
+            jobs.status(IndexJobsTest.PKG).toCompletableFuture().join()
+                .map(IndexJobs.Status::name),
+            new IsEqual<>(Optional.of("indexed"))
+        );
+    }
+
+    @Test
+    void keepsFailedJob() {
+        final Storage failing = new Storage.Wrap(this.asto) {
+            @Override
+            public CompletableFuture<Void> move(final Key source, final Key destination) {
+                final CompletableFuture<Void> res = new CompletableFuture<>();
+                res.completeExceptionally(new IllegalStateException("Move failed"));
+                return res;
+            }
+        };
+        this.asto.save(IndexJobsTest.RECORD, new Content.From(IndexJobsTest.job().bytes())).join();
+        final IndexJobs jobs = IndexJobsTest.jobs(failing);
+        jobs.resume().toCompletableFuture().join();
+        final Optional<IndexJobs.Status> status =
+            jobs.status(IndexJobsTest.PKG).toCompletableFuture().join();
+        MatcherAssert.assertThat(
+            "Job should be failed",
+            status.map(IndexJobs.Status::name),
+            new IsEqual<>(Optional.of("failed"))
+        );
+        MatcherAssert.assertThat(
+            "Error should be reported",
+            status.flatMap(IndexJobs.Status::error),
+            new IsEqual<>(Optional.of("Move failed"))
+        );
+    }
+
+    @Test
+    void runsJobOnceWhenJobsOfOneStorageResumeTogether() {
+        final CompletableFuture<Void> gate = new CompletableFuture<>();
+        final AtomicInteger moves = new AtomicInteger();
+        final Storage counting = new Storage.Wrap(this.asto) {
+            @Override
+            public CompletableFuture<Collection<Key>> list(final Key prefix) {
+                return gate.thenCompose(nothing -> super.list(prefix));
+            }
+
+            @Override
+            public CompletableFuture<Void> move(final Key source, final Key destination) {
+                if (destination.equals(IndexJobsTest.PKG)) {
+                    moves.incrementAndGet();
+                }
+                return super.move(source, destination);
+            }
+        };
+        this.asto.save(IndexJobsTest.RECORD, new Content.From(IndexJobsTest.job().bytes())).join();
+        final CompletableFuture<Void> first =
+            IndexJobsTest.jobs(counting).resume().toCompletableFuture();
+        final CompletableFuture<Void> second =
+            IndexJobsTest.jobs(counting).resume().toCompletableFuture();
+        gate.complete(null);
+        CompletableFuture.allOf(first, second).join();
+        MatcherAssert.assertThat(
+            "Package should be moved in place once",
+            moves.get(),
+            new IsEqual<>(1)
+        );
+    }
+
+    @Test
+    void returnsEmptyStatusOfUnknownPackage() {
+        MatcherAssert.assertThat(
+            IndexJobsTest.jobs(this.asto).status(new Key.From("noarch", "any.conda"))
+                .toCompletableFuture().join().isPresent(),
+            new IsEqual<>(false)
+        );
+    }
+
+    private static IndexJobs jobs(final Storage storage) {
+        return new IndexJobs(
+            storage, new GroupMerge(storage, RepodataCache.NONE, 0), Optional.empty(), "conda"
+        );
+    }
+
+    private static IndexJob job() {
+        final JsonObject index = Json.createObjectBuilder()
+            .add("name", "six").add("version", "1.16.0").add("build", "py_0")
+            .add("build_number", 0).add("subdir", "noarch").build();
+        return new IndexJob(
+            IndexJobsTest.PKG, IndexJobsTest.UPLOAD, "alice",
+            Collections.singletonMap("info/index.json", index),
+            Json.createObjectBuilder(index).add("size", 3).build()
+        );
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.conda.meta.RepodataStamp;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Optional;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link RepodataCache}.
+ * @since 0.4
+ */
+class RepodataCacheTest {
+
+    /**
+     * Repodata key.
+     */
+    private static final Key KEY = new Key.From("linux-64", "repodata.json");
+
+    /**
+     * Test storage.
+     */
+    private Storage asto;
+
+    @BeforeEach
+    void init() {
+        this.asto = new InMemoryStorage();
+    }
+
+    @Test
+    void servesCachedValueWithoutStorage() {
+        this.asto.save(RepodataCacheTest.KEY, new Content.From("{}".getBytes())).join();
+        final RepodataCache cache = new RepodataCache(100);
+        this.value(cache, RepodataCacheTest.KEY);
+        this.asto.delete(RepodataCacheTest.KEY).join();
+        MatcherAssert.assertThat(
+            "Value should be served from cache",
+            this.value(cache, RepodataCacheTest.KEY),
+            new IsEqual<>(Optional.of("{}"))
+        );
+        MatcherAssert.assertThat(
+            "Exists should be answered from cache",
+            cache.exists(this.asto, RepodataCacheTest.KEY).toCompletableFuture().join(),
+            new IsEqual<>(true)
+        );
+        MatcherAssert.assertThat(
+            "Hits and misses should be counted",
+            new long[] {cache.hits(), cache.misses()},
+            new IsEqual<>(new long[] {1, 1})
+        );
+    }
+
+    @Test
+    void invalidatesSubdir() {
+        final Key stamp = new StampKey(RepodataCacheTest.KEY);
+        final Key other = new Key.From("noarch", "repodata.json");
+        for (final Key key : new Key[] {RepodataCacheTest.KEY, stamp, other}) {
+            this.asto.save(key, new Content.From("old".getBytes())).join();
+        }
+        final RepodataCache cache = new RepodataCache(100);
+        for (final Key key : new Key[] {RepodataCacheTest.KEY, stamp, other}) {
+            this.value(cache, key);
+            this.asto.save(key, new Content.From("new".getBytes())).join();
+        }
+        cache.invalidate(RepodataCacheTest.KEY);
+        MatcherAssert.assertThat(
+            "Repodata should be read from storage",
+            this.value(cache, RepodataCacheTest.KEY),
+            new IsEqual<>(Optional.of("new"))
+        );
+        MatcherAssert.assertThat(
+            "Sidecar should be read from storage",
+            this.value(cache, stamp),
+            new IsEqual<>(Optional.of("new"))
+        );
+        MatcherAssert.assertThat(
+            "Other subdir should stay cached",
+            this.value(cache, other),
+            new IsEqual<>(Optional.of("old"))
+        );
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        final Key first = new Key.From("linux-64", "repodata.json.bz2");
+        final Key second = new Key.From("linux-64", "repodata.json.zst");
+        this.asto.save(RepodataCacheTest.KEY, new Content.From("aaaa".getBytes())).join();
+        this.asto.save(first, new Content.From("bbbb".getBytes())).join();
+        this.asto.save(second, new Content.From("cccc".getBytes())).join();
+        final RepodataCache cache = new RepodataCache(8);
+        this.value(cache, RepodataCacheTest.KEY);
+        this.value(cache, first);
+        this.value(cache, RepodataCacheTest.KEY);
+        this.value(cache, second);
+        this.asto.delete(first).join();
+        MatcherAssert.assertThat(
+            "Least recently used value should be evicted",
+            this.value(cache, first),
+            new IsEqual<>(Optional.empty())
+        );
+        MatcherAssert.assertThat(
+            "Recently used value should be kept",
+            cache.hits(),
+            new IsEqual<>(1L)
+        );
+    }
+
+    @Test
+    void doesNotCacheTooLargeValues() {
+        this.asto.save(RepodataCacheTest.KEY, new Content.From("large".getBytes())).join();
+        final RepodataCache cache = new RepodataCache(4);
+        MatcherAssert.assertThat(
+            "Value should be read from storage",
+            this.value(cache, RepodataCacheTest.KEY),
+            new IsEqual<>(Optional.of("large"))
+        );
+        this.asto.delete(RepodataCacheTest.KEY).join();
+        MatcherAssert.assertThat(
+            "Value should not be cached",
+            this.value(cache, RepodataCacheTest.KEY),
+            new IsEqual<>(Optional.empty())
+        );
+    }
+
+    @Test
+    void revalidatesRepodataUpdatedByAnotherNode() throws IOException {
+        this.save("old", "a");
+        final RepodataCache cache = new RepodataCache(100, 0);
+        cache.stamp(this.asto, RepodataCacheTest.KEY).toCompletableFuture().join();
+        this.value(cache, RepodataCacheTest.KEY);
+        this.save("new", "b");
+        MatcherAssert.assertThat(
+            "Stamp should be read from storage",
+            cache.stamp(this.asto, RepodataCacheTest.KEY).toCompletableFuture().join()
+                .map(RepodataStamp::sha256),
+            new IsEqual<>(Optional.of(String.join("", Collections.nCopies(64, "b"))))
+        );
+        MatcherAssert.assertThat(
+            "Repodata of the new revision should be served",
+            this.value(cache, RepodataCacheTest.KEY),
+            new IsEqual<>(Optional.of("new"))
+        );
+    }
+
+    @Test
+    void servesStampWithinRevalidationPeriod() throws IOException {
+        this.save("old", "a");
+        final RepodataCache cache = new RepodataCache(100, Long.MAX_VALUE);
+        cache.stamp(this.asto, RepodataCacheTest.KEY).toCompletableFuture().join();
+        this.asto.delete(new StampKey(RepodataCacheTest.KEY)).join();
+        MatcherAssert.assertThat(
+            "Stamp should be served from cache",
+            cache.stamp(this.asto, RepodataCacheTest.KEY).toCompletableFuture().join()
+                .map(RepodataStamp::sha256),
+            new IsEqual<>(Optional.of(String.join("", Collections.nCopies(64, "a"))))
+        );
+        cache.invalidate(RepodataCacheTest.KEY);
+        MatcherAssert.assertThat(
+            "Absent stamp should be read from storage after invalidation",
+            cache.stamp(this.asto, RepodataCacheTest.KEY).toCompletableFuture().join(),
+            new IsEqual<>(Optional.empty())
+        );
+    }
+
+    private Optional<String> value(final RepodataCache cache, final Key key) {
+        return cache.value(this.asto, key).toCompletableFuture().join().map(
+            content -> new PublisherAs(content).asciiString().toCompletableFuture().join()
+        );
+    }
+
+    private void save(final String repodata, final String revision) throws IOException {
+        this.asto.save(RepodataCacheTest.KEY, new Content.From(repodata.getBytes())).join();
+        final ByteArrayOutputStream stamp = new ByteArrayOutputStream();
+        new RepodataStamp(String.join("", Collections.nCopies(64, revision)), 1L)
+            .writeTo(stamp);
+        this.asto.save(
+            new StampKey(RepodataCacheTest.KEY), new Content.From(stamp.toByteArray())
+        ).join();
+    }
+}
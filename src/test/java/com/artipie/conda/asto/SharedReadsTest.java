@@ -0,0 +1,175 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.asto;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.asto.memory.InMemoryStorage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.cactoos.list.ListOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link SharedReads}.
+ * @since 0.4
+ */
+class SharedReadsTest {
+
+    /**
+     * Item key.
+     */
+    private static final Key KEY = new Key.From("linux-64", "repodata.json");
+
+    /**
+     * Test storage.
+     */
+    private GatedStorage asto;
+
+    @BeforeEach
+    void init() {
+        this.asto = new GatedStorage(new InMemoryStorage());
+        this.asto.save(SharedReadsTest.KEY, new Content.From("{}".getBytes())).join();
+    }
+
+    @Test
+    void sharesReadInFlight() {
+        final SharedReads reads = new SharedReads(100);
+        final List<CompletionStage<Optional<Content>>> values = new ArrayList<>(3);
+        for (int idx = 0; idx < 3; idx = idx + 1) {
+            values.add(reads.value(this.asto, SharedReadsTest.KEY));
+        }
+        this.asto.open();
+        MatcherAssert.assertThat(
+            "All readers should get the body",
+            SharedReadsTest.bodies(values),
+            Matchers.contains("{}", "{}", "{}")
+        );
+        MatcherAssert.assertThat(
+            "Storage should be read once",
+            this.asto.reads(),
+            new IsEqual<>(1)
+        );
+    }
+
+    @Test
+    void readsLargeBodiesSeparately() {
+        final SharedReads reads = new SharedReads(1);
+        final List<CompletionStage<Optional<Content>>> values = new ArrayList<>(2);
+        for (int idx = 0; idx < 2; idx = idx + 1) {
+            values.add(reads.value(this.asto, SharedReadsTest.KEY));
+        }
+        this.asto.open();
+        MatcherAssert.assertThat(
+            "All readers should get the body",
+            SharedReadsTest.bodies(values),
+            Matchers.contains("{}", "{}")
+        );
+        MatcherAssert.assertThat(
+            "Storage should be read by each reader",
+            this.asto.reads(),
+            new IsEqual<>(2)
+        );
+    }
+
+    @Test
+    void startsNewReadAfterForget() {
+        final SharedReads reads = new SharedReads(100);
+        final CompletionStage<Optional<Content>> first =
+            reads.value(this.asto, SharedReadsTest.KEY);
+        reads.forget(new Key.From("linux-64", "repodata.json"));
+        final CompletionStage<Optional<Content>> second =
+            reads.value(this.asto, SharedReadsTest.KEY);
+        this.asto.open();
+        SharedReadsTest.bodies(new ListOf<>(first, second));
+        MatcherAssert.assertThat(
+            this.asto.reads(),
+            new IsEqual<>(2)
+        );
+    }
+
+    @Test
+    void sharesAbsentItem() {
+        final SharedReads reads = new SharedReads(100);
+        final CompletionStage<Optional<Content>> value =
+            reads.value(this.asto, new Key.From("absent"));
+        this.asto.open();
+        MatcherAssert.assertThat(
+            value.toCompletableFuture().join().isPresent(),
+            new IsEqual<>(false)
+        );
+    }
+
+    private static List<String> bodies(final List<CompletionStage<Optional<Content>>> values) {
+        return values.stream()
+            .map(value -> value.toCompletableFuture().join().get())
+            .map(content -> new PublisherAs(content).asciiString().toCompletableFuture().join())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Storage which holds existence checks until it is opened and counts value reads.
+     * @since 0.4
+     */
+    private static final class GatedStorage extends Storage.Wrap {
+
+        /**
+         * Gate.
+         */
+        private final CompletableFuture<Void> gate;
+
+        /**
+         * Value reads counter.
+         */
+        private final AtomicInteger count;
+
+        /**
+         * Ctor.
+         * @param origin Origin storage
+         */
+        GatedStorage(final Storage origin) {
+            super(origin);
+            this.gate = new CompletableFuture<>();
+            this.count = new AtomicInteger();
+        }
+
+        @Override
+        public CompletableFuture<Boolean> exists(final Key key) {
+            return this.gate.thenCompose(nothing -> super.exists(key));
+        }
+
+        @Override
+        public CompletableFuture<Content> value(final Key key) {
+            this.count.incrementAndGet();
+            return super.value(key);
+        }
+
+        /**
+         * Opens the gate.
+         */
+        void open() {
+            this.gate.complete(null);
+        }
+
+        /**
+         * Number of value reads.
+         * @return Count
+         */
+        int reads() {
+            return this.count.get();
+        }
+    }
+}
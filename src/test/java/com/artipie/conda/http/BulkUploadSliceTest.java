@@ -0,0 +1,233 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.http;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.KeyLastPart;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.asto.test.TestResource;
+import com.artipie.conda.asto.GroupMerge;
+import com.artipie.conda.asto.IndexJobs;
+import com.artipie.conda.asto.RepodataCache;
+import com.artipie.http.Headers;
+import com.artipie.http.headers.ContentType;
+import com.artipie.http.hm.RsHasStatus;
+import com.artipie.http.hm.SliceHasResponse;
+import com.artipie.http.rq.RequestLine;
+import com.artipie.http.rq.RqMethod;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.scheduling.ArtifactEvent;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.StringContains;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link BulkUploadSlice}.
+ * @since 0.4
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+class BulkUploadSliceTest {
+
+    /**
+     * Test headers.
+     */
+    private static final Headers HEADERS = new Headers.From(
+        new ContentType("multipart/form-data; boundary=\"simple boundary\"")
+    );
+
+    /**
+     * Navigator package name.
+     */
+    private static final String NAVIGATOR = "anaconda-navigator-1.8.4-py35_0.tar.bz2";
+
+    /**
+     * 7zip package name.
+     */
+    private static final String SEVENZIP = "7zip-19.00-h59b6b97_2.conda";
+
+    /**
+     * Test storage.
+     */
+    private Storage asto;
+
+    /**
+     * Artifact events.
+     */
+    private Queue<ArtifactEvent> events;
+
+    /**
+     * Index jobs.
+     */
+    private IndexJobs jobs;
+
+    @BeforeEach
+    void init() {
+        this.asto = new InMemoryStorage();
+        this.events = new ConcurrentLinkedQueue<>();
+        this.jobs = new IndexJobs(
+            this.asto, new GroupMerge(this.asto, RepodataCache.NONE),
+            Optional.of(this.events), "my-repo"
+        );
+    }
+
+    @Test
+    void addsPackagesOfSeveralSubdirs() throws IOException {
+        MatcherAssert.assertThat(
+            "Slice returned 201 CREATED",
+            new BulkUploadSlice(this.asto, this.jobs, false),
+            new SliceHasResponse(
+                new RsHasStatus(RsStatus.CREATED),
+                new RequestLine(RqMethod.POST, "/bulk"),
+                BulkUploadSliceTest.HEADERS,
+                new Content.From(
+                    BulkUploadSliceTest.body(
+                        String.format("linux-64/%s", BulkUploadSliceTest.NAVIGATOR),
+                        String.format("win-64/%s", BulkUploadSliceTest.SEVENZIP)
+                    )
+                )
+            )
+        );
+        MatcherAssert.assertThat(
+            "Navigator was added to linux-64 repodata",
+            this.repodata("linux-64"),
+            new StringContains(BulkUploadSliceTest.NAVIGATOR)
+        );
+        MatcherAssert.assertThat(
+            "7zip was added to win-64 repodata",
+            this.repodata("win-64"),
+            new StringContains(BulkUploadSliceTest.SEVENZIP)
+        );
+        MatcherAssert.assertThat(
+            "Packages were saved to storage",
+            this.asto.exists(new Key.From("linux-64", BulkUploadSliceTest.NAVIGATOR)).join()
+                && this.asto.exists(new Key.From("win-64", BulkUploadSliceTest.SEVENZIP)).join(),
+            new IsEqual<>(true)
+        );
+        MatcherAssert.assertThat("Packages were added to events queue", this.events.size() == 2);
+    }
+
+    @Test
+    void rejectsExistingAndInvalidPackages() throws IOException {
+        final Key existing = new Key.From("linux-64", BulkUploadSliceTest.SEVENZIP);
+        this.asto.save(existing, Content.EMPTY).join();
+        MatcherAssert.assertThat(
+            "Slice returned 201 CREATED",
+            new BulkUploadSlice(this.asto, this.jobs, false),
+            new SliceHasResponse(
+                new RsHasStatus(RsStatus.CREATED),
+                new RequestLine(RqMethod.POST, "/bulk"),
+                BulkUploadSliceTest.HEADERS,
+                new Content.From(
+                    BulkUploadSliceTest.body(
+                        existing.string(),
+                        String.format("linux-64/%s", BulkUploadSliceTest.NAVIGATOR),
+                        BulkUploadSliceTest.NAVIGATOR
+                    )
+                )
+            )
+        );
+        MatcherAssert.assertThat(
+            "Existing package was not added to repodata",
+            this.repodata("linux-64").contains(BulkUploadSliceTest.SEVENZIP),
+            new IsEqual<>(false)
+        );
+        MatcherAssert.assertThat(
+            "Valid package was added to repodata",
+            this.repodata("linux-64"),
+            new StringContains(BulkUploadSliceTest.NAVIGATOR)
+        );
+        MatcherAssert.assertThat("Package was added to events queue", this.events.size() == 1);
+    }
+
+    @Test
+    void rejectsUnsafePackageKeys() throws IOException {
+        MatcherAssert.assertThat(
+            "Slice returned 201 CREATED",
+            new BulkUploadSlice(this.asto, this.jobs, false),
+            new SliceHasResponse(
+                new RsHasStatus(RsStatus.CREATED),
+                new RequestLine(RqMethod.POST, "/bulk"),
+                BulkUploadSliceTest.HEADERS,
+                new Content.From(
+                    BulkUploadSliceTest.body(
+                        String.format("../%s", BulkUploadSliceTest.NAVIGATOR),
+                        String.format(".upload/%s", BulkUploadSliceTest.NAVIGATOR),
+                        String.format("linux-64/%s", BulkUploadSliceTest.NAVIGATOR)
+                    )
+                )
+            )
+        );
+        MatcherAssert.assertThat(
+            "Only the package with safe key was saved",
+            this.asto.list(Key.ROOT).join().stream().map(Key::string)
+                .filter(key -> key.endsWith(BulkUploadSliceTest.NAVIGATOR))
+                .collect(Collectors.toList()),
+            new IsEqual<>(
+                Collections.singletonList(
+                    String.format("linux-64/%s", BulkUploadSliceTest.NAVIGATOR)
+                )
+            )
+        );
+        MatcherAssert.assertThat("Package was added to events queue", this.events.size() == 1);
+    }
+
+    @Test
+    void returnsBadRequestIfNoPackageAccepted() throws IOException {
+        MatcherAssert.assertThat(
+            new BulkUploadSlice(this.asto, this.jobs, false),
+            new SliceHasResponse(
+                new RsHasStatus(RsStatus.BAD_REQUEST),
+                new RequestLine(RqMethod.POST, "/bulk"),
+                BulkUploadSliceTest.HEADERS,
+                new Content.From(BulkUploadSliceTest.body(BulkUploadSliceTest.SEVENZIP))
+            )
+        );
+        MatcherAssert.assertThat(
+            "Package info was not added to events queue", this.events.isEmpty()
+        );
+    }
+
+    private String repodata(final String subdir) {
+        return new PublisherAs(this.asto.value(new Key.From(subdir, "repodata.json")).join())
+            .asciiString().toCompletableFuture().join();
+    }
+
+    private static byte[] body(final String... keys) throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write("Ignored preamble".getBytes(StandardCharsets.US_ASCII));
+        for (final String key : keys) {
+            body.write(
+                String.join(
+                    "\r\n",
+                    "",
+                    "--simple boundary",
+                    String.format(
+                        "Content-Disposition: form-data; name=\"file\"; filename=\"%s\"", key
+                    ),
+                    "",
+                    ""
+                ).getBytes(StandardCharsets.US_ASCII)
+            );
+            body.write(new TestResource(new KeyLastPart(new Key.From(key)).get()).asBytes());
+        }
+        body.write("\r\n--simple boundary--".getBytes(StandardCharsets.US_ASCII));
+        return body.toByteArray();
+    }
+
+}
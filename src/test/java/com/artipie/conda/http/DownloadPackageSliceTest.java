@@ -0,0 +1,104 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.http;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Storage;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.conda.asto.SharedReads;
+import com.artipie.http.Headers;
+import com.artipie.http.headers.ContentDisposition;
+import com.artipie.http.headers.Header;
+import com.artipie.http.hm.RsHasBody;
+import com.artipie.http.hm.RsHasHeaders;
+import com.artipie.http.hm.RsHasStatus;
+import com.artipie.http.hm.SliceHasResponse;
+import com.artipie.http.rq.RequestLine;
+import com.artipie.http.rq.RqMethod;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.http.slice.KeyFromPath;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Test for {@link DownloadPackageSlice}.
+ * @since 0.4
+ */
+class DownloadPackageSliceTest {
+
+    /**
+     * Package path.
+     */
+    private static final String PATH = "/linux-64/test-0.1-0.tar.bz2";
+
+    /**
+     * Test storage.
+     */
+    private Storage asto;
+
+    @BeforeEach
+    void init() {
+        this.asto = new InMemoryStorage();
+        this.asto.save(
+            new KeyFromPath(DownloadPackageSliceTest.PATH), new Content.From("package".getBytes())
+        ).join();
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 1024})
+    void returnsPackage(final long limit) {
+        MatcherAssert.assertThat(
+            this.slice(limit),
+            new SliceHasResponse(
+                Matchers.allOf(
+                    new RsHasStatus(RsStatus.OK),
+                    new RsHasBody("package".getBytes()),
+                    new RsHasHeaders(
+                        new ContentDisposition("attachment; filename=\"test-0.1-0.tar.bz2\""),
+                        new Header("Accept-Ranges", "bytes")
+                    )
+                ),
+                new RequestLine(RqMethod.GET, DownloadPackageSliceTest.PATH)
+            )
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 1024})
+    void resumesDownload(final long limit) {
+        MatcherAssert.assertThat(
+            this.slice(limit),
+            new SliceHasResponse(
+                Matchers.allOf(
+                    new RsHasStatus(RsStatus.PARTIAL_CONTENT),
+                    new RsHasBody("kage".getBytes()),
+                    new RsHasHeaders(new Header("Content-Range", "bytes 3-6/7"))
+                ),
+                new RequestLine(RqMethod.GET, DownloadPackageSliceTest.PATH),
+                new Headers.From("Range", "bytes=3-"),
+                Content.EMPTY
+            )
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 1024})
+    void returnsNotFoundIfPackageNotExists(final long limit) {
+        MatcherAssert.assertThat(
+            this.slice(limit),
+            new SliceHasResponse(
+                new RsHasStatus(RsStatus.NOT_FOUND),
+                new RequestLine(RqMethod.GET, "/noarch/absent-0.1-0.tar.bz2")
+            )
+        );
+    }
+
+    private DownloadPackageSlice slice(final long limit) {
+        return new DownloadPackageSlice(this.asto, KeyFromPath::new, new SharedReads(limit));
+    }
+}
@@ -7,19 +7,35 @@ package com.artipie.conda.http;
 import com.artipie.asto.Content;
 import com.artipie.asto.Key;
 import com.artipie.asto.Storage;
+import com.artipie.asto.ext.ContentDigest;
+import com.artipie.asto.ext.Digests;
 import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.conda.asto.RepodataCache;
+import com.artipie.conda.asto.StampKey;
+import com.artipie.conda.meta.Compression;
+import com.artipie.conda.meta.RepodataStamp;
+import com.artipie.http.Headers;
 import com.artipie.http.headers.ContentDisposition;
 import com.artipie.http.headers.ContentLength;
+import com.artipie.http.headers.Header;
 import com.artipie.http.hm.RsHasBody;
 import com.artipie.http.hm.RsHasHeaders;
+import com.artipie.http.hm.RsHasStatus;
 import com.artipie.http.hm.SliceHasResponse;
 import com.artipie.http.rq.RequestLine;
 import com.artipie.http.rq.RqMethod;
+import com.artipie.http.rs.RsStatus;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Collectors;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
 /**
@@ -60,6 +76,178 @@ class DownloadRepodataSliceTest {
         );
     }
 
+    @ParameterizedTest
+    @CsvSource({
+        "gzip, gz",
+        "'gzip;q=0.5, zstd', zst",
+        "'zstd;q=0, gzip', gz",
+        "*, zst"
+    })
+    void encodesRepodataAndCachesBody(final String accept, final String ext)
+        throws IOException {
+        final byte[] bytes = "{\"info\":{\"subdir\":\"linux-64\"}}".getBytes();
+        final Key key = new Key.From("linux-64/repodata.json");
+        this.asto.save(key, new Content.From(bytes)).join();
+        final String encoding;
+        final Compression compression;
+        if ("gz".equals(ext)) {
+            encoding = "gzip";
+            compression = new Compression.Gzip();
+        } else {
+            encoding = "zstd";
+            compression = new Compression.Zstd();
+        }
+        final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (OutputStream out = compression.compress(encoded)) {
+            out.write(bytes);
+        }
+        MatcherAssert.assertThat(
+            "Repodata should be encoded",
+            new DownloadRepodataSlice(this.asto),
+            new SliceHasResponse(
+                Matchers.allOf(
+                    new RsHasBody(encoded.toByteArray()),
+                    new RsHasHeaders(
+                        new Header("Content-Encoding", encoding),
+                        new Header("Vary", "Accept-Encoding")
+                    )
+                ),
+                new RequestLine(RqMethod.GET, "/linux-64/repodata.json"),
+                new Headers.From("Accept-Encoding", accept),
+                Content.EMPTY
+            )
+        );
+        MatcherAssert.assertThat(
+            "Encoded body should be cached by repodata checksum",
+            this.asto.exists(
+                new Key.From(
+                    String.format(
+                        "linux-64/.encoded/repodata.json.%s.%s",
+                        DownloadRepodataSliceTest.sha256(bytes), ext
+                    )
+                )
+            ).join(),
+            new IsEqual<>(true)
+        );
+    }
+
+    @Test
+    void removesStaleEncodedBodies() {
+        final Key key = new Key.From("noarch/repodata.json");
+        final DownloadRepodataSlice slice = new DownloadRepodataSlice(this.asto);
+        for (final String json : new String[] {"{}", "{\"info\":{}}"}) {
+            this.asto.save(key, new Content.From(json.getBytes())).join();
+            MatcherAssert.assertThat(
+                slice,
+                new SliceHasResponse(
+                    new RsHasStatus(RsStatus.OK),
+                    new RequestLine(RqMethod.GET, "/noarch/repodata.json"),
+                    new Headers.From("Accept-Encoding", "gzip"),
+                    Content.EMPTY
+                )
+            );
+        }
+        MatcherAssert.assertThat(
+            this.asto.list(new Key.From("noarch")).join().stream().map(Key::string)
+                .collect(Collectors.toList()),
+            Matchers.containsInAnyOrder(
+                "noarch/repodata.json",
+                String.format(
+                    "noarch/.encoded/repodata.json.%s.gz",
+                    DownloadRepodataSliceTest.sha256("{\"info\":{}}".getBytes())
+                )
+            )
+        );
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "If-None-Match, '\"abc\"'",
+        "If-None-Match, 'W/\"xyz\", \"abc\"'",
+        "If-None-Match, *",
+        "If-Modified-Since, 'Tue, 15 Nov 1994 08:12:31 GMT'",
+        "If-Modified-Since, 'Wed, 16 Nov 1994 00:00:00 GMT'"
+    })
+    void returnsNotModifiedByStamp(final String header, final String value) throws IOException {
+        this.stamped("abc");
+        MatcherAssert.assertThat(
+            new DownloadRepodataSlice(this.asto),
+            new SliceHasResponse(
+                Matchers.allOf(
+                    new RsHasStatus(RsStatus.NOT_MODIFIED),
+                    new RsHasHeaders(
+                        new Header("ETag", "\"abc\""),
+                        new Header("Last-Modified", "Tue, 15 Nov 1994 08:12:31 GMT")
+                    )
+                ),
+                new RequestLine(RqMethod.GET, "/linux-64/repodata.json"),
+                new Headers.From(header, value),
+                Content.EMPTY
+            )
+        );
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "If-None-Match, '\"def\"'",
+        "If-Modified-Since, 'Mon, 14 Nov 1994 08:12:31 GMT'",
+        "If-Modified-Since, 'not a date'"
+    })
+    void returnsRepodataIfModified(final String header, final String value) throws IOException {
+        final byte[] bytes = this.stamped("abc");
+        MatcherAssert.assertThat(
+            new DownloadRepodataSlice(this.asto),
+            new SliceHasResponse(
+                Matchers.allOf(
+                    new RsHasStatus(RsStatus.OK),
+                    new RsHasBody(bytes),
+                    new RsHasHeaders(new Header("ETag", "\"abc\""))
+                ),
+                new RequestLine(RqMethod.GET, "/linux-64/repodata.json"),
+                new Headers.From(header, value),
+                Content.EMPTY
+            )
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"repodata.json.bz2", "repodata.json.zst", "repodata.jlap"})
+    void returnsVariantIfExists(final String filename) {
+        final byte[] bytes = "compressed".getBytes();
+        this.asto.save(
+            new Key.From("linux-64", filename), new Content.From(bytes)
+        ).join();
+        MatcherAssert.assertThat(
+            new DownloadRepodataSlice(this.asto),
+            new SliceHasResponse(
+                Matchers.allOf(
+                    new RsHasBody(bytes),
+                    new RsHasHeaders(
+                        new ContentDisposition(
+                            String.format("attachment; filename=\"%s\"", filename)
+                        ),
+                        new ContentLength(bytes.length)
+                    )
+                ),
+                new RequestLine(RqMethod.GET, String.format("/linux-64/%s", filename))
+            )
+        );
+    }
+
+    @Test
+    void returnsNotFoundIfCompressedVariantNotExists() {
+        this.asto.save(
+            new Key.From("noarch/repodata.json"), new Content.From("{}".getBytes())
+        ).join();
+        MatcherAssert.assertThat(
+            new DownloadRepodataSlice(this.asto),
+            new SliceHasResponse(
+                new RsHasStatus(RsStatus.NOT_FOUND),
+                new RequestLine(RqMethod.GET, "/noarch/repodata.json.zst")
+            )
+        );
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {"current_repodata.json", "repodata.json"})
     void returnsEmptyJsonIfNotExists(final String filename) {
@@ -80,4 +268,133 @@ class DownloadRepodataSliceTest {
             )
         );
     }
+
+    @Test
+    void servesRepodataFromCache() throws IOException {
+        final byte[] bytes = this.stamped("abc");
+        final RepodataCache cache = new RepodataCache(1024);
+        final DownloadRepodataSlice slice = new DownloadRepodataSlice(this.asto, cache);
+        for (int attempt = 0; attempt < 2; attempt = attempt + 1) {
+            MatcherAssert.assertThat(
+                slice,
+                new SliceHasResponse(
+                    new RsHasBody(bytes),
+                    new RequestLine(RqMethod.GET, "/linux-64/repodata.json")
+                )
+            );
+        }
+        MatcherAssert.assertThat(
+            "Second request should be served from cache",
+            cache.hits(),
+            new IsEqual<>(2L)
+        );
+    }
+
+    @Test
+    void returnsNotFoundIfStampedRepodataNotExists() throws IOException {
+        this.stamped("abc");
+        this.asto.delete(new Key.From("linux-64/repodata.json")).join();
+        MatcherAssert.assertThat(
+            new DownloadRepodataSlice(this.asto),
+            new SliceHasResponse(
+                new RsHasStatus(RsStatus.NOT_FOUND),
+                new RequestLine(RqMethod.GET, "/linux-64/repodata.json")
+            )
+        );
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "bytes=2-5, 'mpre', 'bytes 2-5/10'",
+        "bytes=6-, 'ssed', 'bytes 6-9/10'",
+        "bytes=-3, 'sed', 'bytes 7-9/10'",
+        "bytes=8-100, 'ed', 'bytes 8-9/10'"
+    })
+    void returnsRangeOfVariant(final String range, final String part, final String bounds) {
+        this.asto.save(
+            new Key.From("linux-64", "repodata.jlap"), new Content.From("compressed".getBytes())
+        ).join();
+        MatcherAssert.assertThat(
+            new DownloadRepodataSlice(this.asto),
+            new SliceHasResponse(
+                Matchers.allOf(
+                    new RsHasStatus(RsStatus.PARTIAL_CONTENT),
+                    new RsHasBody(part.getBytes()),
+                    new RsHasHeaders(
+                        new Header("Content-Range", bounds),
+                        new ContentLength(part.length())
+                    )
+                ),
+                new RequestLine(RqMethod.GET, "/linux-64/repodata.jlap"),
+                new Headers.From("Range", range),
+                Content.EMPTY
+            )
+        );
+    }
+
+    @Test
+    void returnsNotSatisfiableForRangeAfterEnd() {
+        this.asto.save(
+            new Key.From("linux-64", "repodata.json.zst"), new Content.From("zst".getBytes())
+        ).join();
+        MatcherAssert.assertThat(
+            new DownloadRepodataSlice(this.asto),
+            new SliceHasResponse(
+                Matchers.allOf(
+                    new RsHasStatus(RsStatus.REQUESTED_RANGE_NOT_SATISFIABLE),
+                    new RsHasHeaders(new Header("Content-Range", "bytes */3"))
+                ),
+                new RequestLine(RqMethod.GET, "/linux-64/repodata.json.zst"),
+                new Headers.From("Range", "bytes=3-"),
+                Content.EMPTY
+            )
+        );
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "'\"abc\"', PARTIAL_CONTENT",
+        "'Tue, 15 Nov 1994 08:12:31 GMT', PARTIAL_CONTENT",
+        "'\"def\"', OK",
+        "'W/\"abc\"', OK",
+        "'Mon, 14 Nov 1994 08:12:31 GMT', OK"
+    })
+    void returnsRangeOfRepodataIfUnchanged(final String cond, final RsStatus status)
+        throws IOException {
+        this.stamped("abc");
+        MatcherAssert.assertThat(
+            new DownloadRepodataSlice(this.asto),
+            new SliceHasResponse(
+                Matchers.allOf(
+                    new RsHasStatus(status),
+                    new RsHasHeaders(
+                        new Header("ETag", "\"abc\""),
+                        new Header("Accept-Ranges", "bytes")
+                    )
+                ),
+                new RequestLine(RqMethod.GET, "/linux-64/repodata.json"),
+                new Headers.From(
+                    new Header("Range", "bytes=0-1"),
+                    new Header("If-Range", cond)
+                ),
+                Content.EMPTY
+            )
+        );
+    }
+
+    private byte[] stamped(final String sha) throws IOException {
+        final byte[] bytes = "{\"info\":{\"subdir\":\"linux-64\"}}".getBytes();
+        final Key key = new Key.From("linux-64/repodata.json");
+        this.asto.save(key, new Content.From(bytes)).join();
+        final ByteArrayOutputStream stamp = new ByteArrayOutputStream();
+        // @checkstyle MagicNumberCheck (1 line)
+        new RepodataStamp(sha, 784_887_151_000L).writeTo(stamp);
+        this.asto.save(new StampKey(key), new Content.From(stamp.toByteArray())).join();
+        return bytes;
+    }
+
+    private static String sha256(final byte[] bytes) {
+        return new ContentDigest(new Content.From(bytes), Digests.SHA256).hex()
+            .toCompletableFuture().join();
+    }
 }
@@ -0,0 +1,110 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.http;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.http.headers.Header;
+import com.artipie.http.hm.RsHasBody;
+import com.artipie.http.hm.RsHasHeaders;
+import com.artipie.http.hm.RsHasStatus;
+import com.artipie.http.hm.SliceHasResponse;
+import com.artipie.http.rq.RequestLine;
+import com.artipie.http.rq.RqMethod;
+import com.artipie.http.rs.RsStatus;
+import java.util.Collections;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Test for {@link DownloadShardsSlice}.
+ * @since 0.4
+ */
+class DownloadShardsSliceTest {
+
+    /**
+     * Shard file name.
+     */
+    private static final String SHARD = String.format(
+        "shards/%s.msgpack.zst", String.join("", Collections.nCopies(64, "a"))
+    );
+
+    /**
+     * Test storage.
+     */
+    private Storage asto;
+
+    @BeforeEach
+    void init() {
+        this.asto = new InMemoryStorage();
+    }
+
+    @Test
+    void returnsImmutableShard() {
+        final byte[] bytes = "shard".getBytes();
+        this.asto.save(
+            new Key.From("linux-64", DownloadShardsSliceTest.SHARD), new Content.From(bytes)
+        ).join();
+        MatcherAssert.assertThat(
+            new DownloadShardsSlice(this.asto),
+            new SliceHasResponse(
+                Matchers.allOf(
+                    new RsHasStatus(RsStatus.OK),
+                    new RsHasBody(bytes),
+                    new RsHasHeaders(
+                        new Header("Cache-Control", "public, max-age=31536000, immutable")
+                    )
+                ),
+                new RequestLine(
+                    RqMethod.GET,
+                    String.format("/t/token/linux-64/%s", DownloadShardsSliceTest.SHARD)
+                )
+            )
+        );
+    }
+
+    @Test
+    void returnsIndexWithRevalidation() {
+        final byte[] bytes = "index".getBytes();
+        this.asto.save(
+            new Key.From("noarch/repodata_shards.msgpack.zst"), new Content.From(bytes)
+        ).join();
+        MatcherAssert.assertThat(
+            new DownloadShardsSlice(this.asto),
+            new SliceHasResponse(
+                Matchers.allOf(
+                    new RsHasStatus(RsStatus.OK),
+                    new RsHasBody(bytes),
+                    new RsHasHeaders(new Header("Cache-Control", "no-cache"))
+                ),
+                new RequestLine(RqMethod.GET, "/noarch/repodata_shards.msgpack.zst")
+            )
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"repodata_shards.msgpack.zst", "shards/%s.msgpack.zst"})
+    void returnsNotFoundIfAbsent(final String name) {
+        MatcherAssert.assertThat(
+            new DownloadShardsSlice(this.asto),
+            new SliceHasResponse(
+                new RsHasStatus(RsStatus.NOT_FOUND),
+                new RequestLine(
+                    RqMethod.GET,
+                    String.format(
+                        "/linux-64/%s",
+                        String.format(name, String.join("", Collections.nCopies(64, "b")))
+                    )
+                )
+            )
+        );
+    }
+}
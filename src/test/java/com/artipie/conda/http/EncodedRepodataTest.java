@@ -0,0 +1,193 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.http;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.ContentDigest;
+import com.artipie.asto.ext.Digests;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.conda.asto.CompressedKey;
+import com.artipie.conda.asto.EncodedKey;
+import com.artipie.conda.asto.RepodataCache;
+import com.artipie.conda.meta.Compression;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link EncodedRepodata}.
+ * @since 0.4
+ */
+class EncodedRepodataTest {
+
+    /**
+     * Repodata key.
+     */
+    private static final Key KEY = new Key.From("noarch", "repodata.json");
+
+    /**
+     * Repodata bytes.
+     */
+    private static final byte[] REPODATA =
+        "{\"info\":{\"subdir\":\"noarch\"}}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void sharesEncodingOfConcurrentMisses() {
+        final GatedStorage asto = new GatedStorage(new InMemoryStorage());
+        asto.save(EncodedRepodataTest.KEY, new Content.From(EncodedRepodataTest.REPODATA))
+            .join();
+        final Optional<String> sha = Optional.of(EncodedRepodataTest.sha256());
+        final ConcurrentMap<String, CompletableFuture<byte[]>> flights =
+            new ConcurrentHashMap<>();
+        final List<CompletionStage<Content>> bodies = new ArrayList<>(5);
+        for (int idx = 0; idx < 5; idx = idx + 1) {
+            bodies.add(
+                new EncodedRepodata(
+                    asto, EncodedRepodataTest.KEY, new Compression.Gzip(), sha,
+                    RepodataCache.NONE, flights
+                ).content()
+            );
+        }
+        asto.open();
+        MatcherAssert.assertThat(
+            "Encoded bodies should be the same",
+            bodies.stream()
+                .map(body -> body.toCompletableFuture().join())
+                .map(body -> new PublisherAs(body).bytes().toCompletableFuture().join().length)
+                .distinct().count(),
+            new IsEqual<>(1L)
+        );
+        MatcherAssert.assertThat(
+            "Repodata should be encoded once",
+            asto.reads(),
+            new IsEqual<>(1)
+        );
+    }
+
+    @Test
+    void cachesBodyByChecksumOfEncodedRepodata() {
+        final Storage asto = new InMemoryStorage();
+        asto.save(EncodedRepodataTest.KEY, new Content.From(EncodedRepodataTest.REPODATA))
+            .join();
+        final String stale = String.join("", Collections.nCopies(64, "a"));
+        new EncodedRepodata(
+            asto, EncodedRepodataTest.KEY, new Compression.Gzip(), Optional.of(stale),
+            RepodataCache.NONE, new ConcurrentHashMap<>()
+        ).content().toCompletableFuture().join();
+        MatcherAssert.assertThat(
+            asto.list(new Key.From("noarch")).join().stream().map(Key::string)
+                .collect(Collectors.toList()),
+            Matchers.containsInAnyOrder(
+                "noarch/repodata.json",
+                String.format(
+                    "noarch/.encoded/repodata.json.%s.gz", EncodedRepodataTest.sha256()
+                )
+            )
+        );
+    }
+
+    @Test
+    void servesCompressedVariantOfKnownRevision() {
+        final Storage asto = new InMemoryStorage();
+        asto.save(EncodedRepodataTest.KEY, new Content.From(EncodedRepodataTest.REPODATA))
+            .join();
+        final byte[] variant = {1, 2, 3};
+        asto.save(
+            new CompressedKey(EncodedRepodataTest.KEY, new Compression.Zstd()),
+            new Content.From(variant)
+        ).join();
+        MatcherAssert.assertThat(
+            "Saved variant should be served",
+            new PublisherAs(
+                new EncodedRepodata(
+                    asto, EncodedRepodataTest.KEY, new Compression.Zstd(),
+                    Optional.of(EncodedRepodataTest.sha256()), RepodataCache.NONE,
+                    new ConcurrentHashMap<>()
+                ).content().toCompletableFuture().join()
+            ).bytes().toCompletableFuture().join(),
+            new IsEqual<>(variant)
+        );
+        MatcherAssert.assertThat(
+            "Repodata should not be encoded again",
+            asto.list(new EncodedKey.Prefix(EncodedRepodataTest.KEY)).join(),
+            Matchers.empty()
+        );
+    }
+
+    private static String sha256() {
+        return new ContentDigest(
+            new Content.From(EncodedRepodataTest.REPODATA), Digests.SHA256
+        ).hex().toCompletableFuture().join();
+    }
+
+    /**
+     * Storage which holds repodata reads until it is opened and counts them.
+     * @since 0.4
+     */
+    private static final class GatedStorage extends Storage.Wrap {
+
+        /**
+         * Gate.
+         */
+        private final CompletableFuture<Void> gate;
+
+        /**
+         * Repodata reads counter.
+         */
+        private final AtomicInteger count;
+
+        /**
+         * Ctor.
+         * @param origin Origin storage
+         */
+        GatedStorage(final Storage origin) {
+            super(origin);
+            this.gate = new CompletableFuture<>();
+            this.count = new AtomicInteger();
+        }
+
+        @Override
+        public CompletableFuture<Content> value(final Key key) {
+            final CompletableFuture<Content> res;
+            if (key.equals(EncodedRepodataTest.KEY)) {
+                this.count.incrementAndGet();
+                res = this.gate.thenCompose(nothing -> super.value(key));
+            } else {
+                res = super.value(key);
+            }
+            return res;
+        }
+
+        /**
+         * Opens the gate.
+         */
+        void open() {
+            this.gate.complete(null);
+        }
+
+        /**
+         * Number of repodata reads.
+         * @return Count
+         */
+        int reads() {
+            return this.count.get();
+        }
+    }
+}
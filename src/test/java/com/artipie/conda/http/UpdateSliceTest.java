@@ -10,6 +10,9 @@ import com.artipie.asto.Storage;
 import com.artipie.asto.ext.PublisherAs;
 import com.artipie.asto.memory.InMemoryStorage;
 import com.artipie.asto.test.TestResource;
+import com.artipie.conda.asto.GroupMerge;
+import com.artipie.conda.asto.IndexJobs;
+import com.artipie.conda.asto.RepodataCache;
 import com.artipie.http.Headers;
 import com.artipie.http.headers.ContentType;
 import com.artipie.http.hm.RsHasStatus;
@@ -26,6 +29,7 @@ import java.util.Optional;
 import java.util.Queue;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.StringContains;
 import org.json.JSONException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -144,6 +148,42 @@ class UpdateSliceTest {
         MatcherAssert.assertThat("Package info was added to events queue", this.events.size() == 1);
     }
 
+    @Test
+    void acceptsPackageAndIndexesInBackground() throws IOException, InterruptedException {
+        final Key key = new Key.From("win-64", "7zip-19.00-h59b6b97_2.conda");
+        final IndexJobs jobs = new IndexJobs(
+            this.asto, new GroupMerge(this.asto, RepodataCache.NONE),
+            Optional.of(this.events), UpdateSliceTest.RNAME
+        );
+        MatcherAssert.assertThat(
+            "Slice returned 202 ACCEPTED",
+            new UpdateSlice(this.asto, jobs, true),
+            new SliceHasResponse(
+                new RsHasStatus(RsStatus.ACCEPTED),
+                new RequestLine(RqMethod.POST, String.format("/%s", key.string())),
+                UpdateSliceTest.HEADERS,
+                new Content.From(
+                    this.body(new TestResource("7zip-19.00-h59b6b97_2.conda").asBytes())
+                )
+            )
+        );
+        final long deadline = System.currentTimeMillis() + 10_000;
+        String status = "";
+        while (!"indexed".equals(status) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            status = jobs.status(key).toCompletableFuture().join()
+                .map(IndexJobs.Status::name).orElse("");
+        }
+        MatcherAssert.assertThat("Package was indexed", status, new IsEqual<>("indexed"));
+        MatcherAssert.assertThat(
+            "Package was added to repodata",
+            new PublisherAs(this.asto.value(new Key.From("win-64", "repodata.json")).join())
+                .asciiString().toCompletableFuture().join(),
+            new StringContains("7zip-19.00-h59b6b97_2.conda")
+        );
+        MatcherAssert.assertThat("Package info was added to events queue", this.events.size() == 1);
+    }
+
     @Test
     void returnsBadRequestIfRequestLineIsIncorrect() {
         MatcherAssert.assertThat(
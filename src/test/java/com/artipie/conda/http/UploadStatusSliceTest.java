@@ -0,0 +1,143 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.http;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.conda.asto.GroupMerge;
+import com.artipie.conda.asto.IndexJob;
+import com.artipie.conda.asto.IndexJobs;
+import com.artipie.conda.asto.RepodataCache;
+import com.artipie.http.Headers;
+import com.artipie.http.hm.RsHasBody;
+import com.artipie.http.hm.RsHasStatus;
+import com.artipie.http.hm.SliceHasResponse;
+import com.artipie.http.rq.RequestLine;
+import com.artipie.http.rq.RqMethod;
+import com.artipie.http.rs.RsStatus;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Optional;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link UploadStatusSlice}.
+ * @since 0.4
+ */
+class UploadStatusSliceTest {
+
+    /**
+     * Package key.
+     */
+    private static final Key PKG = new Key.From("noarch", "six-1.16.0-py_0.tar.bz2");
+
+    /**
+     * Status request line.
+     */
+    private static final RequestLine STATUS = new RequestLine(
+        RqMethod.GET, "/noarch/six-1.16.0-py_0.tar.bz2/status"
+    );
+
+    /**
+     * Test storage.
+     */
+    private Storage asto;
+
+    /**
+     * Index jobs.
+     */
+    private IndexJobs jobs;
+
+    @BeforeEach
+    void init() {
+        this.asto = new InMemoryStorage();
+        this.jobs = new IndexJobs(
+            this.asto, new GroupMerge(this.asto, RepodataCache.NONE), Optional.empty(), "conda"
+        );
+    }
+
+    @Test
+    void reportsFailedJobWithError() {
+        this.asto.save(
+            new Key.From(".jobs", "noarch", "six-1.16.0-py_0.tar.bz2.json"),
+            new Content.From(UploadStatusSliceTest.job().failed("Broken package").bytes())
+        ).join();
+        MatcherAssert.assertThat(
+            new UploadStatusSlice(this.jobs),
+            new SliceHasResponse(
+                Matchers.allOf(
+                    new RsHasStatus(RsStatus.OK),
+                    new RsHasBody(
+                        String.join(
+                            "",
+                            "{\"package\":\"noarch/six-1.16.0-py_0.tar.bz2\",",
+                            "\"status\":\"failed\",\"error\":\"Broken package\"}"
+                        ).getBytes(StandardCharsets.UTF_8)
+                    )
+                ),
+                UploadStatusSliceTest.STATUS
+            )
+        );
+    }
+
+    @Test
+    void reportsIndexedPackage() {
+        this.asto.save(UploadStatusSliceTest.PKG, new Content.From(new byte[]{1, 2, 3})).join();
+        MatcherAssert.assertThat(
+            new UploadStatusSlice(this.jobs),
+            new SliceHasResponse(
+                Matchers.allOf(
+                    new RsHasStatus(RsStatus.OK),
+                    new RsHasBody(
+                        "{\"package\":\"noarch/six-1.16.0-py_0.tar.bz2\",\"status\":\"indexed\"}"
+                            .getBytes(StandardCharsets.UTF_8)
+                    )
+                ),
+                UploadStatusSliceTest.STATUS
+            )
+        );
+    }
+
+    @Test
+    void returnsNotFoundForUnknownPackage() {
+        MatcherAssert.assertThat(
+            new UploadStatusSlice(this.jobs),
+            new SliceHasResponse(
+                new RsHasStatus(RsStatus.NOT_FOUND), UploadStatusSliceTest.STATUS
+            )
+        );
+    }
+
+    @Test
+    void returnsBadRequestForInvalidPath() {
+        MatcherAssert.assertThat(
+            new UploadStatusSlice(this.jobs),
+            new SliceHasResponse(
+                new RsHasStatus(RsStatus.BAD_REQUEST),
+                new RequestLine(RqMethod.GET, "/noarch/six-1.16.0-py_0.zip/status"),
+                Headers.EMPTY,
+                Content.EMPTY
+            )
+        );
+    }
+
+    private static IndexJob job() {
+        final JsonObject index = Json.createObjectBuilder()
+            .add("name", "six").add("version", "1.16.0").add("build", "py_0")
+            .add("build_number", 0).add("subdir", "noarch").build();
+        return new IndexJob(
+            UploadStatusSliceTest.PKG, new Key.From(".upload", UploadStatusSliceTest.PKG),
+            "alice", Collections.singletonMap("info/index.json", index),
+            Json.createObjectBuilder(index).add("size", 3).build()
+        );
+    }
+}
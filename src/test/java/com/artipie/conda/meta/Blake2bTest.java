@@ -0,0 +1,50 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import java.nio.charset.StandardCharsets;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Test for {@link Blake2b}.
+ * @since 0.4
+ */
+class Blake2bTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "'', 0e5751c026e543b2e8ab2eb06099daa1d1e5df47778f7787faab45cdf12fe3a8",
+        "abc, bddd813c634239723171ef3fee98579b94964e3bb1cb3e427262c8c068d52319"
+    })
+    void computesDigest(final String input, final String expected) {
+        final byte[] bytes = input.getBytes(StandardCharsets.US_ASCII);
+        final Blake2b blake = new Blake2b();
+        blake.update(bytes, 0, bytes.length);
+        MatcherAssert.assertThat(
+            Blake2b.hex(blake.digest()),
+            new IsEqual<>(expected)
+        );
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "1, f3719b9e9fbe04e35f255cd7a929c524d98db121192f646e52c33b9b1bd86d6f",
+        "128, 90de785925826fccb05cd3a8dfc1b1e85c172e07c0f76cfb47f5175baea9b71e",
+        "300, 0f61e1a0953c24a50c51ed25cce109c274f4a53efbe01570fc050fb18c2b2786"
+    })
+    void computesKeyedDigestOfBlocks(final int size, final String expected) {
+        final byte[] bytes = new byte[size];
+        for (int idx = 0; idx < size; idx = idx + 1) {
+            bytes[idx] = (byte) idx;
+        }
+        MatcherAssert.assertThat(
+            Blake2b.hex(Blake2b.keyed(new byte[Blake2b.SIZE], bytes)),
+            new IsEqual<>(expected)
+        );
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.cactoos.map.MapEntry;
+import org.cactoos.map.MapOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+/**
+ * Test for {@link ChannelData} and {@link ChannelSummary}.
+ * @since 0.4
+ */
+class ChannelDataTest {
+
+    @Test
+    void mergesLatestVersionsOfSubdirs() throws IOException, JSONException {
+        final ChannelSummary linux = new ChannelSummary()
+            .with(
+                "zlib-1.2.13-h1.tar.bz2",
+                new MapOf<String, JsonObject>(
+                    new MapEntry<>(
+                        InfoIndex.ABOUT,
+                        ChannelDataTest.json(
+                            "{\"home\":\"https://zlib.net\",\"license\":\"Zlib\",\"extra\":\"x\"}"
+                        )
+                    ),
+                    new MapEntry<>(
+                        InfoIndex.RUN_EXPORTS,
+                        ChannelDataTest.json("{\"weak\":[\"zlib >=1.2.13\"]}")
+                    )
+                )
+            )
+            .update(
+                "linux-64",
+                ChannelDataTest.repodata(
+                    ChannelDataTest.entry("zlib-1.2.11-h0.tar.bz2", "zlib", "1.2.11", 1),
+                    ChannelDataTest.entry("zlib-1.2.13-h1.tar.bz2", "zlib", "1.2.13", 2)
+                )
+            );
+        final ChannelSummary noarch = new ChannelSummary().update(
+            "noarch",
+            ChannelDataTest.repodata(
+                ChannelDataTest.entry("zlib-1.2.12-h0.tar.bz2", "zlib", "1.2.12", 3),
+                ChannelDataTest.entry("six-1.16.0-py_0.tar.bz2", "six", "1.16.0", 4)
+            )
+        );
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ChannelData(
+            new MapOf<String, ChannelSummary>(
+                new MapEntry<>("linux-64", ChannelDataTest.stored(linux)),
+                new MapEntry<>("noarch", noarch)
+            )
+        ).writeTo(out);
+        JSONAssert.assertEquals(
+            String.join(
+                "",
+                "{\"channeldata_version\":1,\"subdirs\":[\"linux-64\",\"noarch\"],",
+                "\"packages\":{",
+                "\"six\":{\"version\":\"1.16.0\",\"timestamp\":4,",
+                "\"reference_package\":\"noarch/six-1.16.0-py_0.tar.bz2\",",
+                "\"subdirs\":[\"noarch\"]},",
+                "\"zlib\":{\"version\":\"1.2.13\",\"timestamp\":2,",
+                "\"reference_package\":\"linux-64/zlib-1.2.13-h1.tar.bz2\",",
+                "\"home\":\"https://zlib.net\",\"license\":\"Zlib\",",
+                "\"run_exports\":{\"1.2.13\":{\"weak\":[\"zlib >=1.2.13\"]}},",
+                "\"subdirs\":[\"linux-64\",\"noarch\"]}}}"
+            ),
+            new String(out.toByteArray(), StandardCharsets.UTF_8),
+            true
+        );
+    }
+
+    @Test
+    void dropsMetadataOfRemovedPackages() throws IOException {
+        final ChannelSummary summary = new ChannelSummary()
+            .with(
+                "six-1.16.0-py_0.tar.bz2",
+                Collections.singletonMap(
+                    InfoIndex.ABOUT, ChannelDataTest.json("{\"license\":\"MIT\"}")
+                )
+            )
+            .update("noarch", ChannelDataTest.repodata());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        summary.writeTo(out);
+        MatcherAssert.assertThat(
+            new String(out.toByteArray(), StandardCharsets.UTF_8),
+            Matchers.not(Matchers.containsString("six"))
+        );
+    }
+
+    @Test
+    void readsSubdirsOfStoredChannelData() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final Map<String, ChannelSummary> summaries = new MapOf<>(
+            new MapEntry<>("noarch", new ChannelSummary()),
+            new MapEntry<>("osx-arm64", new ChannelSummary())
+        );
+        new ChannelData(summaries).writeTo(out);
+        MatcherAssert.assertThat(
+            new ChannelData.Stored(out.toByteArray()).subdirs(),
+            Matchers.contains("noarch", "osx-arm64")
+        );
+    }
+
+    private static ChannelSummary stored(final ChannelSummary summary) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        summary.writeTo(out);
+        return new ChannelSummary.Stored(out.toByteArray()).summary();
+    }
+
+    private static byte[] repodata(final String... entries) {
+        return String.format("{\"packages\":{%s}}", String.join(",", entries))
+            .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String entry(final String filename, final String name,
+        final String version, final long timestamp) {
+        return String.format(
+            "\"%s\":{\"name\":\"%s\",\"version\":\"%s\",\"timestamp\":%d}",
+            filename, name, version, timestamp
+        );
+    }
+
+    private static JsonObject json(final String json) {
+        return Json.createReader(new StringReader(json)).readObject();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Test for {@link CondaVersion}.
+ * @since 0.4
+ */
+class CondaVersionTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "1.1dev1, 1.1a1",
+        "1.1a1, 1.1b1",
+        "1.1b1, 1.1rc1",
+        "1.1rc1, 1.1",
+        "1.1, 1.1post1",
+        "1.9, 1.10",
+        "0.4, 0.4.1",
+        "2.0, 1!0.1",
+        "1.0+abc, 1.0+abd",
+        "1.0_1, 1.0_2"
+    })
+    void ordersVersions(final String lower, final String greater) {
+        MatcherAssert.assertThat(
+            new CondaVersion(lower).compareTo(new CondaVersion(greater)),
+            Matchers.lessThan(0)
+        );
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1.1, 1.1.0", "1.1, 1.1.0.0", "1.0-1, 1.0_1", "1.0RC1, 1.0rc1"})
+    void comparesEqualVersions(final String first, final String second) {
+        MatcherAssert.assertThat(
+            new CondaVersion(first).compareTo(new CondaVersion(second)),
+            new IsEqual<>(0)
+        );
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "1.2.3, 1.2, true",
+        "1.2, 1.2, true",
+        "1.20, 1.2, false",
+        "2.2.3, 1.2, false"
+    })
+    void checksPrefix(final String version, final String prefix, final boolean res) {
+        MatcherAssert.assertThat(
+            new CondaVersion(version).startsWith(new CondaVersion(prefix)),
+            new IsEqual<>(res)
+        );
+    }
+}
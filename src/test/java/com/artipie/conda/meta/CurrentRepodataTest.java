@@ -0,0 +1,81 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import org.cactoos.list.ListOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link CurrentRepodata}.
+ * @since 0.4
+ */
+class CurrentRepodataTest {
+
+    @Test
+    void keepsLatestVersionsAndDependencies() throws IOException {
+        final byte[] input = String.join(
+            "",
+            "{\"info\":{\"subdir\":\"linux-64\"},\"packages\":{",
+            CurrentRepodataTest.entry("app-2.0-0.tar.bz2", "app", "2.0", "\"lib <2.0a0\""),
+            ",",
+            CurrentRepodataTest.entry("app-1.0-0.tar.bz2", "app", "1.0", "\"lib\""),
+            ",",
+            CurrentRepodataTest.entry("lib-1.5-0.tar.bz2", "lib", "1.5", "\"__glibc >=2.17\""),
+            ",",
+            CurrentRepodataTest.entry("lib-1.10-0.tar.bz2", "lib", "1.10", ""),
+            ",",
+            CurrentRepodataTest.entry("lib-2.0rc1-0.tar.bz2", "lib", "2.0rc1", ""),
+            ",",
+            CurrentRepodataTest.entry("lib-2.0-0.tar.bz2", "lib", "2.0", "\"python\""),
+            "},\"packages.conda\":{",
+            CurrentRepodataTest.entry("tool-0.9-0.conda", "tool", "0.9", ""),
+            ",",
+            CurrentRepodataTest.entry("tool-0.10-0.conda", "tool", "0.10", "\"lib 1.5\""),
+            "},\"repodata_version\":1}"
+        ).getBytes(StandardCharsets.UTF_8);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final Set<String> kept = new CurrentRepodata(input, out).write();
+        MatcherAssert.assertThat(
+            "Kept packages are not correct",
+            kept,
+            Matchers.containsInAnyOrder(
+                "app-2.0-0.tar.bz2", "lib-2.0-0.tar.bz2", "lib-1.10-0.tar.bz2",
+                "lib-1.5-0.tar.bz2", "tool-0.10-0.conda"
+            )
+        );
+        final JsonNode json = new ObjectMapper().readTree(out.toByteArray());
+        MatcherAssert.assertThat(
+            "Packages are not correct",
+            new ListOf<>(json.get("packages").fieldNames()),
+            Matchers.contains(
+                "app-2.0-0.tar.bz2", "lib-1.5-0.tar.bz2", "lib-1.10-0.tar.bz2",
+                "lib-2.0-0.tar.bz2"
+            )
+        );
+        MatcherAssert.assertThat(
+            "Root fields should be copied",
+            json.get("info").get("subdir").asText() + json.get("repodata_version").asInt(),
+            new IsEqual<>("linux-641")
+        );
+    }
+
+    private static String entry(final String filename, final String name,
+        final String version, final String depends) {
+        return String.format(
+            // @checkstyle LineLengthCheck (1 line)
+            "\"%s\":{\"build\":\"0\",\"build_number\":0,\"depends\":[%s],\"name\":\"%s\",\"version\":\"%s\"}",
+            filename, depends, name, version
+        );
+    }
+}
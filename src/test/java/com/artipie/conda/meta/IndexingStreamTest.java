@@ -0,0 +1,97 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.artipie.asto.test.TestResource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import org.cactoos.list.ListOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link IndexingStream}.
+ * @since 0.4
+ */
+class IndexingStreamTest {
+
+    @Test
+    void indexesPackagesEntries() throws IOException {
+        final byte[] input = new TestResource("repodata.json").asBytes();
+        final ByteArrayOutputStream res = new ByteArrayOutputStream();
+        final IndexingStream out = new IndexingStream(res);
+        out.write(input);
+        final RepodataIndex index = out.index();
+        MatcherAssert.assertThat(
+            "Entries are not indexed",
+            index.entries().stream().map(RepodataIndex.Entry::name)
+                .collect(Collectors.toList()),
+            new IsEqual<>(
+                new ListOf<>(
+                    "cram-0.7-py36_1.tar.bz2", "decorator-4.2.1-py27_0.tar.bz2",
+                    "pyqt-5.6.0-py36h0386399_5.tar.bz2", "notebook-6.1.1-py38_0.conda",
+                    "tenacity-6.2.0-py37_0.conda"
+                )
+            )
+        );
+        final RepodataIndex.Entry entry = index.find(
+            "b5f77880181b37fb2e180766869da6242648aaec5bdd6de89296d9dacd764c14"
+        ).get();
+        MatcherAssert.assertThat(
+            "Entry range is not correct",
+            new String(
+                Arrays.copyOfRange(input, (int) entry.start(), (int) entry.end()),
+                StandardCharsets.UTF_8
+            ),
+            new IsEqual<>(this.member(input, entry.name()))
+        );
+        MatcherAssert.assertThat(
+            "Index does not match written bytes",
+            index.matches(res.toByteArray()),
+            new IsEqual<>(true)
+        );
+    }
+
+    @Test
+    void ignoresNestedAndEscapedValues() throws IOException {
+        final String json = String.join(
+            "",
+            "{\"info\":{\"packages\":{\"x\":{\"sha256\":\"no\"}}},",
+            "\"packages\":{\"a\\\"b.tar.bz2\":{\"depends\":[\"{\",\"sha256\"],",
+            "\"sha256\":\"a1\",\"x\":{\"sha256\":\"no\"}}}}"
+        );
+        final IndexingStream out = new IndexingStream(new ByteArrayOutputStream());
+        for (final byte bte : json.getBytes(StandardCharsets.UTF_8)) {
+            out.write(bte);
+        }
+        final RepodataIndex index = out.index();
+        MatcherAssert.assertThat(
+            "Only one entry should be indexed",
+            index.entries().size(),
+            new IsEqual<>(1)
+        );
+        MatcherAssert.assertThat(
+            "Entry name or sha256 is not correct",
+            index.find("a1").get().name(),
+            new IsEqual<>("a\"b.tar.bz2")
+        );
+    }
+
+    /**
+     * Finds raw member text in json.
+     * @param input Json bytes
+     * @param name Member name
+     * @return Member text from opening name quote till closing value brace
+     */
+    private String member(final byte[] input, final String name) {
+        final String json = new String(input, StandardCharsets.UTF_8);
+        final int start = json.indexOf(String.format("\"%s\"", name));
+        return json.substring(start, json.indexOf('}', start) + 1);
+    }
+}
@@ -5,7 +5,18 @@
 package com.artipie.conda.meta;
 
 import com.artipie.asto.test.TestResource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import javax.json.JsonObject;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
 import org.json.JSONException;
 import org.junit.jupiter.api.Test;
 import org.skyscreamer.jsonassert.JSONAssert;
@@ -54,4 +65,38 @@ class InfoIndexTarBzTest {
         );
     }
 
+    @Test
+    void readsInfoFilesInOnePass() throws IOException {
+        final ByteArrayOutputStream pkg = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(
+            new BZip2CompressorOutputStream(pkg)
+        )) {
+            InfoIndexTarBzTest.add(tar, "info/about.json", "{\"home\":\"https://example.com\"}");
+            InfoIndexTarBzTest.add(tar, "info/files", "lib/test.so");
+            InfoIndexTarBzTest.add(tar, "info/index.json", "{\"name\":\"test\"}");
+        }
+        final Map<String, JsonObject> files =
+            new InfoIndex.TarBz(new ByteArrayInputStream(pkg.toByteArray())).files();
+        MatcherAssert.assertThat(
+            "Should read index and about files only",
+            files.keySet(),
+            Matchers.containsInAnyOrder("info/index.json", "info/about.json")
+        );
+        MatcherAssert.assertThat(
+            "Should read about file",
+            files.get("info/about.json").getString("home"),
+            new IsEqual<>("https://example.com")
+        );
+    }
+
+    private static void add(final TarArchiveOutputStream tar, final String name,
+        final String content) throws IOException {
+        final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        final TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(bytes.length);
+        tar.putArchiveEntry(entry);
+        tar.write(bytes);
+        tar.closeArchiveEntry();
+    }
+
 }
@@ -0,0 +1,125 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link Jlap}.
+ * @since 0.4
+ */
+class JlapTest {
+
+    /**
+     * First revision checksum.
+     */
+    private static final String FIRST = String.join("", Collections.nCopies(64, "a"));
+
+    /**
+     * Second revision checksum.
+     */
+    private static final String SECOND = String.join("", Collections.nCopies(64, "b"));
+
+    /**
+     * Third revision checksum.
+     */
+    private static final String THIRD = String.join("", Collections.nCopies(64, "c"));
+
+    @Test
+    void writesNewLog() throws IOException {
+        MatcherAssert.assertThat(
+            JlapTest.string(new Jlap(JlapTest.FIRST)),
+            new IsEqual<>(
+                String.join(
+                    "\n",
+                    String.join("", Collections.nCopies(64, "0")),
+                    String.format(
+                        "{\"latest\":\"%s\",\"url\":\"repodata.json\"}", JlapTest.FIRST
+                    ),
+                    "ccf9ee6561c6581dac88358b0517602411c6c193683b63799389de1e0ddd996e"
+                )
+            )
+        );
+    }
+
+    @Test
+    void appendsAndReadsPatches() throws IOException {
+        final Jlap jlap = new Jlap.Stored(
+            JlapTest.string(
+                new Jlap(JlapTest.FIRST).append("[]", JlapTest.SECOND)
+                    .append("[{\"op\":\"remove\",\"path\":\"/packages/a\"}]", JlapTest.THIRD)
+            ).getBytes(StandardCharsets.UTF_8)
+        ).jlap();
+        MatcherAssert.assertThat(
+            "Latest revision is not correct",
+            jlap.latest(),
+            new IsEqual<>(JlapTest.THIRD)
+        );
+        MatcherAssert.assertThat(
+            "Patches are not correct",
+            jlap.patches(),
+            Matchers.contains(
+                String.format(
+                    "{\"from\":\"%s\",\"patch\":[],\"to\":\"%s\"}",
+                    JlapTest.FIRST, JlapTest.SECOND
+                ),
+                String.format(
+                    "{\"from\":\"%s\",\"patch\":%s,\"to\":\"%s\"}",
+                    JlapTest.SECOND, "[{\"op\":\"remove\",\"path\":\"/packages/a\"}]",
+                    JlapTest.THIRD
+                )
+            )
+        );
+    }
+
+    @Test
+    void trimsOldestPatches() throws IOException {
+        final Jlap full = new Jlap(JlapTest.FIRST).append("[]", JlapTest.SECOND)
+            .append("[]", JlapTest.THIRD);
+        final int size = JlapTest.string(full).length();
+        final Jlap trimmed = new Jlap.Stored(
+            JlapTest.string(full.trimmed(size - 1)).getBytes(StandardCharsets.UTF_8)
+        ).jlap();
+        MatcherAssert.assertThat(
+            "Oldest patch should be dropped",
+            trimmed.patches(),
+            Matchers.contains(full.patches().get(1))
+        );
+        MatcherAssert.assertThat(
+            "Chain of the kept lines should not change",
+            JlapTest.string(trimmed).substring(65),
+            new IsEqual<>(
+                JlapTest.string(full).substring(65 + full.patches().get(0).length() + 1)
+            )
+        );
+    }
+
+    @Test
+    void failsOnTamperedLog() throws IOException {
+        final String jlap = JlapTest.string(
+            new Jlap(JlapTest.FIRST).append("[]", JlapTest.SECOND)
+        );
+        Assertions.assertThrows(
+            IOException.class,
+            () -> new Jlap.Stored(
+                jlap.replace("\"patch\":[]", "\"patch\":[ ]").getBytes(StandardCharsets.UTF_8)
+            ).jlap()
+        );
+    }
+
+    private static String string(final Jlap jlap) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        jlap.writeTo(out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
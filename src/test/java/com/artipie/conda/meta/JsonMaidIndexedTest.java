@@ -0,0 +1,103 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.artipie.asto.test.TestResource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import org.cactoos.list.ListOf;
+import org.cactoos.set.SetOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+/**
+ * Test for {@link JsonMaid.Indexed}.
+ * @since 0.4
+ */
+class JsonMaidIndexedTest {
+
+    @ParameterizedTest
+    @ValueSource(
+        strings = {
+            "",
+            "cram-0.7-py36_1.tar.bz2",
+            "b37f144a5c2349b1c58ef17a663cb79086a1f2f49e35503e4f411f6f698cee1a",
+            "decorator-4.2.1-py27_0.tar.bz2,notebook-6.1.1-py38_0.conda",
+            "notebook-6.1.1-py38_0.conda,tenacity-6.2.0-py37_0.conda",
+            "cram-0.7-py36_1.tar.bz2,pyqt-5.6.0-py36h0386399_5.tar.bz2"
+        }
+    )
+    void cleansAsPassthroughImplementation(final String removed)
+        throws IOException, JSONException {
+        final byte[] input = new TestResource("repodata.json").asBytes();
+        final IndexingStream indexing = new IndexingStream(new ByteArrayOutputStream());
+        indexing.write(input);
+        final ByteArrayOutputStream seq = new ByteArrayOutputStream();
+        new JsonMaid.Passthrough(input, seq).clean(new SetOf<>(removed.split(",")));
+        final ByteArrayOutputStream res = new ByteArrayOutputStream();
+        new JsonMaid.Indexed(input, Optional.of(indexing.index()), res)
+            .clean(new SetOf<>(removed.split(",")));
+        JSONAssert.assertEquals(
+            seq.toString(StandardCharsets.UTF_8.name()),
+            res.toString(StandardCharsets.UTF_8.name()),
+            true
+        );
+    }
+
+    @Test
+    void splicesEntriesKeepingTheRestAsIs() throws IOException {
+        final byte[] input = String.join(
+            "",
+            "{ \"packages\" : {\n \"a.tar.bz2\" : {\"sha256\": \"1\"},\n",
+            " \"b.tar.bz2\" : {\"sha256\": \"2\"},\n \"c.tar.bz2\" : {\"sha256\": \"3\"}\n },",
+            " \"packages.conda\" : { \"d.conda\" : {\"sha256\": \"4\"} } }"
+        ).getBytes(StandardCharsets.UTF_8);
+        final IndexingStream indexing = new IndexingStream(new ByteArrayOutputStream());
+        indexing.write(input);
+        final ByteArrayOutputStream res = new ByteArrayOutputStream();
+        new JsonMaid.Indexed(input, Optional.of(indexing.index()), res)
+            .clean(new SetOf<>("2", "c.tar.bz2", "4"));
+        MatcherAssert.assertThat(
+            res.toString(StandardCharsets.UTF_8.name()),
+            new IsEqual<>(
+                String.join(
+                    "",
+                    "{ \"packages\" : {\n \"a.tar.bz2\" : {\"sha256\": \"1\"}\n },",
+                    " \"packages.conda\" : {  } }"
+                )
+            )
+        );
+    }
+
+    @Test
+    void fallsBackToFullScanWhenIndexIsStale() throws IOException, JSONException {
+        final byte[] input = new TestResource("repodata.json").asBytes();
+        final ByteArrayOutputStream res = new ByteArrayOutputStream();
+        new JsonMaid.Indexed(
+            input,
+            Optional.of(
+                new RepodataIndex(
+                    input.length, 0,
+                    new ListOf<>(new RepodataIndex.Entry("cram-0.7-py36_1.tar.bz2", "", 0, 5))
+                )
+            ),
+            res
+        ).clean(new SetOf<>("cram-0.7-py36_1.tar.bz2"));
+        final ByteArrayOutputStream seq = new ByteArrayOutputStream();
+        new JsonMaid.Passthrough(input, seq).clean(new SetOf<>("cram-0.7-py36_1.tar.bz2"));
+        JSONAssert.assertEquals(
+            seq.toString(StandardCharsets.UTF_8.name()),
+            res.toString(StandardCharsets.UTF_8.name()),
+            true
+        );
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.artipie.asto.test.TestResource;
+import com.fasterxml.jackson.core.JsonFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.cactoos.set.SetOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+/**
+ * Test for {@link JsonMaid.Passthrough}.
+ * @since 0.4
+ */
+class JsonMaidPassthroughTest {
+
+    @ParameterizedTest
+    @ValueSource(
+        strings = {
+            "",
+            "b37f144a5c2349b1c58ef17a663cb79086a1f2f49e35503e4f411f6f698cee1a",
+            "4b36cb59651f6218449bd71a7d37182f062f545240b502eebed319f77fa54b08",
+            "47d6dd01a1cff52af31804bbfffb4341fd8676c75d00d120cc66d9709e78ea7f"
+        }
+    )
+    void cleansAsSequentialImplementation(final String checksum)
+        throws IOException, JSONException {
+        final byte[] input = new TestResource("repodata.json").asBytes();
+        final ByteArrayOutputStream seq = new ByteArrayOutputStream();
+        final JsonFactory factory = new JsonFactory();
+        new JsonMaid.Jackson(factory.createGenerator(seq), factory.createParser(input))
+            .clean(new SetOf<>(checksum));
+        final ByteArrayOutputStream res = new ByteArrayOutputStream();
+        new JsonMaid.Passthrough(input, res).clean(new SetOf<>(checksum));
+        JSONAssert.assertEquals(
+            seq.toString(StandardCharsets.UTF_8.name()),
+            res.toString(StandardCharsets.UTF_8.name()),
+            true
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"py36_1", "py27_0", "py37_0", "none"})
+    void cleansByPredicateAsSequentialImplementation(final String build)
+        throws IOException, JSONException {
+        final byte[] input = new TestResource("repodata.json").asBytes();
+        final ByteArrayOutputStream seq = new ByteArrayOutputStream();
+        final JsonFactory factory = new JsonFactory();
+        new JsonMaid.Jackson(factory.createGenerator(seq), factory.createParser(input))
+            .clean(new EntryPredicate.Build(build::equals));
+        final ByteArrayOutputStream res = new ByteArrayOutputStream();
+        new JsonMaid.Passthrough(input, res).clean(new EntryPredicate.Build(build::equals));
+        JSONAssert.assertEquals(
+            seq.toString(StandardCharsets.UTF_8.name()),
+            res.toString(StandardCharsets.UTF_8.name()),
+            true
+        );
+    }
+
+    @Test
+    void copiesKeptEntriesAsIs() throws IOException {
+        final String entry = "\"a-1-0.tar.bz2\" : { \"sha256\" : \"abc\",\n \"name\": \"a\" }";
+        final byte[] input = String.join(
+            "",
+            "{\n  \"info\" : {\"subdir\":   \"noarch\"},\n  \"packages\": {\n  ",
+            entry,
+            ",\n \"b-1-0.tar.bz2\": {\"sha256\": \"def\"}\n  }\n}"
+        ).getBytes(StandardCharsets.UTF_8);
+        final ByteArrayOutputStream res = new ByteArrayOutputStream();
+        new JsonMaid.Passthrough(input, res).clean(new SetOf<>("def"));
+        MatcherAssert.assertThat(
+            res.toString(StandardCharsets.UTF_8.name()),
+            new IsEqual<>(
+                String.format(
+                    "{\"info\" : {\"subdir\":   \"noarch\"},\"packages\": {%s}}", entry
+                )
+            )
+        );
+    }
+}
@@ -46,6 +46,33 @@ class JsonMaidTest {
         );
     }
 
+    @Test
+    void removesPackagesMatchedByPredicate() throws IOException, JSONException {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        final JsonFactory factory = new JsonFactory();
+        final TestResource resource = new TestResource("repodata.json");
+        new JsonMaid.Jackson(
+            factory.createGenerator(stream).useDefaultPrettyPrinter(),
+            factory.createParser(resource.asInputStream())
+        ).clean(
+            new EntryPredicate.Any(
+                new EntryPredicate.All(
+                    new EntryPredicate.Name("pyqt"::equals),
+                    new EntryPredicate.Version("5.6.0"::equals)
+                ),
+                new EntryPredicate.Filename("notebook-6.1.1-py38_0.conda"::equals)
+            )
+        );
+        JSONAssert.assertEquals(
+            new String(
+                new TestResource("JsonMaidTest/removesPackages.json").asBytes(),
+                StandardCharsets.UTF_8
+            ),
+            stream.toString(StandardCharsets.UTF_8.name()),
+            true
+        );
+    }
+
     @Test
     void removesLastPackage() throws IOException, JSONException {
         final ByteArrayOutputStream stream = new ByteArrayOutputStream();
@@ -0,0 +1,66 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.artipie.asto.test.TestResource;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.regex.Pattern;
+import org.cactoos.list.ListOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link JsonPruner}.
+ * @since 0.4
+ */
+class JsonPrunerTest {
+
+    @Test
+    void removesExpiredPackages() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MatcherAssert.assertThat(
+            "Removed packages are not correct",
+            new JsonPruner(new TestResource("repodata.json").asBytes(), out).prune(
+                new Retention.Any(
+                    new Retention.OlderThan(Instant.ofEpochMilli(1_510_000_000_000L)),
+                    new Retention.Versions(Pattern.compile("(?!6\\.2).*"))
+                )
+            ),
+            Matchers.containsInAnyOrder(
+                "pyqt-5.6.0-py36h0386399_5.tar.bz2", "tenacity-6.2.0-py37_0.conda"
+            )
+        );
+        final JsonNode json = new ObjectMapper().readTree(out.toByteArray());
+        MatcherAssert.assertThat(
+            "Tar packages are not correct",
+            new ListOf<>(json.get("packages").fieldNames()),
+            Matchers.contains("cram-0.7-py36_1.tar.bz2", "decorator-4.2.1-py27_0.tar.bz2")
+        );
+        MatcherAssert.assertThat(
+            "Conda packages are not correct",
+            new ListOf<>(json.get("packages.conda").fieldNames()),
+            Matchers.contains("notebook-6.1.1-py38_0.conda")
+        );
+    }
+
+    @Test
+    void keepsEverythingWhenNothingExpired() throws IOException {
+        final byte[] input = new TestResource("repodata.json").asBytes();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MatcherAssert.assertThat(
+            new JsonPruner(input, out).prune(new Retention.KeepLast(1)),
+            Matchers.empty()
+        );
+        MatcherAssert.assertThat(
+            new ObjectMapper().readTree(out.toByteArray()),
+            Matchers.equalTo(new ObjectMapper().readTree(input))
+        );
+    }
+}
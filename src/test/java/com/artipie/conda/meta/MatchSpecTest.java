@@ -0,0 +1,52 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Test for {@link MatchSpec}.
+ * @since 0.4
+ */
+class MatchSpecTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "python, 3.6.1, py_0, true",
+        "'python >=3.6,<3.7.0a0', 3.6.1, py_0, true",
+        "'python >=3.6,<3.7.0a0', 3.7.0, py_0, false",
+        "'python 3.6.*', 3.6.12, py_0, true",
+        "'python 3.6*', 3.7, py_0, false",
+        "'python 3.6', 3.6.0, py_0, true",
+        "'python 3.6', 3.6.1, py_0, false",
+        "'numpy 1.11|>=1.13', 1.14, py_0, true",
+        "'numpy 1.11|>=1.13', 1.12, py_0, false",
+        "'numpy !=1.12', 1.12.0, py_0, false",
+        "'numpy ~=1.2.3', 1.2.9, py_0, true",
+        "'numpy ~=1.2.3', 1.3.0, py_0, false",
+        "numpy=1.2, 1.2.7, py_0, true",
+        "'pyqt 5.6.0 py36*', 5.6.0, py36h0386399_5, true",
+        "'pyqt 5.6.0 py37*', 5.6.0, py36h0386399_5, false"
+    })
+    void matchesVersionAndBuild(final String spec, final String version, final String build,
+        final boolean res) {
+        MatcherAssert.assertThat(
+            new MatchSpec(spec).matches(version, build),
+            new IsEqual<>(res)
+        );
+    }
+
+    @Test
+    void readsName() {
+        MatcherAssert.assertThat(
+            new MatchSpec("libgcc-ng>=7.3.0").name(),
+            new IsEqual<>("libgcc-ng")
+        );
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.artipie.asto.test.TestResource;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.cactoos.list.ListOf;
+import org.cactoos.map.MapEntry;
+import org.cactoos.map.MapOf;
+import org.cactoos.set.SetOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+/**
+ * Test for {@link MergedJson.Sorted}.
+ * @since 0.4
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+class MergedJsonSortedTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "mps1_input.json,mps1_output.json",
+        "mps2_input.json,mps2_output.json",
+        "mps3_input.json,mps3_output.json",
+        "mps4_input.json,mps4_output.json",
+        "mps5_input.json,mps5_output.json",
+        "mps6_input.json,mps6_output.json",
+        "mps7_input.json,mps6_output.json",
+        "mps8_input.json,mps6_output.json"
+    })
+    void mergesPackages(final String input, final String out) throws IOException, JSONException {
+        final byte[] res;
+        try (InputStream stream =
+            new TestResource(String.format("MergedJsonTest/%s", input)).asInputStream()) {
+            res = this.merge(Optional.of(stream), this.items());
+        }
+        JSONAssert.assertEquals(
+            new String(
+                new TestResource(String.format("MergedJsonTest/%s", out)).asBytes(),
+                StandardCharsets.UTF_8
+            ),
+            new String(res, StandardCharsets.UTF_8),
+            true
+        );
+    }
+
+    @Test
+    void addsPackagesToEmptyInput() throws IOException, JSONException {
+        JSONAssert.assertEquals(
+            new String(
+                new TestResource("MergedJsonTest/addsTarAndCondaPackages.json").asBytes(),
+                StandardCharsets.UTF_8
+            ),
+            new String(this.merge(Optional.empty(), this.items()), StandardCharsets.UTF_8),
+            true
+        );
+    }
+
+    @Test
+    void keepsPackagesSortedByFilename() throws IOException {
+        final byte[] res;
+        try (InputStream stream =
+            new TestResource("MergedJsonTest/mps1_input.json").asInputStream()) {
+            res = this.merge(Optional.of(stream), this.items());
+        }
+        MatcherAssert.assertThat(
+            "Tar packages are sorted",
+            MergedJsonSortedTest.names(res, "packages"),
+            new IsEqual<>(
+                new ListOf<>(
+                    "decorator-4.2.1-py27_0.tar.bz2",
+                    "pickleshare-0.7.4-py35hd57304d_0.tar.bz2",
+                    "pyqt-5.6.0-py36h0386399_5.tar.bz2"
+                )
+            )
+        );
+        MatcherAssert.assertThat(
+            "Conda packages are sorted",
+            MergedJsonSortedTest.names(res, "packages.conda"),
+            new IsEqual<>(
+                new ListOf<>(
+                    "notebook-6.1.1-py38_0.conda",
+                    "pylint-1.9.2-py27_0.conda",
+                    "tenacity-6.2.0-py37_0.conda"
+                )
+            )
+        );
+    }
+
+    @Test
+    void producesSameOutputOnRepeatedMerge() throws IOException {
+        final byte[] first = this.merge(Optional.empty(), this.items());
+        MatcherAssert.assertThat(
+            this.merge(Optional.of(new ByteArrayInputStream(first)), this.items()),
+            new IsEqual<>(first)
+        );
+    }
+
+    @Test
+    void removesPackagesByFilenameAndChecksum() throws IOException {
+        final ByteArrayOutputStream res = new ByteArrayOutputStream();
+        final JsonFactory factory = new JsonFactory();
+        try (InputStream stream = new TestResource("repodata.json").asInputStream()) {
+            new MergedJson.Sorted(
+                factory.createGenerator(res),
+                Optional.of(factory.createParser(stream)),
+                new SetOf<>(
+                    "cram-0.7-py36_1.tar.bz2",
+                    "47d6dd01a1cff52af31804bbfffb4341fd8676c75d00d120cc66d9709e78ea7f"
+                )
+            ).merge(
+                new MapOf<String, JsonObject>(
+                    this.packageItem("pyqt-5.6.0-py36h0386399_5.tar.bz2", "pyqt-tar.json")
+                )
+            );
+        }
+        MatcherAssert.assertThat(
+            "Tar package was removed by filename",
+            MergedJsonSortedTest.names(res.toByteArray(), "packages"),
+            new IsEqual<>(
+                new ListOf<>(
+                    "decorator-4.2.1-py27_0.tar.bz2", "pyqt-5.6.0-py36h0386399_5.tar.bz2"
+                )
+            )
+        );
+        MatcherAssert.assertThat(
+            "Conda package was removed by checksum",
+            MergedJsonSortedTest.names(res.toByteArray(), "packages.conda"),
+            new IsEqual<>(new ListOf<>("notebook-6.1.1-py38_0.conda"))
+        );
+    }
+
+    @Test
+    void replacesEntryOfUnsortedRepodata() throws IOException {
+        final byte[] res = this.merge(
+            Optional.of(
+                new ByteArrayInputStream(
+                    String.join(
+                        "",
+                        "{\"packages\":{",
+                        "\"b-1.0-0.tar.bz2\":{\"version\":\"1.0\"},",
+                        "\"a-1.0-0.tar.bz2\":{\"version\":\"1.0\"}",
+                        "},\"packages.conda\":{}}"
+                    ).getBytes(StandardCharsets.UTF_8)
+                )
+            ),
+            new MapOf<String, JsonObject>(
+                new MapEntry<>(
+                    "a-1.0-0.tar.bz2", Json.createObjectBuilder().add("version", "2.0").build()
+                )
+            )
+        );
+        MatcherAssert.assertThat(
+            "Replaced entry should be written once",
+            new String(res, StandardCharsets.UTF_8).split("\"a-1.0-0.tar.bz2\"", -1).length,
+            new IsEqual<>(2)
+        );
+        MatcherAssert.assertThat(
+            "Entry should be replaced",
+            new ObjectMapper().readTree(res).get("packages").get("a-1.0-0.tar.bz2")
+                .get("version").asText(),
+            new IsEqual<>("2.0")
+        );
+        MatcherAssert.assertThat(
+            "Other entry should be kept",
+            MergedJsonSortedTest.names(res, "packages"),
+            new IsEqual<>(new ListOf<>("a-1.0-0.tar.bz2", "b-1.0-0.tar.bz2"))
+        );
+    }
+
+    private byte[] merge(final Optional<InputStream> input, final Map<String, JsonObject> items)
+        throws IOException {
+        final ByteArrayOutputStream res = new ByteArrayOutputStream();
+        final JsonFactory factory = new JsonFactory();
+        new MergedJson.Sorted(
+            factory.createGenerator(res).useDefaultPrettyPrinter(),
+            input.isPresent()
+                ? Optional.of(factory.createParser(input.get())) : Optional.empty()
+        ).merge(items);
+        return res.toByteArray();
+    }
+
+    private Map<String, JsonObject> items() {
+        return new MapOf<String, JsonObject>(
+            this.packageItem("tenacity-6.2.0-py37_0.conda", "tenacity-conda.json"),
+            this.packageItem("pyqt-5.6.0-py36h0386399_5.tar.bz2", "pyqt-tar.json"),
+            this.packageItem("notebook-6.1.1-py38_0.conda", "notebook-conda.json"),
+            this.packageItem("decorator-4.2.1-py27_0.tar.bz2", "decorator-tar.json")
+        );
+    }
+
+    private MapEntry<String, JsonObject> packageItem(final String filename, final String resourse) {
+        return new MapEntry<String, JsonObject>(
+            filename,
+            Json.createReader(
+                new TestResource(String.format("MergedJsonTest/%s", resourse)).asInputStream()
+            ).readObject()
+        );
+    }
+
+    private static List<String> names(final byte[] json, final String field) throws IOException {
+        final List<String> res = new ArrayList<>(3);
+        new ObjectMapper().readTree(json).get(field).fieldNames().forEachRemaining(res::add);
+        return res;
+    }
+}
@@ -13,6 +13,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 import javax.json.Json;
 import javax.json.JsonObject;
+import org.cactoos.list.ListOf;
 import org.cactoos.map.MapEntry;
 import org.cactoos.map.MapOf;
 import org.json.JSONException;
@@ -177,6 +178,40 @@ class MergedJsonTest {
         );
     }
 
+    @Test
+    void mergesPackageRecords() throws IOException, JSONException {
+        final ByteArrayOutputStream res = new ByteArrayOutputStream();
+        final JsonFactory factory = new JsonFactory();
+        try (InputStream stream =
+            new TestResource("MergedJsonTest/mps1_input.json").asInputStream()) {
+            new MergedJson.Jackson(
+                factory.createGenerator(res).useDefaultPrettyPrinter(),
+                Optional.of(factory.createParser(stream))
+            ).merge(
+                new ListOf<PackageRecord>(
+                    this.packageRecord("decorator-4.2.1-py27_0.tar.bz2", "decorator-tar.json"),
+                    this.packageRecord("notebook-6.1.1-py38_0.conda", "notebook-conda.json"),
+                    this.packageRecord("pyqt-5.6.0-py36h0386399_5.tar.bz2", "pyqt-tar.json"),
+                    this.packageRecord("tenacity-6.2.0-py37_0.conda", "tenacity-conda.json")
+                )
+            );
+        }
+        JSONAssert.assertEquals(
+            new String(
+                new TestResource("MergedJsonTest/mps1_output.json").asBytes(),
+                StandardCharsets.UTF_8
+            ),
+            res.toString(StandardCharsets.UTF_8.name()),
+            true
+        );
+    }
+
+    private PackageRecord packageRecord(final String filename, final String resourse) {
+        return new PackageRecord(
+            filename, new TestResource(String.format("MergedJsonTest/%s", resourse)).asBytes()
+        );
+    }
+
     private MapEntry<String, JsonObject> packageItem(final String filename, final String resourse) {
         return new MapEntry<String, JsonObject>(
             filename,
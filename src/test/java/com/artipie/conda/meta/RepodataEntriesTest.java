@@ -0,0 +1,68 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+import org.cactoos.list.ListOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link RepodataEntries}.
+ * @since 0.4
+ */
+class RepodataEntriesTest {
+
+    /**
+     * Repodata json.
+     */
+    private static final String REPODATA = String.join(
+        "",
+        "{\"info\":{\"subdir\":\"noarch\"},\"packages\":{\n",
+        "  \"a-1-0.tar.bz2\":{\"name\":\"a\",\"version\":\"1\",\"depends\":[\"b\"]},\n",
+        "  \"b-1-0.tar.bz2\":{\"name\":\"b\",\"version\":\"1\"}\n",
+        "},\"packages.conda\":{\"c-1-0.conda\":{\"name\":\"c\",\"version\":\"1\"}},",
+        "\"repodata_version\":1}"
+    );
+
+    @Test
+    void decodesEntriesWrittenThroughIndexingStream() throws IOException {
+        final ByteArrayOutputStream res = new ByteArrayOutputStream();
+        final IndexingStream out = new IndexingStream(res);
+        out.write(RepodataEntriesTest.REPODATA.getBytes(StandardCharsets.UTF_8));
+        final RepodataEntries entries = new RepodataEntries(res.toByteArray(), out.index());
+        MatcherAssert.assertThat(
+            "Entries should have names, packages objects and dependencies",
+            entries.entries().stream()
+                .map(
+                    entry -> String.join(
+                        " ", entry.build().name(), entry.packages(), entry.depends().toString()
+                    )
+                ).collect(Collectors.toList()),
+            Matchers.contains(
+                "a packages [b]", "b packages []", "c packages.conda []"
+            )
+        );
+    }
+
+    @Test
+    void writesAcceptedEntries() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new RepodataEntries(RepodataEntriesTest.REPODATA.getBytes(StandardCharsets.UTF_8))
+            .write(out, name -> !"a-1-0.tar.bz2".equals(name));
+        MatcherAssert.assertThat(
+            new ListOf<>(
+                new ObjectMapper().readTree(out.toByteArray()).get("packages").fieldNames()
+            ),
+            new IsEqual<>(new ListOf<>("b-1-0.tar.bz2"))
+        );
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import org.cactoos.list.ListOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link RepodataIndex}.
+ * @since 0.4
+ */
+class RepodataIndexTest {
+
+    @Test
+    void writesAndReadsIndex() throws IOException {
+        final byte[] json = "{\"packages\":{}}".getBytes(StandardCharsets.UTF_8);
+        final CRC32 crc = new CRC32();
+        crc.update(json, 0, json.length);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new RepodataIndex(
+            json.length, crc.getValue(),
+            new ListOf<>(
+                new RepodataIndex.Entry("a-1-0.tar.bz2", "abc", 10, 20),
+                new RepodataIndex.Entry("b-1-0.conda", "", 21, 30)
+            )
+        ).writeTo(out);
+        final RepodataIndex index = new RepodataIndex.Stored(out.toByteArray()).index();
+        MatcherAssert.assertThat(
+            "Index does not match repodata",
+            index.matches(json),
+            new IsEqual<>(true)
+        );
+        MatcherAssert.assertThat(
+            "Entry by sha256 was not found",
+            index.find("abc").get().end(),
+            new IsEqual<>(20L)
+        );
+        MatcherAssert.assertThat(
+            "Entry by filename was not found",
+            index.find("b-1-0.conda").get().start(),
+            new IsEqual<>(21L)
+        );
+    }
+
+    @Test
+    void doesNotMatchChangedRepodata() {
+        MatcherAssert.assertThat(
+            new RepodataIndex(2, 0, new ListOf<>()).matches(new byte[]{'{', '}'}),
+            new IsEqual<>(false)
+        );
+    }
+
+    @Test
+    void failsOnUnknownFormat() {
+        Assertions.assertThrows(
+            IOException.class,
+            () -> new RepodataIndex.Stored(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}).index()
+        );
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import java.io.IOException;
+import java.util.Collections;
+import org.cactoos.list.ListOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+/**
+ * Test for {@link RepodataPatch}.
+ * @since 0.4
+ */
+class RepodataPatchTest {
+
+    @Test
+    void removesAndAddsEntries() throws IOException, JSONException {
+        JSONAssert.assertEquals(
+            String.join(
+                "",
+                "[{\"op\":\"remove\",\"path\":\"/packages/a-1-0.tar.bz2\"},",
+                "{\"op\":\"add\",\"path\":\"/packages.conda/c-1-0.conda\",",
+                "\"value\":{\"name\":\"c\",\"depends\":[\"a\"]}}]"
+            ),
+            new RepodataPatch(
+                new RepodataIndex(
+                    0, 0,
+                    new ListOf<>(
+                        new RepodataIndex.Entry("a-1-0.tar.bz2", "aaa", 0, 0),
+                        new RepodataIndex.Entry("b-1-0.tar.bz2", "bbb", 0, 0)
+                    )
+                ),
+                new RepodataIndex(
+                    0, 0,
+                    new ListOf<>(
+                        new RepodataIndex.Entry("b-1-0.tar.bz2", "bbb", 0, 0),
+                        new RepodataIndex.Entry("c-1-0.conda", "ccc", 0, 0)
+                    )
+                ),
+                new ListOf<>(
+                    new PackageRecord(
+                        "c-1-0.conda",
+                        "{\n  \"name\": \"c\",\n  \"depends\": [\"a\"]\n}".getBytes()
+                    )
+                )
+            ).json().get(),
+            true
+        );
+    }
+
+    @Test
+    void doesNotBuildPatchIfChangedEntryIsUnknown() throws IOException {
+        MatcherAssert.assertThat(
+            new RepodataPatch(
+                new RepodataIndex(
+                    0, 0, new ListOf<>(new RepodataIndex.Entry("a-1-0.tar.bz2", "aaa", 0, 0))
+                ),
+                new RepodataIndex(
+                    0, 0, new ListOf<>(new RepodataIndex.Entry("a-1-0.tar.bz2", "abc", 0, 0))
+                ),
+                Collections.emptyList()
+            ).json().isPresent(),
+            new IsEqual<>(false)
+        );
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import com.artipie.asto.test.TestResource;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.cactoos.list.ListOf;
+import org.cactoos.map.MapEntry;
+import org.cactoos.map.MapOf;
+import org.cactoos.set.SetOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link RepodataShards} and {@link ShardsIndex}.
+ * @since 0.4
+ */
+class RepodataShardsTest {
+
+    @Test
+    void groupsEntriesByPackageName() throws IOException {
+        final Map<String, byte[]> shards = new RepodataShards(
+            new TestResource("repodata.json").asBytes()
+        ).shards(name -> true);
+        MatcherAssert.assertThat(
+            "Shards should be keyed by package names",
+            shards.keySet(),
+            Matchers.contains("cram", "decorator", "notebook", "pyqt", "tenacity")
+        );
+        final JsonNode notebook = new MsgPack.Reader(shards.get("notebook")).read();
+        MatcherAssert.assertThat(
+            "Shard should contain conda entry only",
+            new ListOf<>(notebook.get("packages.conda").fieldNames()),
+            Matchers.contains("notebook-6.1.1-py38_0.conda")
+        );
+        MatcherAssert.assertThat(
+            "Shard should contain empty packages and removed",
+            notebook.get("packages").size() + notebook.get("removed").size(),
+            new IsEqual<>(0)
+        );
+    }
+
+    @Test
+    void encodesChecksumsAsBinary() throws IOException {
+        final JsonNode entry = new MsgPack.Reader(
+            new RepodataShards(new TestResource("repodata.json").asBytes())
+                .shards(new SetOf<>("cram")::contains).get("cram")
+        ).read().get("packages").get("cram-0.7-py36_1.tar.bz2");
+        MatcherAssert.assertThat(
+            "Sha256 should be binary",
+            Blake2b.hex(entry.get("sha256").binaryValue()),
+            new IsEqual<>("4b36cb59651f6218449bd71a7d37182f062f545240b502eebed319f77fa54b08")
+        );
+        MatcherAssert.assertThat(
+            "Md5 should be binary",
+            Blake2b.hex(entry.get("md5").binaryValue()),
+            new IsEqual<>("609e6545899d1d098f4160dd98fbc74d")
+        );
+        MatcherAssert.assertThat(
+            "Other fields should be kept",
+            entry.get("depends").get(0).asText(),
+            new IsEqual<>("python >=3.6,<3.7.0a0")
+        );
+    }
+
+    @Test
+    void skipsNotRequestedNames() throws IOException {
+        MatcherAssert.assertThat(
+            new RepodataShards(new TestResource("repodata.json").asBytes())
+                .shards(new SetOf<>("pyqt", "absent")::contains).keySet(),
+            Matchers.contains("pyqt")
+        );
+    }
+
+    @Test
+    void namesPackagesByEntryNameField() throws IOException {
+        final RepodataShards shards = new RepodataShards(
+            String.join(
+                "",
+                "{\"packages\":{\"odd-1.0-0.tar.bz2\":",
+                "{\"name\":\"renamed\",\"version\":\"1.0\"}}}"
+            ).getBytes(StandardCharsets.UTF_8)
+        );
+        MatcherAssert.assertThat(
+            "Shard should be keyed by the name field",
+            shards.shards(name -> true).keySet(),
+            Matchers.contains("renamed")
+        );
+        MatcherAssert.assertThat(
+            "Absent packages should be named by filename",
+            shards.names(
+                new SetOf<>(
+                    "odd-1.0-0.tar.bz2", "python-dateutil-2.8.1-py_0.tar.bz2", "broken.conda"
+                )
+            ),
+            Matchers.containsInAnyOrder("renamed", "python-dateutil", "broken.conda")
+        );
+    }
+
+    @Test
+    void writesAndReadsIndex() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ShardsIndex(
+            "linux-64",
+            new MapOf<String, byte[]>(
+                new MapEntry<>("cram", new byte[]{1, 2, 3}),
+                new MapEntry<>("pyqt", new byte[]{4, 5})
+            )
+        ).writeTo(out);
+        final JsonNode json = new MsgPack.Reader(out.toByteArray()).read();
+        MatcherAssert.assertThat(
+            "Index should contain version and subdir",
+            new ObjectMapper().writeValueAsString(json.get("info")),
+            new IsEqual<>(
+                "{\"base_url\":\"\",\"shards_base_url\":\"./shards/\",\"subdir\":\"linux-64\"}"
+            )
+        );
+        final ShardsIndex index = new ShardsIndex.Stored(out.toByteArray()).index();
+        MatcherAssert.assertThat(
+            "Index should be read back",
+            index.shards().get("pyqt"),
+            new IsEqual<>(new byte[]{4, 5})
+        );
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Test for {@link RepodataSpans}.
+ * @since 0.4
+ */
+class RepodataSpansTest {
+
+    @Test
+    void findsMembersSpans() throws IOException {
+        final String json = String.join(
+            "",
+            "{ \"info\": {\"subdir\": \"x{]\\\"\"}, \"packages\" : {",
+            "\"a\\\"b.conda\": {\"depends\": [\"c }\", {\"d\": 1}]}, \"e.conda\":{}",
+            "}, \"version\": 1.5 }"
+        );
+        final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        final RepodataSpans spans = new RepodataSpans(bytes);
+        final List<RepodataSpans.Span> root = spans.root();
+        MatcherAssert.assertThat(
+            "Root members names",
+            root.stream().map(RepodataSpans.Span::name).collect(Collectors.toList()),
+            Matchers.contains("info", "packages", "version")
+        );
+        MatcherAssert.assertThat(
+            "Scalar value span",
+            json.substring(root.get(2).value(), root.get(2).end()),
+            new IsEqual<>("1.5")
+        );
+        final List<RepodataSpans.Span> entries = spans.members(root.get(1));
+        MatcherAssert.assertThat(
+            "Entries names",
+            entries.stream().map(RepodataSpans.Span::name).collect(Collectors.toList()),
+            Matchers.contains("a\"b.conda", "e.conda")
+        );
+        MatcherAssert.assertThat(
+            "Entry span",
+            json.substring(entries.get(0).start(), entries.get(0).end()),
+            new IsEqual<>("\"a\\\"b.conda\": {\"depends\": [\"c }\", {\"d\": 1}]}")
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "  \n"})
+    void returnsEmptyListForEmptyInput(final String json) throws IOException {
+        MatcherAssert.assertThat(
+            new RepodataSpans(json.getBytes(StandardCharsets.UTF_8)).root(),
+            Matchers.empty()
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"[]", "{\"a\": {\"b\": 1}", "{\"a\" 1}", "{\"a\": \"b"})
+    void failsOnMalformedJson(final String json) {
+        Assertions.assertThrows(
+            IOException.class,
+            () -> new RepodataSpans(json.getBytes(StandardCharsets.UTF_8)).root()
+        );
+    }
+}
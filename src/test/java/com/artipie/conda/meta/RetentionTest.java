@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2023 artipie.com
+ * https://github.com/artipie/conda-adapter/LICENSE
+ */
+package com.artipie.conda.meta;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.regex.Pattern;
+import org.cactoos.list.ListOf;
+import org.cactoos.map.MapEntry;
+import org.cactoos.map.MapOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link Retention}.
+ * @since 0.4
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+class RetentionTest {
+
+    @Test
+    void keepsLastBuildsOfEachVersion() {
+        MatcherAssert.assertThat(
+            new Retention.KeepLast(2).expired(RetentionTest.builds()),
+            Matchers.containsInAnyOrder("a-1-py_0.tar.bz2", "a-1-py_0.conda")
+        );
+    }
+
+    @Test
+    void dropsOldBuilds() {
+        MatcherAssert.assertThat(
+            new Retention.OlderThan(Instant.ofEpochMilli(1_600_000_000_000L))
+                .expired(RetentionTest.builds()),
+            Matchers.containsInAnyOrder(
+                "a-1-py_0.tar.bz2", "a-1-py_0.conda", "a-1-py_1.tar.bz2"
+            )
+        );
+    }
+
+    @Test
+    void keepsMatchedVersions() {
+        MatcherAssert.assertThat(
+            new Retention.Versions(Pattern.compile("2\\..*")).expired(RetentionTest.builds()),
+            Matchers.containsInAnyOrder(
+                "a-1-py_0.tar.bz2", "a-1-py_0.conda", "a-1-py_1.tar.bz2", "a-1-py_2.tar.bz2",
+                "b-1-0.tar.bz2"
+            )
+        );
+    }
+
+    @Test
+    void combinesPolicies() {
+        MatcherAssert.assertThat(
+            new Retention.Any(
+                new Retention.KeepLast(1),
+                new Retention.OlderThan(Instant.ofEpochSecond(1_600_000_000L))
+            ).expired(RetentionTest.builds()),
+            Matchers.containsInAnyOrder(
+                "a-1-py_0.tar.bz2", "a-1-py_0.conda", "a-1-py_1.tar.bz2"
+            )
+        );
+    }
+
+    /**
+     * Test builds.
+     * @return Builds
+     */
+    private static Collection<Retention.Build> builds() {
+        return new ListOf<>(
+            RetentionTest.build("a-1-py_0.tar.bz2", "a", "1", "py_0", 0, 1_500_000_000_000L),
+            RetentionTest.build("a-1-py_0.conda", "a", "1", "py_0", 0, 1_500_000_000_000L),
+            RetentionTest.build("a-1-py_2.tar.bz2", "a", "1", "py_2", 2, 1_700_000_000_000L),
+            RetentionTest.build("a-1-py_1.tar.bz2", "a", "1", "py_1", 1, 1_550_000_000L),
+            RetentionTest.build("a-2.0-py_0.tar.bz2", "a", "2.0", "py_0", 0, 1_700_000_000L),
+            RetentionTest.build("b-1-0.tar.bz2", "b", "1", "0", 0, 0)
+        );
+    }
+
+    /**
+     * Creates build.
+     * @param filename Filename
+     * @param name Name
+     * @param version Version
+     * @param build Build string
+     * @param number Build number
+     * @param timestamp Timestamp
+     * @return Build
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private static Retention.Build build(final String filename, final String name,
+        final String version, final String build, final int number, final long timestamp) {
+        return new Retention.Build(
+            filename,
+            new MapOf<String, String>(
+                new MapEntry<>("name", name),
+                new MapEntry<>("version", version),
+                new MapEntry<>("build", build),
+                new MapEntry<>("build_number", String.valueOf(number)),
+                new MapEntry<>("timestamp", String.valueOf(timestamp))
+            )
+        );
+    }
+}